@@ -0,0 +1,69 @@
+package com.fallapp.config;
+
+import com.fallapp.service.EjecutorAcotado;
+import com.fallapp.service.TareasPendientesService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ejecutores en segundo plano, uno por carga de trabajo
+ *
+ * Sustituyen al pool por defecto de @EnableAsync: cada uno tiene nombre,
+ * hilos y cola acotados (`app.async.<carga>.hilos` / `.cola`) y métricas
+ * propias (ver EjecutorAcotado). `app.async.hilos-virtuales=true` usa hilos
+ * virtuales en todos (Java 21+).
+ *
+ * - sentimientoExecutor: lotes del pipeline de sentimiento
+ * - emailExecutor: envío de emails (SMTP lento o caído no bloquea peticiones)
+ * - estadisticasExecutor: recálculo del snapshot de estadísticas
+ * - taskExecutor: métodos @Async sin ejecutor explícito
+ *
+ * @see TareasPendientesService Destino de las tareas que no caben en la cola
+ */
+@Configuration
+public class EjecutoresConfig {
+
+    @Bean
+    public EjecutorAcotado sentimientoExecutor(
+            @Value("${app.async.sentimiento.hilos:8}") int hilos,
+            @Value("${app.async.sentimiento.cola:64}") int cola,
+            @Value("${app.async.hilos-virtuales:false}") boolean virtuales,
+            MeterRegistry meterRegistry,
+            TareasPendientesService tareasPendientes) {
+        return new EjecutorAcotado("sentimiento", hilos, cola, virtuales, meterRegistry, tareasPendientes);
+    }
+
+    @Bean
+    public EjecutorAcotado emailExecutor(
+            @Value("${app.async.email.hilos:2}") int hilos,
+            @Value("${app.async.email.cola:500}") int cola,
+            @Value("${app.async.hilos-virtuales:false}") boolean virtuales,
+            MeterRegistry meterRegistry,
+            TareasPendientesService tareasPendientes) {
+        return new EjecutorAcotado("email", hilos, cola, virtuales, meterRegistry, tareasPendientes);
+    }
+
+    @Bean
+    public EjecutorAcotado estadisticasExecutor(
+            @Value("${app.async.estadisticas.hilos:1}") int hilos,
+            @Value("${app.async.estadisticas.cola:1}") int cola,
+            @Value("${app.async.hilos-virtuales:false}") boolean virtuales,
+            MeterRegistry meterRegistry) {
+        return new EjecutorAcotado("estadisticas", hilos, cola, virtuales, meterRegistry, null);
+    }
+
+    /**
+     * Ejecutor por defecto de @Async (Spring lo busca por el nombre "taskExecutor")
+     */
+    @Bean
+    public EjecutorAcotado taskExecutor(
+            @Value("${app.async.general.hilos:4}") int hilos,
+            @Value("${app.async.general.cola:200}") int cola,
+            @Value("${app.async.hilos-virtuales:false}") boolean virtuales,
+            MeterRegistry meterRegistry,
+            TareasPendientesService tareasPendientes) {
+        return new EjecutorAcotado("general", hilos, cola, virtuales, meterRegistry, tareasPendientes);
+    }
+}
@@ -1,6 +1,7 @@
 package com.fallapp.controller;
 
 import com.fallapp.dto.ApiResponse;
+import com.fallapp.dto.SentimientoFallasDTO;
 import com.fallapp.service.ComentarioService;
 import com.fallapp.service.EstadisticasService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,11 +40,31 @@ public class AdminSentimientoController {
         return ResponseEntity.ok(ApiResponse.success(datos));
     }
 
+    /**
+     * GET /api/admin/sentimiento/ranking
+     *
+     * Fallas más queridas (?orden=queridas) o más criticadas (?orden=criticadas)
+     * según el sentimiento de sus comentarios, con al menos `minimo`
+     * comentarios analizados. Se sirve del agregado por falla, sin recorrer
+     * la tabla de comentarios.
+     */
+    @GetMapping("/sentimiento/ranking")
+    @Operation(summary = "Ranking de fallas más queridas o más criticadas por sentimiento")
+    public ResponseEntity<ApiResponse<SentimientoFallasDTO>> obtenerRankingSentimiento(
+            @RequestParam(defaultValue = "queridas") String orden,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(defaultValue = "5") int minimo
+    ) {
+        int top = (limite == null || limite <= 0) ? 10 : Math.min(limite, 100);
+        return ResponseEntity.ok(ApiResponse.success(estadisticasService.obtenerRankingSentimiento(orden, top, minimo)));
+    }
+
     /**
      * POST /api/admin/comentarios/reanalizar-sentimiento
      *
-     * Reanaliza con IA todos los comentarios que tienen sentimiento NULL.
+     * Encola para analizar con IA todos los comentarios que tienen sentimiento NULL.
      * Útil cuando el token de Hugging Face no estaba configurado al crear comentarios.
+     * El análisis se hace por lotes en segundo plano.
      */
     @PostMapping("/comentarios/reanalizar-sentimiento")
     @Operation(summary = "Reanalizar sentimiento de comentarios pendientes")
@@ -52,8 +73,8 @@ public class AdminSentimientoController {
         Map<String, Object> datos = Map.of(
             "comentariosEncolados", encolados,
             "mensaje", encolados > 0
-                ? "Intento implementar IA: se analizaron y guardaron " + encolados + " comentarios."
-                : "Intento implementar IA: no se pudo analizar ningún comentario pendiente (revisa token/configuración de IA)."
+                ? "Se encolaron " + encolados + " comentarios para analizar su sentimiento."
+                : "No hay comentarios pendientes de analizar (o la cola de análisis está llena)."
         );
         return ResponseEntity.ok(ApiResponse.success(datos));
     }
@@ -47,14 +47,9 @@ public class AuthController {
         // Crear usuario (se encargará de encriptar la contraseña)
         UsuarioDTO usuario = usuarioService.registrar(request);
         
-        // Enviar email de bienvenida
-        boolean emailEnviado = true;
-        try {
-            emailService.sendWelcomeEmail(usuario.getEmail(), usuario.getNombreCompleto());
-        } catch (Exception e) {
-            emailEnviado = false;
-            logger.error("Error al enviar email de bienvenida a {}", usuario.getEmail(), e);
-        }
+        // Enviar email de bienvenida (en segundo plano: un SMTP lento no retrasa el registro)
+        boolean emailEnviado = emailService.enviarBienvenidaEnSegundoPlano(
+                usuario.getEmail(), usuario.getNombreCompleto());
         
         // Generar token JWT (usando email como username)
         String token = jwtTokenProvider.generateTokenFromUsername(usuario.getEmail());
@@ -71,7 +66,7 @@ public class AuthController {
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success(
                     emailEnviado
-                        ? "Usuario registrado correctamente. Te hemos enviado un correo de bienvenida."
+                        ? "Usuario registrado correctamente. Te enviaremos un correo de bienvenida."
                         : "Usuario registrado correctamente, pero no se pudo enviar el correo de bienvenida.",
                     response
                 ));
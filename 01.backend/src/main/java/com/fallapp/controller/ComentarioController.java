@@ -2,6 +2,7 @@ package com.fallapp.controller;
 
 import com.fallapp.dto.ApiResponse;
 import com.fallapp.dto.ComentarioDTO;
+import com.fallapp.dto.PaginaComentariosDTO;
 import com.fallapp.service.ComentarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,15 +10,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controlador REST para gestión de Comentarios en fallas y ninots
  * 
  * Endpoints: /api/comentarios
  * 
  * Funcionalidad:
- * - GET /api/comentarios?idFalla={id} - Listar comentarios de una falla (público)
+ * - GET /api/comentarios?idFalla={id}&limite=&cursor= - Listar comentarios, paginado por cursor (público)
  * - GET /api/comentarios/{id} - Obtener comentario por ID (público)
  * - POST /api/comentarios - Crear comentario (requiere autenticación JWT)
  * - PUT /api/comentarios/{id} - Actualizar comentario (requiere ser autor o admin)
@@ -52,36 +51,28 @@ public class ComentarioController {
     private final ComentarioService comentarioService;
     
     /**
-     * GET /api/comentarios - Obtener comentarios filtrados
-     * 
-     * Permite filtrar comentarios por falla o ninot usando query parameters.
-     * Si no se proporciona ningún filtro, retorna todos los comentarios.
+     * GET /api/comentarios - Listar comentarios (paginación por cursor)
      * 
      * Ejemplos:
-     * - GET /api/comentarios?idFalla=1 → Comentarios de falla con ID 1
-     * - GET /api/comentarios?idNinot=5 → Comentarios de ninot con ID 5
-     * - GET /api/comentarios → Todos los comentarios
+     * - GET /api/comentarios?idFalla=1 → Primera página de comentarios de la falla 1
+     * - GET /api/comentarios?idFalla=1&cursor={siguienteCursor} → Página siguiente
+     * - GET /api/comentarios?limite=50 → Últimos 50 comentarios de todas las fallas
      * 
      * Ordenamiento: Descendente por fecha de creación (más recientes primero)
      * 
-    * @param idFalla ID de la falla (opcional)
-     * @return ApiResponse con lista de ComentarioDTO ordenados por fecha
-     * @throws ResourceNotFoundException Si idFalla o idNinot no existen
+     * @param idFalla ID de la falla (opcional)
+     * @param limite Tamaño de página (por defecto 20, máximo 100)
+     * @param cursor `siguienteCursor` de la respuesta anterior (opcional)
+     * @return ApiResponse con la página de ComentarioDTO y el cursor siguiente
+     * @throws ResourceNotFoundException Si idFalla no existe
      */
     @GetMapping
-    @Operation(summary = "Obtener comentarios", description = "Obtener comentarios filtrados por falla")
-    public ResponseEntity<ApiResponse<List<ComentarioDTO>>> obtener(
-            @RequestParam(required = false) Long idFalla) {
-        
-        List<ComentarioDTO> comentarios;
-        
-        if (idFalla != null) {
-            comentarios = comentarioService.obtenerPorFalla(idFalla);
-        } else {
-            comentarios = comentarioService.obtenerTodos();
-        }
-        
-        return ResponseEntity.ok(ApiResponse.success(comentarios));
+    @Operation(summary = "Obtener comentarios", description = "Listar comentarios (opcionalmente de una falla) con paginación por cursor")
+    public ResponseEntity<ApiResponse<PaginaComentariosDTO>> obtener(
+            @RequestParam(required = false) Long idFalla,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(ApiResponse.success(comentarioService.listar(idFalla, limite, cursor)));
     }
     
     /**
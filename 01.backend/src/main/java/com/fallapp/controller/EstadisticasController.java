@@ -1,13 +1,22 @@
 package com.fallapp.controller;
 
 import com.fallapp.dto.ApiResponse;
+import com.fallapp.dto.TendenciaVotosDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.model.Voto;
 import com.fallapp.service.EstadisticasService;
+import com.fallapp.service.RankingStreamService;
+import com.fallapp.service.TendenciaVotosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -19,13 +28,15 @@ import java.util.Map;
  * - GET /api/estadisticas/resumen - Dashboard general (totales, promedios, actividad)
  * - GET /api/estadisticas/fallas - Analytics por categoría, sección, año fundación
  * - GET /api/estadisticas/votos - Top 10 fallas y ninots más votados
+ * - GET /api/estadisticas/votos/stream - Ranking en directo (Server-Sent Events)
+ * - GET /api/estadisticas/votos/tendencia - Fallas que más suben en una ventana (?ventana=1h)
  * - GET /api/estadisticas/usuarios - Distribución por roles, actividad
- * - GET /api/estadisticas/actividad - Stream de actividad reciente (15 días)
+ * - GET /api/estadisticas/actividad - Stream de actividad reciente (cursor antesDe/antesDeTipo/antesDeId)
  * - GET /api/estadisticas/eventos - Distribución por tipo, participación
  * 
  * Características:
  * - Todos los endpoints son públicos (lectura sin autenticación)
- * - Agregaciones realizadas en capa de servicio (no en BD)
+ * - Agregados del dashboard calculados en BD (2 queries) y cacheados con TTL corto
  * - Respuestas tipo Map<String, Object> para flexibilidad JSON
  * - Performance: Queries optimizadas con índices en BD
  * 
@@ -34,7 +45,7 @@ import java.util.Map;
  * - Fallas: {porCategoria, porSeccion, promedioAnyoFundacion}
  * - Votos: {top10Fallas: [{nombre, votos, nota}], top10Ninots: [{nombre, votos, nota}]}
  * - Usuarios: {porRol: {admin: X, casal: Y, usuario: Z}, totalActivos}
- * - Actividad: {usuariosNuevos, fallasNuevas, votosRecientes, comentariosRecientes}
+ * - Actividad: {ultimosComentarios, ultimosVotos, actividad, siguienteCursor}
  * - Eventos: {porTipo, totalParticipantes, eventosPorFalla}
  * 
  * Casos de Uso:
@@ -62,6 +73,8 @@ import java.util.Map;
 public class EstadisticasController {
     
     private final EstadisticasService estadisticasService;
+    private final RankingStreamService rankingStreamService;
+    private final TendenciaVotosService tendenciaVotosService;
     
     /**
      * GET /api/estadisticas/resumen - Resumen general del sistema
@@ -131,6 +144,50 @@ public class EstadisticasController {
         return ResponseEntity.ok(ApiResponse.success(estadisticas));
     }
     
+    /**
+     * GET /api/estadisticas/votos/stream - Ranking de votos en directo (SSE)
+     *
+     * Eventos:
+     * - snapshot: {version, rankings: {GLOBAL: [...], EXPERIMENTAL: [...], ...}, totalVotos: {...}}
+     * - delta: {version, cambios: {GLOBAL: [{posicion, idFalla, nombre, seccion, votos}]},
+     *           longitudes: {...}, totalVotos: {...}} (solo lo que cambió)
+     *
+     * Un delta se aplica sobre la versión anterior; si el cliente pierde alguno
+     * recibe un snapshot completo.
+     */
+    @GetMapping(path = "/votos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Ranking de votos en directo (Server-Sent Events)")
+    public SseEmitter streamVotos() {
+        return rankingStreamService.suscribir();
+    }
+
+    /**
+     * GET /api/estadisticas/votos/tendencia - Fallas que más suben en votos
+     *
+     * Compara los votos de la ventana (1-60m, 1-24h, 1-30d) con los de la
+     * ventana anterior de igual duración y ordena por incremento. Se sirve
+     * de contadores por minuto/hora en memoria y de la tabla consolidada por
+     * horas; no recorre la tabla de votos.
+     */
+    @GetMapping("/votos/tendencia")
+    @Operation(summary = "Fallas con mayor subida de votos en una ventana de tiempo")
+    public ResponseEntity<ApiResponse<TendenciaVotosDTO>> obtenerTendenciaVotos(
+            @RequestParam(defaultValue = "1h") String ventana,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) String tipoVoto
+    ) {
+        Voto.TipoVoto tipo = null;
+        if (tipoVoto != null && !tipoVoto.isBlank()) {
+            try {
+                tipo = Voto.TipoVoto.valueOf(tipoVoto);
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("Tipo de voto no válido: " + tipoVoto);
+            }
+        }
+        int top = (limite == null || limite <= 0) ? 10 : Math.min(limite, 100);
+        return ResponseEntity.ok(ApiResponse.success(tendenciaVotosService.obtenerTendencia(ventana, tipo, top)));
+    }
+
     /**
      * GET /api/estadisticas/usuarios - Estadísticas de usuarios
      */
@@ -143,11 +200,19 @@ public class EstadisticasController {
     
     /**
      * GET /api/estadisticas/actividad - Actividad reciente del sistema
+     * 
+     * Paginación keyset: para la página siguiente se envían antesDe/antesDeTipo/antesDeId
+     * con los valores de `siguienteCursor` de la respuesta anterior.
      */
     @GetMapping("/actividad")
-    @Operation(summary = "Obtener actividad reciente: últimos comentarios, votos, usuarios")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> obtenerActividadReciente() {
-        Map<String, Object> actividad = estadisticasService.obtenerActividadReciente();
+    @Operation(summary = "Obtener actividad reciente: últimos comentarios y votos (paginación por cursor)")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> obtenerActividadReciente(
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDe,
+            @RequestParam(required = false) String antesDeTipo,
+            @RequestParam(required = false) Long antesDeId
+    ) {
+        Map<String, Object> actividad = estadisticasService.obtenerActividadReciente(limite, antesDe, antesDeTipo, antesDeId);
         return ResponseEntity.ok(ApiResponse.success(actividad));
     }
     
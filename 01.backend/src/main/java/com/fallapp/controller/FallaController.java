@@ -3,16 +3,22 @@ package com.fallapp.controller;
 import com.fallapp.dto.ApiResponse;
 import com.fallapp.dto.FallaDTO;
 import com.fallapp.dto.PaginatedResponse;
+import com.fallapp.dto.RutaDTO;
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.dto.TeselaDTO;
 import com.fallapp.dto.UbicacionDTO;
 import com.fallapp.service.FallaService;
+import com.fallapp.service.SugerenciasService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador para gestión de fallas
@@ -24,6 +30,7 @@ import java.util.List;
 public class FallaController {
 
     private final FallaService fallaService;
+    private final SugerenciasService sugerenciasService;
 
     @GetMapping
     @Operation(summary = "Listar fallas con paginación")
@@ -51,13 +58,27 @@ public class FallaController {
     }
 
     @GetMapping("/buscar")
-    @Operation(summary = "Buscar fallas por texto (full-text search)")
+    @Operation(summary = "Buscar fallas por texto",
+               description = "Sobre nombre, lema, artista y sección; sin acentos y por prefijo (typeahead). " +
+                       "Ordenadas por relevancia (puntuacion) con los términos resaltados (resaltado).")
     public ResponseEntity<ApiResponse<List<FallaDTO>>> buscar(
-            @Parameter(description = "Texto a buscar") @RequestParam String texto) {
-        List<FallaDTO> resultados = fallaService.buscar(texto);
+            @Parameter(description = "Texto a buscar") @RequestParam String texto,
+            @Parameter(description = "Máximo de resultados (1-100)") @RequestParam(defaultValue = "20") int limite) {
+        List<FallaDTO> resultados = fallaService.buscar(texto, limite);
         return ResponseEntity.ok(ApiResponse.success(resultados));
     }
 
+    @GetMapping("/sugerencias")
+    @Operation(summary = "Sugerencias de autocompletado para el buscador",
+               description = "Nombres de falla, artistas y lemas que empiezan (por palabra) por el texto tecleado, " +
+                       "ordenados por votos. Sin acentos ni mayúsculas.")
+    public ResponseEntity<ApiResponse<List<SugerenciaDTO>>> sugerir(
+            @Parameter(description = "Texto tecleado") @RequestParam String q,
+            @Parameter(description = "Máximo de sugerencias (1-10)") @RequestParam(defaultValue = "10") int limite) {
+        List<SugerenciaDTO> sugerencias = sugerenciasService.sugerir(q, limite);
+        return ResponseEntity.ok(ApiResponse.success(sugerencias));
+    }
+
     @GetMapping("/cercanas")
     @Operation(summary = "Buscar fallas cercanas a una ubicación")
     public ResponseEntity<ApiResponse<List<FallaDTO>>> buscarCercanas(
@@ -68,6 +89,40 @@ public class FallaController {
         return ResponseEntity.ok(ApiResponse.success(resultados));
     }
 
+    @GetMapping("/cercanas/k")
+    @Operation(summary = "Obtener las k fallas más cercanas a una ubicación",
+               description = "Ordenadas por distancia (distanciaKm). Pensado para el mapa: evita descargar el catálogo completo.")
+    public ResponseEntity<ApiResponse<List<FallaDTO>>> buscarKMasCercanas(
+            @Parameter(description = "Latitud") @RequestParam double latitud,
+            @Parameter(description = "Longitud") @RequestParam double longitud,
+            @Parameter(description = "Número de fallas (1-50)") @RequestParam(defaultValue = "10") int k) {
+        List<FallaDTO> resultados = fallaService.buscarKMasCercanas(latitud, longitud, k);
+        return ResponseEntity.ok(ApiResponse.success(resultados));
+    }
+
+    @GetMapping("/ruta")
+    @Operation(summary = "Ordenar un conjunto de fallas como ruta a pie",
+               description = "Orden de visita por vecino más cercano, partiendo del origen indicado o de la primera falla.")
+    public ResponseEntity<ApiResponse<RutaDTO>> calcularRuta(
+            @Parameter(description = "IDs de las fallas a visitar (máx. 100)") @RequestParam List<Long> ids,
+            @Parameter(description = "Latitud de origen (opcional)") @RequestParam(required = false) Double latitud,
+            @Parameter(description = "Longitud de origen (opcional)") @RequestParam(required = false) Double longitud) {
+        RutaDTO ruta = fallaService.calcularRuta(ids, latitud, longitud);
+        return ResponseEntity.ok(ApiResponse.success(ruta));
+    }
+
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    @Operation(summary = "Obtener una tesela del mapa con fallas agrupadas",
+               description = "Esquema slippy map (z/x/y). Clusters con total, centroide y categoría dominante; "
+                       + "marcadores individuales a partir de zoom 16.")
+    public ResponseEntity<ApiResponse<TeselaDTO>> obtenerTesela(
+            @PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        TeselaDTO tesela = fallaService.obtenerTesela(z, x, y);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic())
+                .body(ApiResponse.success(tesela));
+    }
+
     @GetMapping("/seccion/{seccion}")
     @Operation(summary = "Obtener fallas por sección")
     public ResponseEntity<ApiResponse<List<FallaDTO>>> obtenerPorSeccion(@PathVariable String seccion) {
@@ -2,11 +2,16 @@ package com.fallapp.controller;
 
 import com.fallapp.dto.ApiResponse;
 import com.fallapp.dto.CrearVotoRequest;
+import com.fallapp.dto.CrearVotosLoteRequest;
+import com.fallapp.dto.EstadoVotosDTO;
 import com.fallapp.dto.VotoDTO;
+import com.fallapp.dto.VotoLoteDTO;
 import com.fallapp.exception.BadRequestException;
 import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Usuario;
 import com.fallapp.repository.UsuarioRepository;
+import com.fallapp.service.EstadoVotosService;
+import com.fallapp.service.VotoBufferService;
 import com.fallapp.service.VotoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -30,6 +35,8 @@ import java.util.List;
 public class VotoController {
 
     private final VotoService votoService;
+    private final VotoBufferService votoBufferService;
+    private final EstadoVotosService estadoVotosService;
     private final UsuarioRepository usuarioRepository;
 
     @PostMapping
@@ -40,13 +47,34 @@ public class VotoController {
         // Obtener usuario autenticado desde JWT (username es el email)
         Usuario usuario = usuarioRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-        
-        VotoDTO voto = votoService.votar(usuario.getIdUsuario(), request);
+
+        // Con el buffer activo el voto se escribe en BD en el siguiente lote (202)
+        if (votoBufferService.activo()) {
+            VotoDTO voto = votoBufferService.encolar(usuario.getIdUsuario(), usuario.getNombreCompleto(), request);
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Voto aceptado", voto));
+        }
+
+        VotoDTO voto = votoService.votar(usuario.getIdUsuario(), usuario.getNombreCompleto(), request);
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Voto registrado", voto));
     }
 
+    @PostMapping("/lote")
+    @Operation(summary = "Crear varios votos en una sola petición",
+               description = "Devuelve el resultado de cada voto: CREADO, DUPLICADO o FALLA_INEXISTENTE")
+    public ResponseEntity<ApiResponse<VotoLoteDTO>> votarLote(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody CrearVotosLoteRequest request) {
+        Usuario usuario = usuarioRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+        VotoLoteDTO resultado = votoService.votarLote(usuario.getIdUsuario(), request.getVotos());
+        return ResponseEntity.ok(ApiResponse.success("Lote procesado", resultado));
+    }
+
     @GetMapping("/usuario/{idUsuario}")
     @Operation(summary = "Obtener votos de un usuario")
     public ResponseEntity<ApiResponse<List<VotoDTO>>> obtenerVotosUsuario(
@@ -55,13 +83,27 @@ public class VotoController {
         Usuario usuarioAutenticado = usuarioRepository.findByEmail(userDetails.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
         if (!usuarioAutenticado.getIdUsuario().equals(idUsuario) && 
-            !usuarioAutenticado.getRol().name().equals("ADMIN")) {
+            usuarioAutenticado.getRol() != Usuario.RolUsuario.admin) {
             throw new BadRequestException("No tienes permisos para ver los votos de otro usuario");
         }
         List<VotoDTO> votos = votoService.obtenerVotosUsuario(idUsuario);
         return ResponseEntity.ok(ApiResponse.success(votos));
     }
 
+    @GetMapping("/usuario/{idUsuario}/estado")
+    @Operation(summary = "Obtener qué fallas ha votado un usuario (bitmap compacto)")
+    public ResponseEntity<ApiResponse<EstadoVotosDTO>> obtenerEstadoVotosUsuario(
+            @PathVariable Long idUsuario,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Usuario usuarioAutenticado = usuarioRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        if (!usuarioAutenticado.getIdUsuario().equals(idUsuario) &&
+            usuarioAutenticado.getRol() != Usuario.RolUsuario.admin) {
+            throw new BadRequestException("No tienes permisos para ver los votos de otro usuario");
+        }
+        return ResponseEntity.ok(ApiResponse.success(estadoVotosService.obtenerEstado(idUsuario)));
+    }
+
     @GetMapping("/falla/{idFalla}")
     @Operation(summary = "Obtener votos de una falla")
     public ResponseEntity<ApiResponse<List<VotoDTO>>> obtenerVotosFalla(@PathVariable Long idFalla) {
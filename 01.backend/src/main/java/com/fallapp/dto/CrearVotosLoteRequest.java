@@ -0,0 +1,27 @@
+package com.fallapp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para crear varios votos en una sola petición
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrearVotosLoteRequest {
+
+    /** Máximo de votos por lote (≈ 100 fallas × 3 tipos) */
+    public static final int MAX_VOTOS = 300;
+
+    @NotEmpty(message = "El lote debe contener al menos un voto")
+    @Size(max = MAX_VOTOS, message = "El lote no puede tener más de " + MAX_VOTOS + " votos")
+    private List<@Valid @NotNull CrearVotoRequest> votos;
+}
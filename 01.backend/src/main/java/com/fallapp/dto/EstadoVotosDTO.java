@@ -0,0 +1,30 @@
+package com.fallapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Estado compacto de los votos de un usuario
+ *
+ * `bits` es un bitmap en Base64 (bytes little-endian, como BitSet.toByteArray):
+ * el bit `idFalla * tipos.size() + posición del tipo en tipos` está a 1 si el
+ * usuario ya votó esa falla con ese tipo. Para saber si el botón de un tipo
+ * debe estar desactivado:
+ *
+ *   i = idFalla * tipos.size() + tipos.indexOf(tipo)
+ *   votado = i / 8 < bytes.length && (bytes[i / 8] >> (i % 8)) & 1 == 1
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadoVotosDTO {
+    private Long idUsuario;
+    private List<String> tipos;
+    private String bits;
+    private Integer totalVotos;
+}
@@ -1,5 +1,6 @@
 package com.fallapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,12 +8,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * DTO para transferencia de datos de Falla
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class FallaDTO {
@@ -64,4 +66,16 @@ public class FallaDTO {
     private Integer totalMiembros;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
+
+    /** Distancia en km al punto consultado (solo en búsquedas por cercanía) */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanciaKm;
+
+    /** Relevancia BM25 (solo en búsquedas por texto) */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double puntuacion;
+
+    /** Campos con los términos encontrados marcados con &lt;mark&gt; (solo en búsquedas por texto) */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> resaltado;
 }
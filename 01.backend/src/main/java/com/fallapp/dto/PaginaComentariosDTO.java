@@ -0,0 +1,28 @@
+package com.fallapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de comentarios con paginación por cursor (GET /api/comentarios)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Página de comentarios, más recientes primero")
+public class PaginaComentariosDTO {
+
+    private List<ComentarioDTO> comentarios;
+
+    @Schema(description = "Cursor para pedir la página siguiente (null si no hay más)", example = "MjAyNi0wMi0xMFQxNTowMDowMHwxMjM")
+    private String siguienteCursor;
+
+    @Schema(description = "Tamaño de página aplicado", example = "20")
+    private Integer limite;
+}
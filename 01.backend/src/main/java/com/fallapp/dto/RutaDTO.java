@@ -0,0 +1,29 @@
+package com.fallapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el orden de visita sugerido para un conjunto de fallas
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ruta a pie por varias fallas (vecino más cercano)")
+public class RutaDTO {
+
+    @Schema(description = "Fallas en orden de visita; distanciaKm es el tramo desde la parada anterior (o el origen)")
+    private List<FallaDTO> paradas;
+
+    @Schema(description = "Distancia total de la ruta en km", example = "3.42")
+    private Double distanciaTotalKm;
+
+    @Schema(description = "IDs solicitados sin coordenadas GPS (no incluidos en la ruta)")
+    private List<Long> sinUbicacion;
+}
@@ -0,0 +1,63 @@
+package com.fallapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el ranking de fallas por sentimiento de sus comentarios
+ * (GET /api/admin/sentimiento/ranking)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Fallas más queridas o más criticadas según el sentimiento de sus comentarios")
+public class SentimientoFallasDTO {
+
+    @Schema(description = "Orden solicitado", example = "queridas", allowableValues = {"queridas", "criticadas"})
+    private String orden;
+
+    @Schema(description = "Comentarios analizados mínimos para entrar en el ranking", example = "5")
+    private Integer minimoAnalizados;
+
+    private List<FallaSentimiento> fallas;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FallaSentimiento {
+
+        private Long idFalla;
+
+        private String nombre;
+
+        private String seccion;
+
+        @Schema(example = "25")
+        private Long positivos;
+
+        @Schema(example = "5")
+        private Long neutrales;
+
+        @Schema(example = "3")
+        private Long negativos;
+
+        @Schema(description = "Comentarios aún sin etiqueta", example = "2")
+        private Long pendientes;
+
+        @Schema(description = "positivos + neutrales + negativos", example = "33")
+        private Long analizados;
+
+        @Schema(description = "% de positivos sobre los analizados", example = "75.8")
+        private Double porcentajePositivos;
+
+        @Schema(description = "% de negativos sobre los analizados", example = "9.1")
+        private Double porcentajeNegativos;
+    }
+}
@@ -0,0 +1,41 @@
+package com.fallapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de una sugerencia del buscador (autocompletado)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sugerencia de autocompletado: nombre de falla, artista o lema")
+public class SugerenciaDTO {
+
+    @Schema(description = "Texto a mostrar tal cual está en el catálogo", example = "Na Jordana")
+    private String texto;
+
+    @Schema(description = "Campo de origen", example = "FALLA")
+    private TipoSugerencia tipo;
+
+    @Schema(description = "Falla asociada (null si el artista o lema corresponde a varias fallas)", example = "1")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long idFalla;
+
+    @Schema(description = "Número de fallas con este texto", example = "1")
+    private Integer totalFallas;
+
+    @Schema(description = "Votos que acumulan esas fallas (peso de la sugerencia)", example = "42")
+    private Long votos;
+
+    public enum TipoSugerencia {
+        FALLA,
+        ARTISTA,
+        LEMA
+    }
+}
@@ -0,0 +1,62 @@
+package com.fallapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO con las fallas que más suben en votos (GET /api/estadisticas/votos/tendencia)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Fallas con mayor subida de votos en una ventana frente a la ventana anterior")
+public class TendenciaVotosDTO {
+
+    @Schema(description = "Ventana solicitada", example = "1h")
+    private String ventana;
+
+    @Schema(description = "Tipo de voto filtrado (ALL = todos)", example = "ALL")
+    private String filtroTipoVoto;
+
+    @Schema(description = "Inicio de la ventana actual (UTC)")
+    private Instant desde;
+
+    @Schema(description = "Fin de la ventana actual (UTC)")
+    private Instant hasta;
+
+    private List<FallaTendencia> fallas;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FallaTendencia {
+
+        private Long idFalla;
+
+        private String nombre;
+
+        private String seccion;
+
+        @Schema(description = "Votos en la ventana actual", example = "120")
+        private Long votos;
+
+        @Schema(description = "Votos en la ventana anterior de la misma duración", example = "45")
+        private Long votosAnteriores;
+
+        @Schema(description = "votos - votosAnteriores", example = "75")
+        private Long incremento;
+
+        @Schema(description = "Crecimiento en % sobre la ventana anterior (sin valor si no tenía votos)", example = "166.7")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Double crecimiento;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fallapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de una tesela del mapa (esquema slippy map z/x/y)
+ *
+ * A zoom bajo trae clusters agregados; a partir del zoom de detalle
+ * trae directamente los marcadores individuales.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Tesela del mapa de fallas con clusters o marcadores")
+public class TeselaDTO {
+
+    @Schema(description = "Zoom", example = "13")
+    private Integer z;
+
+    @Schema(description = "Columna de la tesela", example = "4087")
+    private Integer x;
+
+    @Schema(description = "Fila de la tesela", example = "3117")
+    private Integer y;
+
+    @Schema(description = "Versión del catálogo con la que se calculó la tesela", example = "3")
+    private Long version;
+
+    @Schema(description = "Fallas dentro de la tesela", example = "42")
+    private Integer totalFallas;
+
+    @Schema(description = "Clusters agregados (zoom bajo)")
+    private List<Cluster> clusters;
+
+    @Schema(description = "Marcadores individuales (zoom de detalle)")
+    private List<Marcador> fallas;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Cluster {
+        private Integer total;
+        private Double latitud;
+        private Double longitud;
+        private String categoriaDominante;
+        /** Solo cuando el cluster contiene una única falla */
+        private Long idFalla;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Marcador {
+        private Long idFalla;
+        private String nombre;
+        private String categoria;
+        private Double latitud;
+        private Double longitud;
+    }
+}
@@ -0,0 +1,58 @@
+package com.fallapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de un lote de votos (POST /api/votos/lote)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de un lote de votos, con el detalle de cada voto en el orden de la petición")
+public class VotoLoteDTO {
+
+    @Schema(description = "Votos registrados", example = "4")
+    private Integer creados;
+
+    @Schema(description = "Votos ya existentes o repetidos dentro del lote", example = "1")
+    private Integer duplicados;
+
+    @Schema(description = "Votos a fallas inexistentes", example = "0")
+    private Integer invalidos;
+
+    private List<Resultado> resultados;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resultado {
+
+        @Schema(description = "Posición del voto en la petición (desde 0)", example = "0")
+        private Integer indice;
+
+        private Long idFalla;
+
+        private String tipoVoto;
+
+        private EstadoVoto estado;
+
+        @Schema(description = "ID del voto creado (solo si estado = CREADO)", example = "342")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Long idVoto;
+    }
+
+    public enum EstadoVoto {
+        CREADO,
+        DUPLICADO,
+        FALLA_INEXISTENTE
+    }
+}
@@ -0,0 +1,20 @@
+package com.fallapp.exception;
+
+/**
+ * Excepción para saturación temporal del servidor (HTTP 503)
+ *
+ * El cliente puede reintentar pasados `reintentarEnSegundos`.
+ */
+public class ServicioNoDisponibleException extends RuntimeException {
+
+    private final int reintentarEnSegundos;
+
+    public ServicioNoDisponibleException(String mensaje, int reintentarEnSegundos) {
+        super(mensaje);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public int getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
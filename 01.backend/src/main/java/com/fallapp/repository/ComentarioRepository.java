@@ -1,5 +1,6 @@
 package com.fallapp.repository;
 
+import com.fallapp.dto.ComentarioDTO;
 import com.fallapp.model.Comentario;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
@@ -11,6 +12,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -24,8 +27,51 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
      */
     Page<Comentario> findByUsuario(Usuario usuario, Pageable pageable);
 
-    @Query("SELECT c FROM Comentario c JOIN FETCH c.usuario WHERE c.falla = :falla ORDER BY c.creadoEn DESC")
-    List<Comentario> findByFallaOrderByCreadoEnDesc(@Param("falla") Falla falla);
+    /**
+     * Listado de comentarios como DTO, con nombres de usuario y falla en la misma query.
+     * Orden (fecha, id) DESC; el límite lo marca el Pageable (LIMIT en BD).
+     */
+    @Query("SELECT new com.fallapp.dto.ComentarioDTO(c.idComentario, u.idUsuario, u.nombreCompleto, f.idFalla, f.nombre, " +
+            "c.contenido, c.creadoEn, c.actualizadoEn, c.sentimiento) " +
+            "FROM Comentario c LEFT JOIN c.usuario u LEFT JOIN c.falla f " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<ComentarioDTO> findPagina(Pageable pageable);
+
+    /**
+     * Igual que findPagina pero empezando justo después del cursor (fecha, id).
+     */
+    @Query("SELECT new com.fallapp.dto.ComentarioDTO(c.idComentario, u.idUsuario, u.nombreCompleto, f.idFalla, f.nombre, " +
+            "c.contenido, c.creadoEn, c.actualizadoEn, c.sentimiento) " +
+            "FROM Comentario c LEFT JOIN c.usuario u LEFT JOIN c.falla f " +
+            "WHERE c.creadoEn < :fecha OR (c.creadoEn = :fecha AND c.idComentario < :id) " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<ComentarioDTO> findPaginaAnteriorA(@Param("fecha") LocalDateTime fecha,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    /**
+     * Comentarios de una falla como DTO, orden (fecha, id) DESC.
+     */
+    @Query("SELECT new com.fallapp.dto.ComentarioDTO(c.idComentario, u.idUsuario, u.nombreCompleto, f.idFalla, f.nombre, " +
+            "c.contenido, c.creadoEn, c.actualizadoEn, c.sentimiento) " +
+            "FROM Comentario c LEFT JOIN c.usuario u JOIN c.falla f " +
+            "WHERE f.idFalla = :idFalla " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<ComentarioDTO> findPaginaPorFalla(@Param("idFalla") Long idFalla, Pageable pageable);
+
+    /**
+     * Igual que findPaginaPorFalla pero empezando justo después del cursor (fecha, id).
+     */
+    @Query("SELECT new com.fallapp.dto.ComentarioDTO(c.idComentario, u.idUsuario, u.nombreCompleto, f.idFalla, f.nombre, " +
+            "c.contenido, c.creadoEn, c.actualizadoEn, c.sentimiento) " +
+            "FROM Comentario c LEFT JOIN c.usuario u JOIN c.falla f " +
+            "WHERE f.idFalla = :idFalla " +
+            "AND (c.creadoEn < :fecha OR (c.creadoEn = :fecha AND c.idComentario < :id)) " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<ComentarioDTO> findPaginaPorFallaAnteriorA(@Param("idFalla") Long idFalla,
+                                                    @Param("fecha") LocalDateTime fecha,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
 
     /**
      * Buscar comentarios por falla con paginación
@@ -37,16 +83,6 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
      */
     long countByFalla(Falla falla);
 
-    /**
-     * Agrupar comentarios por sentimiento para una falla concreta.
-     * Devuelve pares (sentimiento, total).
-     */
-    @Query("SELECT c.sentimiento, COUNT(c) " +
-            "FROM Comentario c " +
-            "WHERE c.falla = :falla AND c.sentimiento IS NOT NULL " +
-            "GROUP BY c.sentimiento")
-    List<Object[]> countByFallaGroupBySentimiento(@Param("falla") Falla falla);
-
     /**
      * Comentarios que aún no tienen sentimiento analizado (para reanalizar en lote).
      */
@@ -73,4 +109,38 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
             "  AND COALESCE(contenido, texto_comentario) IS NOT NULL " +
             "  AND BTRIM(COALESCE(contenido, texto_comentario)) <> ''", nativeQuery = true)
         List<Object[]> findPendientesSentimientoConTexto();
+
+        /**
+         * Texto de los comentarios indicados que siguen pendientes de análisis.
+         * Devuelve filas [id_comentario, texto]; los ya analizados se omiten.
+         */
+        @Query(value = "SELECT id_comentario, COALESCE(contenido, texto_comentario) AS texto " +
+            "FROM comentarios " +
+            "WHERE id_comentario IN (:ids) " +
+                "  AND (sentimiento IS NULL " +
+                "       OR BTRIM(sentimiento) = '' " +
+                "       OR LOWER(BTRIM(sentimiento)) NOT IN ('positive','neutral','negative'))", nativeQuery = true)
+        List<Object[]> findTextosPendientes(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Actividad reciente: últimos comentarios con nombres de usuario y falla en la misma query.
+     * Devuelve filas [idComentario, nombreUsuario, idFalla, nombreFalla, contenido, fecha]
+     * ordenadas por (fecha, id) DESC. El límite lo marca el Pageable (LIMIT en BD).
+     */
+    @Query("SELECT c.idComentario, u.nombreCompleto, f.idFalla, f.nombre, c.contenido, c.creadoEn " +
+            "FROM Comentario c LEFT JOIN c.usuario u LEFT JOIN c.falla f " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<Object[]> findActividadReciente(Pageable pageable);
+
+    /**
+     * Igual que findActividadReciente pero empezando justo después del cursor (fecha, id).
+     * Paginación keyset: coste constante sin importar lo lejos que se haga scroll.
+     */
+    @Query("SELECT c.idComentario, u.nombreCompleto, f.idFalla, f.nombre, c.contenido, c.creadoEn " +
+            "FROM Comentario c LEFT JOIN c.usuario u LEFT JOIN c.falla f " +
+            "WHERE c.creadoEn < :fecha OR (c.creadoEn = :fecha AND c.idComentario < :id) " +
+            "ORDER BY c.creadoEn DESC, c.idComentario DESC")
+    List<Object[]> findActividadAnteriorA(@Param("fecha") LocalDateTime fecha,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
 }
@@ -0,0 +1,70 @@
+package com.fallapp.repository;
+
+import com.fallapp.model.Falla;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio de solo lectura para agregados del dashboard de estadísticas.
+ *
+ * No gestiona ninguna entidad propia: agrupa las queries nativas que recorren
+ * varias tablas a la vez para que el dashboard se calcule en 2 queries
+ * en lugar de una por contador.
+ */
+@org.springframework.stereotype.Repository
+public interface EstadisticasRepository extends Repository<Falla, Long> {
+
+    /**
+     * Todos los contadores globales en una sola fila.
+     * Devuelve [totalFallas, totalEventos, eventosFuturos, totalUsuarios,
+     *           usuariosActivos, totalVotos, totalComentarios].
+     */
+    @Query(value = "SELECT " +
+            "(SELECT COUNT(*) FROM fallas), " +
+            "(SELECT COUNT(*) FROM eventos), " +
+            "(SELECT COUNT(*) FROM eventos WHERE fecha_evento >= CURRENT_TIMESTAMP), " +
+            "(SELECT COUNT(*) FROM usuarios), " +
+            "(SELECT COUNT(*) FROM usuarios WHERE activo), " +
+            "(SELECT COUNT(*) FROM votos), " +
+            "(SELECT COUNT(*) FROM comentarios)",
+            nativeQuery = true)
+    List<Object[]> obtenerContadoresGlobales();
+
+    /**
+     * Distribuciones por dimensión en una sola query.
+     * Devuelve filas [dimension, valor, total] con dimension en
+     * ('categoria', 'rol', 'tipo_evento').
+     */
+    @Query(value = "SELECT 'categoria', CAST(categoria AS TEXT), COUNT(*) FROM fallas GROUP BY categoria " +
+            "UNION ALL " +
+            "SELECT 'rol', CAST(rol AS TEXT), COUNT(*) FROM usuarios GROUP BY rol " +
+            "UNION ALL " +
+            "SELECT 'tipo_evento', CAST(tipo AS TEXT), COUNT(*) FROM eventos GROUP BY tipo",
+            nativeQuery = true)
+    List<Object[]> obtenerDistribuciones();
+
+    /**
+     * Agregado de sentimiento de una falla (tabla sentimiento_fallas, script 67).
+     * Devuelve como mucho una fila [positivos, neutrales, negativos, pendientes];
+     * ninguna si la falla aún no tiene comentarios.
+     */
+    @Query(value = "SELECT positivos, neutrales, negativos, pendientes " +
+            "FROM sentimiento_fallas WHERE id_falla = :idFalla",
+            nativeQuery = true)
+    List<Object[]> obtenerSentimientoFalla(@Param("idFalla") Long idFalla);
+
+    /**
+     * Agregado de sentimiento de todas las fallas con al menos `minimo`
+     * comentarios analizados. Devuelve filas
+     * [idFalla, nombre, seccion, positivos, neutrales, negativos, pendientes].
+     */
+    @Query(value = "SELECT f.id_falla, f.nombre, f.seccion, " +
+            "s.positivos, s.neutrales, s.negativos, s.pendientes " +
+            "FROM sentimiento_fallas s JOIN fallas f ON f.id_falla = s.id_falla " +
+            "WHERE s.positivos + s.neutrales + s.negativos >= :minimo",
+            nativeQuery = true)
+    List<Object[]> obtenerSentimientoFallas(@Param("minimo") int minimo);
+}
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -63,4 +64,17 @@ public interface EventoRepository extends JpaRepository<Evento, Long> {
      * Contar eventos por falla
      */
     long countByFalla(Falla falla);
+
+    /**
+     * Número de eventos de cada falla en una sola query.
+     * Devuelve filas [idFalla, total] (solo fallas con algún evento).
+     */
+    @Query("SELECT e.falla.idFalla, COUNT(e) FROM Evento e GROUP BY e.falla.idFalla")
+    List<Object[]> contarPorFalla();
+
+    /**
+     * Igual que contarPorFalla pero limitado a las fallas indicadas.
+     */
+    @Query("SELECT e.falla.idFalla, COUNT(e) FROM Evento e WHERE e.falla.idFalla IN :ids GROUP BY e.falla.idFalla")
+    List<Object[]> contarPorFallas(@Param("ids") Collection<Long> ids);
 }
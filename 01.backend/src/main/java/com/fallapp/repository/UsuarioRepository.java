@@ -44,4 +44,17 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
      * Buscar todos los usuarios activos
      */
     java.util.List<Usuario> findByActivoTrue();
+
+    /**
+     * Número de miembros (usuarios asignados) de cada falla en una sola query.
+     * Devuelve filas [idFalla, total] (solo fallas con algún miembro).
+     */
+    @Query("SELECT u.falla.idFalla, COUNT(u) FROM Usuario u WHERE u.falla IS NOT NULL GROUP BY u.falla.idFalla")
+    java.util.List<Object[]> contarMiembrosPorFalla();
+
+    /**
+     * Igual que contarMiembrosPorFalla pero limitado a las fallas indicadas.
+     */
+    @Query("SELECT u.falla.idFalla, COUNT(u) FROM Usuario u WHERE u.falla.idFalla IN :ids GROUP BY u.falla.idFalla")
+    java.util.List<Object[]> contarMiembrosPorFallas(@Param("ids") java.util.Collection<Long> ids);
 }
@@ -6,10 +6,14 @@ import com.fallapp.model.Voto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -50,6 +54,29 @@ public interface VotoRepository extends JpaRepository<Voto, Long> {
             Falla falla, 
             Voto.TipoVoto tipoVoto);
 
+    /**
+     * Insertar un voto en un solo viaje a la BD.
+     *
+     * La restricción única (id_usuario, id_falla, tipo_voto) decide si ya existe:
+     * con ON CONFLICT DO NOTHING no se inserta nada y no se devuelve ninguna fila.
+     * Devuelve [idVoto] del voto insertado, o lista vacía si ya existía.
+     */
+    @Query(value = "INSERT INTO votos (id_usuario, id_falla, tipo_voto, valor, fecha_voto) " +
+            "VALUES (:idUsuario, :idFalla, :tipoVoto, 1, :fecha) " +
+            "ON CONFLICT (id_usuario, id_falla, tipo_voto) DO NOTHING " +
+            "RETURNING id_voto",
+            nativeQuery = true)
+    List<Number> insertarSiNoExiste(@Param("idUsuario") Long idUsuario,
+                                    @Param("idFalla") Long idFalla,
+                                    @Param("tipoVoto") String tipoVoto,
+                                    @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Votos de un usuario como pares [idFalla, tipoVoto], sin cargar entidades.
+     */
+    @Query("SELECT v.falla.idFalla, v.tipoVoto FROM Voto v WHERE v.usuario.idUsuario = :idUsuario")
+    List<Object[]> findFallaYTipoPorUsuario(@Param("idUsuario") Long idUsuario);
+
     /**
      * Contar votos por falla
      */
@@ -76,4 +103,107 @@ public interface VotoRepository extends JpaRepository<Voto, Long> {
      */
     @Query("SELECT v.tipoVoto, COUNT(v) FROM Voto v GROUP BY v.tipoVoto")
     List<Object[]> obtenerEstadisticasPorTipo();
+
+    /**
+     * Contar votos agrupados por falla y tipo en una sola query.
+     * Devuelve filas [idFalla, tipoVoto, total]. Usado para sembrar el ranking en memoria.
+     */
+    @Query("SELECT v.falla.idFalla, v.tipoVoto, COUNT(v) FROM Voto v GROUP BY v.falla.idFalla, v.tipoVoto")
+    List<Object[]> contarVotosPorFallaYTipo();
+
+    /**
+     * Votos por falla y tipo sumando los slots de `contadores_votos`.
+     * Devuelve filas [idFalla, tipoVoto (texto), total]; mucho más barata que
+     * agrupar `votos` (una fila por slot en lugar de una por voto).
+     */
+    @Query(value = "SELECT id_falla, tipo_voto, SUM(votos) FROM contadores_votos " +
+                   "GROUP BY id_falla, tipo_voto HAVING SUM(votos) <> 0", nativeQuery = true)
+    List<Object[]> sumarContadoresPorFallaYTipo();
+
+    /**
+     * Compactar los slots de `contadores_votos` en el slot 0
+     *
+     * @return Contadores (falla, tipo) compactados
+     */
+    @Transactional
+    @Query(value = "SELECT compactar_contadores_votos()", nativeQuery = true)
+    Integer compactarContadores();
+
+    /**
+     * Votos por falla, tipo y minuto desde un instante (siembra de las tendencias).
+     * Devuelve filas [idFalla, tipoVoto (texto), minuto epoch, votos]
+     */
+    @Query(value = "SELECT id_falla, tipo_voto::VARCHAR, " +
+                   "CAST(FLOOR(EXTRACT(EPOCH FROM fecha_voto) / 60) AS BIGINT), COUNT(*) " +
+                   "FROM votos WHERE fecha_voto >= :desde GROUP BY 1, 2, 3", nativeQuery = true)
+    List<Object[]> contarVotosPorMinutoDesde(@Param("desde") Instant desde);
+
+    /**
+     * Recontar en `votos_tendencia_hora` las horas de [desde, hasta)
+     *
+     * En la misma sentencia se borran las filas del rango que ya no tienen
+     * votos (se eliminaron todos los de esa hora, falla y tipo).
+     *
+     * @return Filas (hora, falla, tipo) escritas
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH recuento AS (" +
+                   "SELECT TO_TIMESTAMP(FLOOR(EXTRACT(EPOCH FROM fecha_voto) / 3600) * 3600) AS hora, id_falla, " +
+                   "tipo_voto::VARCHAR AS tipo_voto, COUNT(*) AS votos " +
+                   "FROM votos WHERE fecha_voto >= :desde AND fecha_voto < :hasta GROUP BY 1, 2, 3), " +
+                   "sin_votos AS (DELETE FROM votos_tendencia_hora t WHERE t.hora >= :desde AND t.hora < :hasta " +
+                   "AND NOT EXISTS (SELECT 1 FROM recuento r " +
+                   "WHERE r.hora = t.hora AND r.id_falla = t.id_falla AND r.tipo_voto = t.tipo_voto)) " +
+                   "INSERT INTO votos_tendencia_hora (hora, id_falla, tipo_voto, votos) " +
+                   "SELECT hora, id_falla, tipo_voto, votos FROM recuento " +
+                   "ON CONFLICT (hora, id_falla, tipo_voto) DO UPDATE SET votos = EXCLUDED.votos", nativeQuery = true)
+    int consolidarTendenciaHoras(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+    /**
+     * Última hora consolidada en `votos_tendencia_hora` (hora epoch) o null si está vacía
+     */
+    @Query(value = "SELECT CAST(EXTRACT(EPOCH FROM MAX(hora)) / 3600 AS BIGINT) FROM votos_tendencia_hora", nativeQuery = true)
+    Long ultimaHoraConsolidada();
+
+    /**
+     * Votos consolidados por falla, tipo y hora de [desde, hasta).
+     * Devuelve filas [idFalla, tipoVoto, hora epoch, votos]
+     */
+    @Query(value = "SELECT id_falla, tipo_voto, CAST(EXTRACT(EPOCH FROM hora) / 3600 AS BIGINT), votos " +
+                   "FROM votos_tendencia_hora WHERE hora >= :desde AND hora < :hasta", nativeQuery = true)
+    List<Object[]> votosConsolidadosPorHora(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+    /**
+     * Votos consolidados por falla y tipo de [desde, hasta), separados en antes
+     * y después de `corte`. Devuelve filas [idFalla, tipoVoto, anteriores, actuales]
+     */
+    @Query(value = "SELECT id_falla, tipo_voto, " +
+                   "SUM(CASE WHEN hora < :corte THEN votos ELSE 0 END), " +
+                   "SUM(CASE WHEN hora >= :corte THEN votos ELSE 0 END) " +
+                   "FROM votos_tendencia_hora WHERE hora >= :desde AND hora < :hasta " +
+                   "GROUP BY id_falla, tipo_voto", nativeQuery = true)
+    List<Object[]> sumarTendenciaConsolidada(@Param("desde") Instant desde, @Param("corte") Instant corte,
+                                             @Param("hasta") Instant hasta);
+
+    /**
+     * Actividad reciente: últimos votos con nombres de usuario y falla en la misma query.
+     * Devuelve filas [idVoto, nombreUsuario, idFalla, nombreFalla, tipoVoto, fecha]
+     * ordenadas por (fecha, id) DESC. El límite lo marca el Pageable (LIMIT en BD).
+     */
+    @Query("SELECT v.idVoto, u.nombreCompleto, f.idFalla, f.nombre, v.tipoVoto, v.creadoEn " +
+            "FROM Voto v JOIN v.usuario u JOIN v.falla f " +
+            "ORDER BY v.creadoEn DESC, v.idVoto DESC")
+    List<Object[]> findActividadReciente(Pageable pageable);
+
+    /**
+     * Igual que findActividadReciente pero empezando justo después del cursor (fecha, id).
+     */
+    @Query("SELECT v.idVoto, u.nombreCompleto, f.idFalla, f.nombre, v.tipoVoto, v.creadoEn " +
+            "FROM Voto v JOIN v.usuario u JOIN v.falla f " +
+            "WHERE v.creadoEn < :fecha OR (v.creadoEn = :fecha AND v.idVoto < :id) " +
+            "ORDER BY v.creadoEn DESC, v.idVoto DESC")
+    List<Object[]> findActividadAnteriorA(@Param("fecha") LocalDateTime fecha,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
 }
@@ -0,0 +1,335 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import org.springframework.web.util.HtmlUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de búsqueda en memoria sobre el catálogo de fallas
+ *
+ * Índice invertido sobre nombre, artista, lema y sección:
+ * - Vocabulario ordenado (String[]) → búsqueda exacta y por prefijo con
+ *   búsqueda binaria
+ * - Posting lists primitivas: int[] de documentos + float[] de frecuencia
+ *   ponderada por campo (nombre pesa más que lema)
+ *
+ * Consultas:
+ * - Normalización sin acentos ni mayúsculas ("Catòlica" = "catolica",
+ *   "l·l" = "ll"), igual para índice y consulta
+ * - Todos los términos deben aparecer (AND); el último se trata siempre como
+ *   prefijo (typeahead) y los demás también si no existen tal cual
+ * - Ranking BM25 (k1=1.2, b=0.75) con frecuencias ponderadas por campo
+ * - Resaltado con &lt;mark&gt; de los términos encontrados (resto del texto escapado como HTML)
+ *
+ * Se construye como derivado de un snapshot del catálogo, así que se
+ * reconstruye solo tras cualquier escritura de FallaService.
+ *
+ * @see FallaCatalogoService.Snapshot#derivado
+ */
+public final class BuscadorFallas {
+
+    private static final float PESO_NOMBRE = 3.0f;
+    private static final float PESO_SECCION = 2.0f;
+    private static final float PESO_ARTISTA = 1.5f;
+    private static final float PESO_LEMA = 1.0f;
+    /** Las coincidencias por prefijo puntúan algo menos que las exactas */
+    private static final double FACTOR_PREFIJO = 0.8;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /** Máximo de términos del vocabulario en que se expande un prefijo */
+    private static final int MAX_EXPANSION_PREFIJO = 64;
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final char SIN_CARACTER = '\0';
+    /** Plegado precalculado (minúscula sin diacríticos) de Latin-1 y Latin Extended-A */
+    private static final char[] PLEGADO = new char[0x180];
+
+    static {
+        for (char c = 0; c < PLEGADO.length; c++) {
+            String base = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD))
+                    .replaceAll("").toLowerCase(Locale.ROOT);
+            PLEGADO[c] = base.length() == 1 ? base.charAt(0) : c;
+        }
+        PLEGADO['·'] = SIN_CARACTER;
+        PLEGADO['ŀ'] = 'l';
+        PLEGADO['Ŀ'] = 'l';
+        PLEGADO[SIN_CARACTER] = SIN_CARACTER;
+    }
+
+    private final FallaDTO[] fallas;
+    private final String[] terminos;
+    private final int[][] documentos;
+    private final float[][] frecuencias;
+    private final float[] longitudes;
+    private final float longitudMedia;
+
+    public BuscadorFallas(FallaCatalogoService.Snapshot snapshot) {
+        this(snapshot.todas());
+    }
+
+    public BuscadorFallas(List<FallaDTO> catalogo) {
+        this.fallas = catalogo.toArray(new FallaDTO[0]);
+        this.longitudes = new float[fallas.length];
+
+        Map<String, Postings> indice = new HashMap<>();
+        float longitudTotal = 0;
+        for (int doc = 0; doc < fallas.length; doc++) {
+            FallaDTO falla = fallas[doc];
+            longitudes[doc] += indexar(indice, doc, falla.getNombre(), PESO_NOMBRE);
+            longitudes[doc] += indexar(indice, doc, falla.getSeccion(), PESO_SECCION);
+            longitudes[doc] += indexar(indice, doc, falla.getArtista(), PESO_ARTISTA);
+            longitudes[doc] += indexar(indice, doc, falla.getLema(), PESO_LEMA);
+            longitudTotal += longitudes[doc];
+        }
+        this.longitudMedia = fallas.length == 0 ? 1f : Math.max(longitudTotal / fallas.length, 1f);
+
+        this.terminos = indice.keySet().toArray(new String[0]);
+        Arrays.sort(terminos);
+        this.documentos = new int[terminos.length][];
+        this.frecuencias = new float[terminos.length][];
+        for (int t = 0; t < terminos.length; t++) {
+            Postings postings = indice.get(terminos[t]);
+            documentos[t] = Arrays.copyOf(postings.docs, postings.n);
+            frecuencias[t] = Arrays.copyOf(postings.tf, postings.n);
+        }
+    }
+
+    /**
+     * Buscar fallas por texto
+     *
+     * @param consulta Texto libre (se normaliza)
+     * @param limite Máximo de resultados
+     * @return Resultados ordenados por relevancia (y por nombre a igualdad)
+     */
+    public List<Resultado> buscar(String consulta, int limite) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty() || fallas.length == 0 || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        double[] puntuacion = new double[fallas.length];
+        int[] coincidencias = new int[fallas.length];
+        Set<String> terminosEncontrados = new HashSet<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean ultimo = i == tokens.size() - 1;
+            int exacto = Arrays.binarySearch(terminos, token);
+            int desde, hasta;
+            if (exacto >= 0 && !ultimo) {
+                desde = exacto;
+                hasta = exacto + 1;
+            } else {
+                desde = exacto >= 0 ? exacto : -exacto - 1;
+                hasta = desde;
+                while (hasta < terminos.length && hasta - desde < MAX_EXPANSION_PREFIJO
+                        && terminos[hasta].startsWith(token)) {
+                    hasta++;
+                }
+            }
+
+            for (int t = desde; t < hasta; t++) {
+                terminosEncontrados.add(terminos[t]);
+                double idf = Math.log(1.0 + (fallas.length - documentos[t].length + 0.5) / (documentos[t].length + 0.5));
+                double factor = terminos[t].equals(token) ? 1.0 : FACTOR_PREFIJO;
+                int[] docs = documentos[t];
+                float[] tfs = frecuencias[t];
+                for (int p = 0; p < docs.length; p++) {
+                    int doc = docs[p];
+                    double tf = tfs[p];
+                    double normalizacion = K1 * (1 - B + B * longitudes[doc] / longitudMedia);
+                    puntuacion[doc] += factor * idf * (tf * (K1 + 1)) / (tf + normalizacion);
+                    // coincidencias[doc] cuenta cuántos tokens de la consulta ha cubierto el documento
+                    if (coincidencias[doc] == i) {
+                        coincidencias[doc] = i + 1;
+                    }
+                }
+            }
+        }
+
+        List<Integer> candidatos = new ArrayList<>();
+        for (int doc = 0; doc < fallas.length; doc++) {
+            if (coincidencias[doc] == tokens.size()) {
+                candidatos.add(doc);
+            }
+        }
+        // A igualdad de puntuación se respeta el orden del catálogo (por nombre)
+        candidatos.sort((a, b) -> {
+            int porPuntuacion = Double.compare(puntuacion[b], puntuacion[a]);
+            return porPuntuacion != 0 ? porPuntuacion : Integer.compare(a, b);
+        });
+
+        List<Resultado> resultado = new ArrayList<>(Math.min(limite, candidatos.size()));
+        for (int i = 0; i < candidatos.size() && i < limite; i++) {
+            int doc = candidatos.get(i);
+            resultado.add(new Resultado(fallas[doc], puntuacion[doc], resaltar(fallas[doc], terminosEncontrados)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Número de términos distintos del vocabulario
+     */
+    public int tamanoVocabulario() {
+        return terminos.length;
+    }
+
+    /**
+     * Normalizar un texto a la forma del índice: minúsculas sin acentos, "l·l" → "ll"
+     */
+    public static String normalizar(String texto) {
+        StringBuilder sb = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= PLEGADO.length) {
+                // Fuera de Latin-1/Latin Extended-A: camino lento con Normalizer
+                String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+                return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("")
+                        .replace("·", "").replace("•", "").toLowerCase(Locale.ROOT);
+            }
+            char plegado = PLEGADO[c];
+            if (sb == null && plegado != c) {
+                sb = new StringBuilder(texto.length()).append(texto, 0, i);
+            }
+            if (sb != null && plegado != SIN_CARACTER) {
+                sb.append(plegado);
+            }
+        }
+        return sb == null ? texto : sb.toString();
+    }
+
+    /**
+     * Partir un texto en términos normalizados
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        recorrerTokens(texto, (inicio, fin) -> {
+            String token = normalizar(texto.substring(inicio, fin));
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        });
+        return tokens;
+    }
+
+    private static float indexar(Map<String, Postings> indice, int doc, String texto, float peso) {
+        List<String> tokens = tokenizar(texto);
+        for (String token : tokens) {
+            indice.computeIfAbsent(token, k -> new Postings()).sumar(doc, peso);
+        }
+        return tokens.size() * peso;
+    }
+
+    private static Map<String, String> resaltar(FallaDTO falla, Set<String> terminosEncontrados) {
+        Map<String, String> resaltado = new LinkedHashMap<>();
+        resaltarCampo(resaltado, "nombre", falla.getNombre(), terminosEncontrados);
+        resaltarCampo(resaltado, "artista", falla.getArtista(), terminosEncontrados);
+        resaltarCampo(resaltado, "lema", falla.getLema(), terminosEncontrados);
+        resaltarCampo(resaltado, "seccion", falla.getSeccion(), terminosEncontrados);
+        return resaltado;
+    }
+
+    private static void resaltarCampo(Map<String, String> destino, String campo, String texto, Set<String> terminos) {
+        if (texto == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(texto.length() + 16);
+        int[] copiadoHasta = {0};
+        boolean[] alguno = {false};
+        recorrerTokens(texto, (inicio, fin) -> {
+            if (terminos.contains(normalizar(texto.substring(inicio, fin)))) {
+                sb.append(escaparHtml(texto, copiadoHasta[0], inicio))
+                        .append("<mark>").append(escaparHtml(texto, inicio, fin)).append("</mark>");
+                copiadoHasta[0] = fin;
+                alguno[0] = true;
+            }
+        });
+        if (alguno[0]) {
+            sb.append(escaparHtml(texto, copiadoHasta[0], texto.length()));
+            destino.put(campo, sb.toString());
+        }
+    }
+
+    /**
+     * El resaltado se pinta como HTML: el texto de la falla (editable) se
+     * escapa para que solo las etiquetas &lt;mark&gt; sean marcado.
+     * Con UTF-8 solo se escapan &amp;, &lt;, &gt; y comillas; los acentos quedan tal cual.
+     */
+    private static String escaparHtml(String texto, int desde, int hasta) {
+        return HtmlUtils.htmlEscape(texto.substring(desde, hasta), "UTF-8");
+    }
+
+    /**
+     * Recorrer los tokens de un texto (letras/dígitos, admitiendo el punt volat
+     * entre letras) sin crear substrings intermedios
+     */
+    private static void recorrerTokens(String texto, ConsumidorToken consumidor) {
+        int i = 0;
+        int n = texto.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(texto.charAt(i))) {
+                i++;
+            }
+            int inicio = i;
+            while (i < n && (Character.isLetterOrDigit(texto.charAt(i))
+                    || (esPuntoVolado(texto.charAt(i)) && i + 1 < n && Character.isLetter(texto.charAt(i + 1))))) {
+                i++;
+            }
+            if (i > inicio) {
+                consumidor.token(inicio, i);
+            }
+        }
+    }
+
+    private static boolean esPuntoVolado(char c) {
+        return c == '·' || c == '•';
+    }
+
+    @FunctionalInterface
+    private interface ConsumidorToken {
+        void token(int inicio, int fin);
+    }
+
+    /**
+     * Lista de documentos en construcción para un término
+     * (los documentos llegan en orden creciente)
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] tf = new float[4];
+        private int n;
+
+        private void sumar(int doc, float peso) {
+            if (n > 0 && docs[n - 1] == doc) {
+                tf[n - 1] += peso;
+                return;
+            }
+            if (n == docs.length) {
+                docs = Arrays.copyOf(docs, n * 2);
+                tf = Arrays.copyOf(tf, n * 2);
+            }
+            docs[n] = doc;
+            tf[n] = peso;
+            n++;
+        }
+    }
+
+    /**
+     * Falla encontrada con su puntuación y los campos resaltados
+     */
+    public record Resultado(FallaDTO falla, double puntuacion, Map<String, String> resaltado) {
+    }
+}
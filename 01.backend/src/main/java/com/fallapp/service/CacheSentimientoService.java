@@ -0,0 +1,211 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de resultados de sentimiento por contenido
+ *
+ * Muchos comentarios son casi iguales ("Preciosa!", "Molt bonica", solo
+ * emojis) y el reanálisis de pendientes reenvía todos los textos al modelo.
+ * La clave es el SHA-256 de (clasificador + texto normalizado), así que dos
+ * comentarios iguales salvo mayúsculas, acentos, espacios o signos repetidos
+ * comparten resultado, y cambiar de modelo no reutiliza etiquetas del anterior.
+ *
+ * Dos niveles:
+ * - Memoria: LRU acotada (`app.sentimiento.cache.max-entradas`)
+ * - BD: tabla sentimiento_cache (script 64), sobrevive a reinicios y se
+ *   consulta en una sola query por lote con las claves que faltan en memoria
+ *
+ * Un fallo de la BD no rompe el análisis: se trata como fallo de cache.
+ *
+ * Métricas (Actuator /actuator/metrics):
+ * - fallapp.sentimiento.cache{resultado=acierto|fallo, nivel=memoria|bd|ninguno}
+ * - fallapp.sentimiento.cache.tasa-aciertos
+ * - fallapp.sentimiento.cache.entradas
+ * - fallapp.sentimiento.cache.latencia-ahorrada: segundos de modelo
+ *   evitados (aciertos × latencia media por texto del modelo)
+ *
+ * @see SentimientoPipelineService Consulta la cache antes de llamar al modelo
+ */
+@Service
+@Slf4j
+public class CacheSentimientoService {
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern SIGNOS_REPETIDOS = Pattern.compile("([\\p{P}\\p{S}])\\1+");
+    /** Peso de la última medida en la media móvil de latencia del modelo */
+    private static final double ALFA_LATENCIA = 0.2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, SentimentClassifier.Clasificacion> memoria;
+    private final Counter aciertosMemoria;
+    private final Counter aciertosBd;
+    private final Counter fallos;
+    private final Counter latenciaAhorrada;
+
+    /** Media móvil de la latencia del modelo por texto (ns) */
+    private volatile double nanosPorTexto;
+
+    public CacheSentimientoService(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.sentimiento.cache.max-entradas:50000}") int maxEntradas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memoria = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SentimentClassifier.Clasificacion> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+        this.aciertosMemoria = meterRegistry.counter("fallapp.sentimiento.cache", "resultado", "acierto", "nivel", "memoria");
+        this.aciertosBd = meterRegistry.counter("fallapp.sentimiento.cache", "resultado", "acierto", "nivel", "bd");
+        this.fallos = meterRegistry.counter("fallapp.sentimiento.cache", "resultado", "fallo", "nivel", "ninguno");
+        this.latenciaAhorrada = Counter.builder("fallapp.sentimiento.cache.latencia-ahorrada")
+                .baseUnit("seconds")
+                .description("Tiempo de modelo evitado por aciertos de cache (estimado)")
+                .register(meterRegistry);
+        meterRegistry.gauge("fallapp.sentimiento.cache.entradas", this, CacheSentimientoService::entradasEnMemoria);
+        meterRegistry.gauge("fallapp.sentimiento.cache.tasa-aciertos", this, CacheSentimientoService::tasaAciertos);
+    }
+
+    /**
+     * Clave de cache de un texto para un clasificador (SHA-256 en hexadecimal)
+     */
+    public static String clave(String clasificador, String texto) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(clasificador.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) '\n');
+            return HexFormat.of().formatHex(sha.digest(normalizar(texto).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Forma normalizada de un texto: sin acentos, en minúsculas, espacios
+     * colapsados y signos/emojis repetidos reducidos a uno ("!!!" → "!")
+     */
+    static String normalizar(String texto) {
+        String plegado = BuscadorFallas.normalizar(texto.strip());
+        plegado = ESPACIOS.matcher(plegado).replaceAll(" ");
+        return SIGNOS_REPETIDOS.matcher(plegado).replaceAll("$1");
+    }
+
+    /**
+     * Buscar resultados en memoria y, los que falten, en BD
+     *
+     * @return Resultados encontrados por clave
+     */
+    public Map<String, SentimentClassifier.Clasificacion> buscar(Collection<String> claves) {
+        Map<String, SentimentClassifier.Clasificacion> encontrados = new HashMap<>();
+        List<String> faltan = new ArrayList<>();
+        synchronized (memoria) {
+            for (String clave : claves) {
+                SentimentClassifier.Clasificacion clasificacion = memoria.get(clave);
+                if (clasificacion != null) {
+                    encontrados.put(clave, clasificacion);
+                } else if (!faltan.contains(clave)) {
+                    faltan.add(clave);
+                }
+            }
+        }
+        aciertosMemoria.increment(encontrados.size());
+
+        if (!faltan.isEmpty()) {
+            Map<String, SentimentClassifier.Clasificacion> enBd = buscarEnBd(faltan);
+            synchronized (memoria) {
+                memoria.putAll(enBd);
+            }
+            encontrados.putAll(enBd);
+            aciertosBd.increment(enBd.size());
+            fallos.increment(faltan.size() - enBd.size());
+        }
+
+        latenciaAhorrada.increment(encontrados.size() * nanosPorTexto / 1e9);
+        return encontrados;
+    }
+
+    /**
+     * Guardar resultados nuevos en los dos niveles
+     */
+    public void guardar(String clasificador, Map<String, SentimentClassifier.Clasificacion> resultados) {
+        if (resultados.isEmpty()) {
+            return;
+        }
+        synchronized (memoria) {
+            memoria.putAll(resultados);
+        }
+        List<Object[]> filas = new ArrayList<>(resultados.size());
+        resultados.forEach((clave, c) -> filas.add(new Object[]{clave, c.etiqueta(), c.confianza(), clasificador}));
+        try {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO sentimiento_cache (clave, etiqueta, confianza, clasificador)
+                    VALUES (?, ?, ?, ?)
+                    ON CONFLICT (clave) DO UPDATE
+                    SET etiqueta = EXCLUDED.etiqueta, confianza = EXCLUDED.confianza""", filas);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo guardar la cache de sentimiento en BD: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Anotar la latencia de una llamada al modelo (para estimar la latencia ahorrada)
+     */
+    public void registrarLatenciaModelo(long nanos, int textos) {
+        if (textos <= 0) {
+            return;
+        }
+        double medida = (double) nanos / textos;
+        double anterior = nanosPorTexto;
+        nanosPorTexto = anterior == 0 ? medida : anterior + ALFA_LATENCIA * (medida - anterior);
+    }
+
+    private Map<String, SentimentClassifier.Clasificacion> buscarEnBd(List<String> claves) {
+        String marcadores = String.join(",", Collections.nCopies(claves.size(), "?"));
+        Map<String, SentimentClassifier.Clasificacion> encontrados = new HashMap<>();
+        try {
+            jdbcTemplate.query(
+                    "SELECT clave, etiqueta, confianza FROM sentimiento_cache WHERE clave IN (" + marcadores + ")",
+                    rs -> {
+                        encontrados.put(rs.getString("clave"), new SentimentClassifier.Clasificacion(
+                                rs.getString("etiqueta"), rs.getDouble("confianza")));
+                    },
+                    claves.toArray());
+        } catch (DataAccessException e) {
+            log.warn("No se pudo leer la cache de sentimiento en BD: {}", e.getMessage());
+        }
+        return encontrados;
+    }
+
+    int entradasEnMemoria() {
+        synchronized (memoria) {
+            return memoria.size();
+        }
+    }
+
+    double tasaAciertos() {
+        double aciertos = aciertosMemoria.count() + aciertosBd.count();
+        double total = aciertos + fallos.count();
+        return total == 0 ? 0 : aciertos / total;
+    }
+}
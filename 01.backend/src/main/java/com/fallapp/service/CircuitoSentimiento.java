@@ -0,0 +1,90 @@
+package com.fallapp.service;
+
+import java.time.Clock;
+
+/**
+ * Cortocircuito (circuit breaker) del modelo de sentimiento
+ *
+ * - CERRADO: las llamadas pasan; `fallosParaAbrir` fallos seguidos lo abren
+ * - ABIERTO: no se llama al modelo durante `esperaMillis`; los comentarios
+ *   se quedan en el outbox y se reintentan al vencer su reserva
+ * - SEMIABIERTO: pasada la espera, se deja pasar UNA llamada de prueba;
+ *   si va bien se cierra y si falla vuelve a abrirse otra espera completa
+ *
+ * Así un modelo caído o arrancando en frío no ocupa los hilos del
+ * pipeline con llamadas condenadas a fallar.
+ *
+ * @see SentimientoPipelineService
+ */
+public final class CircuitoSentimiento {
+
+    public enum Estado { CERRADO, SEMIABIERTO, ABIERTO }
+
+    private final int fallosParaAbrir;
+    private final long esperaMillis;
+    private final Clock reloj;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+    private boolean pruebaEnCurso;
+
+    public CircuitoSentimiento(int fallosParaAbrir, long esperaMillis, Clock reloj) {
+        this.fallosParaAbrir = fallosParaAbrir;
+        this.esperaMillis = esperaMillis;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Pedir permiso para llamar al modelo
+     *
+     * @return false si el circuito está abierto (o ya hay una prueba en curso)
+     */
+    public synchronized boolean permitir() {
+        if (estado == Estado.ABIERTO && reloj.millis() >= abiertoHasta) {
+            estado = Estado.SEMIABIERTO;
+            pruebaEnCurso = false;
+        }
+        return switch (estado) {
+            case CERRADO -> true;
+            case ABIERTO -> false;
+            case SEMIABIERTO -> {
+                if (pruebaEnCurso) {
+                    yield false;
+                }
+                pruebaEnCurso = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = reloj.millis() + esperaMillis;
+            pruebaEnCurso = false;
+        }
+    }
+
+    /**
+     * Estado actual, teniendo en cuenta el reloj
+     *
+     * Un circuito ABIERTO cuya espera ya venció se informa como SEMIABIERTO
+     * aunque nadie haya llamado aún a permitir(): quien consulta el estado
+     * para decidir si manda trabajo (el outbox) debe mandarlo, o la llamada
+     * de prueba no llegaría nunca.
+     */
+    public synchronized Estado estado() {
+        if (estado == Estado.ABIERTO && reloj.millis() >= abiertoHasta) {
+            return Estado.SEMIABIERTO;
+        }
+        return estado;
+    }
+}
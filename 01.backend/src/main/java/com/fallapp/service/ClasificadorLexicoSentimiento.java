@@ -0,0 +1,212 @@
+package com.fallapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clasificador de sentimiento local basado en léxico (castellano y valenciano)
+ *
+ * Alternativa a SentimentAnalysisService sin red: etiqueta un comentario en
+ * microsegundos, sin arranques en frío del modelo ni cuotas de la API.
+ * Se activa con `app.sentimiento.clasificador=lexico`.
+ *
+ * Algoritmo:
+ * 1. Tokenizar igual que el buscador (minúsculas, sin acentos, "l·l" → "ll")
+ * 2. Recorrer los tokens buscando primero la expresión más larga del léxico
+ *    (hasta MAX_NGRAMA palabras: "me encanta", "no m'agrada", "ni fu ni fa")
+ *    y, si no, la palabra sola (o sin la "s"/"es" del plural)
+ * 3. Un negador ("no", "mai", "sense"...) invierte los términos con
+ *    polaridad de las VENTANA_NEGACION palabras siguientes; un
+ *    intensificador ("muy", "molt", "poco"...) multiplica el siguiente
+ * 4. Suma ≥ UMBRAL → positive, ≤ -UMBRAL → negative, si no neutral;
+ *    la confianza crece con |suma| (o con su cercanía a 0 si es neutral)
+ *
+ * El léxico es un fichero de texto (`app.sentimiento.lexico`), una entrada
+ * por línea: `término valor`, donde valor es la polaridad (-3..3), `NEG`
+ * (negador) o `xF` (intensificador de factor F).
+ *
+ * Inmutable tras construirse: seguro entre hilos.
+ *
+ * @see SentimentClassifier
+ */
+@Service
+@ConditionalOnProperty(name = "app.sentimiento.clasificador", havingValue = "lexico")
+@Slf4j
+public class ClasificadorLexicoSentimiento implements SentimentClassifier {
+
+    static final int MAX_NGRAMA = 4;
+    static final int VENTANA_NEGACION = 3;
+    static final double UMBRAL = 0.5;
+    /** La negación atenúa: "no está mal" es menos positivo que "está bien" */
+    private static final double FACTOR_NEGACION = -0.75;
+
+    private final Map<String, Double> polaridades = new HashMap<>();
+    private final Map<String, Double> intensificadores = new HashMap<>();
+    private final Set<String> negadores = new HashSet<>();
+    /** Primeras palabras de expresiones de varias palabras */
+    private final Set<String> iniciosNgrama = new HashSet<>();
+
+    public ClasificadorLexicoSentimiento(
+            @Value("${app.sentimiento.lexico:classpath:sentimiento/lexico-es-va.txt}") Resource lexico) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(lexico.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            int numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                cargarEntrada(linea.strip(), numero);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el léxico de sentimiento " + lexico, e);
+        }
+        log.info("Léxico de sentimiento cargado: {} términos, {} negadores, {} intensificadores",
+                polaridades.size(), negadores.size(), intensificadores.size());
+    }
+
+    private void cargarEntrada(String linea, int numero) {
+        if (linea.isEmpty() || linea.startsWith("#")) {
+            return;
+        }
+        int separador = Math.max(linea.lastIndexOf(' '), linea.lastIndexOf('\t'));
+        if (separador <= 0) {
+            throw new IllegalArgumentException("Léxico de sentimiento, línea " + numero + ": falta el valor");
+        }
+        List<String> tokens = BuscadorFallas.tokenizar(linea.substring(0, separador));
+        String valor = linea.substring(separador + 1);
+        if (tokens.isEmpty() || tokens.size() > MAX_NGRAMA) {
+            throw new IllegalArgumentException("Léxico de sentimiento, línea " + numero + ": término no válido");
+        }
+        String termino = String.join(" ", tokens);
+
+        try {
+            if (valor.equals("NEG")) {
+                negadores.add(termino);
+            } else if (valor.startsWith("x")) {
+                intensificadores.put(termino, Double.parseDouble(valor.substring(1)));
+            } else {
+                polaridades.put(termino, Double.parseDouble(valor));
+                if (tokens.size() > 1) {
+                    iniciosNgrama.add(tokens.get(0));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Léxico de sentimiento, línea " + numero + ": valor no válido " + valor);
+        }
+    }
+
+    @Override
+    public List<Clasificacion> clasificar(List<String> textos) {
+        List<Clasificacion> clasificaciones = new ArrayList<>(textos.size());
+        for (String texto : textos) {
+            double puntuacion = puntuar(texto);
+            String etiqueta = etiquetar(puntuacion);
+            double confianza = Math.tanh(Math.abs(puntuacion));
+            clasificaciones.add(new Clasificacion(etiqueta, etiqueta.equals("neutral") ? 1 - confianza : confianza));
+        }
+        return clasificaciones;
+    }
+
+    @Override
+    public String nombre() {
+        return "lexico";
+    }
+
+    /**
+     * Etiqueta de un texto
+     */
+    public String clasificar(String texto) {
+        return etiquetar(puntuar(texto));
+    }
+
+    /**
+     * Puntuación de un texto: positiva, negativa o cerca de 0 si es neutro
+     */
+    double puntuar(String texto) {
+        List<String> tokens = BuscadorFallas.tokenizar(texto);
+        double puntuacion = 0;
+        double factor = 1;
+        int negados = 0;
+
+        int i = 0;
+        while (i < tokens.size()) {
+            String token = tokens.get(i);
+            int consumidos = 1;
+            Double polaridad = null;
+
+            if (iniciosNgrama.contains(token)) {
+                StringBuilder ngrama = new StringBuilder(token);
+                int fin = Math.min(tokens.size(), i + MAX_NGRAMA);
+                for (int j = i + 1; j < fin; j++) {
+                    ngrama.append(' ').append(tokens.get(j));
+                    Double valor = polaridades.get(ngrama.toString());
+                    if (valor != null) {
+                        polaridad = valor;
+                        consumidos = j - i + 1;
+                    }
+                }
+            }
+            if (polaridad == null) {
+                polaridad = buscarPalabra(token);
+            }
+
+            if (polaridad != null) {
+                double valor = polaridad * factor;
+                puntuacion += negados > 0 ? valor * FACTOR_NEGACION : valor;
+                factor = 1;
+                negados = 0;
+            } else if (negadores.contains(token)) {
+                negados = VENTANA_NEGACION + 1;
+            } else {
+                Double intensidad = intensificadores.get(token);
+                if (intensidad != null) {
+                    factor *= intensidad;
+                }
+            }
+
+            i += consumidos;
+            if (negados > 0) {
+                negados -= consumidos;
+            }
+        }
+        return puntuacion;
+    }
+
+    private Double buscarPalabra(String token) {
+        Double valor = polaridades.get(token);
+        if (valor == null && token.length() > 3 && token.endsWith("s")) {
+            valor = polaridades.get(token.substring(0, token.length() - 1));
+            if (valor == null && token.endsWith("es")) {
+                valor = polaridades.get(token.substring(0, token.length() - 2));
+            }
+        }
+        return valor;
+    }
+
+    private static String etiquetar(double puntuacion) {
+        if (puntuacion >= UMBRAL) return "positive";
+        if (puntuacion <= -UMBRAL) return "negative";
+        return "neutral";
+    }
+
+    /**
+     * Términos con polaridad (palabras y expresiones)
+     */
+    public int tamanoLexico() {
+        return polaridades.size();
+    }
+}
@@ -1,6 +1,9 @@
 package com.fallapp.service;
 
 import com.fallapp.dto.ComentarioDTO;
+import com.fallapp.dto.PaginaComentariosDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Comentario;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
@@ -8,13 +11,16 @@ import com.fallapp.repository.ComentarioRepository;
 import com.fallapp.repository.FallaRepository;
 import com.fallapp.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Servicio de negocio para gestión de Comentarios
@@ -22,7 +28,7 @@ import java.util.stream.Collectors;
  * Responsabilidades:
  * - CRUD completo de comentarios (crear, leer, actualizar, eliminar)
  * - Validación de reglas de negocio (comentario requiere falla O ninot)
- * - Filtrado por falla o ninot
+ * - Listado por falla o global con paginación por cursor (keyset)
  * - Conversión entre entidades y DTOs
  * - Gestión de relaciones con Usuario, Falla y Ninot
  * 
@@ -38,10 +44,10 @@ import java.util.stream.Collectors;
  * - Rollback automático en caso de excepción
  * 
  * Ordenamiento:
- * - Comentarios retornados ordenados por fecha DESC (más recientes primero)
- * - Implementado en repository con custom queries
+ * - Comentarios retornados ordenados por (fecha, id) DESC (más recientes primero)
+ * - Implementado en repository con proyecciones a DTO
  * 
- * @see ComentarioRepository Queries personalizadas findByFalla, findByNinot
+ * @see ComentarioRepository Proyecciones findPagina / findPaginaPorFalla
  * @see ComentarioDTO DTO con validaciones Bean Validation
  * @see ComentarioController REST controller que consume este servicio
  * 
@@ -57,46 +63,58 @@ public class ComentarioService {
     private final ComentarioRepository comentarioRepository;
     private final UsuarioRepository usuarioRepository;
     private final FallaRepository fallaRepository;
-    private final SentimentAnalysisService sentimentAnalysisService;
-    /**
-     * Obtener todos los comentarios del sistema
-     * 
-     * Sin filtros, retorna todos los comentarios existentes.
-     * Útil para administración o visualización completa.
-     * 
-     * Performance: O(n) - No usar en producción con >1000 comentarios.
-     * Considerar paginación si el volumen crece.
-     * 
-     * @return Lista de todos los ComentarioDTO
-     */
-    public List<ComentarioDTO> obtenerTodos() {
-        return comentarioRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
-    }
-    
+    private final OutboxComentariosService outboxComentarios;
+
+    private static final int LIMITE_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+
     /**
-     * Obtener comentarios asociados a una falla específica
-     * 
-     * Retorna solo comentarios donde comentario.falla.id = idFalla
-     * Ordenados por fecha de creación DESC (más recientes primero)
-     * 
-     * Ejemplo de uso:
-     * - Pantalla de detalle de falla: mostrar comentarios de usuarios
-     * - Timeline de feedback sobre una falla
-     * 
-     * @param idFalla ID de la falla
-     * @return Lista de ComentarioDTO asociados a la falla
-     * @throws RuntimeException Si la falla no existe
+     * Listar comentarios, más recientes primero, con paginación por cursor
+     *
+     * Paginación keyset sobre (fecha_creacion, id_comentario): cada página
+     * cuesta lo mismo sin importar lo lejos que se haga scroll (índices de
+     * los scripts 60 y 63). Los nombres de usuario y falla llegan en la
+     * misma query (proyección a DTO, sin cargas lazy por fila).
+     *
+     * Se pide una fila más que `limite` para saber si hay página siguiente.
+     *
+     * @param idFalla Falla a filtrar (null = todas)
+     * @param limite Tamaño de página (por defecto 20, máximo 100)
+     * @param cursor `siguienteCursor` de la página anterior (null = primera página)
+     * @throws ResourceNotFoundException Si la falla no existe
+     * @throws BadRequestException Si el cursor no es válido
      */
-    public List<ComentarioDTO> obtenerPorFalla(Long idFalla) {
-        Falla falla = fallaRepository.findById(idFalla)
-                .orElseThrow(() -> new RuntimeException("Falla no encontrada con ID: " + idFalla));
-        
-        // Repository custom query: findByFallaOrderByCreadoEnDesc
-        return comentarioRepository.findByFallaOrderByCreadoEnDesc(falla).stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    public PaginaComentariosDTO listar(Long idFalla, Integer limite, String cursor) {
+        int tamano = (limite == null || limite <= 0) ? LIMITE_DEFECTO : Math.min(limite, LIMITE_MAXIMO);
+        Pageable pagina = PageRequest.of(0, tamano + 1);
+        Cursor desde = cursor == null || cursor.isBlank() ? null : Cursor.decodificar(cursor);
+
+        List<ComentarioDTO> comentarios;
+        if (idFalla != null) {
+            if (!fallaRepository.existsById(idFalla)) {
+                throw new ResourceNotFoundException("Falla", "id", idFalla);
+            }
+            comentarios = desde == null
+                    ? comentarioRepository.findPaginaPorFalla(idFalla, pagina)
+                    : comentarioRepository.findPaginaPorFallaAnteriorA(idFalla, desde.fecha(), desde.id(), pagina);
+        } else {
+            comentarios = desde == null
+                    ? comentarioRepository.findPagina(pagina)
+                    : comentarioRepository.findPaginaAnteriorA(desde.fecha(), desde.id(), pagina);
+        }
+
+        String siguienteCursor = null;
+        if (comentarios.size() > tamano) {
+            comentarios = comentarios.subList(0, tamano);
+            ComentarioDTO ultimo = comentarios.get(tamano - 1);
+            siguienteCursor = new Cursor(ultimo.getFechaCreacion(), ultimo.getIdComentario()).codificar();
+        }
+
+        return PaginaComentariosDTO.builder()
+                .comentarios(new ArrayList<>(comentarios))
+                .siguienteCursor(siguienteCursor)
+                .limite(tamano)
+                .build();
     }
     
         // Método obtenerPorNinot eliminado: los comentarios se asocian únicamente a `falla`.
@@ -135,24 +153,10 @@ public class ComentarioService {
         
         Comentario comentarioSaved = comentarioRepository.save(comentario);
 
-        // Lanzar análisis de sentimiento en segundo plano DESPUÉS del commit
-        // para evitar condiciones de carrera (el hilo async podría no ver el registro aún).
-        if (TransactionSynchronizationManager.isSynchronizationActive()) {
-            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-                @Override
-                public void afterCommit() {
-                    sentimentAnalysisService.analizarComentarioAsync(
-                            comentarioSaved.getIdComentario(),
-                            comentarioSaved.getContenido()
-                    );
-                }
-            });
-        } else {
-            sentimentAnalysisService.analizarComentarioAsync(
-                    comentarioSaved.getIdComentario(),
-                    comentarioSaved.getContenido()
-            );
-        }
+        // Análisis de sentimiento: fila en el outbox en esta misma transacción,
+        // así no se pierde aunque la JVM caiga justo después del commit
+        outboxComentarios.registrar(comentarioSaved.getIdComentario());
+        despertarOutboxTrasCommit();
 
         return convertirADTO(comentarioSaved);
     }
@@ -186,29 +190,24 @@ public class ComentarioService {
     /**
      * Reanaliza el sentimiento de todos los comentarios que tienen sentimiento NULL.
      * Útil para comentarios creados antes de tener el token de Hugging Face configurado.
-     * Lanza el análisis en segundo plano para cada uno (no bloquea).
+     * Los añade al outbox de sentimiento (se analizan por lotes, no bloquea).
      *
-     * @return Número de comentarios encolados para reanálisis
+     * @return Número de comentarios añadidos para reanálisis
      */
     @Transactional
     public int reanalizarSentimientoPendientes() {
         comentarioRepository.sincronizarContenidoDesdeTextoComentario();
 
-        List<Object[]> pendientes = comentarioRepository.findPendientesSentimientoConTexto();
-        int encolados = 0;
-
-        for (Object[] fila : pendientes) {
-            Long idComentario = ((Number) fila[0]).longValue();
-            String texto = fila[1] != null ? fila[1].toString() : null;
-            if (texto != null && !texto.isBlank()) {
-                boolean guardado = sentimentAnalysisService.analizarComentario(idComentario, texto);
-                if (guardado) {
-                    encolados++;
-                }
-            }
-        }
+        int nuevos = outboxComentarios.registrarPendientes(Integer.MAX_VALUE);
+        despertarOutboxTrasCommit();
+        return nuevos;
+    }
 
-        return encolados;
+    /**
+     * Avisar al outbox cuando la transacción se confirme (antes no vería las filas)
+     */
+    private void despertarOutboxTrasCommit() {
+        TransaccionUtils.despuesDelCommit(outboxComentarios::despertar);
     }
 
     /**
@@ -227,4 +226,28 @@ public class ComentarioService {
                 .sentimiento(comentario.getSentimiento())
                 .build();
     }
+
+    /**
+     * Posición (fecha, id) del último comentario de una página
+     *
+     * Se envía como texto opaco: Base64 URL de "fecha|id".
+     */
+    record Cursor(LocalDateTime fecha, Long id) {
+
+        String codificar() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((fecha + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decodificar(String texto) {
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(texto), StandardCharsets.UTF_8);
+                int separador = valor.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(valor.substring(0, separador)),
+                        Long.parseLong(valor.substring(separador + 1)));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor de paginación no válido");
+            }
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package com.fallapp.service;
+
+import com.fallapp.repository.VotoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compactación periódica de `contadores_votos`
+ *
+ * Cada voto suma en uno de los 8 slots de su (falla, tipo) para que los votos
+ * simultáneos a la misma falla no compitan por una fila. Con el tiempo eso
+ * deja hasta 8 filas por contador; este servicio las suma en el slot 0 cada
+ * `app.votos.contadores.compactacion-ms` (0 = desactivado) para que la
+ * lectura del ranking siga siendo barata.
+ *
+ * @see RankingVotosService#recargar
+ */
+@Service
+@Slf4j
+public class CompactacionContadoresService {
+
+    private final VotoRepository votoRepository;
+    private final long intervaloMillis;
+
+    private volatile ScheduledExecutorService planificador;
+
+    public CompactacionContadoresService(
+            VotoRepository votoRepository,
+            @Value("${app.votos.contadores.compactacion-ms:600000}") long intervaloMillis) {
+        this.votoRepository = votoRepository;
+        this.intervaloMillis = intervaloMillis;
+    }
+
+    /**
+     * Programar la compactación (la primera pasada tras un intervalo completo)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (intervaloMillis <= 0 || planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "contadores-votos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::compactar, intervaloMillis, intervaloMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sumar los slots de cada contador en el slot 0
+     *
+     * @return Contadores compactados (0 si la compactación falló)
+     */
+    public int compactar() {
+        try {
+            Integer compactados = votoRepository.compactarContadores();
+            int total = compactados == null ? 0 : compactados;
+            log.debug("Contadores de votos compactados: {}", total);
+            return total;
+        } catch (RuntimeException e) {
+            // Un fallo no debe cancelar las siguientes ejecuciones
+            log.warn("No se pudieron compactar los contadores de votos: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+    }
+}
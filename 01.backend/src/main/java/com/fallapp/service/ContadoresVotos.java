@@ -0,0 +1,115 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de votos por (falla, tipo) sin bloqueos
+ *
+ * Cada contador es un LongAdder: bajo contención reparte las sumas en
+ * celdas por hilo (striping) y la lectura las suma. Así los votos a las
+ * pocas fallas que se llevan casi todos (las de categoría especial) no se
+ * serializan en un único AtomicLong ni en un lock de escritura.
+ *
+ * `cambios()` crece con cada suma: los lectores lo comparan con el valor
+ * de su última lectura para saber si deben recalcular (p.ej. el orden del
+ * ranking) sin recorrer los contadores.
+ *
+ * Pensado para muchas escrituras y lecturas agregadas poco frecuentes:
+ * una lectura recorre las celdas de cada contador.
+ *
+ * @see RankingVotosService
+ */
+public final class ContadoresVotos {
+
+    private static final Voto.TipoVoto[] TIPOS = Voto.TipoVoto.values();
+
+    private final Map<Long, LongAdder[]> porFalla = new ConcurrentHashMap<>();
+    private final LongAdder[] totales = nuevasCeldas();
+    private final LongAdder cambios = new LongAdder();
+
+    /**
+     * Sumar (o restar) votos a una falla
+     */
+    public void sumar(long idFalla, Voto.TipoVoto tipo, long delta) {
+        LongAdder[] celdas = porFalla.get(idFalla);
+        if (celdas == null) {
+            celdas = porFalla.computeIfAbsent(idFalla, id -> nuevasCeldas());
+        }
+        celdas[tipo.ordinal()].add(delta);
+        totales[tipo.ordinal()].add(delta);
+        cambios.increment();
+    }
+
+    /**
+     * Avisar a los lectores de un cambio que no es una suma (p.ej. una
+     * falla renombrada), para que recalculen lo que derivan de aquí
+     */
+    public void marcarCambio() {
+        cambios.increment();
+    }
+
+    /**
+     * Votos de una falla
+     *
+     * @param tipo Tipo de voto (null = todos los tipos)
+     */
+    public long votos(long idFalla, Voto.TipoVoto tipo) {
+        LongAdder[] celdas = porFalla.get(idFalla);
+        return celdas == null ? 0 : suma(celdas, tipo);
+    }
+
+    /**
+     * Votos de todas las fallas
+     *
+     * @param tipo Tipo de voto (null = todos los tipos)
+     */
+    public long total(Voto.TipoVoto tipo) {
+        return suma(totales, tipo);
+    }
+
+    /**
+     * Copia de los votos por falla y tipo: {idFalla → [votos por ordinal de TipoVoto]}
+     */
+    public Map<Long, long[]> copia() {
+        Map<Long, long[]> copia = new HashMap<>(porFalla.size() * 2);
+        porFalla.forEach((idFalla, celdas) -> {
+            long[] votos = new long[TIPOS.length];
+            for (int i = 0; i < TIPOS.length; i++) {
+                votos[i] = celdas[i].sum();
+            }
+            copia.put(idFalla, votos);
+        });
+        return copia;
+    }
+
+    /**
+     * Número de sumas realizadas (solo crece)
+     */
+    public long cambios() {
+        return cambios.sum();
+    }
+
+    private static long suma(LongAdder[] celdas, Voto.TipoVoto tipo) {
+        if (tipo != null) {
+            return celdas[tipo.ordinal()].sum();
+        }
+        long total = 0;
+        for (LongAdder celda : celdas) {
+            total += celda.sum();
+        }
+        return total;
+    }
+
+    private static LongAdder[] nuevasCeldas() {
+        LongAdder[] celdas = new LongAdder[TIPOS.length];
+        for (int i = 0; i < celdas.length; i++) {
+            celdas[i] = new LongAdder();
+        }
+        return celdas;
+    }
+}
@@ -0,0 +1,176 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutor con nombre, hilos y cola acotados para una carga de trabajo
+ *
+ * Cada carga (sentimiento, email, refresco de estadísticas, @Async general)
+ * tiene el suyo, así que una no puede dejar sin hilos a las demás ni crecer
+ * sin límite en memoria. Se crean en EjecutoresConfig.
+ *
+ * Con la cola llena:
+ * - Una TareaDiferida se guarda en la tabla tareas_pendientes y se repite
+ *   más tarde (TareasPendientesService)
+ * - Cualquier otra tarea, o si no se pudo guardar, lanza TaskRejectedException
+ *
+ * Hilos virtuales (`app.async.hilos-virtuales`): los hilos del pool pasan a ser
+ * virtuales (siguen acotados en número y cola). Requieren Java 21; con una
+ * JVM anterior se avisa en el log y se usan hilos de plataforma.
+ *
+ * Métricas (etiqueta ejecutor=nombre):
+ * - fallapp.ejecutor.cola: tareas esperando
+ * - fallapp.ejecutor.activos: hilos ejecutando una tarea
+ * - fallapp.ejecutor.hilos: hilos creados
+ * - fallapp.ejecutor.espera: tiempo en cola de cada tarea
+ * - fallapp.ejecutor.duracion: tiempo de ejecución de cada tarea
+ * - fallapp.ejecutor.rechazos{destino=tabla|error}
+ */
+@Slf4j
+public class EjecutorAcotado implements TaskExecutor, DisposableBean {
+
+    private static final long ESPERA_CIERRE_SEGUNDOS = 10;
+
+    private final String nombre;
+    private final ThreadPoolExecutor pool;
+    private final TareasPendientesService tareasPendientes;
+    private final boolean hilosVirtuales;
+    private final Timer espera;
+    private final Timer duracion;
+    private final Counter desbordadas;
+    private final Counter rechazadas;
+
+    /**
+     * @param tareasPendientes Destino de las TareaDiferida rechazadas (null: se rechazan)
+     */
+    public EjecutorAcotado(String nombre, int hilos, int capacidadCola, boolean virtuales,
+                           MeterRegistry meterRegistry, TareasPendientesService tareasPendientes) {
+        this.nombre = nombre;
+        this.tareasPendientes = tareasPendientes;
+        ThreadFactory fabrica = virtuales ? fabricaVirtual(nombre) : null;
+        this.hilosVirtuales = fabrica != null;
+        if (fabrica == null) {
+            fabrica = fabricaPlataforma(nombre);
+        }
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), fabrica, (tarea, ejecutor) -> desbordar(tarea));
+        this.pool.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("fallapp.ejecutor.cola", pool, p -> p.getQueue().size())
+                .tag("ejecutor", nombre).description("Tareas esperando en la cola").register(meterRegistry);
+        Gauge.builder("fallapp.ejecutor.activos", pool, ThreadPoolExecutor::getActiveCount)
+                .tag("ejecutor", nombre).description("Hilos ejecutando una tarea").register(meterRegistry);
+        Gauge.builder("fallapp.ejecutor.hilos", pool, ThreadPoolExecutor::getPoolSize)
+                .tag("ejecutor", nombre).description("Hilos del pool").register(meterRegistry);
+        this.espera = Timer.builder("fallapp.ejecutor.espera")
+                .tag("ejecutor", nombre).description("Tiempo de las tareas en cola").register(meterRegistry);
+        this.duracion = Timer.builder("fallapp.ejecutor.duracion")
+                .tag("ejecutor", nombre).description("Tiempo de ejecución de las tareas").register(meterRegistry);
+        this.desbordadas = meterRegistry.counter("fallapp.ejecutor.rechazos", "ejecutor", nombre, "destino", "tabla");
+        this.rechazadas = meterRegistry.counter("fallapp.ejecutor.rechazos", "ejecutor", nombre, "destino", "error");
+
+        log.info("Ejecutor '{}': {} hilos {}, cola de {}", nombre, hilos,
+                hilosVirtuales ? "virtuales" : "de plataforma", capacidadCola);
+    }
+
+    @Override
+    public void execute(Runnable tarea) {
+        pool.execute(new TareaMedida(tarea, System.nanoTime()));
+    }
+
+    public String nombre() {
+        return nombre;
+    }
+
+    public boolean usaHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    int tareasEnCola() {
+        return pool.getQueue().size();
+    }
+
+    int hilosActivos() {
+        return pool.getActiveCount();
+    }
+
+    private void desbordar(Runnable rechazada) {
+        Runnable tarea = rechazada instanceof TareaMedida medida ? medida.tarea : rechazada;
+        if (tarea instanceof TareaDiferida diferida && tareasPendientes != null && !pool.isShutdown()
+                && tareasPendientes.guardar(nombre, diferida.tipo(), diferida.datos())) {
+            desbordadas.increment();
+            log.warn("Ejecutor '{}' saturado: tarea {} guardada para reintentar", nombre, diferida.tipo());
+            return;
+        }
+        rechazadas.increment();
+        throw new TaskRejectedException("Ejecutor '" + nombre + "' saturado ("
+                + pool.getQueue().size() + " tareas en cola)");
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(ESPERA_CIERRE_SEGUNDOS, TimeUnit.SECONDS)) {
+            log.warn("Ejecutor '{}' cerrado con {} tareas sin terminar", nombre, pool.shutdownNow().size());
+        }
+    }
+
+    private static ThreadFactory fabricaVirtual(String nombre) {
+        try {
+            return new VirtualThreadTaskExecutor(nombre + "-").getVirtualThreadFactory();
+        } catch (UnsupportedOperationException e) {
+            log.warn("Ejecutor '{}': hilos virtuales no disponibles en Java {}, se usan hilos de plataforma",
+                    nombre, Runtime.version().feature());
+            return null;
+        }
+    }
+
+    private static ThreadFactory fabricaPlataforma(String nombre) {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, nombre + "-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    /**
+     * Envoltorio que mide espera en cola y duración
+     */
+    private final class TareaMedida implements Runnable {
+        private final Runnable tarea;
+        private final long encoladaEn;
+
+        TareaMedida(Runnable tarea, long encoladaEn) {
+            this.tarea = tarea;
+            this.encoladaEn = encoladaEn;
+        }
+
+        @Override
+        public void run() {
+            long inicio = System.nanoTime();
+            espera.record(inicio - encoladaEn, TimeUnit.NANOSECONDS);
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                log.error("Error en una tarea del ejecutor '{}': {}", nombre, e.getMessage(), e);
+            } finally {
+                duracion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
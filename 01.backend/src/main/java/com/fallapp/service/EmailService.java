@@ -3,6 +3,7 @@ package com.fallapp.service;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -11,18 +12,33 @@ import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Servicio para envío de emails usando Brevo (SMTP)
  * Configurado en application.properties
+ *
+ * El email de bienvenida se envía en emailExecutor: si la cola está llena
+ * o el SMTP falla, queda en tareas_pendientes y se reintenta más tarde.
  */
 @Service
-public class EmailService {
+public class EmailService implements ManejadorTareaDiferida {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
+    static final String TAREA_BIENVENIDA = "email.bienvenida";
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    @Qualifier("emailExecutor")
+    private Executor emailExecutor;
+
+    @Autowired
+    private TareasPendientesService tareasPendientes;
+
     @Value("${app.mail.from}")
     private String fromEmail;
 
@@ -110,6 +126,50 @@ public class EmailService {
         sendHtmlEmail(to, subject, htmlContent);
     }
 
+    /**
+     * Enviar el email de bienvenida en segundo plano (no bloquea la petición)
+     * @param to Email del nuevo usuario
+     * @param username Nombre de usuario
+     * @return false si no se pudo encolar ni guardar para reintentar
+     */
+    public boolean enviarBienvenidaEnSegundoPlano(String to, String username) {
+        String datos = to + "\n" + username;
+        try {
+            emailExecutor.execute(new TareaDiferida(TAREA_BIENVENIDA, datos, () -> {
+                try {
+                    sendWelcomeEmail(to, username);
+                } catch (MessagingException e) {
+                    if (!tareasPendientes.guardar("email", TAREA_BIENVENIDA, datos)) {
+                        logger.error("Email de bienvenida a {} perdido", to);
+                    }
+                }
+            }));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.error("No se pudo programar el email de bienvenida a {}: {}", to, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String tipoTarea() {
+        return TAREA_BIENVENIDA;
+    }
+
+    /**
+     * Reintentar un email de bienvenida guardado en tareas_pendientes
+     * @param datos "email\nnombre"
+     */
+    @Override
+    public void ejecutarTarea(String datos) {
+        String[] partes = datos.split("\n", 2);
+        try {
+            sendWelcomeEmail(partes[0], partes.length > 1 ? partes[1] : "");
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Enviar email de recuperación de contraseña
      * @param to Email del usuario
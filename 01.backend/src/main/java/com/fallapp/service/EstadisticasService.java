@@ -1,7 +1,11 @@
 package com.fallapp.service;
 
+import com.fallapp.dto.SentimientoFallasDTO;
+import com.fallapp.exception.BadRequestException;
 import com.fallapp.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,11 +27,13 @@ import com.fallapp.model.Voto;
  * - Respuestas tipo Map<String, Object> para flexibilidad JSON
  * - No usa paginación (agregaciones pequeñas <100 elementos)
  * - Performance: Queries optimizadas con índices en BD
+ * - Dashboard (resumen/fallas/usuarios/eventos) servido desde snapshot con TTL corto
  * 
  * Agregaciones realizadas:
- * - Contadores: count() en repositories
- * - Distribuciones: groupBy en Java Streams (no en BD)
- * - Rankings: ordenamiento por votos/notas DESC + limit(10)
+ * - Contadores y distribuciones: snapshot cacheado (EstadisticasSnapshotService),
+ *   calculado con 2 queries agregadas en BD
+ * - Rankings: servidos por RankingVotosService (en memoria, sin N+1 por falla)
+ * - Sentimiento por falla: tabla sentimiento_fallas mantenida por trigger (script 67)
  * - Promedios: cálculos en memoria con streams
  * 
  * Casos de uso:
@@ -52,12 +58,20 @@ import com.fallapp.model.Voto;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class EstadisticasService {
+
+    private static final int LIMITE_ACTIVIDAD_DEFECTO = 5;
+    private static final int LIMITE_ACTIVIDAD_MAXIMO = 50;
+    private static final String ORDEN_QUERIDAS = "queridas";
+    private static final String ORDEN_CRITICADAS = "criticadas";
+    private static final String TIPO_COMENTARIO = "COMENTARIO";
+    private static final String TIPO_VOTO = "VOTO";
     
     private final FallaRepository fallaRepository;
-    private final EventoRepository eventoRepository;
-    private final UsuarioRepository usuarioRepository;
     private final VotoRepository votoRepository;
     private final ComentarioRepository comentarioRepository;
+    private final RankingVotosService rankingVotosService;
+    private final EstadisticasSnapshotService estadisticasSnapshotService;
+    private final EstadisticasRepository estadisticasRepository;
     
     /**
      * Obtener resumen general del sistema (Dashboard principal)
@@ -68,8 +82,8 @@ public class EstadisticasService {
      * - Ninots premiados (campo premiado=true)
      * - Timestamp de generación del reporte
      * 
-     * Performance: 7 queries (una por cada count())
-     * Tiempo estimado: <100ms con índices optimizados
+     * Performance: servido desde EstadisticasSnapshotService
+     * (2 queries agregadas como mucho cada TTL, 0 queries en régimen normal)
      * 
      * Ejemplo de respuesta:
      * {
@@ -87,21 +101,22 @@ public class EstadisticasService {
      * @return Map con métricas agregadas del sistema
      */
     public Map<String, Object> obtenerResumenGeneral() {
+        EstadisticasSnapshotService.Snapshot datos = estadisticasSnapshotService.obtener();
         Map<String, Object> resumen = new HashMap<>();
         
-        resumen.put("totalFallas", fallaRepository.count());
-        resumen.put("totalEventos", eventoRepository.count());
+        resumen.put("totalFallas", datos.totalFallas());
+        resumen.put("totalEventos", datos.totalEventos());
         // Table `ninots` removed; report 0 or derive from media if available
         resumen.put("totalNinots", 0);
-        resumen.put("totalUsuarios", usuarioRepository.count());
-        resumen.put("totalVotos", votoRepository.count());
-        resumen.put("totalComentarios", comentarioRepository.count());
+        resumen.put("totalUsuarios", datos.totalUsuarios());
+        resumen.put("totalVotos", datos.totalVotos());
+        resumen.put("totalComentarios", datos.totalComentarios());
         
         // Usuarios activos
-        resumen.put("usuariosActivos", usuarioRepository.findByActivoTrue().size());
+        resumen.put("usuariosActivos", datos.usuariosActivos());
         
-        // Fecha generación
-        resumen.put("fechaGeneracion", LocalDateTime.now());
+        // Fecha en la que se calculó el snapshot
+        resumen.put("fechaGeneracion", datos.fechaGeneracion());
         
         return resumen;
     }
@@ -110,36 +125,24 @@ public class EstadisticasService {
      * Obtener estadísticas de fallas
      */
     public Map<String, Object> obtenerEstadisticasFallas() {
+        EstadisticasSnapshotService.Snapshot datos = estadisticasSnapshotService.obtener();
         Map<String, Object> estadisticas = new HashMap<>();
         
-        estadisticas.put("totalFallas", fallaRepository.count());
-        
-        // Por categoría (usando la enum)
-        Map<String, Long> porCategoria = new HashMap<>();
-        porCategoria.put("especial", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.especial));
-        porCategoria.put("primera", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.primera));
-        porCategoria.put("segunda", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.segunda));
-        porCategoria.put("tercera", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.tercera));
-        porCategoria.put("cuarta", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.cuarta));
-        porCategoria.put("quinta", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.quinta));
-        porCategoria.put("sin_categoria", fallaRepository.countByCategoria(com.fallapp.model.Falla.CategoriaFalla.sin_categoria));
-        
-        estadisticas.put("porCategoria", porCategoria);
-        
-        // Total fallas
-        estadisticas.put("totalFallas", fallaRepository.count());
+        estadisticas.put("totalFallas", datos.totalFallas());
+        estadisticas.put("porCategoria", new HashMap<>(datos.porCategoria()));
         
         return estadisticas;
     }
     
     /**
      * Obtener estadísticas de votos
+     *
+     * Performance: 0 queries en régimen normal (ranking en memoria).
+     * Antes: 1 query por falla (351+ COUNT por petición).
      */
     public Map<String, Object> obtenerEstadisticasVotos(Integer limite, String tipoVotoStr) {
         Map<String, Object> estadisticas = new HashMap<>();
 
-        estadisticas.put("totalVotos", votoRepository.count());
-
         int top = (limite == null || limite <= 0) ? 10 : limite;
 
         // Parse tipoVoto if provided
@@ -152,21 +155,18 @@ public class EstadisticasService {
             }
         }
 
-        final Voto.TipoVoto filtroTipo = tipo;
+        estadisticas.put("totalVotos", rankingVotosService.obtenerTotalVotos(null));
 
-        // Top fallas (by votes)
-        List<Map<String, Object>> topFallas = fallaRepository.findAll().stream()
-                .map(f -> {
-                    long cnt = (filtroTipo == null) ? votoRepository.countByFalla(f) : votoRepository.countByFallaAndTipoVoto(f, filtroTipo);
+        // Top fallas (by votes): servido desde el ranking en memoria, sin consultas por falla
+        List<Map<String, Object>> topFallas = rankingVotosService.obtenerTop(tipo, top).stream()
+                .map(posicion -> {
                     Map<String, Object> m = new HashMap<>();
-                    m.put("idFalla", f.getIdFalla());
-                    m.put("nombre", f.getNombre());
-                    m.put("seccion", f.getSeccion());
-                    m.put("votos", cnt);
+                    m.put("idFalla", posicion.idFalla());
+                    m.put("nombre", posicion.nombre());
+                    m.put("seccion", posicion.seccion());
+                    m.put("votos", posicion.votos());
                     return m;
                 })
-                .sorted((a, b) -> Long.compare(((Number) b.get("votos")).longValue(), ((Number) a.get("votos")).longValue()))
-                .limit(top)
                 .toList();
 
         estadisticas.put("topFallas", topFallas);
@@ -183,73 +183,141 @@ public class EstadisticasService {
      * Obtener estadísticas de usuarios
      */
     public Map<String, Object> obtenerEstadisticasUsuarios() {
+        EstadisticasSnapshotService.Snapshot datos = estadisticasSnapshotService.obtener();
         Map<String, Object> estadisticas = new HashMap<>();
         
-        estadisticas.put("totalUsuarios", usuarioRepository.count());
-        estadisticas.put("usuariosActivos", usuarioRepository.findByActivoTrue().size());
-        
-        // Por rol
-        Map<String, Long> porRol = new HashMap<>();
-        porRol.put("admin", usuarioRepository.countByRol(com.fallapp.model.Usuario.RolUsuario.admin));
-        porRol.put("casal", usuarioRepository.countByRol(com.fallapp.model.Usuario.RolUsuario.casal));
-        porRol.put("usuario", usuarioRepository.countByRol(com.fallapp.model.Usuario.RolUsuario.usuario));
-        
-        estadisticas.put("porRol", porRol);
+        estadisticas.put("totalUsuarios", datos.totalUsuarios());
+        estadisticas.put("usuariosActivos", datos.usuariosActivos());
+        estadisticas.put("porRol", new HashMap<>(datos.porRol()));
         
         return estadisticas;
     }
     
     /**
-     * Obtener actividad reciente
+     * Obtener actividad reciente (feed de comentarios y votos)
+     *
+     * - ORDER BY fecha DESC + LIMIT en BD (nunca se cargan tablas completas)
+     * - Proyecciones con nombre de usuario/falla en la misma query (sin N+1)
+     * - Paginación keyset: antesDe/antesDeTipo/antesDeId es el cursor del
+     *   último elemento recibido; null = primera página
+     *
+     * Orden total (fecha DESC, tipo, id DESC), con los comentarios antes que
+     * los votos a igual fecha: los ids de las dos tablas pueden coincidir, así
+     * que el tipo forma parte del cursor. Con un cursor de tipo VOTO ya se
+     * sirvieron todos los comentarios de esa fecha; con uno de tipo
+     * COMENTARIO, ninguno de los votos. Sin antesDeTipo (clientes antiguos)
+     * el id se aplica a ambas tablas.
+     *
+     * Respuesta:
+     * - ultimosComentarios / ultimosVotos: hasta `limite` elementos de cada tipo
+     * - actividad: ambos flujos mezclados en ese orden, hasta `limite` elementos
+     * - siguienteCursor: {antesDe, antesDeTipo, antesDeId} para pedir la página
+     *   siguiente (null si no hay más)
+     *
+     * Queries: 2 (una por tipo de actividad)
+     *
+     * @throws BadRequestException antesDeTipo distinto de COMENTARIO o VOTO
      */
-    public Map<String, Object> obtenerActividadReciente() {
-        Map<String, Object> actividad = new HashMap<>();
-        
-        // Últimos 5 comentarios
-        var ultimosComentarios = comentarioRepository.findAll().stream()
-                .sorted((c1, c2) -> c2.getCreadoEn().compareTo(c1.getCreadoEn()))
-                .limit(5)
-                .map(comentario -> {
+    public Map<String, Object> obtenerActividadReciente(Integer limite, LocalDateTime antesDe,
+                                                        String antesDeTipo, Long antesDeId) {
+        int tamano = (limite == null || limite <= 0) ? LIMITE_ACTIVIDAD_DEFECTO : Math.min(limite, LIMITE_ACTIVIDAD_MAXIMO);
+        Pageable pagina = PageRequest.of(0, tamano);
+        boolean conCursor = antesDe != null;
+        if (antesDeTipo != null && !TIPO_COMENTARIO.equals(antesDeTipo) && !TIPO_VOTO.equals(antesDeTipo)) {
+            throw new BadRequestException("antesDeTipo debe ser " + TIPO_COMENTARIO + " o " + TIPO_VOTO);
+        }
+        long idCursor = antesDeId != null ? antesDeId : Long.MAX_VALUE;
+        // Cota de id en cada tabla para las filas con la misma fecha que el cursor
+        long idComentarios = TIPO_VOTO.equals(antesDeTipo) ? 0L : idCursor;
+        long idVotos = TIPO_COMENTARIO.equals(antesDeTipo) ? Long.MAX_VALUE : idCursor;
+
+        List<Object[]> filasComentarios = conCursor
+                ? comentarioRepository.findActividadAnteriorA(antesDe, idComentarios, pagina)
+                : comentarioRepository.findActividadReciente(pagina);
+        List<Object[]> filasVotos = conCursor
+                ? votoRepository.findActividadAnteriorA(antesDe, idVotos, pagina)
+                : votoRepository.findActividadReciente(pagina);
+
+        List<Map<String, Object>> ultimosComentarios = filasComentarios.stream()
+                .map(fila -> {
+                    String contenido = (String) fila[4];
                     Map<String, Object> info = new HashMap<>();
-                    info.put("idComentario", comentario.getIdComentario());
-                    info.put("usuario", comentario.getUsuario() != null ? comentario.getUsuario().getNombreCompleto() : null);
-                    info.put("contenido", comentario.getContenido().length() > 100 ? 
-                            comentario.getContenido().substring(0, 100) + "..." : 
-                            comentario.getContenido());
-                    info.put("fecha", comentario.getCreadoEn());
+                    info.put("tipo", TIPO_COMENTARIO);
+                    info.put("idComentario", fila[0]);
+                    info.put("usuario", fila[1]);
+                    info.put("idFalla", fila[2]);
+                    info.put("falla", fila[3]);
+                    info.put("contenido", contenido != null && contenido.length() > 100 ?
+                            contenido.substring(0, 100) + "..." :
+                            contenido);
+                    info.put("fecha", fila[5]);
                     return info;
                 })
                 .toList();
-        
-        actividad.put("ultimosComentarios", ultimosComentarios);
-        
-        // Últimos 5 votos
-        var ultimosVotos = votoRepository.findAll().stream()
-                .sorted((v1, v2) -> v2.getCreadoEn().compareTo(v1.getCreadoEn()))
-                .limit(5)
-                .map(voto -> {
+
+        List<Map<String, Object>> ultimosVotos = filasVotos.stream()
+                .map(fila -> {
                     Map<String, Object> info = new HashMap<>();
-                    info.put("idVoto", voto.getIdVoto());
-                    info.put("usuario", voto.getUsuario() != null ? voto.getUsuario().getNombreCompleto() : null);
-                    info.put("falla", voto.getFalla() != null ? voto.getFalla().getNombre() : null);
-                    info.put("fecha", voto.getCreadoEn());
+                    info.put("tipo", TIPO_VOTO);
+                    info.put("idVoto", fila[0]);
+                    info.put("usuario", fila[1]);
+                    info.put("idFalla", fila[2]);
+                    info.put("falla", fila[3]);
+                    info.put("tipoVoto", fila[4] != null ? fila[4].toString() : null);
+                    info.put("fecha", fila[5]);
                     return info;
                 })
                 .toList();
-        
-        actividad.put("ultimosVotos", ultimosVotos);
-        
-        return actividad;
+
+        // Mezcla de ambos flujos (ya ordenados) por (fecha DESC, tipo, id DESC)
+        List<Map<String, Object>> actividad = new ArrayList<>(ultimosComentarios);
+        actividad.addAll(ultimosVotos);
+        actividad.sort(Comparator
+                .comparing((Map<String, Object> m) -> (LocalDateTime) m.get("fecha"),
+                        Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(m -> TIPO_VOTO.equals(m.get("tipo")))
+                .thenComparing(m -> idActividad(m), Comparator.reverseOrder()));
+        if (actividad.size() > tamano) {
+            actividad = new ArrayList<>(actividad.subList(0, tamano));
+        }
+
+        Map<String, Object> siguienteCursor = null;
+        boolean hayMas = filasComentarios.size() == tamano || filasVotos.size() == tamano;
+        if (hayMas && !actividad.isEmpty()) {
+            Map<String, Object> ultimo = actividad.get(actividad.size() - 1);
+            siguienteCursor = new HashMap<>();
+            siguienteCursor.put("antesDe", ultimo.get("fecha"));
+            siguienteCursor.put("antesDeTipo", ultimo.get("tipo"));
+            siguienteCursor.put("antesDeId", idActividad(ultimo));
+        }
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("ultimosComentarios", ultimosComentarios);
+        resultado.put("ultimosVotos", ultimosVotos);
+        resultado.put("actividad", actividad);
+        resultado.put("siguienteCursor", siguienteCursor);
+        return resultado;
+    }
+
+    private static Long idActividad(Map<String, Object> item) {
+        Object id = TIPO_VOTO.equals(item.get("tipo")) ? item.get("idVoto") : item.get("idComentario");
+        return id != null ? ((Number) id).longValue() : 0L;
     }
 
     /**
      * Obtener estadísticas de sentimiento de comentarios para una falla concreta.
      *
+     * Se lee de sentimiento_fallas (script 67), que un trigger sobre
+     * comentarios mantiene al día: una lectura por PK en lugar de un
+     * GROUP BY sobre los comentarios de la falla.
+     *
      * Estructura de respuesta:
      * {
      *   "idFalla": 23,
      *   "nombreFalla": "Falla Convento Jerusalén",
      *   "totalComentarios": 33,
+     *   "totalComentariosFalla": 35,
+     *   "totalPendientes": 2,
      *   "sentimientos": {
      *     "positive": 25,
      *     "neutral": 5,
@@ -261,60 +329,97 @@ public class EstadisticasService {
         var falla = fallaRepository.findById(idFalla)
                 .orElseThrow(() -> new RuntimeException("Falla no encontrada con ID: " + idFalla));
 
-        Map<String, Long> sentimientos = new HashMap<>();
-        sentimientos.put("positive", 0L);
-        sentimientos.put("neutral", 0L);
-        sentimientos.put("negative", 0L);
-
-        comentarioRepository.countByFallaGroupBySentimiento(falla).forEach(row -> {
-            String sentimiento = (String) row[0];
-            Long total = (Long) row[1];
-            if (sentimiento != null) {
-                String clave = sentimiento.trim().toLowerCase();
-                if (sentimientos.containsKey(clave)) {
-                    sentimientos.put(clave, sentimientos.get(clave) + total);
-                }
+        // Sin fila: la falla aún no tiene comentarios
+        long[] contadores = new long[4];
+        estadisticasRepository.obtenerSentimientoFalla(idFalla).stream().findFirst().ifPresent(fila -> {
+            for (int i = 0; i < contadores.length; i++) {
+                contadores[i] = ((Number) fila[i]).longValue();
             }
         });
 
-        long totalComentariosFalla = comentarioRepository.countByFalla(falla);
-        long totalAnalizados = sentimientos.values().stream().mapToLong(Long::longValue).sum();
-        long totalPendientes = Math.max(totalComentariosFalla - totalAnalizados, 0L);
+        Map<String, Long> sentimientos = new HashMap<>();
+        sentimientos.put("positive", contadores[0]);
+        sentimientos.put("neutral", contadores[1]);
+        sentimientos.put("negative", contadores[2]);
+
+        long totalAnalizados = contadores[0] + contadores[1] + contadores[2];
 
         Map<String, Object> resultado = new HashMap<>();
         resultado.put("idFalla", falla.getIdFalla());
         resultado.put("nombreFalla", falla.getNombre());
         resultado.put("totalComentarios", totalAnalizados);
-        resultado.put("totalComentariosFalla", totalComentariosFalla);
-        resultado.put("totalPendientes", totalPendientes);
+        resultado.put("totalComentariosFalla", totalAnalizados + contadores[3]);
+        resultado.put("totalPendientes", contadores[3]);
         resultado.put("sentimientos", sentimientos);
 
         return resultado;
     }
+
+    /**
+     * Ranking de fallas por sentimiento de sus comentarios
+     *
+     * "queridas" ordena por % de positivos y "criticadas" por % de negativos
+     * (a igual porcentaje, primero la que tiene más comentarios). Una sola
+     * query sobre sentimiento_fallas (~351 filas) y orden en memoria.
+     *
+     * @param orden  "queridas" o "criticadas"
+     * @param limite Número máximo de fallas
+     * @param minimo Comentarios analizados mínimos para entrar (evita que una
+     *               falla con un único comentario positivo encabece la lista)
+     * @throws BadRequestException Si el orden no es válido
+     */
+    public SentimientoFallasDTO obtenerRankingSentimiento(String orden, int limite, int minimo) {
+        String criterio = orden == null ? "" : orden.trim().toLowerCase();
+        if (!ORDEN_QUERIDAS.equals(criterio) && !ORDEN_CRITICADAS.equals(criterio)) {
+            throw new BadRequestException("Orden no válido: " + orden + " (queridas o criticadas)");
+        }
+        int minimoAnalizados = Math.max(minimo, 1);
+
+        List<SentimientoFallasDTO.FallaSentimiento> fallas = new ArrayList<>();
+        for (Object[] fila : estadisticasRepository.obtenerSentimientoFallas(minimoAnalizados)) {
+            long positivos = ((Number) fila[3]).longValue();
+            long neutrales = ((Number) fila[4]).longValue();
+            long negativos = ((Number) fila[5]).longValue();
+            long analizados = positivos + neutrales + negativos;
+            fallas.add(SentimientoFallasDTO.FallaSentimiento.builder()
+                    .idFalla(((Number) fila[0]).longValue())
+                    .nombre((String) fila[1])
+                    .seccion((String) fila[2])
+                    .positivos(positivos)
+                    .neutrales(neutrales)
+                    .negativos(negativos)
+                    .pendientes(((Number) fila[6]).longValue())
+                    .analizados(analizados)
+                    .porcentajePositivos(Math.round(positivos * 1000.0 / analizados) / 10.0)
+                    .porcentajeNegativos(Math.round(negativos * 1000.0 / analizados) / 10.0)
+                    .build());
+        }
+
+        Comparator<SentimientoFallasDTO.FallaSentimiento> porProporcion = ORDEN_QUERIDAS.equals(criterio)
+                ? Comparator.comparingDouble(f -> (double) f.getPositivos() / f.getAnalizados())
+                : Comparator.comparingDouble(f -> (double) f.getNegativos() / f.getAnalizados());
+        fallas.sort(porProporcion
+                .thenComparing(SentimientoFallasDTO.FallaSentimiento::getAnalizados)
+                .reversed()
+                .thenComparing(SentimientoFallasDTO.FallaSentimiento::getIdFalla));
+
+        return SentimientoFallasDTO.builder()
+                .orden(criterio)
+                .minimoAnalizados(minimoAnalizados)
+                .fallas(fallas.size() > limite ? new ArrayList<>(fallas.subList(0, limite)) : fallas)
+                .build();
+    }
     
     /**
      * Obtener estadísticas de eventos
      */
     public Map<String, Object> obtenerEstadisticasEventos() {
+        EstadisticasSnapshotService.Snapshot datos = estadisticasSnapshotService.obtener();
         Map<String, Object> estadisticas = new HashMap<>();
         
-        estadisticas.put("totalEventos", eventoRepository.count());
-        
-        // Eventos futuros
-        estadisticas.put("eventosFuturos", 
-                eventoRepository.findEventosFuturos(LocalDateTime.now()).size());
-        
-        // Por tipo (usando la enum)
-        Map<String, Long> porTipo = new HashMap<>();
-        porTipo.put("planta", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.planta));
-        porTipo.put("crema", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.crema));
-        porTipo.put("ofrenda", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.ofrenda));
-        porTipo.put("infantil", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.infantil));
-        porTipo.put("concierto", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.concierto));
-        porTipo.put("exposicion", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.exposicion));
-        porTipo.put("otro", eventoRepository.countByTipo(com.fallapp.model.Evento.TipoEvento.otro));
-        
-        estadisticas.put("porTipo", porTipo);
+        estadisticas.put("totalEventos", datos.totalEventos());
+        estadisticas.put("eventosFuturos", datos.eventosFuturos());
+        estadisticas.put("porTipo", new HashMap<>(datos.porTipoEvento()));
         
         return estadisticas;
     }
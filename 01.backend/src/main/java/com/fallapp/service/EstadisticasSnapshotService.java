@@ -0,0 +1,196 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Evento;
+import com.fallapp.model.Falla;
+import com.fallapp.model.Usuario;
+import com.fallapp.repository.EstadisticasRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot cacheado de las cifras del dashboard de estadísticas
+ *
+ * Todas las cifras de /api/estadisticas/resumen, /fallas, /usuarios y /eventos
+ * se calculan con 2 queries (contadores globales + distribuciones agrupadas)
+ * y se sirven desde memoria durante `app.estadisticas.snapshot.ttl-ms`.
+ *
+ * Estrategia stale-while-revalidate:
+ * - Sin snapshot: se calcula en el hilo de la petición (solo la primera vez)
+ * - Snapshot caducado: se devuelve el actual y se recalcula en segundo plano
+ *   en estadisticasExecutor (como mucho un recálculo en curso a la vez; si
+ *   el ejecutor está saturado se sigue sirviendo el actual y se reintenta
+ *   en el siguiente acceso)
+ * - invalidar() sube una generación: un recálculo que empezó antes descarta
+ *   su resultado en vez de volver a publicar cifras ya invalidadas
+ *
+ * Así el dashboard de testing y la home del escritorio nunca disparan
+ * un abanico de COUNT contra la BD.
+ *
+ * @see EstadisticasRepository Queries agregadas
+ * @see EstadisticasService Consumidor principal
+ */
+@Service
+@Slf4j
+public class EstadisticasSnapshotService {
+
+    private final EstadisticasRepository estadisticasRepository;
+    private final long ttlMillis;
+    private final Executor refrescoExecutor;
+    private final AtomicBoolean refrescando = new AtomicBoolean(false);
+    private final AtomicLong generacion = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public EstadisticasSnapshotService(
+            EstadisticasRepository estadisticasRepository,
+            @Value("${app.estadisticas.snapshot.ttl-ms:30000}") long ttlMillis,
+            @Qualifier("estadisticasExecutor") Executor refrescoExecutor) {
+        this.estadisticasRepository = estadisticasRepository;
+        this.ttlMillis = ttlMillis;
+        this.refrescoExecutor = refrescoExecutor;
+    }
+
+    /**
+     * Obtener el snapshot vigente (o calcularlo si aún no existe)
+     */
+    public Snapshot obtener() {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = calcular();
+                }
+                return snapshot;
+            }
+        }
+        if (System.currentTimeMillis() - actual.calculadoEnMillis() > ttlMillis) {
+            refrescarEnSegundoPlano();
+        }
+        return actual;
+    }
+
+    /**
+     * Descartar el snapshot actual (el siguiente acceso lo recalcula)
+     */
+    public synchronized void invalidar() {
+        generacion.incrementAndGet();
+        snapshot = null;
+    }
+
+    private void refrescarEnSegundoPlano() {
+        if (!refrescando.compareAndSet(false, true)) {
+            return;
+        }
+        long inicio = generacion.get();
+        try {
+            refrescoExecutor.execute(() -> {
+                try {
+                    publicarSiVigente(calcular(), inicio);
+                } catch (Exception e) {
+                    log.warn("No se pudo refrescar el snapshot de estadísticas: {}", e.getMessage());
+                } finally {
+                    refrescando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refrescando.set(false);
+            log.debug("Refresco del snapshot de estadísticas aplazado: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publicar un snapshot recalculado salvo que se haya invalidado mientras
+     * se calculaba (sus cifras pueden ser anteriores al cambio)
+     */
+    private synchronized void publicarSiVigente(Snapshot nuevo, long inicio) {
+        if (generacion.get() != inicio) {
+            log.debug("Snapshot de estadísticas descartado: se invalidó durante el recálculo");
+            return;
+        }
+        snapshot = nuevo;
+    }
+
+    /**
+     * Calcular el snapshot completo
+     *
+     * Queries: 2 (contadores globales + distribuciones UNION ALL)
+     */
+    Snapshot calcular() {
+        Object[] contadores = estadisticasRepository.obtenerContadoresGlobales().get(0);
+
+        Map<String, Long> porCategoria = inicializar(Falla.CategoriaFalla.values());
+        Map<String, Long> porRol = inicializar(Usuario.RolUsuario.values());
+        Map<String, Long> porTipoEvento = inicializar(Evento.TipoEvento.values());
+
+        for (Object[] fila : estadisticasRepository.obtenerDistribuciones()) {
+            String dimension = (String) fila[0];
+            String valor = fila[1] != null ? fila[1].toString().trim().toLowerCase() : null;
+            long total = ((Number) fila[2]).longValue();
+            Map<String, Long> destino = switch (dimension) {
+                case "categoria" -> porCategoria;
+                case "rol" -> porRol;
+                case "tipo_evento" -> porTipoEvento;
+                default -> null;
+            };
+            if (destino != null && valor != null) {
+                destino.merge(valor, total, Long::sum);
+            }
+        }
+
+        return new Snapshot(
+                numero(contadores[0]),
+                numero(contadores[1]),
+                numero(contadores[2]),
+                numero(contadores[3]),
+                numero(contadores[4]),
+                numero(contadores[5]),
+                numero(contadores[6]),
+                Collections.unmodifiableMap(porCategoria),
+                Collections.unmodifiableMap(porRol),
+                Collections.unmodifiableMap(porTipoEvento),
+                LocalDateTime.now(),
+                System.currentTimeMillis());
+    }
+
+    private static Map<String, Long> inicializar(Enum<?>[] valores) {
+        Map<String, Long> mapa = new LinkedHashMap<>();
+        for (Enum<?> valor : valores) {
+            mapa.put(valor.name().toLowerCase(), 0L);
+        }
+        return mapa;
+    }
+
+    private static long numero(Object valor) {
+        return valor == null ? 0L : ((Number) valor).longValue();
+    }
+
+    /**
+     * Cifras del dashboard en un instante dado (inmutable)
+     */
+    public record Snapshot(
+            long totalFallas,
+            long totalEventos,
+            long eventosFuturos,
+            long totalUsuarios,
+            long usuariosActivos,
+            long totalVotos,
+            long totalComentarios,
+            Map<String, Long> porCategoria,
+            Map<String, Long> porRol,
+            Map<String, Long> porTipoEvento,
+            LocalDateTime fechaGeneracion,
+            long calculadoEnMillis) {
+    }
+}
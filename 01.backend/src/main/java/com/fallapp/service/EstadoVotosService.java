@@ -0,0 +1,199 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.EstadoVotosDTO;
+import com.fallapp.model.Voto;
+import com.fallapp.repository.VotoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estado de votos por usuario en memoria ("¿ya he votado esta falla?")
+ *
+ * Cada usuario tiene un bitmap indexado por idFalla × TipoVoto
+ * (bit = idFalla * 3 + ordinal): unos cientos de bytes frente a la lista de
+ * entidades Voto con sus asociaciones que devuelve /api/votos/usuario/{id}.
+ *
+ * Caché:
+ * - LRU acotada a `app.votos.estado.max-usuarios` usuarios
+ * - En un fallo se carga de BD con una query de proyección (sin entidades);
+ *   mientras carga, el resto de hilos del mismo usuario esperan a esa carga
+ * - VotoService notifica votos y eliminaciones DESPUÉS del commit; si el
+ *   usuario no está en caché se ignoran (la próxima carga ya los lee de BD)
+ *
+ * El buffer de votos usa marcar() como comprobación de duplicados. Si un
+ * usuario con votos aún en cola sale de la LRU, al recargar de BD esos votos
+ * no aparecen y un duplicado podría aceptarse en el buffer; la restricción
+ * única de `votos` lo descarta igualmente al escribir el lote.
+ *
+ * @see VotoService
+ * @see VotoBufferService
+ */
+@Service
+public class EstadoVotosService {
+
+    private static final Voto.TipoVoto[] TIPOS = Voto.TipoVoto.values();
+    private static final List<String> NOMBRES_TIPOS = Arrays.stream(TIPOS).map(Enum::name).toList();
+
+    private final VotoRepository votoRepository;
+    private final Map<Long, EstadoUsuario> cache;
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    public EstadoVotosService(
+            VotoRepository votoRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.votos.estado.max-usuarios:20000}") int maxUsuarios) {
+        this.votoRepository = votoRepository;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, EstadoUsuario> eldest) {
+                return size() > maxUsuarios;
+            }
+        };
+        this.aciertos = meterRegistry.counter("fallapp.votos.estado.cache", "resultado", "acierto");
+        this.fallos = meterRegistry.counter("fallapp.votos.estado.cache", "resultado", "fallo");
+        meterRegistry.gauge("fallapp.votos.estado.usuarios", this, EstadoVotosService::usuariosEnCache);
+    }
+
+    /**
+     * Estado empaquetado de los votos de un usuario
+     */
+    public EstadoVotosDTO obtenerEstado(Long idUsuario) {
+        EstadoUsuario estado = estadoDe(idUsuario);
+        byte[] bytes;
+        int total;
+        synchronized (estado) {
+            bytes = estado.votos.toByteArray();
+            total = estado.votos.cardinality();
+        }
+        return EstadoVotosDTO.builder()
+                .idUsuario(idUsuario)
+                .tipos(NOMBRES_TIPOS)
+                .bits(Base64.getEncoder().encodeToString(bytes))
+                .totalVotos(total)
+                .build();
+    }
+
+    /**
+     * Si el usuario ya votó la falla con ese tipo
+     */
+    public boolean haVotado(Long idUsuario, Long idFalla, Voto.TipoVoto tipo) {
+        EstadoUsuario estado = estadoDe(idUsuario);
+        synchronized (estado) {
+            return estado.votos.get(indice(idFalla, tipo));
+        }
+    }
+
+    /**
+     * Marcar un voto de forma atómica (comprobar y marcar)
+     *
+     * @return false si el voto ya estaba marcado
+     */
+    public boolean marcar(Long idUsuario, Long idFalla, Voto.TipoVoto tipo) {
+        EstadoUsuario estado = estadoDe(idUsuario);
+        int bit = indice(idFalla, tipo);
+        synchronized (estado) {
+            if (estado.votos.get(bit)) {
+                return false;
+            }
+            estado.votos.set(bit);
+            return true;
+        }
+    }
+
+    /**
+     * Notificar un voto confirmado en BD (solo si el usuario está en caché)
+     */
+    public void registrarVoto(Long idUsuario, Long idFalla, Voto.TipoVoto tipo) {
+        EstadoUsuario estado = enCache(idUsuario);
+        if (estado != null) {
+            synchronized (estado) {
+                estado.votos.set(indice(idFalla, tipo));
+            }
+        }
+    }
+
+    /**
+     * Notificar un voto eliminado (o descartado por el buffer)
+     */
+    public void registrarEliminacion(Long idUsuario, Long idFalla, Voto.TipoVoto tipo) {
+        EstadoUsuario estado = enCache(idUsuario);
+        if (estado != null) {
+            synchronized (estado) {
+                estado.votos.clear(indice(idFalla, tipo));
+            }
+        }
+    }
+
+    /**
+     * Olvidar todos los usuarios (p.ej. tras cargas masivas de votos)
+     */
+    public void invalidar() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    int usuariosEnCache() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private EstadoUsuario enCache(Long idUsuario) {
+        synchronized (cache) {
+            return cache.get(idUsuario);
+        }
+    }
+
+    /**
+     * Obtener el estado del usuario, cargándolo de BD si no está en caché
+     *
+     * La entrada se publica vacía y se carga fuera del lock de la LRU
+     * (pero con el monitor de la entrada), así una carga lenta no bloquea
+     * a otros usuarios y las notificaciones concurrentes esperan a la carga.
+     */
+    private EstadoUsuario estadoDe(Long idUsuario) {
+        EstadoUsuario estado;
+        synchronized (cache) {
+            estado = cache.get(idUsuario);
+            if (estado == null) {
+                estado = new EstadoUsuario();
+                cache.put(idUsuario, estado);
+            }
+        }
+        synchronized (estado) {
+            if (estado.cargado) {
+                aciertos.increment();
+            } else {
+                fallos.increment();
+                for (Object[] fila : votoRepository.findFallaYTipoPorUsuario(idUsuario)) {
+                    estado.votos.set(indice(((Number) fila[0]).longValue(), (Voto.TipoVoto) fila[1]));
+                }
+                estado.cargado = true;
+            }
+        }
+        return estado;
+    }
+
+    private static int indice(long idFalla, Voto.TipoVoto tipo) {
+        return Math.toIntExact(idFalla * TIPOS.length + tipo.ordinal());
+    }
+
+    /**
+     * Bitmap de un usuario; se accede siempre con su monitor
+     */
+    private static final class EstadoUsuario {
+        private final BitSet votos = new BitSet();
+        private boolean cargado;
+    }
+}
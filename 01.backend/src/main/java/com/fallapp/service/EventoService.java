@@ -17,10 +17,16 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de Eventos
+ *
+ * Crear, reasignar o eliminar un evento cambia el total de eventos de su
+ * falla: se avisa al catálogo en memoria tras el commit.
+ *
+ * @see FallaCatalogoService#actualizarContadores
  */
 @Service
 @RequiredArgsConstructor
@@ -31,6 +37,7 @@ public class EventoService {
     private final FallaRepository fallaRepository;
     private final UsuarioRepository usuarioRepository;
     private final FileUploadService fileUploadService;
+    private final FallaCatalogoService fallaCatalogoService;
     
     /**
      * Obtener eventos futuros
@@ -128,6 +135,7 @@ public class EventoService {
         }
         
         Evento eventoSaved = eventoRepository.save(evento);
+        TransaccionUtils.despuesDelCommit(() -> fallaCatalogoService.actualizarContadores(List.of(falla.getIdFalla())));
         return convertirADTO(eventoSaved);
     }
 
@@ -157,11 +165,18 @@ public class EventoService {
         Falla falla = fallaRepository.findById(eventoDTO.getIdFalla())
                 .orElseThrow(() -> new RuntimeException("Falla no encontrada con ID: " + eventoDTO.getIdFalla()));
 
+        Long idFallaAnterior = evento.getFalla() != null ? evento.getFalla().getIdFalla() : null;
         mapearDTOAEntidad(eventoDTO, evento, falla);
         
         // No cambiar el creadoPor en actualizaciones (solo se asigna en creación)
         
         Evento eventoActualizado = eventoRepository.save(evento);
+        if (!Objects.equals(idFallaAnterior, falla.getIdFalla())) {
+            List<Long> afectadas = idFallaAnterior != null
+                    ? List.of(idFallaAnterior, falla.getIdFalla())
+                    : List.of(falla.getIdFalla());
+            TransaccionUtils.despuesDelCommit(() -> fallaCatalogoService.actualizarContadores(afectadas));
+        }
         return convertirADTO(eventoActualizado);
     }
 
@@ -180,7 +195,11 @@ public class EventoService {
         Evento evento = eventoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Evento no encontrado con ID: " + id));
         
+        Long idFalla = evento.getFalla() != null ? evento.getFalla().getIdFalla() : null;
         eventoRepository.delete(evento);
+        if (idFalla != null) {
+            TransaccionUtils.despuesDelCommit(() -> fallaCatalogoService.actualizarContadores(List.of(idFalla)));
+        }
     }
 
     /**
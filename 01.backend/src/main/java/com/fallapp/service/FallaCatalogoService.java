@@ -0,0 +1,447 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.model.Falla;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Collator;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Catálogo de fallas en memoria
+ *
+ * El catálogo (~351 fallas) cambia muy pocas veces al año, así que las
+ * lecturas de /api/fallas se sirven desde un snapshot inmutable:
+ * - Array de FallaDTO ordenado por nombre
+ * - Índice por id: long[] ordenado + búsqueda binaria (sin boxing)
+ * - Índices por sección y por categoría: posiciones int[] dentro del array
+ *
+ * Ciclo de vida:
+ * - Se carga de forma perezosa en la primera lectura (3 queries: fallas y
+ *   contadores de eventos/miembros agrupados; sin colecciones lazy)
+ * - FallaService notifica crear/actualizar/eliminar DESPUÉS del commit y el
+ *   catálogo publica un snapshot nuevo (copy-on-write); los lectores nunca
+ *   ven un estado a medias ni necesitan locks
+ * - EventoService y UsuarioService notifican, también tras el commit, las
+ *   fallas cuyos eventos o miembros cambiaron: se recuentan solo esas
+ * - recargar() lo reconstruye desde BD
+ *
+ * Los DTO del snapshot son compartidos entre peticiones: tratarlos como
+ * solo lectura (copiarlos antes de modificarlos).
+ *
+ * Métricas (Micrometer): fallapp.catalogo.fallas.version,
+ * fallapp.catalogo.fallas.total, fallapp.catalogo.fallas.construccion.ms,
+ * fallapp.catalogo.fallas.construido.epoch
+ *
+ * @see FallaService Consumidor principal
+ */
+@Service
+@Slf4j
+public class FallaCatalogoService {
+
+    private static final Collator COLLATOR = Collator.getInstance(Locale.forLanguageTag("es-ES"));
+
+    /** Orden de listado: nombre (sin distinguir acentos/mayúsculas), a igualdad, id */
+    private static final Comparator<FallaDTO> ORDEN_NOMBRE = Comparator
+            .comparing((FallaDTO f) -> f.getNombre() != null ? f.getNombre() : "", COLLATOR)
+            .thenComparing(FallaDTO::getIdFalla, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final FallaRepository fallaRepository;
+    private final EventoRepository eventoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versiones = new AtomicLong();
+
+    public FallaCatalogoService(FallaRepository fallaRepository,
+                                EventoRepository eventoRepository,
+                                UsuarioRepository usuarioRepository,
+                                MeterRegistry meterRegistry) {
+        this.fallaRepository = fallaRepository;
+        this.eventoRepository = eventoRepository;
+        this.usuarioRepository = usuarioRepository;
+
+        Gauge.builder("fallapp.catalogo.fallas.version", this, c -> c.metrica(Snapshot::version))
+                .description("Versión del snapshot del catálogo de fallas")
+                .register(meterRegistry);
+        Gauge.builder("fallapp.catalogo.fallas.total", this, c -> c.metrica(Snapshot::total))
+                .description("Fallas en el snapshot del catálogo")
+                .register(meterRegistry);
+        Gauge.builder("fallapp.catalogo.fallas.construccion.ms", this, c -> c.metrica(s -> s.duracionNanos() / 1_000_000.0))
+                .description("Tiempo de construcción del último snapshot")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("fallapp.catalogo.fallas.construido.epoch", this,
+                        c -> c.metrica(s -> s.construidoEn().atZone(ZoneId.systemDefault()).toEpochSecond()))
+                .description("Instante de construcción del último snapshot")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtener el snapshot vigente (cargándolo desde BD la primera vez)
+     */
+    @Transactional(readOnly = true)
+    public Snapshot obtener() {
+        Snapshot actual = snapshot.get();
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (this) {
+            if (snapshot.get() == null) {
+                recargar();
+            }
+            return snapshot.get();
+        }
+    }
+
+    /**
+     * Reconstruir el catálogo completo desde BD
+     *
+     * Queries: 3 (fallas + conteo de eventos + conteo de miembros, ambos GROUP BY)
+     */
+    @Transactional(readOnly = true)
+    public synchronized void recargar() {
+        long inicio = System.nanoTime();
+        List<Falla> fallas = fallaRepository.findAll();
+        Map<Long, Integer> eventos = aMapa(eventoRepository.contarPorFalla());
+        Map<Long, Integer> miembros = aMapa(usuarioRepository.contarMiembrosPorFalla());
+        FallaDTO[] dtos = new FallaDTO[fallas.size()];
+        for (int i = 0; i < dtos.length; i++) {
+            Falla falla = fallas.get(i);
+            dtos[i] = convertirADTO(falla,
+                    eventos.getOrDefault(falla.getIdFalla(), 0),
+                    miembros.getOrDefault(falla.getIdFalla(), 0));
+        }
+        publicar(dtos, inicio);
+        log.info("Catálogo de fallas cargado: {} fallas (versión {})", dtos.length, snapshot.get().version());
+    }
+
+    /**
+     * Registrar una falla creada o actualizada ya confirmada en BD
+     */
+    public synchronized void registrarCambio(FallaDTO falla) {
+        Snapshot actual = snapshot.get();
+        if (actual == null || falla == null || falla.getIdFalla() == null) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<FallaDTO> nuevas = new ArrayList<>(actual.fallas.length + 1);
+        for (FallaDTO existente : actual.fallas) {
+            if (!falla.getIdFalla().equals(existente.getIdFalla())) {
+                nuevas.add(existente);
+            }
+        }
+        nuevas.add(falla);
+        publicar(nuevas.toArray(new FallaDTO[0]), inicio);
+    }
+
+    /**
+     * Recontar eventos y miembros de unas fallas tras un cambio ya confirmado en BD
+     *
+     * Queries: 2 (conteo de eventos + conteo de miembros con IN)
+     */
+    public synchronized void actualizarContadores(Collection<Long> idsFalla) {
+        Snapshot actual = snapshot.get();
+        List<Long> ids = idsFalla.stream().filter(Objects::nonNull).distinct()
+                .filter(id -> actual != null && actual.buscarPorId(id).isPresent())
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Map<Long, Integer> eventos = aMapa(eventoRepository.contarPorFallas(ids));
+        Map<Long, Integer> miembros = aMapa(usuarioRepository.contarMiembrosPorFallas(ids));
+        FallaDTO[] nuevas = actual.fallas.clone();
+        for (int i = 0; i < nuevas.length; i++) {
+            Long id = nuevas[i].getIdFalla();
+            if (ids.contains(id)) {
+                nuevas[i] = nuevas[i].toBuilder()
+                        .totalEventos(eventos.getOrDefault(id, 0))
+                        .totalMiembros(miembros.getOrDefault(id, 0))
+                        .build();
+            }
+        }
+        publicar(nuevas, inicio);
+    }
+
+    /**
+     * Registrar una falla eliminada ya confirmada en BD
+     */
+    public synchronized void registrarEliminacion(Long idFalla) {
+        Snapshot actual = snapshot.get();
+        if (actual == null || actual.buscarPorId(idFalla).isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        FallaDTO[] nuevas = Arrays.stream(actual.fallas)
+                .filter(f -> !idFalla.equals(f.getIdFalla()))
+                .toArray(FallaDTO[]::new);
+        publicar(nuevas, inicio);
+    }
+
+    /**
+     * Convertir entidades a DTO con los contadores calculados en bloque
+     *
+     * Queries: 2 como máximo (conteo de eventos + conteo de miembros con IN),
+     * independientemente del número de fallas; nunca inicializa las
+     * colecciones lazy de la entidad.
+     */
+    public List<FallaDTO> convertirADTOs(List<Falla> fallas) {
+        if (fallas.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = fallas.stream().map(Falla::getIdFalla).filter(Objects::nonNull).toList();
+        Map<Long, Integer> eventos = ids.isEmpty() ? Map.of() : aMapa(eventoRepository.contarPorFallas(ids));
+        Map<Long, Integer> miembros = ids.isEmpty() ? Map.of() : aMapa(usuarioRepository.contarMiembrosPorFallas(ids));
+        List<FallaDTO> resultado = new ArrayList<>(fallas.size());
+        for (Falla falla : fallas) {
+            resultado.add(convertirADTO(falla,
+                    eventos.getOrDefault(falla.getIdFalla(), 0),
+                    miembros.getOrDefault(falla.getIdFalla(), 0)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Convertir una entidad a DTO (ver convertirADTOs)
+     */
+    public FallaDTO convertirADTO(Falla falla) {
+        return convertirADTOs(List.of(falla)).get(0);
+    }
+
+    /**
+     * Convertir entidad a DTO con TODOS los campos
+     * Actualizado: 2026-02-04 - Incluye todos los campos del JSON original
+     */
+    private static FallaDTO convertirADTO(Falla falla, int totalEventos, int totalMiembros) {
+        return FallaDTO.builder()
+                .idFalla(falla.getIdFalla())
+                .nombre(falla.getNombre())
+                .seccion(falla.getSeccion())
+                .fallera(falla.getFallera())
+                .presidente(falla.getPresidente())
+                .artista(falla.getArtista())
+                .lema(falla.getLema())
+                .anyoFundacion(falla.getAnyoFundacion())
+                .distintivo(falla.getDistintivo())
+                .urlBoceto(falla.getUrlBoceto())
+                .experim(falla.getExperim())
+                .latitud(falla.getUbicacionLat() != null ? falla.getUbicacionLat().doubleValue() : null)
+                .longitud(falla.getUbicacionLon() != null ? falla.getUbicacionLon().doubleValue() : null)
+                .descripcion(falla.getDescripcion())
+                .webOficial(falla.getWebOficial())
+                .telefonoContacto(falla.getTelefonoContacto())
+                .emailContacto(falla.getEmailContacto())
+                .categoria(falla.getCategoria() != null ? falla.getCategoria().name() : null)
+                .totalEventos(totalEventos)
+                .totalNinots(0)
+                .totalMiembros(totalMiembros)
+                .fechaCreacion(falla.getCreadoEn())
+                .fechaActualizacion(falla.getActualizadoEn())
+                .build();
+    }
+
+    private static Map<Long, Integer> aMapa(List<Object[]> filas) {
+        Map<Long, Integer> mapa = new HashMap<>(filas.size() * 2);
+        for (Object[] fila : filas) {
+            mapa.put(((Number) fila[0]).longValue(), ((Number) fila[1]).intValue());
+        }
+        return mapa;
+    }
+
+    private void publicar(FallaDTO[] fallas, long inicioNanos) {
+        Arrays.sort(fallas, ORDEN_NOMBRE);
+        Snapshot nuevo = new Snapshot(versiones.incrementAndGet(), fallas,
+                LocalDateTime.now(), System.nanoTime() - inicioNanos);
+        snapshot.set(nuevo);
+    }
+
+    private double metrica(ToDoubleFunction<Snapshot> valor) {
+        Snapshot actual = snapshot.get();
+        return actual == null ? 0.0 : valor.applyAsDouble(actual);
+    }
+
+    /**
+     * Estado inmutable del catálogo en un instante dado
+     */
+    public static final class Snapshot {
+
+        private static final int[] VACIO = new int[0];
+
+        private final long version;
+        private final FallaDTO[] fallas;
+        private final LocalDateTime construidoEn;
+        private final long duracionNanos;
+
+        /** ids ordenados ascendentemente; posicionesPorId[i] = posición de ids[i] en fallas */
+        private final long[] ids;
+        private final int[] posicionesPorId;
+        private final Map<String, int[]> posicionesPorSeccion;
+        private final int[][] posicionesPorCategoria;
+        private final List<FallaDTO> todas;
+        /** Estructuras derivadas (índice espacial, etc.) construidas bajo demanda una vez por snapshot */
+        private final Map<Class<?>, Object> derivados = new ConcurrentHashMap<>();
+
+        private Snapshot(long version, FallaDTO[] fallas, LocalDateTime construidoEn, long duracionNanos) {
+            this.version = version;
+            this.fallas = fallas;
+            this.construidoEn = construidoEn;
+            this.duracionNanos = duracionNanos;
+            this.todas = Collections.unmodifiableList(Arrays.asList(fallas));
+
+            // Índice por id
+            Integer[] orden = new Integer[fallas.length];
+            for (int i = 0; i < orden.length; i++) {
+                orden[i] = i;
+            }
+            Arrays.sort(orden, Comparator.comparingLong(i -> fallas[i].getIdFalla()));
+            this.ids = new long[fallas.length];
+            this.posicionesPorId = new int[fallas.length];
+            for (int i = 0; i < orden.length; i++) {
+                ids[i] = fallas[orden[i]].getIdFalla();
+                posicionesPorId[i] = orden[i];
+            }
+
+            // Índices por sección y categoría (respetan el orden por nombre)
+            Map<String, List<Integer>> seccion = new HashMap<>();
+            List<List<Integer>> categoria = new ArrayList<>();
+            Falla.CategoriaFalla[] categorias = Falla.CategoriaFalla.values();
+            for (int c = 0; c < categorias.length; c++) {
+                categoria.add(new ArrayList<>());
+            }
+            for (int i = 0; i < fallas.length; i++) {
+                FallaDTO falla = fallas[i];
+                if (falla.getSeccion() != null) {
+                    seccion.computeIfAbsent(falla.getSeccion(), k -> new ArrayList<>()).add(i);
+                }
+                Falla.CategoriaFalla cat = categoriaDe(falla);
+                if (cat != null) {
+                    categoria.get(cat.ordinal()).add(i);
+                }
+            }
+            Map<String, int[]> porSeccion = new HashMap<>(seccion.size() * 2);
+            seccion.forEach((k, v) -> porSeccion.put(k, aArray(v)));
+            this.posicionesPorSeccion = porSeccion;
+            this.posicionesPorCategoria = new int[categorias.length][];
+            for (int c = 0; c < categorias.length; c++) {
+                posicionesPorCategoria[c] = aArray(categoria.get(c));
+            }
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public LocalDateTime construidoEn() {
+            return construidoEn;
+        }
+
+        public long duracionNanos() {
+            return duracionNanos;
+        }
+
+        public int total() {
+            return fallas.length;
+        }
+
+        /**
+         * Todas las fallas ordenadas por nombre (vista de solo lectura)
+         */
+        public List<FallaDTO> todas() {
+            return todas;
+        }
+
+        /**
+         * Buscar falla por id: O(log n) sobre long[]
+         */
+        public Optional<FallaDTO> buscarPorId(Long idFalla) {
+            if (idFalla == null) {
+                return Optional.empty();
+            }
+            int pos = Arrays.binarySearch(ids, idFalla);
+            return pos >= 0 ? Optional.of(fallas[posicionesPorId[pos]]) : Optional.empty();
+        }
+
+        /**
+         * Fallas de una sección (coincidencia exacta), ordenadas por nombre
+         */
+        public List<FallaDTO> porSeccion(String seccion) {
+            return resolver(seccion != null ? posicionesPorSeccion.getOrDefault(seccion, VACIO) : VACIO);
+        }
+
+        /**
+         * Fallas de una categoría, ordenadas por nombre
+         */
+        public List<FallaDTO> porCategoria(Falla.CategoriaFalla categoria) {
+            return resolver(posicionesPorCategoria[categoria.ordinal()]);
+        }
+
+        /**
+         * Índice espacial sobre las coordenadas de este snapshot
+         */
+        public IndiceEspacialFallas indiceEspacial() {
+            return derivado(IndiceEspacialFallas.class, s -> new IndiceEspacialFallas(s.todas()));
+        }
+
+        /**
+         * Obtener (o construir la primera vez) una estructura derivada de este snapshot.
+         * Como el snapshot es inmutable, la estructura es válida mientras lo sea él;
+         * un snapshot nuevo empieza sin derivados.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T derivado(Class<T> tipo, Function<Snapshot, T> constructor) {
+            return (T) derivados.computeIfAbsent(tipo, k -> constructor.apply(this));
+        }
+
+        private List<FallaDTO> resolver(int[] posiciones) {
+            List<FallaDTO> resultado = new ArrayList<>(posiciones.length);
+            for (int pos : posiciones) {
+                resultado.add(fallas[pos]);
+            }
+            return resultado;
+        }
+
+        private static Falla.CategoriaFalla categoriaDe(FallaDTO falla) {
+            if (falla.getCategoria() == null) {
+                return null;
+            }
+            try {
+                return Falla.CategoriaFalla.valueOf(falla.getCategoria());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static int[] aArray(List<Integer> valores) {
+            int[] resultado = new int[valores.size()];
+            for (int i = 0; i < resultado.length; i++) {
+                resultado[i] = valores.get(i);
+            }
+            return resultado;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.fallapp.service;
 
 import com.fallapp.dto.FallaDTO;
 import com.fallapp.dto.PaginatedResponse;
+import com.fallapp.dto.RutaDTO;
+import com.fallapp.dto.TeselaDTO;
 import com.fallapp.dto.UbicacionDTO;
 import com.fallapp.model.Falla;
 import com.fallapp.exception.BadRequestException;
@@ -9,32 +11,48 @@ import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.repository.FallaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de fallas
+ *
+ * Las lecturas (por id, listado, sección, categoría, ubicación) se sirven
+ * desde el catálogo en memoria; las escrituras lo actualizan tras el commit,
+ * igual que el nombre/sección de la falla en el ranking de votos.
+ *
+ * @see FallaCatalogoService Snapshot inmutable del catálogo
+ * @see RankingVotosService Ranking de votos en memoria
  */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class FallaService {
 
+    static final int MAX_VECINOS = 50;
+    static final int MAX_PARADAS_RUTA = 100;
+    static final int MAX_RESULTADOS_BUSQUEDA = 100;
+
     private final FallaRepository fallaRepository;
+    private final FallaCatalogoService fallaCatalogoService;
+    private final RankingVotosService rankingVotosService;
 
     /**
      * Obtener falla por ID
      */
     public FallaDTO obtenerPorId(Long id) {
-        Falla falla = fallaRepository.findById(id)
+        return fallaCatalogoService.obtener().buscarPorId(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", id));
-        return convertirADTO(falla);
     }
 
     /**
@@ -42,53 +60,144 @@ public class FallaService {
      */
     public PaginatedResponse<FallaDTO> listar(int pagina, int tamano) {
         Pageable pageable = PageRequest.of(pagina, tamano, Sort.by("nombre"));
-        Page<Falla> page = fallaRepository.findAll(pageable);
-        
-        return construirRespuestaPaginada(page);
+        return construirRespuestaPaginada(paginar(fallaCatalogoService.obtener().todas(), pageable));
     }
 
     /**
-     * Buscar fallas por texto (full-text search)
+     * Buscar fallas por texto
+     *
+     * Se resuelve con el índice invertido del catálogo (sin consultas a BD):
+     * sin acentos, el último término por prefijo y ordenadas por relevancia,
+     * que viaja en puntuacion junto a los campos resaltados.
      */
-    public List<FallaDTO> buscar(String texto) {
-        return fallaRepository.buscarPorTexto(texto)
+    public List<FallaDTO> buscar(String texto, int limite) {
+        if (limite < 1 || limite > MAX_RESULTADOS_BUSQUEDA) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + MAX_RESULTADOS_BUSQUEDA);
+        }
+        return fallaCatalogoService.obtener().derivado(BuscadorFallas.class, BuscadorFallas::new)
+                .buscar(texto, limite)
                 .stream()
-                .map(this::convertirADTO)
+                .map(FallaService::conRelevancia)
                 .collect(Collectors.toList());
     }
 
     /**
      * Buscar fallas cercanas a una ubicación
+     *
+     * Se resuelve con el índice espacial del catálogo (rejilla en memoria):
+     * sin consultas a BD y ordenadas por distancia, que viaja en distanciaKm.
      */
     public List<FallaDTO> buscarCercanas(double latitud, double longitud, double radioKm) {
-        return fallaRepository.buscarFallasCercanas(
-                java.math.BigDecimal.valueOf(latitud),
-                java.math.BigDecimal.valueOf(longitud),
-                java.math.BigDecimal.valueOf(radioKm)
-        ).stream()
-                .map(this::convertirADTO)
+        validarCoordenadas(latitud, longitud);
+        return fallaCatalogoService.obtener().indiceEspacial()
+                .buscarEnRadio(latitud, longitud, radioKm)
+                .stream()
+                .map(FallaService::conDistancia)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Obtener fallas por sección
+     * Las k fallas más cercanas a una ubicación (ordenadas por distancia)
      */
-    public List<FallaDTO> obtenerPorSeccion(String seccion) {
-        return fallaRepository.findBySeccion(seccion, Pageable.unpaged())
+    public List<FallaDTO> buscarKMasCercanas(double latitud, double longitud, int k) {
+        if (k < 1 || k > MAX_VECINOS) {
+            throw new BadRequestException("k debe estar entre 1 y " + MAX_VECINOS);
+        }
+        validarCoordenadas(latitud, longitud);
+        return fallaCatalogoService.obtener().indiceEspacial()
+                .buscarKMasCercanas(latitud, longitud, k)
                 .stream()
-                .map(this::convertirADTO)
+                .map(FallaService::conDistancia)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Ordenar un conjunto de fallas como ruta a pie (vecino más cercano)
+     *
+     * @param ids Fallas a visitar (se ignoran duplicados)
+     * @param latitud Origen opcional; si no se indica se parte de la primera falla de `ids`
+     * @param longitud Origen opcional (obligatoria si se indica latitud)
+     * @throws ResourceNotFoundException si algún id no existe
+     */
+    public RutaDTO calcularRuta(List<Long> ids, Double latitud, Double longitud) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("Debe indicar al menos una falla");
+        }
+        if ((latitud == null) != (longitud == null)) {
+            throw new BadRequestException("Latitud y longitud de origen deben indicarse juntas");
+        }
+        if (latitud != null) {
+            validarCoordenadas(latitud, longitud);
+        }
+        Set<Long> unicos = new LinkedHashSet<>(ids);
+        if (unicos.size() > MAX_PARADAS_RUTA) {
+            throw new BadRequestException("La ruta admite como máximo " + MAX_PARADAS_RUTA + " fallas");
+        }
+
+        FallaCatalogoService.Snapshot catalogo = fallaCatalogoService.obtener();
+        List<FallaDTO> paradas = new ArrayList<>(unicos.size());
+        List<Long> sinUbicacion = new ArrayList<>();
+        for (Long id : unicos) {
+            FallaDTO falla = catalogo.buscarPorId(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", id));
+            if (falla.getLatitud() == null || falla.getLongitud() == null) {
+                sinUbicacion.add(id);
+            } else {
+                paradas.add(falla);
+            }
+        }
+
+        List<FallaDTO> ordenadas = new ArrayList<>(paradas.size());
+        double total = 0.0;
+        if (!paradas.isEmpty()) {
+            double latOrigen = latitud != null ? latitud : paradas.get(0).getLatitud();
+            double lonOrigen = longitud != null ? longitud : paradas.get(0).getLongitud();
+            for (IndiceEspacialFallas.Resultado tramo : IndiceEspacialFallas.rutaVecinoMasCercano(latOrigen, lonOrigen, paradas)) {
+                ordenadas.add(conDistancia(tramo));
+                total += tramo.distanciaKm();
+            }
+        }
+
+        return RutaDTO.builder()
+                .paradas(ordenadas)
+                .distanciaTotalKm(Math.round(total * 1000.0) / 1000.0)
+                .sinUbicacion(sinUbicacion)
+                .build();
+    }
+
+    /**
+     * Obtener una tesela del mapa (clusters o marcadores individuales)
+     *
+     * Las teselas se calculan en memoria y se cachean por snapshot del
+     * catálogo: cualquier escritura en fallas las invalida.
+     */
+    public TeselaDTO obtenerTesela(int z, int x, int y) {
+        if (z < 0 || z > TeselasFallas.ZOOM_MAXIMO) {
+            throw new BadRequestException("El zoom debe estar entre 0 y " + TeselasFallas.ZOOM_MAXIMO);
+        }
+        long limite = 1L << z;
+        if (x < 0 || y < 0 || x >= limite || y >= limite) {
+            throw new BadRequestException("Tesela fuera de rango para el zoom " + z);
+        }
+        return fallaCatalogoService.obtener()
+                .derivado(TeselasFallas.class, TeselasFallas::new)
+                .obtener(z, x, y);
+    }
+
+    /**
+     * Obtener fallas por sección
+     */
+    public List<FallaDTO> obtenerPorSeccion(String seccion) {
+        return fallaCatalogoService.obtener().porSeccion(seccion);
+    }
+
     /**
      * Obtener fallas por categoría
      */
     public PaginatedResponse<FallaDTO> obtenerPorCategoria(String categoria, int pagina, int tamano) {
         Falla.CategoriaFalla cat = Falla.CategoriaFalla.valueOf(categoria.toLowerCase());
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Falla> page = fallaRepository.findByCategoria(cat, pageable);
-        
-        return construirRespuestaPaginada(page);
+        return construirRespuestaPaginada(paginar(fallaCatalogoService.obtener().porCategoria(cat), pageable));
     }
 
     /**
@@ -99,63 +208,65 @@ public class FallaService {
      * @throws ResourceNotFoundException si la falla no existe
      */
     public UbicacionDTO obtenerUbicacion(Long id) {
-        Falla falla = fallaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", id));
+        FallaDTO falla = obtenerPorId(id);
         
-        boolean tieneUbicacion = falla.getUbicacionLat() != null && falla.getUbicacionLon() != null;
+        boolean tieneUbicacion = falla.getLatitud() != null && falla.getLongitud() != null;
         
         return UbicacionDTO.builder()
                 .idFalla(falla.getIdFalla())
                 .nombre(falla.getNombre())
-                .latitud(falla.getUbicacionLat() != null ? falla.getUbicacionLat().doubleValue() : null)
-                .longitud(falla.getUbicacionLon() != null ? falla.getUbicacionLon().doubleValue() : null)
+                .latitud(falla.getLatitud())
+                .longitud(falla.getLongitud())
                 .tieneUbicacion(tieneUbicacion)
                 .build();
     }
 
     /**
-     * Convertir entidad a DTO con TODOS los campos
-     * Actualizado: 2026-02-04 - Incluye todos los campos del JSON original
+     * Copia del DTO del catálogo con la puntuación de la búsqueda (3 decimales) y el fragmento resaltado
      */
-    private FallaDTO convertirADTO(Falla falla) {
-        return FallaDTO.builder()
-                .idFalla(falla.getIdFalla())
-                .nombre(falla.getNombre())
-                .seccion(falla.getSeccion())
-                .fallera(falla.getFallera())
-                .presidente(falla.getPresidente())
-                .artista(falla.getArtista())
-                .lema(falla.getLema())
-                .anyoFundacion(falla.getAnyoFundacion())
-                .distintivo(falla.getDistintivo())
-                .urlBoceto(falla.getUrlBoceto())
-                .experim(falla.getExperim())
-                .latitud(falla.getUbicacionLat() != null ? falla.getUbicacionLat().doubleValue() : null)
-                .longitud(falla.getUbicacionLon() != null ? falla.getUbicacionLon().doubleValue() : null)
-                .descripcion(falla.getDescripcion())
-                .webOficial(falla.getWebOficial())
-                .telefonoContacto(falla.getTelefonoContacto())
-                .emailContacto(falla.getEmailContacto())
-                .categoria(falla.getCategoria() != null ? falla.getCategoria().name() : null)
-                .totalEventos(falla.getEventos() != null ? falla.getEventos().size() : 0)
-                .totalNinots(0)
-                .totalMiembros(falla.getUsuarios() != null ? falla.getUsuarios().size() : 0)
-                .fechaCreacion(falla.getCreadoEn())
-                .fechaActualizacion(falla.getActualizadoEn())
+    private static FallaDTO conRelevancia(BuscadorFallas.Resultado resultado) {
+        return resultado.falla().toBuilder()
+                .puntuacion(Math.round(resultado.puntuacion() * 1000.0) / 1000.0)
+                .resaltado(resultado.resaltado())
                 .build();
     }
 
     /**
-     * Construir respuesta paginada
+     * Copia del DTO del catálogo con la distancia al punto consultado (redondeada a metros)
      */
-    private PaginatedResponse<FallaDTO> construirRespuestaPaginada(Page<Falla> page) {
-        List<FallaDTO> contenido = page.getContent()
-                .stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    private static FallaDTO conDistancia(IndiceEspacialFallas.Resultado resultado) {
+        return resultado.falla().toBuilder()
+                .distanciaKm(Math.round(resultado.distanciaKm() * 1000.0) / 1000.0)
+                .build();
+    }
+
+    /**
+     * Rechazar coordenadas fuera de rango (o NaN) antes de tocar el índice espacial
+     */
+    private static void validarCoordenadas(double latitud, double longitud) {
+        if (!(latitud >= -90.0 && latitud <= 90.0)) {
+            throw new BadRequestException("Latitud debe estar entre -90 y 90");
+        }
+        if (!(longitud >= -180.0 && longitud <= 180.0)) {
+            throw new BadRequestException("Longitud debe estar entre -180 y 180");
+        }
+    }
 
+    /**
+     * Recortar una lista ya ordenada a la página pedida
+     */
+    private Page<FallaDTO> paginar(List<FallaDTO> fallas, Pageable pageable) {
+        int desde = (int) Math.min(pageable.getOffset(), fallas.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), fallas.size());
+        return new PageImpl<>(fallas.subList(desde, hasta), pageable, fallas.size());
+    }
+
+    /**
+     * Construir respuesta paginada
+     */
+    private PaginatedResponse<FallaDTO> construirRespuestaPaginada(Page<FallaDTO> page) {
         return PaginatedResponse.<FallaDTO>builder()
-                .contenido(contenido)
+                .contenido(new ArrayList<>(page.getContent()))
                 .paginaActual(page.getNumber())
                 .elementosPorPagina(page.getSize())
                 .totalElementos(page.getTotalElements())
@@ -198,7 +309,9 @@ public class FallaService {
         mapearDTOAEntidad(fallaDTO, falla, false);
         
         Falla fallaSaved = fallaRepository.save(falla);
-        return convertirADTO(fallaSaved);
+        FallaDTO creada = fallaCatalogoService.convertirADTO(fallaSaved);
+        TransaccionUtils.despuesDelCommit(() -> fallaCatalogoService.registrarCambio(creada));
+        return creada;
     }
 
     /**
@@ -229,7 +342,12 @@ public class FallaService {
         }
         
         Falla fallaActualizada = fallaRepository.save(falla);
-        return convertirADTO(fallaActualizada);
+        FallaDTO actualizada = fallaCatalogoService.convertirADTO(fallaActualizada);
+        TransaccionUtils.despuesDelCommit(() -> {
+            fallaCatalogoService.registrarCambio(actualizada);
+            rankingVotosService.actualizarFalla(actualizada.getIdFalla(), actualizada.getNombre(), actualizada.getSeccion());
+        });
+        return actualizada;
     }
 
     /**
@@ -260,6 +378,10 @@ public class FallaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", id));
         
         fallaRepository.delete(falla);
+        TransaccionUtils.despuesDelCommit(() -> {
+            fallaCatalogoService.registrarEliminacion(id);
+            rankingVotosService.eliminarFalla(id);
+        });
     }
 
     /**
@@ -0,0 +1,280 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Índice espacial en memoria sobre las coordenadas de las fallas
+ *
+ * Rejilla uniforme lat/lon (celdas de `tamanoCeldaGrados`) en formato
+ * compacto: las fallas se ordenan por celda y `inicioCelda[c]..inicioCelda[c+1]`
+ * delimita las de cada celda dentro de arrays double[] paralelos.
+ *
+ * Consultas:
+ * - Radio: solo se recorren las celdas que solapan el bounding box del círculo;
+ *   para cada candidata se filtra primero por bounding box y solo después se
+ *   calcula la distancia exacta (haversine)
+ * - k vecinos: búsqueda por anillos de celdas alrededor de la celda del punto;
+ *   se para en cuanto el anillo siguiente no puede mejorar la k-ésima distancia
+ *
+ * Inmutable y sin estado compartido: se construye una vez por snapshot del
+ * catálogo y se puede consultar desde cualquier hilo.
+ *
+ * @see FallaCatalogoService.Snapshot#indiceEspacial()
+ */
+public final class IndiceEspacialFallas {
+
+    /** ~1,1 km de lado en latitud; en València unas 30x30 celdas cubren la ciudad */
+    public static final double TAMANO_CELDA_GRADOS = 0.01;
+
+    private static final double RADIO_TIERRA_KM = 6371.0;
+    private static final double KM_POR_GRADO_LAT = Math.toRadians(1) * RADIO_TIERRA_KM;
+
+    private final FallaDTO[] fallas;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] inicioCelda;
+    private final double tamanoCelda;
+    private final double latMin;
+    private final double lonMin;
+    private final int filas;
+    private final int columnas;
+    /** Lado mínimo de una celda en km (cota inferior para podar la búsqueda kNN) */
+    private final double ladoMinimoCeldaKm;
+
+    public IndiceEspacialFallas(List<FallaDTO> catalogo) {
+        this(catalogo, TAMANO_CELDA_GRADOS);
+    }
+
+    public IndiceEspacialFallas(List<FallaDTO> catalogo, double tamanoCelda) {
+        List<FallaDTO> conUbicacion = new ArrayList<>(catalogo.size());
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (FallaDTO falla : catalogo) {
+            if (falla.getLatitud() == null || falla.getLongitud() == null) {
+                continue;
+            }
+            conUbicacion.add(falla);
+            minLat = Math.min(minLat, falla.getLatitud());
+            maxLat = Math.max(maxLat, falla.getLatitud());
+            minLon = Math.min(minLon, falla.getLongitud());
+            maxLon = Math.max(maxLon, falla.getLongitud());
+        }
+
+        int n = conUbicacion.size();
+        this.tamanoCelda = tamanoCelda;
+        this.latMin = n == 0 ? 0 : minLat;
+        this.lonMin = n == 0 ? 0 : minLon;
+        this.filas = n == 0 ? 1 : (int) Math.floor((maxLat - minLat) / tamanoCelda) + 1;
+        this.columnas = n == 0 ? 1 : (int) Math.floor((maxLon - minLon) / tamanoCelda) + 1;
+        double latRef = n == 0 ? 0 : Math.max(Math.abs(minLat), Math.abs(maxLat));
+        this.ladoMinimoCeldaKm = tamanoCelda * KM_POR_GRADO_LAT * Math.cos(Math.toRadians(latRef));
+
+        // Counting sort por celda
+        int[] celdaDe = new int[n];
+        this.inicioCelda = new int[filas * columnas + 1];
+        for (int i = 0; i < n; i++) {
+            FallaDTO falla = conUbicacion.get(i);
+            celdaDe[i] = celda(fila(falla.getLatitud()), columna(falla.getLongitud()));
+            inicioCelda[celdaDe[i] + 1]++;
+        }
+        for (int c = 0; c < filas * columnas; c++) {
+            inicioCelda[c + 1] += inicioCelda[c];
+        }
+        int[] siguiente = Arrays.copyOf(inicioCelda, inicioCelda.length - 1);
+        this.fallas = new FallaDTO[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            int destino = siguiente[celdaDe[i]]++;
+            FallaDTO falla = conUbicacion.get(i);
+            fallas[destino] = falla;
+            latitudes[destino] = falla.getLatitud();
+            longitudes[destino] = falla.getLongitud();
+        }
+    }
+
+    /**
+     * Número de fallas indexadas (las que tienen coordenadas)
+     */
+    public int total() {
+        return fallas.length;
+    }
+
+    /**
+     * Fallas a menos de `radioKm` del punto, ordenadas por distancia ascendente
+     */
+    public List<Resultado> buscarEnRadio(double latitud, double longitud, double radioKm) {
+        List<Resultado> resultado = new ArrayList<>();
+        if (fallas.length == 0 || radioKm < 0) {
+            return resultado;
+        }
+        // Bounding box exacto del círculo sobre la esfera
+        double radioAngular = radioKm / RADIO_TIERRA_KM;
+        double dLat = Math.toDegrees(radioAngular);
+        double senoLon = Math.sin(Math.min(radioAngular, Math.PI / 2)) / Math.max(Math.cos(Math.toRadians(latitud)), 1e-9);
+        double dLon = senoLon >= 1.0 ? 180.0 : Math.toDegrees(Math.asin(senoLon));
+        double latDesde = latitud - dLat, latHasta = latitud + dLat;
+        double lonDesde = longitud - dLon, lonHasta = longitud + dLon;
+
+        int filaDesde = Math.max(0, fila(latDesde)), filaHasta = Math.min(filas - 1, fila(latHasta));
+        int colDesde = Math.max(0, columna(lonDesde)), colHasta = Math.min(columnas - 1, columna(lonHasta));
+        for (int f = filaDesde; f <= filaHasta; f++) {
+            for (int c = colDesde; c <= colHasta; c++) {
+                int celda = celda(f, c);
+                for (int i = inicioCelda[celda]; i < inicioCelda[celda + 1]; i++) {
+                    double lat = latitudes[i], lon = longitudes[i];
+                    if (lat < latDesde || lat > latHasta || lon < lonDesde || lon > lonHasta) {
+                        continue;
+                    }
+                    double distancia = distanciaKm(latitud, longitud, lat, lon);
+                    if (distancia <= radioKm) {
+                        resultado.add(new Resultado(fallas[i], distancia));
+                    }
+                }
+            }
+        }
+        resultado.sort(null);
+        return resultado;
+    }
+
+    /**
+     * Las k fallas más cercanas al punto, ordenadas por distancia ascendente
+     */
+    public List<Resultado> buscarKMasCercanas(double latitud, double longitud, int k) {
+        if (fallas.length == 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        double ladoCeldaKm = Math.min(ladoMinimoCeldaKm,
+                tamanoCelda * KM_POR_GRADO_LAT * Math.cos(Math.toRadians(Math.min(Math.abs(latitud), 89.0))));
+        // Max-heap de las k mejores encontradas hasta ahora
+        PriorityQueue<Resultado> mejores = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.distanciaKm, a.distanciaKm));
+        int filaCentro = fila(latitud), colCentro = columna(longitud);
+        // Si el punto cae fuera de la rejilla, los anillos más cercanos no contienen celdas
+        int anilloMinimo = Math.max(
+                Math.max(0, Math.max(-filaCentro, filaCentro - (filas - 1))),
+                Math.max(0, Math.max(-colCentro, colCentro - (columnas - 1))));
+        // A partir de anilloMinimo, max(filas, columnas) anillos ya cubren toda la rejilla
+        int anilloMaximo = anilloMinimo + Math.max(filas, columnas);
+
+        for (int anillo = anilloMinimo; anillo <= anilloMaximo; anillo++) {
+            if (mejores.size() == k) {
+                // Entre el punto y cualquier celda del anillo hay al menos (anillo - 1) celdas completas
+                double cotaInferiorKm = (anillo - 1) * ladoCeldaKm;
+                if (cotaInferiorKm > mejores.peek().distanciaKm) {
+                    break;
+                }
+            }
+            // Solo las filas y columnas del anillo que caen dentro de la rejilla
+            int filaDesde = Math.max(0, filaCentro - anillo), filaHasta = Math.min(filas - 1, filaCentro + anillo);
+            int colDesde = Math.max(0, colCentro - anillo), colHasta = Math.min(columnas - 1, colCentro + anillo);
+            for (int f = filaDesde; f <= filaHasta; f++) {
+                boolean bordeVertical = f == filaCentro - anillo || f == filaCentro + anillo;
+                int paso = bordeVertical ? 1 : 2 * anillo;
+                for (int c = bordeVertical ? colDesde : colCentro - anillo; c <= colHasta; c += Math.max(paso, 1)) {
+                    if (c < 0) {
+                        continue;
+                    }
+                    int celda = celda(f, c);
+                    for (int i = inicioCelda[celda]; i < inicioCelda[celda + 1]; i++) {
+                        double distancia = distanciaKm(latitud, longitud, latitudes[i], longitudes[i]);
+                        if (mejores.size() < k) {
+                            mejores.add(new Resultado(fallas[i], distancia));
+                        } else if (distancia < mejores.peek().distanciaKm) {
+                            mejores.poll();
+                            mejores.add(new Resultado(fallas[i], distancia));
+                        }
+                    }
+                }
+            }
+        }
+        List<Resultado> resultado = new ArrayList<>(mejores);
+        resultado.sort(null);
+        return resultado;
+    }
+
+    /**
+     * Orden de visita por vecino más cercano (heurística greedy)
+     *
+     * Partiendo del origen, va siempre a la parada pendiente más próxima.
+     * Pensado para rutas a pie de decenas de paradas: O(n²) sobre double[],
+     * sin reservar memoria por iteración.
+     *
+     * @param paradas Fallas con coordenadas (las que no tengan se ignoran)
+     * @return Paradas en orden de visita; distanciaKm es la del tramo anterior
+     */
+    public static List<Resultado> rutaVecinoMasCercano(double latOrigen, double lonOrigen, List<FallaDTO> paradas) {
+        List<FallaDTO> conUbicacion = paradas.stream()
+                .filter(f -> f.getLatitud() != null && f.getLongitud() != null)
+                .toList();
+        int n = conUbicacion.size();
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = conUbicacion.get(i).getLatitud();
+            lons[i] = conUbicacion.get(i).getLongitud();
+        }
+        boolean[] visitada = new boolean[n];
+        List<Resultado> ruta = new ArrayList<>(n);
+        double lat = latOrigen, lon = lonOrigen;
+        for (int paso = 0; paso < n; paso++) {
+            int mejor = -1;
+            double mejorDistancia = Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (visitada[i]) {
+                    continue;
+                }
+                double distancia = distanciaKm(lat, lon, lats[i], lons[i]);
+                if (distancia < mejorDistancia) {
+                    mejor = i;
+                    mejorDistancia = distancia;
+                }
+            }
+            visitada[mejor] = true;
+            ruta.add(new Resultado(conUbicacion.get(mejor), mejorDistancia));
+            lat = lats[mejor];
+            lon = lons[mejor];
+        }
+        return ruta;
+    }
+
+    /**
+     * Distancia haversine en km
+     */
+    public static double distanciaKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private int fila(double latitud) {
+        return (int) Math.floor((latitud - latMin) / tamanoCelda);
+    }
+
+    private int columna(double longitud) {
+        return (int) Math.floor((longitud - lonMin) / tamanoCelda);
+    }
+
+    private int celda(int fila, int columna) {
+        return fila * columnas + columna;
+    }
+
+    /**
+     * Falla encontrada junto con su distancia al punto consultado
+     */
+    public record Resultado(FallaDTO falla, double distanciaKm) implements Comparable<Resultado> {
+
+        @Override
+        public int compareTo(Resultado otro) {
+            int porDistancia = Double.compare(distanciaKm, otro.distanciaKm);
+            return porDistancia != 0 ? porDistancia : Long.compare(falla.getIdFalla(), otro.falla.getIdFalla());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.fallapp.service;
+
+/**
+ * Límite de llamadas simultáneas al modelo que se adapta a su latencia (AIMD)
+ *
+ * - Aumento aditivo: cada respuesta rápida (latencia ≤ tolerancia × latencia
+ *   mínima observada) suma 1/límite, es decir, +1 por ronda de respuestas
+ * - Reducción multiplicativa (×0.75): respuesta lenta o error de sobrecarga
+ *   (503, 429, red), como mucho una vez por ronda para no desplomarse por
+ *   una ráfaga de respuestas de la misma congestión
+ *
+ * La latencia mínima es la del "modelo sin cola" (idea de TCP Vegas): se
+ * recalcula cada VENTANA_MUESTRAS respuestas para seguir cambios de base
+ * (otro modelo, otro tamaño de lote).
+ *
+ * @see SentimientoPipelineService
+ */
+public final class LimiteConcurrenciaAdaptativo {
+
+    static final double FACTOR_REDUCCION = 0.75;
+    static final int VENTANA_MUESTRAS = 50;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+
+    private double limite;
+    private int enVuelo;
+    private int desdeReduccion;
+    private long latenciaMinima = Long.MAX_VALUE;
+    private long minimaVentana = Long.MAX_VALUE;
+    private int muestras;
+
+    public LimiteConcurrenciaAdaptativo(int minimo, int inicial, int maximo, double tolerancia) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+        this.desdeReduccion = maximo;
+    }
+
+    /**
+     * Esperar a que haya hueco bajo el límite actual
+     */
+    public synchronized void adquirir() throws InterruptedException {
+        while (enVuelo >= (int) limite) {
+            wait();
+        }
+        enVuelo++;
+    }
+
+    /**
+     * Llamada terminada bien: ajustar el límite según su latencia
+     */
+    public synchronized void registrarExito(long latenciaNanos) {
+        liberar();
+        latenciaMinima = Math.min(latenciaMinima, latenciaNanos);
+        minimaVentana = Math.min(minimaVentana, latenciaNanos);
+        if (++muestras >= VENTANA_MUESTRAS) {
+            latenciaMinima = minimaVentana;
+            minimaVentana = Long.MAX_VALUE;
+            muestras = 0;
+        }
+
+        if (latenciaNanos <= tolerancia * latenciaMinima) {
+            limite = Math.min(maximo, limite + 1 / limite);
+        } else {
+            reducir();
+        }
+    }
+
+    /**
+     * Llamada rechazada por sobrecarga del modelo
+     */
+    public synchronized void registrarSobrecarga() {
+        liberar();
+        reducir();
+    }
+
+    /**
+     * Llamada fallida por algo que no es carga (p.ej. sin token): solo libera
+     */
+    public synchronized void registrarFallo() {
+        liberar();
+    }
+
+    public synchronized int limite() {
+        return (int) limite;
+    }
+
+    public synchronized int enVuelo() {
+        return enVuelo;
+    }
+
+    private void liberar() {
+        enVuelo--;
+        desdeReduccion++;
+        notifyAll();
+    }
+
+    private void reducir() {
+        if (desdeReduccion >= (int) limite) {
+            limite = Math.max(minimo, limite * FACTOR_REDUCCION);
+            desdeReduccion = 0;
+        }
+    }
+}
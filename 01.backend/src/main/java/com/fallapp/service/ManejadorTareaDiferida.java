@@ -0,0 +1,23 @@
+package com.fallapp.service;
+
+/**
+ * Servicio capaz de repetir las tareas diferidas de un tipo
+ *
+ * @see TareaDiferida
+ * @see TareasPendientesService
+ */
+public interface ManejadorTareaDiferida {
+
+    /**
+     * Tipo de TareaDiferida que atiende
+     */
+    String tipoTarea();
+
+    /**
+     * Repetir una tarea guardada (en el hilo de reintentos)
+     *
+     * @param datos Los datos con los que se creó la tarea
+     * @throws RuntimeException Si falla: se reintenta más tarde
+     */
+    void ejecutarTarea(String datos);
+}
@@ -0,0 +1,210 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbox transaccional de comentarios pendientes de análisis de sentimiento
+ *
+ * Antes, crear un comentario encolaba el análisis en un afterCommit: si la
+ * JVM caía entre el commit y el encolado, el trabajo se perdía hasta que un
+ * admin lanzaba reanalizar-sentimiento. Ahora:
+ *
+ * 1. ComentarioService.crear inserta la fila del comentario en
+ *    comentarios_outbox (script 66) en la MISMA transacción: o se guardan
+ *    los dos o ninguno
+ * 2. Un hilo "comentarios-outbox" reserva filas por bloques
+ *    (UPDATE ... FOR UPDATE SKIP LOCKED) y las encola en el pipeline. Tras el
+ *    commit de un comentario se le despierta para no esperar al intervalo
+ * 3. Reservar no borra: adelanta disponible_en `app.sentimiento.outbox.reserva-ms`.
+ *    El pipeline borra la fila cuando el comentario ya tiene etiqueta; si la
+ *    instancia cae o el modelo falla, la reserva vence y otra pasada (de esta
+ *    u otra instancia) la vuelve a coger
+ *
+ * Varias instancias del backend comparten el outbox sin duplicar trabajo:
+ * SKIP LOCKED reparte filas distintas y una fila reservada no vuelve a salir
+ * hasta que vence su reserva.
+ *
+ * Cada `app.sentimiento.barrido-ms` se añaden al outbox los comentarios
+ * pendientes que no estén (anteriores al outbox o etiquetas borradas a mano).
+ *
+ * Métricas: fallapp.sentimiento.outbox.reservados, fallapp.sentimiento.outbox.registrados
+ *
+ * @see SentimientoPipelineService Análisis por lotes y borrado de las filas resueltas
+ */
+@Service
+@Slf4j
+public class OutboxComentariosService {
+
+    private static final String RESERVAR = """
+            UPDATE comentarios_outbox
+            SET disponible_en = NOW() + ? * INTERVAL '1 millisecond',
+                intentos = intentos + 1
+            WHERE id_comentario IN (
+                SELECT id_comentario FROM comentarios_outbox
+                WHERE disponible_en <= NOW()
+                ORDER BY disponible_en, id_comentario
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id_comentario""";
+
+    private static final String REGISTRAR_PENDIENTES = """
+            INSERT INTO comentarios_outbox (id_comentario)
+            SELECT c.id_comentario
+            FROM comentarios c
+            WHERE (c.sentimiento IS NULL
+                   OR BTRIM(c.sentimiento) = ''
+                   OR LOWER(BTRIM(c.sentimiento)) NOT IN ('positive','neutral','negative'))
+              AND BTRIM(COALESCE(c.contenido, c.texto_comentario, '')) <> ''
+              AND NOT EXISTS (SELECT 1 FROM comentarios_outbox o WHERE o.id_comentario = c.id_comentario)
+            ORDER BY c.id_comentario
+            LIMIT ?
+            ON CONFLICT (id_comentario) DO NOTHING""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SentimientoPipelineService pipeline;
+    private final long intervaloMillis;
+    private final int tamanoBloque;
+    private final long reservaMillis;
+    private final long barridoMillis;
+    private final Counter reservados;
+    private final Counter registrados;
+    private final AtomicBoolean despertarPendiente = new AtomicBoolean(false);
+
+    private volatile ScheduledExecutorService programador;
+
+    public OutboxComentariosService(
+            JdbcTemplate jdbcTemplate,
+            SentimientoPipelineService pipeline,
+            MeterRegistry meterRegistry,
+            @Value("${app.sentimiento.outbox.intervalo-ms:5000}") long intervaloMillis,
+            @Value("${app.sentimiento.outbox.bloque:200}") int tamanoBloque,
+            @Value("${app.sentimiento.outbox.reserva-ms:300000}") long reservaMillis,
+            @Value("${app.sentimiento.barrido-ms:60000}") long barridoMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pipeline = pipeline;
+        this.intervaloMillis = intervaloMillis;
+        this.tamanoBloque = tamanoBloque;
+        this.reservaMillis = reservaMillis;
+        this.barridoMillis = barridoMillis;
+        this.reservados = meterRegistry.counter("fallapp.sentimiento.outbox.reservados");
+        this.registrados = meterRegistry.counter("fallapp.sentimiento.outbox.registrados");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (programador != null || intervaloMillis <= 0) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "comentarios-outbox");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(this::despacharSeguro, 0, intervaloMillis, TimeUnit.MILLISECONDS);
+        if (barridoMillis > 0) {
+            programador.scheduleWithFixedDelay(() -> {
+                try {
+                    registrarPendientes(tamanoBloque * 10);
+                } catch (RuntimeException e) {
+                    log.warn("Error añadiendo comentarios pendientes al outbox: {}", e.getMessage());
+                }
+            }, barridoMillis, barridoMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Añadir un comentario al outbox (dentro de la transacción que lo crea)
+     */
+    public void registrar(Long idComentario) {
+        jdbcTemplate.update(
+                "INSERT INTO comentarios_outbox (id_comentario) VALUES (?) ON CONFLICT (id_comentario) DO NOTHING",
+                idComentario);
+    }
+
+    /**
+     * Añadir al outbox los comentarios pendientes de análisis que no estén
+     *
+     * @return Comentarios añadidos
+     */
+    public int registrarPendientes(int limite) {
+        int nuevos = jdbcTemplate.update(REGISTRAR_PENDIENTES, limite);
+        registrados.increment(nuevos);
+        if (nuevos > 0) {
+            log.info("Outbox de sentimiento: {} comentarios pendientes añadidos", nuevos);
+        }
+        return nuevos;
+    }
+
+    /**
+     * Adelantar la siguiente pasada (tras el commit de un comentario nuevo)
+     *
+     * Varias llamadas seguidas se agrupan en una sola pasada.
+     */
+    public void despertar() {
+        ScheduledExecutorService actual = programador;
+        if (actual != null && despertarPendiente.compareAndSet(false, true)) {
+            try {
+                actual.execute(() -> {
+                    despertarPendiente.set(false);
+                    despacharSeguro();
+                });
+            } catch (RuntimeException e) {
+                despertarPendiente.set(false);
+            }
+        }
+    }
+
+    /**
+     * Reservar filas disponibles y encolarlas en el pipeline, mientras quepan
+     *
+     * Con el circuito del modelo abierto no reserva: las filas esperan sin
+     * gastar intentos.
+     *
+     * @return Comentarios encolados
+     */
+    int despachar() {
+        int total = 0;
+        while (pipeline.circuito().estado() != CircuitoSentimiento.Estado.ABIERTO) {
+            int hueco = Math.min(tamanoBloque, pipeline.huecoCola());
+            if (hueco <= 0) {
+                break;
+            }
+            List<Long> ids = jdbcTemplate.queryForList(RESERVAR, Long.class, reservaMillis, hueco);
+            reservados.increment(ids.size());
+            total += pipeline.encolar(ids);
+            if (ids.size() < hueco) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void despacharSeguro() {
+        try {
+            despachar();
+        } catch (RuntimeException e) {
+            log.warn("Error despachando el outbox de sentimiento: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+}
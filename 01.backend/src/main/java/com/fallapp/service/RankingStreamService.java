@@ -0,0 +1,456 @@
+package com.fallapp.service;
+
+import com.fallapp.exception.ServicioNoDisponibleException;
+import com.fallapp.model.Voto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ranking de votos en directo por Server-Sent Events (/api/estadisticas/votos/stream)
+ *
+ * En lugar de que cada pantalla abierta sondee /api/estadisticas/votos:
+ * - Un único hilo "ranking-stream" mira cada `app.estadisticas.stream.intervalo-ms`
+ *   la versión de RankingVotosService; si cambió, calcula el top-N de cada
+ *   ranking y lo compara con la última publicación (los votos de ese intervalo
+ *   se agrupan en un solo delta)
+ * - Snapshot y delta se serializan UNA vez y se reparten a todas las conexiones
+ * - Eventos: `snapshot` (ranking completo, al conectar o al ponerse al día)
+ *   y `delta` (solo las posiciones que cambiaron); `id` = número de publicación
+ *
+ * Clientes lentos: cada conexión tiene como mucho un envío en curso y nunca
+ * una cola propia. Si llega una publicación mientras envía, se la salta y
+ * recibe después un snapshot con el estado más reciente (conflación). Si un
+ * envío dura más de `app.estadisticas.stream.lento-ms`, se cierra la conexión.
+ *
+ * Un envío bloqueado en un socket que no lee no se puede interrumpir: el
+ * contenedor lo suelta al vencer su timeout de escritura
+ * (server.tomcat.connection-timeout, 60 s por defecto). Mientras tanto el
+ * hilo sigue ocupado, así que al descartar la conexión se añade un escritor
+ * al pool hasta que ese envío termine: los clientes atascados no frenan el
+ * reparto a los demás (como mucho `app.estadisticas.stream.max-bloqueados`
+ * escritores extra a la vez).
+ *
+ * Las conexiones inactivas no ocupan hilos (async servlet): los escritores
+ * (`app.estadisticas.stream.escritores`) solo trabajan cuando hay publicación
+ * o latido. Los hilos se crean con la primera conexión.
+ *
+ * Métricas: fallapp.estadisticas.stream.conexiones, .descartados, .bloqueados
+ *
+ * @see RankingVotosService#version()
+ */
+@Service
+@Slf4j
+public class RankingStreamService {
+
+    static final String RANKING_GLOBAL = "GLOBAL";
+    private static final long LATIDO_MILLIS = 15_000;
+
+    /** Estados de un envío: el que gana la carrera decide si hubo escritor extra */
+    private static final int ENVIO_EN_CURSO = 0;
+    private static final int ENVIO_TERMINADO = 1;
+    private static final int ENVIO_COMPENSADO = 2;
+
+    private final RankingVotosService rankingVotosService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger enviosBloqueados = new AtomicInteger();
+    private final Counter descartadosLentos;
+
+    private final int top;
+    private final long intervaloMillis;
+    private final long timeoutMillis;
+    private final long lentoMillis;
+    private final int maxConexiones;
+    private final int numEscritores;
+    private final int maxBloqueados;
+
+    private volatile Publicacion ultima;
+    private volatile long ultimoLatidoMillis = System.currentTimeMillis();
+    /** Se publican ya construidos en arrancar(); null hasta la primera conexión */
+    private volatile ScheduledExecutorService programador;
+    private volatile ThreadPoolExecutor escritores;
+
+    public RankingStreamService(
+            RankingVotosService rankingVotosService,
+            MeterRegistry meterRegistry,
+            @Value("${app.estadisticas.stream.top:10}") int top,
+            @Value("${app.estadisticas.stream.intervalo-ms:1000}") long intervaloMillis,
+            @Value("${app.estadisticas.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${app.estadisticas.stream.lento-ms:5000}") long lentoMillis,
+            @Value("${app.estadisticas.stream.max-conexiones:5000}") int maxConexiones,
+            @Value("${app.estadisticas.stream.escritores:4}") int numEscritores,
+            @Value("${app.estadisticas.stream.max-bloqueados:64}") int maxBloqueados) {
+        this.rankingVotosService = rankingVotosService;
+        this.top = top;
+        this.intervaloMillis = intervaloMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.lentoMillis = lentoMillis;
+        this.maxConexiones = maxConexiones;
+        this.numEscritores = numEscritores;
+        this.maxBloqueados = maxBloqueados;
+        meterRegistry.gaugeCollectionSize("fallapp.estadisticas.stream.conexiones", List.of(), suscriptores);
+        meterRegistry.gauge("fallapp.estadisticas.stream.bloqueados", enviosBloqueados);
+        this.descartadosLentos = meterRegistry.counter("fallapp.estadisticas.stream.descartados");
+    }
+
+    /**
+     * Abrir una conexión SSE; recibe de inmediato un `snapshot`
+     *
+     * @throws ServicioNoDisponibleException Límite de conexiones alcanzado
+     */
+    public SseEmitter suscribir() {
+        if (suscriptores.size() >= maxConexiones) {
+            throw new ServicioNoDisponibleException("Demasiadas conexiones al ranking en directo", 30);
+        }
+        return suscribir(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter suscribir(SseEmitter emitter) {
+        arrancar();
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor));
+        emitter.onError(e -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+
+        Publicacion actual = ultima;
+        entregar(suscriptor, actual != null ? actual : publicar());
+        return emitter;
+    }
+
+    /**
+     * Conexiones abiertas
+     */
+    public int conexiones() {
+        return suscriptores.size();
+    }
+
+    /**
+     * Una vuelta del bucle: publicar si el ranking cambió y repartir
+     */
+    void ciclo() {
+        if (suscriptores.isEmpty()) {
+            return;
+        }
+        Publicacion publicacion = publicar();
+        for (Suscriptor suscriptor : suscriptores) {
+            entregar(suscriptor, publicacion);
+        }
+
+        long ahora = System.currentTimeMillis();
+        if (ahora - ultimoLatidoMillis >= LATIDO_MILLIS) {
+            ultimoLatidoMillis = ahora;
+            for (Suscriptor suscriptor : suscriptores) {
+                latido(suscriptor);
+            }
+        }
+    }
+
+    /**
+     * Obtener la publicación vigente, generando una nueva si el ranking cambió
+     *
+     * Solo la llaman el hilo del bucle y, antes de la primera publicación,
+     * la primera conexión.
+     */
+    synchronized Publicacion publicar() {
+        Publicacion anterior = ultima;
+        long version = rankingVotosService.version();
+        if (anterior != null && anterior.versionRanking() == version) {
+            return anterior;
+        }
+
+        Map<String, List<RankingVotosService.PosicionRanking>> rankings = new LinkedHashMap<>();
+        Map<String, Long> totales = new LinkedHashMap<>();
+        rankings.put(RANKING_GLOBAL, rankingVotosService.obtenerTop(null, top));
+        totales.put(RANKING_GLOBAL, rankingVotosService.obtenerTotalVotos(null));
+        for (Voto.TipoVoto tipo : Voto.TipoVoto.values()) {
+            rankings.put(tipo.name(), rankingVotosService.obtenerTop(tipo, top));
+            totales.put(tipo.name(), rankingVotosService.obtenerTotalVotos(tipo));
+        }
+
+        Publicacion nueva;
+        if (anterior == null) {
+            nueva = new Publicacion(1, version, rankings, totales,
+                    json(Map.of("version", 1L, "rankings", rankings, "totalVotos", totales)), null);
+        } else {
+            Map<String, Object> delta = delta(anterior, rankings, totales);
+            if (delta.isEmpty()) {
+                // Cambios fuera del top-N sin efecto en los totales: nada que enviar
+                nueva = new Publicacion(anterior.secuencia(), version, anterior.rankings(), anterior.totales(),
+                        anterior.snapshotJson(), anterior.deltaJson());
+            } else {
+                long secuencia = anterior.secuencia() + 1;
+                delta.put("version", secuencia);
+                nueva = new Publicacion(secuencia, version, rankings, totales,
+                        json(Map.of("version", secuencia, "rankings", rankings, "totalVotos", totales)), json(delta));
+            }
+        }
+        ultima = nueva;
+        return nueva;
+    }
+
+    /**
+     * Diferencias entre la publicación anterior y el ranking actual
+     *
+     * Formato: {"cambios": {"GLOBAL": [{"posicion": 0, ...PosicionRanking}]},
+     *           "longitudes": {"GLOBAL": 10}, "totalVotos": {"GLOBAL": 1234}}
+     * Solo aparecen los rankings y posiciones que cambiaron; `longitudes`
+     * solo si el ranking creció o encogió.
+     */
+    static Map<String, Object> delta(Publicacion anterior,
+                                     Map<String, List<RankingVotosService.PosicionRanking>> rankings,
+                                     Map<String, Long> totales) {
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        Map<String, Object> longitudes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<RankingVotosService.PosicionRanking>> ranking : rankings.entrySet()) {
+            List<RankingVotosService.PosicionRanking> antes = anterior.rankings().getOrDefault(ranking.getKey(), List.of());
+            List<RankingVotosService.PosicionRanking> ahora = ranking.getValue();
+            List<Map<String, Object>> posiciones = new ArrayList<>();
+            for (int i = 0; i < ahora.size(); i++) {
+                RankingVotosService.PosicionRanking posicion = ahora.get(i);
+                if (i >= antes.size() || !posicion.equals(antes.get(i))) {
+                    Map<String, Object> cambio = new LinkedHashMap<>();
+                    cambio.put("posicion", i);
+                    cambio.put("idFalla", posicion.idFalla());
+                    cambio.put("nombre", posicion.nombre());
+                    cambio.put("seccion", posicion.seccion());
+                    cambio.put("votos", posicion.votos());
+                    posiciones.add(cambio);
+                }
+            }
+            if (!posiciones.isEmpty()) {
+                cambios.put(ranking.getKey(), posiciones);
+            }
+            if (antes.size() != ahora.size()) {
+                longitudes.put(ranking.getKey(), ahora.size());
+            }
+        }
+
+        Map<String, Object> totalesCambiados = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> total : totales.entrySet()) {
+            if (!Objects.equals(total.getValue(), anterior.totales().get(total.getKey()))) {
+                totalesCambiados.put(total.getKey(), total.getValue());
+            }
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        if (!cambios.isEmpty()) {
+            delta.put("cambios", cambios);
+        }
+        if (!longitudes.isEmpty()) {
+            delta.put("longitudes", longitudes);
+        }
+        if (!totalesCambiados.isEmpty()) {
+            delta.put("totalVotos", totalesCambiados);
+        }
+        return delta;
+    }
+
+    /**
+     * Enviar la publicación a un suscriptor si va por detrás
+     *
+     * Si ya tiene un envío en curso no se encola nada: la siguiente vuelta
+     * le mandará un snapshot. Si ese envío lleva demasiado, se le desconecta.
+     */
+    void entregar(Suscriptor suscriptor, Publicacion publicacion) {
+        if (suscriptor.secuenciaEnviada >= publicacion.secuencia()) {
+            return;
+        }
+        if (!suscriptor.enviando.compareAndSet(false, true)) {
+            if (System.currentTimeMillis() - suscriptor.inicioEnvioMillis > lentoMillis) {
+                descartar(suscriptor);
+            }
+            return;
+        }
+        suscriptor.inicioEnvioMillis = System.currentTimeMillis();
+
+        boolean esDelta = publicacion.deltaJson() != null
+                && suscriptor.secuenciaEnviada == publicacion.secuencia() - 1;
+        SseEmitter.SseEventBuilder evento = SseEmitter.event()
+                .id(Long.toString(publicacion.secuencia()))
+                .name(esDelta ? "delta" : "snapshot")
+                .data(esDelta ? publicacion.deltaJson() : publicacion.snapshotJson());
+        enviar(suscriptor, evento, publicacion.secuencia());
+    }
+
+    private void latido(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            suscriptor.inicioEnvioMillis = System.currentTimeMillis();
+            enviar(suscriptor, SseEmitter.event().comment("latido"), suscriptor.secuenciaEnviada);
+        } else if (System.currentTimeMillis() - suscriptor.inicioEnvioMillis > lentoMillis) {
+            descartar(suscriptor);
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor, SseEmitter.SseEventBuilder evento, long secuencia) {
+        AtomicInteger envio = new AtomicInteger(ENVIO_EN_CURSO);
+        suscriptor.envioActual = envio;
+        try {
+            escritores.execute(() -> {
+                try {
+                    suscriptor.emitter.send(evento);
+                    suscriptor.secuenciaEnviada = secuencia;
+                } catch (IOException | IllegalStateException e) {
+                    suscriptores.remove(suscriptor);
+                } finally {
+                    if (envio.getAndSet(ENVIO_TERMINADO) == ENVIO_COMPENSADO) {
+                        ajustarEscritores(-1);
+                    }
+                    suscriptor.enviando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            envio.set(ENVIO_TERMINADO);
+            suscriptor.enviando.set(false);
+        }
+    }
+
+    /**
+     * Cerrar una conexión lenta y devolver al pool el escritor que tiene bloqueado
+     */
+    private void descartar(Suscriptor suscriptor) {
+        if (!suscriptores.remove(suscriptor)) {
+            return;
+        }
+        descartadosLentos.increment();
+        log.debug("Conexión al ranking en directo cerrada por lenta");
+        AtomicInteger envio = suscriptor.envioActual;
+        if (envio != null && enviosBloqueados.get() < maxBloqueados
+                && envio.compareAndSet(ENVIO_EN_CURSO, ENVIO_COMPENSADO)) {
+            ajustarEscritores(1);
+        }
+        try {
+            suscriptor.emitter.completeWithError(new IOException("Cliente lento"));
+        } catch (RuntimeException e) {
+            log.debug("No se pudo cerrar la conexión lenta: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sumar o quitar un escritor extra mientras un envío descartado sigue bloqueado
+     */
+    private synchronized void ajustarEscritores(int delta) {
+        ThreadPoolExecutor pool = escritores;
+        int bloqueados = enviosBloqueados.addAndGet(delta);
+        if (pool == null || pool.isShutdown()) {
+            return;
+        }
+        int tamano = numEscritores + bloqueados;
+        // El máximo nunca puede quedar por debajo del núcleo
+        if (delta > 0) {
+            pool.setMaximumPoolSize(tamano);
+            pool.setCorePoolSize(tamano);
+        } else {
+            pool.setCorePoolSize(tamano);
+            pool.setMaximumPoolSize(tamano);
+        }
+    }
+
+    /**
+     * Crear los hilos con la primera conexión (ninguno si nadie usa el stream)
+     *
+     * Los ejecutores se construyen del todo antes de publicarlos: una conexión
+     * concurrente nunca ve `escritores` a null.
+     */
+    private void arrancar() {
+        if (escritores != null) {
+            return;
+        }
+        synchronized (this) {
+            if (escritores != null) {
+                return;
+            }
+            AtomicInteger numero = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(numEscritores, numEscritores,
+                    0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread hilo = new Thread(r, "ranking-stream-envio-" + numero.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            ScheduledExecutorService bucle = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "ranking-stream");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            escritores = pool;
+            programador = bucle;
+            bucle.scheduleWithFixedDelay(() -> {
+                try {
+                    ciclo();
+                } catch (Exception e) {
+                    log.error("Error publicando el ranking en directo", e);
+                }
+            }, intervaloMillis, intervaloMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.emitter.complete();
+        }
+        suscriptores.clear();
+        if (escritores != null) {
+            escritores.shutdownNow();
+        }
+    }
+
+    private String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el ranking", e);
+        }
+    }
+
+    /**
+     * Ranking publicado, ya serializado como snapshot y como delta respecto
+     * a la publicación anterior (null en la primera)
+     */
+    record Publicacion(long secuencia, long versionRanking,
+                       Map<String, List<RankingVotosService.PosicionRanking>> rankings,
+                       Map<String, Long> totales, String snapshotJson, String deltaJson) {
+    }
+
+    /**
+     * Conexión abierta: como mucho un envío en curso
+     */
+    static final class Suscriptor {
+        private final SseEmitter emitter;
+        private final AtomicBoolean enviando = new AtomicBoolean(false);
+        private volatile long secuenciaEnviada;
+        private volatile long inicioEnvioMillis;
+        private volatile AtomicInteger envioActual;
+
+        Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
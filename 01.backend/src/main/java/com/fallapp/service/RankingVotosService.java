@@ -0,0 +1,353 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.VotoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Motor de ranking de votos en memoria
+ *
+ * Mantiene el número de votos por (idFalla, TipoVoto) y un ranking ordenado
+ * por cada tipo de voto más uno global (todos los tipos).
+ *
+ * Ciclo de vida:
+ * - Se inicializa de forma perezosa en la primera consulta con UNA sola query
+ *   sobre los contadores repartidos de `contadores_votos` (más otra ligera con
+ *   id/nombre/sección de las fallas)
+ * - VotoService notifica cada voto creado/eliminado DESPUÉS del commit,
+ *   por lo que el ranking nunca refleja votos que acabaron en rollback
+ * - FallaService notifica, también tras el commit, las fallas renombradas y
+ *   eliminadas (con sus votos, que caen en cascada)
+ * - recargar() permite reconstruirlo desde BD (p.ej. tras cargas masivas)
+ *
+ * Rendimiento:
+ * - Voto: suma en un contador striped (ContadoresVotos), sin locks; los
+ *   votos concurrentes a la misma falla no se esperan entre sí
+ * - Top-N: el orden se recalcula en la primera lectura tras algún cambio
+ *   (O(n log n) con n ≈ 400 fallas) y se reutiliza hasta el siguiente; si
+ *   otro hilo ya lo está recalculando se sirve el orden anterior
+ *
+ * Carga sin perder votos: recargar() lee primero las fallas (no dependen
+ * de los votos), publica en `fase` los contadores nuevos y lanza acto
+ * seguido la SUM de contadores; los votos notificados desde la publicación
+ * se suman en los contadores nuevos y la SUM se suma encima. Un voto
+ * notificado antes de publicar `cargando` ya estaba confirmado, así que lo
+ * lee la SUM (los notificados antes de cualquier carga se ignoran por eso).
+ *
+ * Los avisos no llevan id de voto, así que no se pueden cruzar con lo que
+ * leyó la SUM: un voto (o una eliminación) que se confirma después de
+ * publicar `cargando` pero antes de que la SUM tome su snapshot, o cuyo
+ * aviso se retrasa hasta ese momento, se aplica dos veces. Por eso la SUM
+ * es lo único que se ejecuta en esa ventana: queda reducida al envío de
+ * una query. Se prefiere ese riesgo a abrir la fase después de la SUM, que
+ * perdería los votos confirmados entre ambas hasta el siguiente reinicio.
+ *
+ * @see ContadoresVotos
+ * @see VotoService#votar
+ * @see EstadisticasService#obtenerEstadisticasVotos
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RankingVotosService {
+
+    /** Índice del ranking global (suma de todos los tipos de voto) */
+    private static final Voto.TipoVoto[] TIPOS = Voto.TipoVoto.values();
+    private static final int RANKING_GLOBAL = TIPOS.length;
+    private static final int NUM_RANKINGS = RANKING_GLOBAL + 1;
+
+    /** Más votos primero; a igualdad de votos, menor idFalla primero */
+    private static final Comparator<PosicionRanking> ORDEN_RANKING = Comparator
+            .comparingLong(PosicionRanking::votos).reversed()
+            .thenComparingLong(PosicionRanking::idFalla);
+
+    private final VotoRepository votoRepository;
+    private final FallaRepository fallaRepository;
+
+    private final ReentrantLock ordenacion = new ReentrantLock();
+    /** Estado publicado y, durante recargar(), el que se está construyendo; se leen juntos */
+    private volatile Fase fase = new Fase(null, null);
+    private volatile Vista vista;
+
+    /**
+     * Obtener las N fallas más votadas
+     *
+     * @param tipo Tipo de voto a filtrar (null = todos los tipos)
+     * @param limite Número máximo de posiciones
+     * @return Posiciones ordenadas por votos DESC
+     */
+    public List<PosicionRanking> obtenerTop(Voto.TipoVoto tipo, int limite) {
+        List<PosicionRanking> ranking = vistaActual().rankings().get(indiceRanking(tipo));
+        return new ArrayList<>(ranking.subList(0, Math.min(limite, ranking.size())));
+    }
+
+    /**
+     * Total de votos registrados
+     *
+     * @param tipo Tipo de voto (null = todos los tipos)
+     */
+    public long obtenerTotalVotos(Voto.TipoVoto tipo) {
+        return asegurarInicializado().contadores().total(tipo);
+    }
+
+    /**
+     * Votos totales (todos los tipos) de cada falla con algún voto
+     *
+     * Copia independiente del estado interno: pensada para construir
+     * estructuras derivadas (p.ej. las sugerencias del buscador).
+     */
+    public Map<Long, Long> obtenerVotosPorFalla() {
+        Map<Long, Long> resultado = new HashMap<>();
+        asegurarInicializado().contadores().copia().forEach((idFalla, votos) -> {
+            long total = 0;
+            for (long v : votos) {
+                total += v;
+            }
+            if (total > 0) {
+                resultado.put(idFalla, total);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Contador de cambios del ranking (cada voto, eliminación o recarga lo incrementa)
+     *
+     * Permite a los consumidores detectar cambios sin copiar el ranking.
+     */
+    public long version() {
+        Estado actual = fase.estado();
+        return actual == null ? 0 : actual.versionBase() + actual.contadores().cambios();
+    }
+
+    /**
+     * Registrar un voto ya confirmado en BD
+     */
+    public void registrarVoto(Long idFalla, String nombre, String seccion, Voto.TipoVoto tipo) {
+        Fase actual = fase;
+        if (actual.estado() != null) {
+            sumarVoto(actual.estado(), idFalla, nombre, seccion, tipo);
+        }
+        if (actual.cargando() != null) {
+            sumarVoto(actual.cargando(), idFalla, nombre, seccion, tipo);
+        }
+    }
+
+    private static void sumarVoto(Estado destino, Long idFalla, String nombre, String seccion, Voto.TipoVoto tipo) {
+        if (!destino.fallas().containsKey(idFalla)) {
+            destino.fallas().putIfAbsent(idFalla, new EntradaFalla(idFalla, nombre, seccion));
+        }
+        destino.contadores().sumar(idFalla, tipo, 1);
+    }
+
+    /**
+     * Registrar la eliminación de un voto ya confirmada en BD
+     */
+    public void registrarEliminacion(Long idFalla, Voto.TipoVoto tipo) {
+        Fase actual = fase;
+        if (actual.estado() != null && actual.estado().contadores().votos(idFalla, tipo) > 0) {
+            actual.estado().contadores().sumar(idFalla, tipo, -1);
+        }
+        // En plena carga aún faltan los votos de la BD: se resta sin mirar el saldo
+        if (actual.cargando() != null) {
+            actual.cargando().contadores().sumar(idFalla, tipo, -1);
+        }
+    }
+
+    /**
+     * Registrar una falla renombrada (o cambiada de sección) ya confirmada en BD
+     *
+     * Espera a que termine una carga en curso para no quedar tapada por los
+     * datos que esta leyó antes del cambio.
+     */
+    public synchronized void actualizarFalla(Long idFalla, String nombre, String seccion) {
+        Estado actual = fase.estado();
+        if (actual == null || !actual.fallas().containsKey(idFalla)) {
+            return;
+        }
+        actual.fallas().put(idFalla, new EntradaFalla(idFalla, nombre, seccion));
+        actual.contadores().marcarCambio();
+    }
+
+    /**
+     * Registrar una falla eliminada ya confirmada en BD
+     *
+     * Sus votos se borran en cascada con ella: sale del ranking y de los totales.
+     */
+    public synchronized void eliminarFalla(Long idFalla) {
+        Estado actual = fase.estado();
+        if (actual == null) {
+            return;
+        }
+        actual.fallas().remove(idFalla);
+        for (Voto.TipoVoto tipo : TIPOS) {
+            long votos = actual.contadores().votos(idFalla, tipo);
+            if (votos != 0) {
+                actual.contadores().sumar(idFalla, tipo, -votos);
+            }
+        }
+        actual.contadores().marcarCambio();
+    }
+
+    /**
+     * Reconstruir el ranking completo desde BD
+     *
+     * Queries: 2 (resumen de fallas + SUM de los contadores repartidos).
+     * Entre abrir la fase de carga y la SUM no se hace nada más: cuanto más
+     * corta esa ventana, menos avisos pueden contarse también en la SUM.
+     */
+    public synchronized void recargar() {
+        Estado anterior = fase.estado();
+        Estado nuevo = new Estado(0, new ConcurrentHashMap<>(), new ContadoresVotos());
+        for (Object[] fila : fallaRepository.findResumenesParaRanking()) {
+            Long idFalla = ((Number) fila[0]).longValue();
+            nuevo.fallas().put(idFalla, new EntradaFalla(idFalla, (String) fila[1], (String) fila[2]));
+        }
+
+        fase = new Fase(anterior, nuevo);
+        boolean publicado = false;
+        try {
+            List<Object[]> conteos = votoRepository.sumarContadoresPorFallaYTipo();
+
+            for (Object[] fila : conteos) {
+                long idFalla = ((Number) fila[0]).longValue();
+                if (nuevo.fallas().containsKey(idFalla)) {
+                    nuevo.contadores().sumar(idFalla, Voto.TipoVoto.valueOf(fila[1].toString()), ((Number) fila[2]).longValue());
+                }
+            }
+
+            // Mismos mapa y contadores: un voto que leyó la fase anterior suma igual.
+            // La versión sigue creciendo tras la recarga
+            fase = new Fase(new Estado(version() + 1, nuevo.fallas(), nuevo.contadores()), null);
+            vista = null;
+            publicado = true;
+            log.info("Ranking de votos cargado: {} fallas, {} votos", nuevo.fallas().size(), nuevo.contadores().total(null));
+        } finally {
+            if (!publicado) {
+                fase = new Fase(anterior, null);
+            }
+        }
+    }
+
+    private Estado asegurarInicializado() {
+        Estado actual = fase.estado();
+        if (actual == null) {
+            synchronized (this) {
+                if (fase.estado() == null) {
+                    recargar();
+                }
+                actual = fase.estado();
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Orden vigente de los rankings, recalculado si hubo cambios desde el último
+     */
+    private Vista vistaActual() {
+        Estado actual = asegurarInicializado();
+        Vista vigente = vista;
+        boolean valida = vigente != null && vigente.estado() == actual;
+        if (valida && vigente.cambios() == actual.contadores().cambios()) {
+            return vigente;
+        }
+        if (valida) {
+            if (!ordenacion.tryLock()) {
+                return vigente;
+            }
+        } else {
+            ordenacion.lock();
+        }
+        try {
+            vigente = vista;
+            long cambios = actual.contadores().cambios();
+            if (vigente != null && vigente.estado() == actual && vigente.cambios() == cambios) {
+                return vigente;
+            }
+            vigente = ordenar(actual, cambios);
+            vista = vigente;
+            return vigente;
+        } finally {
+            ordenacion.unlock();
+        }
+    }
+
+    /**
+     * Ordenar todas las fallas por cada ranking
+     *
+     * `cambios` se lee ANTES de leer los contadores: si llegan votos durante
+     * la ordenación, la siguiente lectura vuelve a ordenar.
+     */
+    private static Vista ordenar(Estado estado, long cambios) {
+        List<List<PosicionRanking>> rankings = new ArrayList<>(NUM_RANKINGS);
+        for (int i = 0; i < NUM_RANKINGS; i++) {
+            rankings.add(new ArrayList<>(estado.fallas().size()));
+        }
+        for (EntradaFalla entrada : estado.fallas().values()) {
+            long global = 0;
+            for (Voto.TipoVoto tipo : TIPOS) {
+                long votos = estado.contadores().votos(entrada.idFalla(), tipo);
+                global += votos;
+                rankings.get(tipo.ordinal()).add(entrada.posicion(votos));
+            }
+            rankings.get(RANKING_GLOBAL).add(entrada.posicion(global));
+        }
+        for (int i = 0; i < NUM_RANKINGS; i++) {
+            rankings.get(i).sort(ORDEN_RANKING);
+            rankings.set(i, List.copyOf(rankings.get(i)));
+        }
+        return new Vista(estado, cambios, rankings);
+    }
+
+    private static int indiceRanking(Voto.TipoVoto tipo) {
+        return tipo == null ? RANKING_GLOBAL : tipo.ordinal();
+    }
+
+    /**
+     * Posición de una falla en el ranking (resultado público)
+     */
+    public record PosicionRanking(Long idFalla, String nombre, String seccion, long votos) {
+    }
+
+    /**
+     * Datos fijos de una falla del ranking
+     */
+    private record EntradaFalla(Long idFalla, String nombre, String seccion) {
+        private PosicionRanking posicion(long votos) {
+            return new PosicionRanking(idFalla, nombre, seccion, votos);
+        }
+    }
+
+    /**
+     * Fallas y contadores de una carga; recargar() publica uno nuevo
+     */
+    private record Estado(long versionBase, Map<Long, EntradaFalla> fallas, ContadoresVotos contadores) {
+    }
+
+    /**
+     * Estado publicado y el de la carga en curso (null fuera de recargar())
+     *
+     * Un solo volatile para que cada voto vea una pareja coherente: si vio
+     * `cargando` a null antes de una carga, su commit es anterior a las queries.
+     */
+    private record Fase(Estado estado, Estado cargando) {
+    }
+
+    /**
+     * Rankings ordenados con los contadores de `cambios` (inmutable)
+     */
+    private record Vista(Estado estado, long cambios, List<List<PosicionRanking>> rankings) {
+    }
+}
@@ -0,0 +1,395 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Registro local (append-only) de los votos aceptados por el buffer
+ *
+ * Garantiza que un voto confirmado al cliente sobrevive a un reinicio:
+ * - Cada voto se añade como una línea "idUsuario;idFalla;TIPO;epochMillis"
+ * - anotar() no vuelve hasta que la línea está en disco (fsync)
+ * - Group commit: un único force() cubre todo lo escrito hasta ese momento,
+ *   así N peticiones concurrentes comparten un solo fsync
+ *
+ * Segmentos:
+ * - Se rota a un fichero nuevo al superar `tamanoMaximoSegmento`
+ * - Un segmento cerrado se borra cuando todos sus votos están en BD
+ * - Al arrancar, recuperar() devuelve los votos de los segmentos que quedaron
+ *   (reinsertarlos es seguro: el INSERT usa ON CONFLICT DO NOTHING)
+ *
+ * Si anotar() falla, el cliente recibe un error y su voto NO debe volver al
+ * arrancar:
+ * - Escritura a medias: se trunca el segmento hasta el inicio de la línea
+ *   (nadie más ha escrito detrás: la escritura va bajo el lock)
+ * - Línea entera pero fsync fallido: se añade "A;<posición>", que anula la
+ *   línea que empieza en esa posición del segmento
+ * Al recuperar se ignoran las líneas anuladas y la última si no acaba en
+ * salto de línea.
+ *
+ * @see VotoBufferService
+ */
+@Slf4j
+public final class RegistroVotosPendientes implements Closeable {
+
+    private static final String PREFIJO = "votos-";
+    private static final String EXTENSION = ".log";
+    private static final String ANULACION = "A;";
+
+    private final Path directorio;
+    private final long tamanoMaximoSegmento;
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Object escritura = new Object();
+
+    private Segmento actual;
+
+    public RegistroVotosPendientes(Path directorio, long tamanoMaximoSegmento) throws IOException {
+        this.directorio = directorio;
+        this.tamanoMaximoSegmento = tamanoMaximoSegmento;
+        Files.createDirectories(directorio);
+    }
+
+    /**
+     * Leer los votos de segmentos de una ejecución anterior
+     *
+     * Debe llamarse antes del primer anotar(). Las líneas incompletas
+     * (caída a mitad de escritura) y las anuladas se descartan.
+     */
+    public List<VotoRecuperado> recuperar() throws IOException {
+        List<Path> ficheros;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            ficheros = listado
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIJO))
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+
+        List<VotoRecuperado> recuperados = new ArrayList<>();
+        for (Path fichero : ficheros) {
+            Segmento segmento = Segmento.recuperado(fichero);
+            for (String linea : lineasVigentes(Files.readAllBytes(fichero))) {
+                VotoRecuperado voto = parsear(linea, segmento);
+                if (voto != null) {
+                    recuperados.add(voto);
+                    segmento.anotado();
+                }
+            }
+            segmento.cerrar();
+        }
+        return recuperados;
+    }
+
+    /**
+     * Líneas completas de un segmento, sin las anuladas ni las propias anulaciones
+     */
+    private static List<String> lineasVigentes(byte[] contenido) {
+        Map<Long, String> lineas = new LinkedHashMap<>();
+        Set<Long> anuladas = new HashSet<>();
+        int inicio = 0;
+        for (int i = 0; i < contenido.length; i++) {
+            if (contenido[i] != '\n') {
+                continue;
+            }
+            String linea = new String(contenido, inicio, i - inicio, StandardCharsets.UTF_8);
+            if (linea.startsWith(ANULACION)) {
+                try {
+                    anuladas.add(Long.parseLong(linea.substring(ANULACION.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Anulación descartada en el registro de votos: '{}'", linea);
+                }
+            } else {
+                lineas.put((long) inicio, linea);
+            }
+            inicio = i + 1;
+        }
+        // Lo que queda tras el último salto de línea es una escritura a medias
+        anuladas.forEach(lineas::remove);
+        return new ArrayList<>(lineas.values());
+    }
+
+    /**
+     * Añadir un voto y esperar a que esté en disco
+     *
+     * @return Segmento al que hay que confirmar el voto tras escribirlo en BD
+     */
+    public Segmento anotar(Long idUsuario, Long idFalla, Voto.TipoVoto tipo, LocalDateTime fecha) throws IOException {
+        long epochMillis = fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        byte[] linea = (idUsuario + ";" + idFalla + ";" + tipo.name() + ";" + epochMillis + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Segmento segmento;
+        long inicio;
+        long hasta;
+        synchronized (escritura) {
+            if (actual == null || actual.bytes >= tamanoMaximoSegmento) {
+                rotar();
+            }
+            segmento = actual;
+            inicio = segmento.bytes;
+            try {
+                hasta = segmento.escribir(linea);
+            } catch (IOException e) {
+                descartarEscrituraParcial(segmento, inicio);
+                throw e;
+            }
+        }
+        try {
+            segmento.sincronizar(hasta);
+        } catch (IOException e) {
+            anular(segmento, inicio);
+            throw e;
+        }
+        return segmento;
+    }
+
+    /**
+     * Quitar los bytes de una línea que no se pudo escribir entera
+     *
+     * Si ni siquiera se puede truncar, se abandona el segmento: el resto
+     * queda sin salto de línea final y recuperar() lo ignora.
+     */
+    private void descartarEscrituraParcial(Segmento segmento, long inicio) {
+        try {
+            segmento.truncar(inicio);
+        } catch (IOException e) {
+            log.error("No se pudo truncar el segmento {} tras un fallo de escritura: {}", segmento.fichero, e.getMessage());
+            actual = null;
+            try {
+                segmento.cerrar();
+            } catch (IOException ignorada) {
+                // El segmento ya estaba dando errores
+            }
+        }
+    }
+
+    /**
+     * Anular una línea entera cuyo fsync falló (el cliente recibe un error)
+     *
+     * La línea cuenta como resuelta: si la anulación tampoco llega a disco,
+     * al menos el segmento se borra en cuanto se confirme el resto.
+     */
+    private void anular(Segmento segmento, long inicio) {
+        byte[] marca = (ANULACION + inicio + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            synchronized (escritura) {
+                segmento.escribirMarca(marca);
+            }
+        } catch (IOException e) {
+            log.error("No se pudo anular el voto en la posición {} de {}; podría recuperarse al reiniciar: {}",
+                    inicio, segmento.fichero, e.getMessage());
+        } finally {
+            segmento.confirmar();
+        }
+    }
+
+    /**
+     * Cerrar (y así borrar) el segmento actual si ya está todo en BD
+     *
+     * El flusher lo llama al vaciar la cola: en horas tranquilas evita que
+     * un segmento con pocos votos ya confirmados se quede en disco.
+     */
+    public void compactar() throws IOException {
+        synchronized (escritura) {
+            if (actual != null && actual.completo()) {
+                actual.cerrar();
+                actual = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (escritura) {
+            if (actual != null) {
+                actual.cerrar();
+                actual = null;
+            }
+        }
+    }
+
+    private void rotar() throws IOException {
+        if (actual != null) {
+            actual.cerrar();
+        }
+        String nombre = String.format("%s%013d-%06d%s", PREFIJO, System.currentTimeMillis(),
+                secuencia.incrementAndGet() % 1_000_000, EXTENSION);
+        actual = Segmento.nuevo(directorio.resolve(nombre));
+    }
+
+    private static VotoRecuperado parsear(String linea, Segmento segmento) {
+        String[] campos = linea.split(";");
+        if (campos.length != 4) {
+            return null;
+        }
+        try {
+            LocalDateTime fecha = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(Long.parseLong(campos[3])), ZoneId.systemDefault());
+            return new VotoRecuperado(Long.parseLong(campos[0]), Long.parseLong(campos[1]),
+                    Voto.TipoVoto.valueOf(campos[2]), fecha, segmento);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            log.warn("Línea descartada en el registro de votos: '{}'", linea);
+            return null;
+        }
+    }
+
+    /**
+     * Voto leído de un segmento anterior al arranque
+     */
+    public record VotoRecuperado(Long idUsuario, Long idFalla, Voto.TipoVoto tipo,
+                                 LocalDateTime fecha, Segmento segmento) {
+    }
+
+    /**
+     * Fichero del registro con su contabilidad de votos escritos/confirmados
+     */
+    public static final class Segmento {
+
+        private final Path fichero;
+        private final FileChannel canal;
+        private final Object fsync = new Object();
+        private volatile long bytes;
+        private volatile long sincronizadoHasta;
+        private int escritos;
+        private int confirmados;
+        private boolean cerrado;
+
+        private Segmento(Path fichero, FileChannel canal) {
+            this.fichero = fichero;
+            this.canal = canal;
+        }
+
+        private static Segmento nuevo(Path fichero) throws IOException {
+            return new Segmento(fichero, FileChannel.open(fichero,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        }
+
+        private static Segmento recuperado(Path fichero) {
+            return new Segmento(fichero, null);
+        }
+
+        /**
+         * Escribir una línea (llamado bajo el lock de escritura del registro)
+         *
+         * @return Posición final que debe quedar sincronizada
+         */
+        private long escribir(byte[] linea) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(linea);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            anotado();
+            bytes += linea.length;
+            return bytes;
+        }
+
+        /**
+         * Volver a `posicion` tras una escritura a medias (bajo el lock de escritura)
+         */
+        private void truncar(long posicion) throws IOException {
+            canal.truncate(posicion);
+        }
+
+        /**
+         * Escribir y sincronizar una línea de control (no es un voto: no cuenta
+         * en escritos). Bajo el lock de escritura; si el segmento ya se cerró,
+         * se reabre el fichero solo para añadirla.
+         */
+        private void escribirMarca(byte[] marca) throws IOException {
+            synchronized (fsync) {
+                if (canal != null && canal.isOpen()) {
+                    ByteBuffer buffer = ByteBuffer.wrap(marca);
+                    while (buffer.hasRemaining()) {
+                        canal.write(buffer);
+                    }
+                    bytes += marca.length;
+                    canal.force(false);
+                    sincronizadoHasta = bytes;
+                    return;
+                }
+            }
+            try (FileChannel anexo = FileChannel.open(fichero, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                anexo.write(ByteBuffer.wrap(marca));
+                anexo.force(false);
+            }
+        }
+
+        /**
+         * Group commit: si otro hilo ya sincronizó más allá de `hasta`, no hay
+         * nada que hacer; si no, un force() cubre todo lo escrito hasta ahora
+         */
+        private void sincronizar(long hasta) throws IOException {
+            if (sincronizadoHasta >= hasta) {
+                return;
+            }
+            synchronized (fsync) {
+                if (sincronizadoHasta >= hasta) {
+                    return;
+                }
+                long objetivo = bytes;
+                canal.force(false);
+                sincronizadoHasta = objetivo;
+            }
+        }
+
+        private synchronized void anotado() {
+            escritos++;
+        }
+
+        /**
+         * Marcar un voto de este segmento como escrito en BD
+         */
+        public synchronized void confirmar() {
+            confirmados++;
+            borrarSiCompleto();
+        }
+
+        private void cerrar() throws IOException {
+            if (canal != null) {
+                synchronized (fsync) {
+                    canal.force(false);
+                    sincronizadoHasta = bytes;
+                    canal.close();
+                }
+            }
+            synchronized (this) {
+                cerrado = true;
+                borrarSiCompleto();
+            }
+        }
+
+        private synchronized boolean completo() {
+            return escritos > 0 && confirmados >= escritos;
+        }
+
+        private void borrarSiCompleto() {
+            if (cerrado && confirmados >= escritos) {
+                try {
+                    Files.deleteIfExists(fichero);
+                } catch (IOException e) {
+                    log.warn("No se pudo borrar el segmento {}: {}", fichero, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -2,13 +2,12 @@ package com.fallapp.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fallapp.model.Comentario;
-import com.fallapp.repository.ComentarioRepository;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.*;
 
@@ -16,87 +15,63 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.ArrayList;
 
 /**
- * Servicio encargado de llamar a la IA de Hugging Face
- * para analizar el sentimiento de los comentarios.
+ * Cliente del modelo de sentimiento de Hugging Face.
  *
  * Diseño:
- * - Se ejecuta de forma ASÍNCRONA (@Async) para no bloquear la petición principal.
+ * - Clasifica LOTES de textos en una sola llamada (`inputs` como array).
  * - Usa la Inference API del modelo:
  *   lxyuan/distilbert-base-multilingual-cased-sentiments-student
- * - Solo persiste la etiqueta principal (positive / neutral / negative) en BD.
+ * - Devuelve solo la etiqueta principal (positive / neutral / negative).
+ * - No toca la BD ni reintenta: de eso se encarga SentimientoPipelineService.
+ * - Clasificador por defecto (`app.sentimiento.clasificador=huggingface`).
+ *
+ * @see ClasificadorLexicoSentimiento Alternativa local sin llamadas de red
  */
 @Service
-@RequiredArgsConstructor
-@Slf4j
-public class SentimentAnalysisService {
+@ConditionalOnProperty(name = "app.sentimiento.clasificador", havingValue = "huggingface", matchIfMissing = true)
+public class SentimentAnalysisService implements SentimentClassifier {
 
-    private final ComentarioRepository comentarioRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    @Value("${huggingface.api.token:}")
-    private String huggingFaceToken;
-
-    @Value("${huggingface.api.model:lxyuan/distilbert-base-multilingual-cased-sentiments-student}")
-    private String huggingFaceModel;
-
-    @Value("${huggingface.api.base-url:https://router.huggingface.co/hf-inference/models}")
-    private String huggingFaceBaseUrl;
-
-    /**
-     * Analiza el contenido de un comentario y actualiza su campo `sentimiento` en BD.
-     * Se ejecuta en segundo plano.
-     */
-    @Async
-    public void analizarComentarioAsync(Long comentarioId, String texto) {
-        analizarComentario(comentarioId, texto);
+    private final RestTemplate restTemplate;
+
+    private final String huggingFaceToken;
+    private final String huggingFaceModel;
+    private final String huggingFaceBaseUrl;
+
+    public SentimentAnalysisService(
+            @Value("${huggingface.api.token:}") String huggingFaceToken,
+            @Value("${huggingface.api.model:lxyuan/distilbert-base-multilingual-cased-sentiments-student}") String huggingFaceModel,
+            @Value("${huggingface.api.base-url:https://router.huggingface.co/hf-inference/models}") String huggingFaceBaseUrl,
+            @Value("${huggingface.api.timeout-ms:30000}") int timeoutMillis) {
+        this.huggingFaceToken = huggingFaceToken;
+        this.huggingFaceModel = huggingFaceModel;
+        this.huggingFaceBaseUrl = huggingFaceBaseUrl;
+
+        // Sin timeout, wait_for_model puede bloquear un hilo del pipeline indefinidamente
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Math.min(timeoutMillis, 5000));
+        factory.setReadTimeout(timeoutMillis);
+        this.restTemplate = new RestTemplate(factory);
     }
 
     /**
-     * Analiza y persiste el sentimiento en la misma petición (modo síncrono).
+     * Clasificar un lote de textos con una sola llamada al modelo.
      *
-     * @return true si se guardó un sentimiento válido, false en caso contrario.
+     * @return Etiqueta y score de cada texto, en el mismo orden
+     * @throws ErrorModelo Si el modelo no responde o responde algo inesperado
      */
-    public boolean analizarComentario(Long comentarioId, String texto) {
+    @Override
+    public List<Clasificacion> clasificar(List<String> textos) {
         if (huggingFaceToken == null || huggingFaceToken.isBlank()) {
-            log.warn("HuggingFace token no configurado. Saltando análisis de sentimiento.");
-            return false;
+            throw new ErrorModelo("HuggingFace token no configurado", false);
         }
-
-        try {
-            String label = llamarModeloYObtenerSentimiento(texto);
-            if (label == null) {
-                log.warn("No se pudo determinar sentimiento para comentario {}", comentarioId);
-                return false;
-            }
-
-            // Persistir resultado en la entidad Comentario
-            Optional<Comentario> optionalComentario = comentarioRepository.findById(comentarioId);
-            if (optionalComentario.isEmpty()) {
-                log.warn("Comentario {} no encontrado al intentar guardar sentimiento", comentarioId);
-                return false;
-            }
-
-            Comentario comentario = optionalComentario.get();
-            comentario.setSentimiento(label);
-            comentarioRepository.save(comentario);
-
-            log.info("Sentimiento '{}' guardado para comentario {}", label, comentarioId);
-            return true;
-        } catch (Exception e) {
-            log.error("Error analizando sentimiento para comentario {}: {}", comentarioId, e.getMessage());
-            return false;
+        if (textos.isEmpty()) {
+            return List.of();
         }
-    }
 
-    /**
-     * Llama al modelo de Hugging Face y devuelve la etiqueta con mayor score.
-     */
-    private String llamarModeloYObtenerSentimiento(String texto) throws Exception {
         String modelUrl = huggingFaceBaseUrl + "/" + huggingFaceModel;
 
         HttpHeaders headers = new HttpHeaders();
@@ -105,45 +80,71 @@ public class SentimentAnalysisService {
         headers.setBearerAuth(huggingFaceToken);
 
         Map<String, Object> body = new HashMap<>();
-        body.put("inputs", texto);
+        body.put("inputs", textos);
         body.put("options", Map.of(
             "wait_for_model", true,
             "use_cache", false
         ));
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
-        ResponseEntity<String> response = restTemplate.postForEntity(modelUrl, request, String.class);
-
-        if (!response.getStatusCode().is2xxSuccessful()) {
-            log.warn("Llamada a Hugging Face falló con status {}: {}",
-                    response.getStatusCode(), response.getBody());
-            return null;
+        String json;
+        try {
+            json = restTemplate.postForEntity(modelUrl, new HttpEntity<>(body, headers), String.class).getBody();
+        } catch (HttpStatusCodeException e) {
+            // 503 = modelo cargando, 429 = límite de peticiones: merece la pena reintentar
+            int status = e.getStatusCode().value();
+            throw new ErrorModelo("Hugging Face respondió " + status, status == 429 || status >= 500);
+        } catch (ResourceAccessException e) {
+            throw new ErrorModelo("Hugging Face no accesible: " + e.getMessage(), true);
         }
 
-        String json = response.getBody();
-        if (json == null || json.isBlank()) {
-            return null;
+        try {
+            return interpretar(json, textos.size());
+        } catch (ErrorModelo e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ErrorModelo("Respuesta de Hugging Face no válida: " + e.getMessage(), false);
         }
+    }
 
-        JsonNode root = objectMapper.readTree(json);
+    @Override
+    public String nombre() {
+        return "huggingface:" + huggingFaceModel;
+    }
 
-        if (root.isObject() && root.has("error")) {
-            log.warn("Hugging Face devolvió error: {}", root.path("error").asText());
-            return null;
+    /**
+     * Extraer la etiqueta de cada texto de la respuesta del modelo.
+     *
+     * Formatos admitidos: una lista de scores por texto ([[{label, score}, ...], ...]),
+     * el mejor score por texto ([{label, score}, ...]) o, con un solo texto,
+     * directamente su lista de scores.
+     */
+    private List<Clasificacion> interpretar(String json, int numTextos) throws Exception {
+        JsonNode root = json == null || json.isBlank() ? null : objectMapper.readTree(json);
+        if (root != null && root.isObject() && root.has("error")) {
+            throw new ErrorModelo("Hugging Face devolvió error: " + root.path("error").asText(), true);
+        }
+        if (root == null || !root.isArray()) {
+            throw new ErrorModelo("Formato inesperado de respuesta Hugging Face: " + json, false);
         }
 
-        List<SentimentScore> scores = extraerScores(root);
-
-        if (scores.isEmpty()) {
-            log.warn("Formato inesperado de respuesta Hugging Face: {}", json);
-            return null;
+        List<JsonNode> porTexto = new ArrayList<>();
+        if (numTextos == 1 && root.size() > 0 && root.get(0).isObject()) {
+            porTexto.add(root);
+        } else {
+            root.forEach(porTexto::add);
+        }
+        if (porTexto.size() != numTextos) {
+            throw new ErrorModelo("Hugging Face devolvió " + porTexto.size() + " resultados para " + numTextos + " textos", false);
         }
 
-        return scores.stream()
-                .max(Comparator.comparingDouble(SentimentScore::getScore))
-                .map(s -> normalizarEtiqueta(s.getLabel()))
-                .orElse(null);
+        List<Clasificacion> clasificaciones = new ArrayList<>(numTextos);
+        for (JsonNode nodo : porTexto) {
+            clasificaciones.add(extraerScores(nodo).stream()
+                    .max(Comparator.comparingDouble(SentimentScore::getScore))
+                    .map(s -> new Clasificacion(normalizarEtiqueta(s.getLabel()), s.getScore()))
+                    .orElse(null));
+        }
+        return clasificaciones;
     }
 
     private List<SentimentScore> extraerScores(JsonNode node) throws Exception {
@@ -230,5 +231,5 @@ public class SentimentAnalysisService {
             this.score = score;
         }
     }
-}
 
+}
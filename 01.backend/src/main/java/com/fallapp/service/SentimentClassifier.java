@@ -0,0 +1,68 @@
+package com.fallapp.service;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Clasificador de sentimiento de comentarios
+ *
+ * Implementaciones (se elige una con `app.sentimiento.clasificador`):
+ * - huggingface: SentimentAnalysisService, modelo remoto (Inference API)
+ * - lexico: ClasificadorLexicoSentimiento, léxico castellano/valenciano en memoria
+ *
+ * Etiquetas: positive / neutral / negative (lo que se guarda en
+ * comentarios.sentimiento), con una confianza entre 0 y 1.
+ *
+ * @see SentimientoPipelineService Quien lo usa, por lotes y con reintentos
+ */
+public interface SentimentClassifier {
+
+    /** Únicas etiquetas que se guardan (la cache de sentimiento las exige con un CHECK) */
+    Set<String> ETIQUETAS = Set.of("positive", "neutral", "negative");
+
+    /**
+     * Clasificar un lote de textos
+     *
+     * @return Clasificación de cada texto, en el mismo orden (null si no se pudo clasificar)
+     * @throws ErrorModelo Si el clasificador no está disponible
+     */
+    List<Clasificacion> clasificar(List<String> textos);
+
+    /**
+     * Identificador del clasificador y su modelo (p.ej. "lexico" o
+     * "huggingface:<modelo>"). Forma parte de la clave de la cache de
+     * resultados: al cambiar de modelo no se reutilizan etiquetas del anterior.
+     */
+    String nombre();
+
+    /**
+     * Solo las etiquetas de un lote
+     */
+    default List<String> etiquetar(List<String> textos) {
+        return clasificar(textos).stream()
+                .map(c -> c == null ? null : c.etiqueta())
+                .toList();
+    }
+
+    /**
+     * Etiqueta y confianza (0..1) de un texto
+     */
+    record Clasificacion(String etiqueta, double confianza) {
+    }
+
+    /**
+     * Fallo al clasificar; `reintentable` indica si tiene sentido repetir la llamada.
+     */
+    class ErrorModelo extends RuntimeException {
+        private final boolean reintentable;
+
+        public ErrorModelo(String message, boolean reintentable) {
+            super(message);
+            this.reintentable = reintentable;
+        }
+
+        public boolean isReintentable() {
+            return reintentable;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.fallapp.service;
+
+import com.fallapp.repository.ComentarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Análisis de sentimiento por lotes
+ *
+ * Sustituye a una llamada HTTP bloqueante por comentario en el executor
+ * @Async por defecto (sin límite de cola ni de concurrencia). Los lotes se
+ * ejecutan en sentimientoExecutor (EjecutoresConfig):
+ *
+ * 1. encolar(id) deja el id en una cola acotada (`app.sentimiento.cola`);
+ *    si está llena se descarta y el comentario sigue pendiente en BD.
+ *    Los ids llegan del outbox (OutboxComentariosService)
+ * 2. Un hilo "sentimiento-lotes" agrupa ids en micro-lotes de hasta
+ *    `app.sentimiento.lote`, esperando como mucho `app.sentimiento.espera-ms`
+ *    desde el primero
+ * 3. Cada lote: 1 SELECT de los textos aún pendientes, consulta a la cache
+ *    de resultados (CacheSentimientoService), 1 llamada al modelo con los
+ *    textos distintos que falten, 1 UPDATE por lotes (JDBC batch) y el
+ *    borrado de sus filas del outbox (las de los que fallan se quedan)
+ * 4. Protección del modelo:
+ *    - Límite adaptativo de llamadas simultáneas (LimiteConcurrenciaAdaptativo),
+ *      entre 1 y `app.sentimiento.max-en-vuelo`, según la latencia observada
+ *    - Cortocircuito (CircuitoSentimiento): tras `app.sentimiento.circuito.fallos`
+ *      fallos seguidos no se llama al modelo durante `circuito.espera-ms`,
+ *      y después una sola llamada de prueba decide si se cierra
+ *    - Los fallos transitorios (503 modelo cargando, 429, red) se reintentan
+ *      con backoff exponencial y jitter mientras el circuito lo permita
+ *
+ * La cola de reintentos es la tabla comentarios_outbox: un comentario sin
+ * etiqueta conserva su fila, y cuando vence su reserva el outbox lo vuelve a
+ * encolar (en esta u otra instancia). Por eso si sentimientoExecutor rechaza
+ * un lote no hace falta tareas_pendientes. Nada de esto toca el hilo de la
+ * petición: crear un comentario solo inserta su fila en el outbox.
+ *
+ * Métricas (Micrometer): fallapp.sentimiento.cola, fallapp.sentimiento.lotes,
+ * fallapp.sentimiento.analizados, fallapp.sentimiento.fallidos,
+ * fallapp.sentimiento.descartados, fallapp.sentimiento.circuito.estado
+ * (0 cerrado, 1 semiabierto, 2 abierto), fallapp.sentimiento.circuito.rechazos,
+ * fallapp.sentimiento.limite, fallapp.sentimiento.en-vuelo
+ *
+ * @see SentimentClassifier Clasificador (Hugging Face o léxico local)
+ */
+@Service
+@Slf4j
+public class SentimientoPipelineService {
+
+    private static final String UPDATE_SENTIMIENTO =
+            "UPDATE comentarios SET sentimiento = ? WHERE id_comentario = ?";
+    private static final String DELETE_OUTBOX =
+            "DELETE FROM comentarios_outbox WHERE id_comentario = ?";
+
+    private final SentimentClassifier modelo;
+    private final CacheSentimientoService cache;
+    private final ComentarioRepository comentarioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor trabajadores;
+
+    private final int tamanoLote;
+    private final long esperaMillis;
+    private final int reintentos;
+    private final long backoffMillis;
+
+    private final BlockingQueue<Long> cola;
+    /** Ids en la cola o en un lote en curso: el outbox no los duplica */
+    private final Set<Long> encolados = ConcurrentHashMap.newKeySet();
+    /** Lotes en curso (uno por hilo trabajador) */
+    private final Semaphore trabajadoresLibres;
+    private final CircuitoSentimiento circuito;
+    private final LimiteConcurrenciaAdaptativo limite;
+    private final Counter lotes;
+    private final Counter analizados;
+    private final Counter fallidos;
+    private final Counter descartados;
+    private final Counter rechazosCircuito;
+
+    private volatile Thread despachador;
+    private volatile boolean parando;
+
+    public SentimientoPipelineService(
+            SentimentClassifier modelo,
+            CacheSentimientoService cache,
+            ComentarioRepository comentarioRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Qualifier("sentimientoExecutor") Executor trabajadores,
+            @Value("${app.sentimiento.cola:10000}") int capacidad,
+            @Value("${app.sentimiento.lote:32}") int tamanoLote,
+            @Value("${app.sentimiento.espera-ms:50}") long esperaMillis,
+            @Value("${app.sentimiento.max-en-vuelo:8}") int maxEnVuelo,
+            @Value("${app.sentimiento.reintentos:3}") int reintentos,
+            @Value("${app.sentimiento.backoff-ms:500}") long backoffMillis,
+            @Value("${app.sentimiento.circuito.fallos:5}") int fallosParaAbrir,
+            @Value("${app.sentimiento.circuito.espera-ms:30000}") long esperaCircuitoMillis,
+            @Value("${app.sentimiento.limite.tolerancia-latencia:2.0}") double toleranciaLatencia) {
+        this.modelo = modelo;
+        this.cache = cache;
+        this.comentarioRepository = comentarioRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.trabajadores = trabajadores;
+        this.tamanoLote = tamanoLote;
+        this.esperaMillis = esperaMillis;
+        this.reintentos = reintentos;
+        this.backoffMillis = backoffMillis;
+        this.cola = new LinkedBlockingQueue<>(capacidad);
+        this.trabajadoresLibres = new Semaphore(maxEnVuelo);
+        this.circuito = new CircuitoSentimiento(fallosParaAbrir, esperaCircuitoMillis, Clock.systemUTC());
+        this.limite = new LimiteConcurrenciaAdaptativo(1, Math.min(2, maxEnVuelo), maxEnVuelo, toleranciaLatencia);
+
+        meterRegistry.gaugeCollectionSize("fallapp.sentimiento.cola", List.of(), cola);
+        this.lotes = meterRegistry.counter("fallapp.sentimiento.lotes");
+        this.analizados = meterRegistry.counter("fallapp.sentimiento.analizados");
+        this.fallidos = meterRegistry.counter("fallapp.sentimiento.fallidos");
+        this.descartados = meterRegistry.counter("fallapp.sentimiento.descartados");
+        this.rechazosCircuito = meterRegistry.counter("fallapp.sentimiento.circuito.rechazos");
+        meterRegistry.gauge("fallapp.sentimiento.circuito.estado", circuito, c -> c.estado().ordinal());
+        meterRegistry.gauge("fallapp.sentimiento.limite", limite, LimiteConcurrenciaAdaptativo::limite);
+        meterRegistry.gauge("fallapp.sentimiento.en-vuelo", limite, LimiteConcurrenciaAdaptativo::enVuelo);
+    }
+
+    /**
+     * Encolar un comentario para analizar su sentimiento
+     *
+     * @return false si la cola está llena (el comentario queda pendiente en BD)
+     */
+    public boolean encolar(Long idComentario) {
+        asegurarIniciado();
+        if (!encolados.add(idComentario)) {
+            return true;
+        }
+        if (cola.offer(idComentario)) {
+            return true;
+        }
+        encolados.remove(idComentario);
+        descartados.increment();
+        log.warn("Cola de sentimiento llena: comentario {} queda pendiente", idComentario);
+        return false;
+    }
+
+    /**
+     * Encolar varios comentarios
+     *
+     * @return Comentarios aceptados en la cola
+     */
+    public int encolar(Collection<Long> idsComentarios) {
+        int aceptados = 0;
+        for (Long id : idsComentarios) {
+            if (encolar(id)) {
+                aceptados++;
+            }
+        }
+        return aceptados;
+    }
+
+    /**
+     * Ids que caben ahora mismo en la cola
+     */
+    int huecoCola() {
+        return cola.remainingCapacity();
+    }
+
+    /**
+     * Analizar un lote y guardar las etiquetas
+     *
+     * Los textos que ya están en la cache no van al modelo, y los textos
+     * repetidos dentro del lote se clasifican una sola vez.
+     *
+     * @return Comentarios actualizados
+     */
+    int procesarLote(List<Long> ids) {
+        List<Object[]> filas = comentarioRepository.findTextosPendientes(new LinkedHashSet<>(ids));
+        List<Long> pendientes = new ArrayList<>(filas.size());
+        List<String> claves = new ArrayList<>(filas.size());
+        Map<String, String> textosPorClave = new LinkedHashMap<>();
+        String clasificador = modelo.nombre();
+        for (Object[] fila : filas) {
+            String texto = fila[1] != null ? fila[1].toString() : null;
+            if (texto != null && !texto.isBlank()) {
+                String clave = CacheSentimientoService.clave(clasificador, texto);
+                pendientes.add(((Number) fila[0]).longValue());
+                claves.add(clave);
+                textosPorClave.putIfAbsent(clave, texto);
+            }
+        }
+        if (pendientes.isEmpty()) {
+            completarOutbox(new LinkedHashSet<>(ids));
+            return 0;
+        }
+
+        Map<String, SentimentClassifier.Clasificacion> resultados = new HashMap<>(cache.buscar(textosPorClave.keySet()));
+        textosPorClave.keySet().removeAll(resultados.keySet());
+
+        if (!textosPorClave.isEmpty()) {
+            lotes.increment();
+            List<String> nuevasClaves = new ArrayList<>(textosPorClave.keySet());
+            try {
+                List<SentimentClassifier.Clasificacion> nuevas = clasificarConReintentos(new ArrayList<>(textosPorClave.values()));
+
+                Map<String, SentimentClassifier.Clasificacion> guardar = new HashMap<>();
+                for (int i = 0; i < nuevas.size(); i++) {
+                    SentimentClassifier.Clasificacion nueva = nuevas.get(i);
+                    if (nueva == null || nueva.etiqueta() == null) {
+                        continue;
+                    }
+                    // Una etiqueta desconocida haría fallar el lote entero de la cache: sin clasificar
+                    if (!SentimentClassifier.ETIQUETAS.contains(nueva.etiqueta())) {
+                        log.warn("Etiqueta de sentimiento no reconocida '{}': el comentario queda sin clasificar",
+                                nueva.etiqueta());
+                        continue;
+                    }
+                    guardar.put(nuevasClaves.get(i), nueva);
+                }
+                cache.guardar(clasificador, guardar);
+                resultados.putAll(guardar);
+            } catch (SentimentClassifier.ErrorModelo e) {
+                log.warn("No se pudo analizar un lote de {} textos: {}", nuevasClaves.size(), e.getMessage());
+            }
+        }
+
+        List<Object[]> actualizaciones = new ArrayList<>(pendientes.size());
+        // Ya analizados, sin texto o recién etiquetados: fuera del outbox
+        Set<Long> resueltos = new LinkedHashSet<>(ids);
+        for (int i = 0; i < pendientes.size(); i++) {
+            SentimentClassifier.Clasificacion clasificacion = resultados.get(claves.get(i));
+            if (clasificacion != null) {
+                actualizaciones.add(new Object[]{clasificacion.etiqueta(), pendientes.get(i)});
+            } else {
+                resueltos.remove(pendientes.get(i));
+            }
+        }
+        if (!actualizaciones.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SENTIMIENTO, actualizaciones);
+        }
+        completarOutbox(resueltos);
+        analizados.increment(actualizaciones.size());
+        fallidos.increment(pendientes.size() - actualizaciones.size());
+        log.debug("Sentimiento guardado para {} de {} comentarios", actualizaciones.size(), pendientes.size());
+        return actualizaciones.size();
+    }
+
+    /**
+     * Borrar del outbox los comentarios que ya no necesitan análisis
+     *
+     * Si falla, sus filas vuelven a reservarse al vencer y el lote se
+     * repite sin efecto (findTextosPendientes ya no los devuelve).
+     */
+    private void completarOutbox(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Object[]> filas = new ArrayList<>(ids.size());
+        ids.forEach(id -> filas.add(new Object[]{id}));
+        try {
+            jdbcTemplate.batchUpdate(DELETE_OUTBOX, filas);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo limpiar el outbox de {} comentarios: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private List<SentimentClassifier.Clasificacion> clasificarConReintentos(List<String> textos) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return clasificarProtegido(textos);
+            } catch (SentimentClassifier.ErrorModelo e) {
+                if (!e.isReintentable() || intento >= reintentos || parando
+                        || circuito.estado() == CircuitoSentimiento.Estado.ABIERTO) {
+                    throw e;
+                }
+                // Backoff exponencial con jitter para no sincronizar los reintentos
+                long espera = backoffMillis * (1L << (intento - 1));
+                espera += ThreadLocalRandom.current().nextLong(espera / 2 + 1);
+                log.debug("Reintento {} del lote de sentimiento en {} ms: {}", intento, espera, e.getMessage());
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Una llamada al modelo a través del cortocircuito y del límite adaptativo
+     */
+    private List<SentimentClassifier.Clasificacion> clasificarProtegido(List<String> textos) {
+        if (!circuito.permitir()) {
+            rechazosCircuito.increment();
+            throw new SentimentClassifier.ErrorModelo("Circuito del modelo abierto", true);
+        }
+        try {
+            limite.adquirir();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuito.registrarFallo();
+            throw new SentimentClassifier.ErrorModelo("Interrumpido esperando turno para el modelo", true);
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            List<SentimentClassifier.Clasificacion> clasificaciones = modelo.clasificar(textos);
+            long latencia = System.nanoTime() - inicio;
+            limite.registrarExito(latencia);
+            circuito.registrarExito();
+            cache.registrarLatenciaModelo(latencia, textos.size());
+            return clasificaciones;
+        } catch (SentimentClassifier.ErrorModelo e) {
+            if (e.isReintentable()) {
+                limite.registrarSobrecarga();
+            } else {
+                limite.registrarFallo();
+            }
+            circuito.registrarFallo();
+            throw e;
+        } catch (RuntimeException e) {
+            limite.registrarFallo();
+            circuito.registrarFallo();
+            throw e;
+        }
+    }
+
+    CircuitoSentimiento circuito() {
+        return circuito;
+    }
+
+    LimiteConcurrenciaAdaptativo limite() {
+        return limite;
+    }
+
+    private synchronized void asegurarIniciado() {
+        if (despachador != null || parando) {
+            return;
+        }
+        despachador = new Thread(this::bucleDespacho, "sentimiento-lotes");
+        despachador.setDaemon(true);
+        despachador.start();
+    }
+
+    private void bucleDespacho() {
+        while (!parando) {
+            try {
+                Long primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                List<Long> lote = new ArrayList<>(tamanoLote);
+                lote.add(primero);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMillis);
+                while (lote.size() < tamanoLote) {
+                    long resta = limite - System.nanoTime();
+                    Long id = resta > 0 ? cola.poll(resta, TimeUnit.NANOSECONDS) : cola.poll();
+                    if (id == null) {
+                        break;
+                    }
+                    lote.add(id);
+                }
+
+                // Con todos los trabajadores ocupados el despachador espera y la cola absorbe
+                trabajadoresLibres.acquire();
+                try {
+                    trabajadores.execute(() -> {
+                        try {
+                            procesarLote(lote);
+                        } catch (RuntimeException e) {
+                            fallidos.increment(lote.size());
+                            log.error("Error procesando lote de sentimiento: {}", e.getMessage());
+                        } finally {
+                            lote.forEach(encolados::remove);
+                            trabajadoresLibres.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Siguen en el outbox: se reintentan al vencer su reserva
+                    log.warn("Lote de sentimiento rechazado: {}", e.getMessage());
+                    lote.forEach(encolados::remove);
+                    trabajadoresLibres.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        parando = true;
+        if (despachador != null) {
+            despachador.interrupt();
+        }
+        if (!cola.isEmpty()) {
+            log.info("Pipeline de sentimiento detenido con {} comentarios en cola (siguen en el outbox)", cola.size());
+        }
+    }
+}
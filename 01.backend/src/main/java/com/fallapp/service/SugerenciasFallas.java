@@ -0,0 +1,251 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.dto.SugerenciaDTO.TipoSugerencia;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trie de autocompletado sobre nombres de falla, artistas y lemas
+ *
+ * Estructura (arrays primitivos, sin objetos por nodo):
+ * - Nodos enlazados primer-hijo / siguiente-hermano con la letra en char[]
+ * - Cada nodo guarda sus 10 mejores sugerencias precalculadas en un int[]
+ *   plano (stride MAX_SUGERENCIAS), así una consulta es recorrer el prefijo
+ *   y copiar como mucho 10 entradas: sin ordenar ni recorrer subárboles
+ *
+ * Claves:
+ * - Texto normalizado como en BuscadorFallas (sin acentos, minúsculas)
+ * - Se inserta desde cada palabra: "jor" sugiere "Na Jordana"
+ * - Truncadas a MAX_PROFUNDIDAD caracteres; consultas más largas se
+ *   verifican contra el texto completo de las candidatas
+ *
+ * Peso: votos de la(s) falla(s) asociada(s). Las entradas se numeran por
+ * peso (desempate: falla antes que artista antes que lema, luego alfabético)
+ * y se insertan en ese orden, por lo que las listas de cada nodo salen ya
+ * ordenadas y sin duplicados con un simple append.
+ *
+ * Inmutable una vez construido; SugerenciasService decide cuándo reconstruirlo.
+ *
+ * @see SugerenciasService
+ */
+public final class SugerenciasFallas {
+
+    public static final int MAX_SUGERENCIAS = 10;
+    static final int MAX_PROFUNDIDAD = 24;
+
+    private static final int SIN_NODO = -1;
+    private static final Collator COLLATOR = Collator.getInstance(Locale.forLanguageTag("es-ES"));
+
+    private final SugerenciaDTO[] entradas;
+    private final String[] textosNormalizados;
+
+    private char[] etiquetas;
+    private int[] primerHijo;
+    private int[] hermano;
+    private int[] mejores;
+    private byte[] numMejores;
+    private int numNodos;
+
+    public SugerenciasFallas(List<FallaDTO> fallas, Map<Long, Long> votosPorFalla) {
+        List<Entrada> lista = agrupar(fallas, votosPorFalla);
+        lista.sort(Comparator.comparingLong((Entrada e) -> e.votos).reversed()
+                .thenComparing(e -> e.tipo)
+                .thenComparing((a, b) -> COLLATOR.compare(a.texto, b.texto)));
+
+        this.entradas = new SugerenciaDTO[lista.size()];
+        this.textosNormalizados = new String[lista.size()];
+        int capacidad = Math.max(16, lista.size() * 32);
+        etiquetas = new char[capacidad];
+        primerHijo = new int[capacidad];
+        hermano = new int[capacidad];
+        mejores = new int[capacidad * MAX_SUGERENCIAS];
+        numMejores = new byte[capacidad];
+        crearNodo('\0');
+
+        for (int id = 0; id < lista.size(); id++) {
+            Entrada entrada = lista.get(id);
+            entradas[id] = SugerenciaDTO.builder()
+                    .texto(entrada.texto)
+                    .tipo(entrada.tipo)
+                    .idFalla(entrada.totalFallas == 1 ? entrada.idFalla : null)
+                    .totalFallas(entrada.totalFallas)
+                    .votos(entrada.votos)
+                    .build();
+            List<String> tokens = BuscadorFallas.tokenizar(entrada.texto);
+            textosNormalizados[id] = String.join(" ", tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                insertar(String.join(" ", tokens.subList(i, tokens.size())), id);
+            }
+        }
+
+        etiquetas = Arrays.copyOf(etiquetas, numNodos);
+        primerHijo = Arrays.copyOf(primerHijo, numNodos);
+        hermano = Arrays.copyOf(hermano, numNodos);
+        mejores = Arrays.copyOf(mejores, numNodos * MAX_SUGERENCIAS);
+        numMejores = Arrays.copyOf(numMejores, numNodos);
+    }
+
+    /**
+     * Mejores sugerencias para un prefijo
+     *
+     * Un espacio final restringe a palabras completas ("na " no sugiere "Nave").
+     *
+     * @param consulta Texto tecleado hasta ahora
+     * @param limite Máximo de sugerencias (como mucho MAX_SUGERENCIAS)
+     * @return Sugerencias por peso descendente
+     */
+    public List<SugerenciaDTO> sugerir(String consulta, int limite) {
+        List<SugerenciaDTO> resultado = new ArrayList<>(Math.min(limite, MAX_SUGERENCIAS));
+        if (consulta == null) {
+            return resultado;
+        }
+        List<String> tokens = BuscadorFallas.tokenizar(consulta);
+        if (tokens.isEmpty()) {
+            return resultado;
+        }
+        String clave = String.join(" ", tokens);
+        if (Character.isWhitespace(consulta.charAt(consulta.length() - 1))) {
+            clave += " ";
+        }
+
+        int nodo = 0;
+        int profundidad = Math.min(clave.length(), MAX_PROFUNDIDAD);
+        for (int i = 0; i < profundidad && nodo != SIN_NODO; i++) {
+            nodo = hijo(nodo, clave.charAt(i));
+        }
+        if (nodo == SIN_NODO) {
+            return resultado;
+        }
+
+        boolean verificar = clave.length() > MAX_PROFUNDIDAD;
+        String palabraInicial = " " + clave;
+        int base = nodo * MAX_SUGERENCIAS;
+        for (int i = 0; i < numMejores[nodo] && resultado.size() < limite; i++) {
+            int id = mejores[base + i];
+            if (!verificar || (" " + textosNormalizados[id]).contains(palabraInicial)) {
+                resultado.add(entradas[id]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Número de nodos del trie (para métricas y benchmarks)
+     */
+    public int totalNodos() {
+        return numNodos;
+    }
+
+    /**
+     * Número de sugerencias distintas
+     */
+    public int totalSugerencias() {
+        return entradas.length;
+    }
+
+    private void insertar(String clave, int id) {
+        int nodo = 0;
+        int profundidad = Math.min(clave.length(), MAX_PROFUNDIDAD);
+        for (int i = 0; i < profundidad; i++) {
+            char c = clave.charAt(i);
+            int siguiente = hijo(nodo, c);
+            if (siguiente == SIN_NODO) {
+                siguiente = crearNodo(c);
+                hermano[siguiente] = primerHijo[nodo];
+                primerHijo[nodo] = siguiente;
+            }
+            nodo = siguiente;
+            anotar(nodo, id);
+        }
+    }
+
+    /**
+     * Añadir la entrada a las mejores del nodo. Las entradas llegan en orden
+     * de peso, así que basta con añadir al final mientras quepa.
+     */
+    private void anotar(int nodo, int id) {
+        int n = numMejores[nodo];
+        int base = nodo * MAX_SUGERENCIAS;
+        if (n < MAX_SUGERENCIAS && (n == 0 || mejores[base + n - 1] != id)) {
+            mejores[base + n] = id;
+            numMejores[nodo] = (byte) (n + 1);
+        }
+    }
+
+    private int hijo(int nodo, char c) {
+        for (int h = primerHijo[nodo]; h != SIN_NODO; h = hermano[h]) {
+            if (etiquetas[h] == c) {
+                return h;
+            }
+        }
+        return SIN_NODO;
+    }
+
+    private int crearNodo(char c) {
+        if (numNodos == etiquetas.length) {
+            int capacidad = etiquetas.length * 2;
+            etiquetas = Arrays.copyOf(etiquetas, capacidad);
+            primerHijo = Arrays.copyOf(primerHijo, capacidad);
+            hermano = Arrays.copyOf(hermano, capacidad);
+            mejores = Arrays.copyOf(mejores, capacidad * MAX_SUGERENCIAS);
+            numMejores = Arrays.copyOf(numMejores, capacidad);
+        }
+        int nodo = numNodos++;
+        etiquetas[nodo] = c;
+        primerHijo[nodo] = SIN_NODO;
+        hermano[nodo] = SIN_NODO;
+        return nodo;
+    }
+
+    /**
+     * Una sugerencia por falla (nombre) y por artista/lema distinto,
+     * sumando los votos de todas las fallas que lo comparten
+     */
+    private static List<Entrada> agrupar(List<FallaDTO> fallas, Map<Long, Long> votosPorFalla) {
+        Map<String, Entrada> agrupadas = new LinkedHashMap<>();
+        for (FallaDTO falla : fallas) {
+            long votos = votosPorFalla.getOrDefault(falla.getIdFalla(), 0L);
+            acumular(agrupadas, TipoSugerencia.FALLA, "#" + falla.getIdFalla(), falla.getNombre(), falla.getIdFalla(), votos);
+            acumular(agrupadas, TipoSugerencia.ARTISTA, null, falla.getArtista(), falla.getIdFalla(), votos);
+            acumular(agrupadas, TipoSugerencia.LEMA, null, falla.getLema(), falla.getIdFalla(), votos);
+        }
+        return new ArrayList<>(agrupadas.values());
+    }
+
+    private static void acumular(Map<String, Entrada> agrupadas, TipoSugerencia tipo, String clave,
+                                 String texto, Long idFalla, long votos) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        String claveCompleta = tipo + ":" + (clave != null ? clave : String.join(" ", BuscadorFallas.tokenizar(texto)));
+        Entrada entrada = agrupadas.computeIfAbsent(claveCompleta, k -> new Entrada(tipo, texto.trim(), idFalla));
+        entrada.totalFallas++;
+        entrada.votos += votos;
+    }
+
+    /**
+     * Sugerencia en construcción
+     */
+    private static final class Entrada {
+        private final TipoSugerencia tipo;
+        private final String texto;
+        private final Long idFalla;
+        private int totalFallas;
+        private long votos;
+
+        private Entrada(TipoSugerencia tipo, String texto, Long idFalla) {
+            this.tipo = tipo;
+            this.texto = texto;
+            this.idFalla = idFalla;
+        }
+    }
+}
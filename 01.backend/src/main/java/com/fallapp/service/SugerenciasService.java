@@ -0,0 +1,100 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sugerencias de autocompletado del buscador (/api/fallas/sugerencias)
+ *
+ * Sirve desde un trie en memoria (SugerenciasFallas) sin consultar la BD.
+ * El trie depende de dos fuentes:
+ * - Textos: el snapshot del catálogo; si cambia su versión se reconstruye
+ *   antes de responder (una escritura de falla se ve en la siguiente consulta)
+ * - Pesos: los votos de RankingVotosService; cambian con cada voto, así que
+ *   se refrescan como mucho cada `app.sugerencias.pesos.ttl-ms`. Mientras
+ *   un hilo reconstruye, el resto sigue respondiendo con el trie anterior.
+ *
+ * @see SugerenciasFallas
+ * @see FallaCatalogoService
+ */
+@Service
+@Slf4j
+public class SugerenciasService {
+
+    private final FallaCatalogoService fallaCatalogoService;
+    private final RankingVotosService rankingVotosService;
+    private final long ttlPesosMillis;
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+
+    private volatile Estado estado;
+
+    public SugerenciasService(
+            FallaCatalogoService fallaCatalogoService,
+            RankingVotosService rankingVotosService,
+            @Value("${app.sugerencias.pesos.ttl-ms:60000}") long ttlPesosMillis) {
+        this.fallaCatalogoService = fallaCatalogoService;
+        this.rankingVotosService = rankingVotosService;
+        this.ttlPesosMillis = ttlPesosMillis;
+    }
+
+    /**
+     * Sugerencias para el texto tecleado
+     *
+     * @param consulta Prefijo (sin acentos ni mayúsculas da igual)
+     * @param limite Máximo de sugerencias (1-10)
+     * @return Sugerencias ordenadas por votos; vacío si la consulta está vacía
+     */
+    public List<SugerenciaDTO> sugerir(String consulta, int limite) {
+        if (limite < 1 || limite > SugerenciasFallas.MAX_SUGERENCIAS) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + SugerenciasFallas.MAX_SUGERENCIAS);
+        }
+        if (consulta == null || consulta.isBlank()) {
+            return List.of();
+        }
+        return obtenerTrie().sugerir(consulta, limite);
+    }
+
+    /**
+     * Obtener el trie vigente, reconstruyéndolo si el catálogo ha cambiado
+     * o los pesos han caducado
+     */
+    SugerenciasFallas obtenerTrie() {
+        FallaCatalogoService.Snapshot catalogo = fallaCatalogoService.obtener();
+        Estado actual = estado;
+        if (actual != null && actual.versionCatalogo() == catalogo.version()) {
+            if (System.currentTimeMillis() - actual.construidoEnMillis() <= ttlPesosMillis
+                    || !reconstruccion.tryLock()) {
+                return actual.trie();
+            }
+        } else {
+            reconstruccion.lock();
+        }
+        try {
+            actual = estado;
+            if (actual != null && actual.versionCatalogo() == catalogo.version()
+                    && System.currentTimeMillis() - actual.construidoEnMillis() <= ttlPesosMillis) {
+                return actual.trie();
+            }
+            long inicio = System.nanoTime();
+            SugerenciasFallas trie = new SugerenciasFallas(catalogo.todas(), rankingVotosService.obtenerVotosPorFalla());
+            estado = new Estado(catalogo.version(), System.currentTimeMillis(), trie);
+            log.debug("Trie de sugerencias construido: {} sugerencias, {} nodos en {} ms",
+                    trie.totalSugerencias(), trie.totalNodos(), (System.nanoTime() - inicio) / 1_000_000);
+            return trie;
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Trie publicado junto a la versión del catálogo con la que se construyó
+     */
+    private record Estado(long versionCatalogo, long construidoEnMillis, SugerenciasFallas trie) {
+    }
+}
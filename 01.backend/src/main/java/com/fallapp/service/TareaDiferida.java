@@ -0,0 +1,21 @@
+package com.fallapp.service;
+
+/**
+ * Tarea que se puede guardar en BD si su ejecutor está saturado
+ *
+ * Un Runnable cualquiera no se puede persistir; esta tarea lleva además un
+ * tipo y unos datos en texto con los que un ManejadorTareaDiferida del
+ * mismo tipo la vuelve a ejecutar más tarde.
+ *
+ * @param tipo   Tipo de tarea ("email.bienvenida"...)
+ * @param datos  Lo necesario para repetirla (texto plano, sin objetos)
+ * @param accion Ejecución normal, en el hilo del ejecutor
+ * @see TareasPendientesService Tabla de tareas desbordadas y su reintento
+ */
+public record TareaDiferida(String tipo, String datos, Runnable accion) implements Runnable {
+
+    @Override
+    public void run() {
+        accion.run();
+    }
+}
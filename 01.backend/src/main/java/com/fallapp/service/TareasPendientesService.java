@@ -0,0 +1,191 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tareas que no cupieron en su ejecutor, guardadas en BD para reintentarlas
+ *
+ * Cuando la cola de un EjecutorAcotado está llena, sus TareaDiferida se
+ * insertan en la tabla tareas_pendientes (script 65) en vez de perderse.
+ * Cada `app.async.reintentos-ms` un hilo "tareas-pendientes" reclama un
+ * bloque de filas vencidas y las repite con el ManejadorTareaDiferida de
+ * su tipo.
+ *
+ * Reclamar una fila no la borra: adelanta su proximo_intento (con backoff
+ * exponencial) y suma un intento. Solo se borra si el manejador termina bien
+ * o tras `app.async.max-intentos`, así que una caída a mitad no pierde tareas
+ * (pueden repetirse: los manejadores deben tolerarlo). FOR UPDATE SKIP LOCKED
+ * permite varias instancias del backend sin repartirse la misma fila.
+ *
+ * Métricas: fallapp.tareas.diferidas{resultado=guardada|ejecutada|fallida|descartada}
+ */
+@Service
+@Slf4j
+public class TareasPendientesService {
+
+    private static final int BLOQUE = 100;
+
+    private static final String RECLAMAR = """
+            UPDATE tareas_pendientes
+            SET intentos = intentos + 1,
+                proximo_intento = NOW() + (? * POWER(2, LEAST(intentos, 10))) * INTERVAL '1 millisecond'
+            WHERE id IN (
+                SELECT id FROM tareas_pendientes
+                WHERE proximo_intento <= NOW()
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING id, ejecutor, tipo, datos, intentos""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ManejadorTareaDiferida> manejadoresDisponibles;
+    private final long reintentoMillis;
+    private final int maxIntentos;
+    private final Counter guardadas;
+    private final Counter ejecutadas;
+    private final Counter fallidas;
+    private final Counter descartadas;
+
+    private volatile Map<String, ManejadorTareaDiferida> manejadores;
+    private volatile ScheduledExecutorService programador;
+
+    /**
+     * @param manejadoresDisponibles Se resuelven al primer reintento: los
+     *        manejadores dependen de ejecutores que dependen de este servicio
+     */
+    public TareasPendientesService(
+            JdbcTemplate jdbcTemplate,
+            ObjectProvider<ManejadorTareaDiferida> manejadoresDisponibles,
+            MeterRegistry meterRegistry,
+            @Value("${app.async.reintentos-ms:30000}") long reintentoMillis,
+            @Value("${app.async.max-intentos:10}") int maxIntentos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.manejadoresDisponibles = manejadoresDisponibles;
+        this.reintentoMillis = reintentoMillis;
+        this.maxIntentos = maxIntentos;
+        this.guardadas = meterRegistry.counter("fallapp.tareas.diferidas", "resultado", "guardada");
+        this.ejecutadas = meterRegistry.counter("fallapp.tareas.diferidas", "resultado", "ejecutada");
+        this.fallidas = meterRegistry.counter("fallapp.tareas.diferidas", "resultado", "fallida");
+        this.descartadas = meterRegistry.counter("fallapp.tareas.diferidas", "resultado", "descartada");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (programador != null || reintentoMillis <= 0) {
+            return;
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "tareas-pendientes");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                procesar();
+            } catch (RuntimeException e) {
+                log.warn("Error reintentando tareas pendientes: {}", e.getMessage());
+            }
+        }, reintentoMillis, reintentoMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Guardar una tarea rechazada por su ejecutor (o que falló y debe repetirse)
+     *
+     * @return false si no se pudo guardar (BD no disponible)
+     */
+    public boolean guardar(String ejecutor, String tipo, String datos) {
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO tareas_pendientes (ejecutor, tipo, datos) VALUES (?, ?, ?)",
+                    ejecutor, tipo, datos);
+            guardadas.increment();
+            return true;
+        } catch (DataAccessException e) {
+            log.error("No se pudo guardar la tarea {} del ejecutor '{}': {}", tipo, ejecutor, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reclamar y repetir un bloque de tareas vencidas
+     *
+     * @return Tareas ejecutadas correctamente
+     */
+    int procesar() {
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(RECLAMAR, reintentoMillis, BLOQUE);
+        int correctas = 0;
+        for (Map<String, Object> fila : filas) {
+            long id = ((Number) fila.get("id")).longValue();
+            String tipo = (String) fila.get("tipo");
+            int intentos = ((Number) fila.get("intentos")).intValue();
+
+            ManejadorTareaDiferida manejador = manejadores().get(tipo);
+            if (manejador == null) {
+                log.error("Tarea pendiente {} de tipo desconocido '{}' descartada", id, tipo);
+                borrar(id);
+                descartadas.increment();
+                continue;
+            }
+            try {
+                manejador.ejecutarTarea((String) fila.get("datos"));
+                borrar(id);
+                ejecutadas.increment();
+                correctas++;
+            } catch (RuntimeException e) {
+                fallidas.increment();
+                if (intentos >= maxIntentos) {
+                    log.error("Tarea pendiente {} ({}, ejecutor '{}') descartada tras {} intentos: {}",
+                            id, tipo, fila.get("ejecutor"), intentos, e.getMessage());
+                    borrar(id);
+                    descartadas.increment();
+                } else {
+                    log.warn("Tarea pendiente {} ({}) falló en el intento {}: {}", id, tipo, intentos, e.getMessage());
+                }
+            }
+        }
+        if (!filas.isEmpty()) {
+            log.info("Tareas pendientes: {} de {} ejecutadas", correctas, filas.size());
+        }
+        return correctas;
+    }
+
+    private void borrar(long id) {
+        jdbcTemplate.update("DELETE FROM tareas_pendientes WHERE id = ?", id);
+    }
+
+    private Map<String, ManejadorTareaDiferida> manejadores() {
+        Map<String, ManejadorTareaDiferida> actuales = manejadores;
+        if (actuales == null) {
+            actuales = new HashMap<>();
+            for (ManejadorTareaDiferida manejador : manejadoresDisponibles) {
+                actuales.put(manejador.tipoTarea(), manejador);
+            }
+            manejadores = actuales;
+        }
+        return actuales;
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        if (programador != null) {
+            programador.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.TendenciaVotosDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.model.Voto;
+import com.fallapp.repository.VotoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tendencias de votos: qué fallas suben más rápido
+ *
+ * Cada voto confirmado suma en dos anillos de cubetas en memoria (una
+ * ContadoresVotos por cubeta):
+ * - Minutos: las últimas 120 → ventanas de 1 a 60 minutos
+ * - Horas: las últimas 48 → ventanas de 1 a 24 horas
+ *
+ * Las horas cerradas se consolidan en `votos_tendencia_hora` cada
+ * `app.estadisticas.tendencia.consolidacion-ms` (recuento idempotente de esa
+ * hora sobre `votos`); las ventanas en días (1 a 30) suman esas filas para
+ * las horas que ya no están en memoria. Ninguna consulta recorre `votos`.
+ *
+ * Al arrancar se consolidan las horas pendientes y se siembran los anillos
+ * (minutos de las 2 últimas horas desde `votos`, horas cerradas desde la
+ * tabla consolidada).
+ *
+ * Eliminaciones: restan en las cubetas de su minuto y su hora si siguen en
+ * memoria, y su hora se recuenta en la siguiente consolidación aunque ya
+ * estuviera consolidada (el recuento borra las filas que se quedan sin votos).
+ *
+ * @see VotoService#votar
+ * @see VotoBufferService
+ */
+@Service
+@Slf4j
+public class TendenciaVotosService {
+
+    static final int MINUTOS = 120;
+    static final int HORAS = 48;
+    private static final int MAX_DIAS = 30;
+    private static final long MS_MINUTO = 60_000L;
+    private static final long MS_HORA = 3_600_000L;
+    private static final Pattern VENTANA = Pattern.compile("(\\d{1,2})([mhd])");
+
+    /** Mayor incremento primero; a igualdad, más votos y menor idFalla */
+    private static final Comparator<TendenciaVotosDTO.FallaTendencia> ORDEN_TENDENCIA = Comparator
+            .comparingLong(TendenciaVotosDTO.FallaTendencia::getIncremento).reversed()
+            .thenComparing(Comparator.comparingLong(TendenciaVotosDTO.FallaTendencia::getVotos).reversed())
+            .thenComparingLong(TendenciaVotosDTO.FallaTendencia::getIdFalla);
+
+    private final VotoRepository votoRepository;
+    private final FallaCatalogoService fallaCatalogoService;
+    private final long intervaloConsolidacionMillis;
+    private final Clock reloj;
+
+    private final AtomicReferenceArray<Cubeta> minutos = new AtomicReferenceArray<>(MINUTOS);
+    private final AtomicReferenceArray<Cubeta> horas = new AtomicReferenceArray<>(HORAS);
+
+    /** Horas con votos eliminados pendientes de recontar en la tabla consolidada */
+    private final Set<Long> horasConEliminaciones = ConcurrentHashMap.newKeySet();
+
+    private volatile ScheduledExecutorService planificador;
+
+    @Autowired
+    public TendenciaVotosService(
+            VotoRepository votoRepository,
+            FallaCatalogoService fallaCatalogoService,
+            @Value("${app.estadisticas.tendencia.consolidacion-ms:300000}") long intervaloConsolidacionMillis) {
+        this(votoRepository, fallaCatalogoService, intervaloConsolidacionMillis, Clock.systemUTC());
+    }
+
+    TendenciaVotosService(VotoRepository votoRepository, FallaCatalogoService fallaCatalogoService,
+                          long intervaloConsolidacionMillis, Clock reloj) {
+        this.votoRepository = votoRepository;
+        this.fallaCatalogoService = fallaCatalogoService;
+        this.intervaloConsolidacionMillis = intervaloConsolidacionMillis;
+        this.reloj = reloj;
+    }
+
+    /**
+     * Consolidar lo pendiente, sembrar los anillos y programar la consolidación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (planificador != null) {
+            return;
+        }
+        try {
+            consolidar();
+            sembrar();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cargar las tendencias de votos: {}", e.getMessage());
+        }
+        if (intervaloConsolidacionMillis > 0) {
+            planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "tendencia-votos");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            planificador.scheduleWithFixedDelay(this::consolidarSinFallar,
+                    intervaloConsolidacionMillis, intervaloConsolidacionMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Registrar un voto ya confirmado en BD
+     */
+    public void registrarVoto(Long idFalla, Voto.TipoVoto tipo) {
+        long ahora = reloj.millis();
+        cubeta(minutos, ahora / MS_MINUTO).contadores().sumar(idFalla, tipo, 1);
+        cubeta(horas, ahora / MS_HORA).contadores().sumar(idFalla, tipo, 1);
+    }
+
+    /**
+     * Registrar la eliminación, ya confirmada en BD, de un voto emitido en `fechaVoto`
+     */
+    public void registrarEliminacion(Long idFalla, Voto.TipoVoto tipo, LocalDateTime fechaVoto) {
+        long instante = fechaVoto.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        restar(minutos, instante / MS_MINUTO, idFalla, tipo);
+        restar(horas, instante / MS_HORA, idFalla, tipo);
+        horasConEliminaciones.add(instante / MS_HORA);
+    }
+
+    /**
+     * Fallas que más suben en la ventana frente a la ventana anterior de igual duración
+     *
+     * @param ventana "Nm" (1-60), "Nh" (1-24) o "Nd" (1-30)
+     * @param tipo Tipo de voto (null = todos)
+     * @param limite Número máximo de fallas
+     */
+    public TendenciaVotosDTO obtenerTendencia(String ventana, Voto.TipoVoto tipo, int limite) {
+        Matcher matcher = VENTANA.matcher(ventana == null ? "" : ventana.trim().toLowerCase());
+        int cantidad = matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+        String unidad = matcher.matches() ? matcher.group(2) : "";
+        int maximo = switch (unidad) {
+            case "m" -> MINUTOS / 2;
+            case "h" -> HORAS / 2;
+            case "d" -> MAX_DIAS;
+            default -> 0;
+        };
+        if (cantidad < 1 || cantidad > maximo) {
+            throw new BadRequestException("Ventana no válida: " + ventana + " (usa 1-60m, 1-24h o 1-30d)");
+        }
+
+        long ahora = reloj.millis();
+        Map<Long, long[]> votos = new HashMap<>();
+        long desde;
+        long hasta;
+        if (unidad.equals("m")) {
+            long minuto = ahora / MS_MINUTO;
+            sumarAnillo(minutos, minuto - 2L * cantidad + 1, minuto - cantidad, tipo, votos, 0);
+            sumarAnillo(minutos, minuto - cantidad + 1, minuto, tipo, votos, 1);
+            desde = (minuto - cantidad + 1) * MS_MINUTO;
+            hasta = (minuto + 1) * MS_MINUTO;
+        } else {
+            long hora = ahora / MS_HORA;
+            int horasVentana = unidad.equals("h") ? cantidad : cantidad * 24;
+            long corte = hora - horasVentana + 1;
+            long inicio = corte - horasVentana;
+            long enMemoria = hora - HORAS + 1;
+            if (inicio < enMemoria) {
+                sumarConsolidado(inicio, corte, enMemoria, tipo, votos);
+            }
+            sumarAnillo(horas, Math.max(inicio, enMemoria), corte - 1, tipo, votos, 0);
+            sumarAnillo(horas, Math.max(corte, enMemoria), hora, tipo, votos, 1);
+            desde = corte * MS_HORA;
+            hasta = (hora + 1) * MS_HORA;
+        }
+
+        return TendenciaVotosDTO.builder()
+                .ventana(cantidad + unidad)
+                .filtroTipoVoto(tipo == null ? "ALL" : tipo.name())
+                .desde(Instant.ofEpochMilli(desde))
+                .hasta(Instant.ofEpochMilli(hasta))
+                .fallas(ordenar(votos, limite))
+                .build();
+    }
+
+    /**
+     * Recontar en `votos_tendencia_hora` las horas cerradas desde la última consolidada
+     *
+     * La última consolidada se recuenta también: recoge los votos escritos
+     * con retraso (p.ej. desde el buffer de votos). Las horas anteriores con
+     * votos eliminados se recuentan una a una.
+     *
+     * @return Filas escritas
+     */
+    int consolidar() {
+        long horaActual = reloj.millis() / MS_HORA;
+        Long ultima = votoRepository.ultimaHoraConsolidada();
+        long desde = Math.max(ultima == null ? 0 : ultima, horaActual - HORAS);
+
+        int filas = 0;
+        // La hora en curso aún no se consolida: se queda apuntada
+        List<Long> recontadas = new ArrayList<>();
+        for (Long hora : horasConEliminaciones) {
+            if (hora < horaActual) {
+                if (hora < desde) {
+                    filas += votoRepository.consolidarTendenciaHoras(
+                            Instant.ofEpochMilli(hora * MS_HORA), Instant.ofEpochMilli((hora + 1) * MS_HORA));
+                }
+                recontadas.add(hora);
+            }
+        }
+        if (desde < horaActual) {
+            filas += votoRepository.consolidarTendenciaHoras(
+                    Instant.ofEpochMilli(desde * MS_HORA), Instant.ofEpochMilli(horaActual * MS_HORA));
+        }
+        recontadas.forEach(horasConEliminaciones::remove);
+        return filas;
+    }
+
+    /**
+     * Cargar los anillos tras un arranque: minutos desde `votos` (solo las
+     * 2 últimas horas), horas cerradas desde la tabla consolidada
+     */
+    void sembrar() {
+        long ahora = reloj.millis();
+        long minuto = ahora / MS_MINUTO;
+        long hora = ahora / MS_HORA;
+        for (Object[] fila : votoRepository.contarVotosPorMinutoDesde(Instant.ofEpochMilli((minuto - MINUTOS + 1) * MS_MINUTO))) {
+            long idFalla = ((Number) fila[0]).longValue();
+            Voto.TipoVoto tipo = Voto.TipoVoto.valueOf(fila[1].toString());
+            long clave = ((Number) fila[2]).longValue();
+            long votos = ((Number) fila[3]).longValue();
+            if (clave <= minuto) {
+                cubeta(minutos, clave).contadores().sumar(idFalla, tipo, votos);
+            }
+            if (clave >= hora * 60) {
+                cubeta(horas, hora).contadores().sumar(idFalla, tipo, votos);
+            }
+        }
+        for (Object[] fila : votoRepository.votosConsolidadosPorHora(
+                Instant.ofEpochMilli((hora - HORAS + 1) * MS_HORA), Instant.ofEpochMilli(hora * MS_HORA))) {
+            cubeta(horas, ((Number) fila[2]).longValue()).contadores().sumar(((Number) fila[0]).longValue(),
+                    Voto.TipoVoto.valueOf(fila[1].toString()), ((Number) fila[3]).longValue());
+        }
+    }
+
+    @PreDestroy
+    synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+    }
+
+    private void consolidarSinFallar() {
+        try {
+            consolidar();
+        } catch (RuntimeException e) {
+            // Un fallo no debe cancelar las siguientes ejecuciones
+            log.warn("No se pudo consolidar la tendencia de votos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cubeta de la clave (minuto u hora epoch); la del hueco se sustituye si es más antigua
+     */
+    private static Cubeta cubeta(AtomicReferenceArray<Cubeta> anillo, long clave) {
+        int hueco = (int) Math.floorMod(clave, (long) anillo.length());
+        while (true) {
+            Cubeta actual = anillo.get(hueco);
+            if (actual != null && actual.clave() >= clave) {
+                // Un hilo con una hora anterior tras la rotación suma en la nueva
+                return actual;
+            }
+            Cubeta nueva = new Cubeta(clave, new ContadoresVotos());
+            if (anillo.compareAndSet(hueco, actual, nueva)) {
+                return nueva;
+            }
+        }
+    }
+
+    /**
+     * Restar un voto en la cubeta de la clave, si sigue en el anillo
+     */
+    private static void restar(AtomicReferenceArray<Cubeta> anillo, long clave, Long idFalla, Voto.TipoVoto tipo) {
+        Cubeta cubeta = anillo.get((int) Math.floorMod(clave, (long) anillo.length()));
+        if (cubeta != null && cubeta.clave() == clave) {
+            cubeta.contadores().sumar(idFalla, tipo, -1);
+        }
+    }
+
+    /**
+     * Sumar en `votos[idFalla][posicion]` las cubetas con clave en [desde, hasta]
+     */
+    private static void sumarAnillo(AtomicReferenceArray<Cubeta> anillo, long desde, long hasta,
+                                    Voto.TipoVoto tipo, Map<Long, long[]> votos, int posicion) {
+        for (long clave = desde; clave <= hasta; clave++) {
+            Cubeta cubeta = anillo.get((int) Math.floorMod(clave, (long) anillo.length()));
+            if (cubeta == null || cubeta.clave() != clave) {
+                continue;
+            }
+            cubeta.contadores().copia().forEach((idFalla, porTipo) -> {
+                long suma = tipo != null ? porTipo[tipo.ordinal()] : sumaTipos(porTipo);
+                if (suma != 0) {
+                    votos.computeIfAbsent(idFalla, id -> new long[2])[posicion] += suma;
+                }
+            });
+        }
+    }
+
+    /**
+     * Sumar las horas consolidadas de [inicio, enMemoria): antes de `corte`
+     * cuentan como ventana anterior, desde `corte` como actual
+     */
+    private void sumarConsolidado(long inicio, long corte, long enMemoria, Voto.TipoVoto tipo, Map<Long, long[]> votos) {
+        List<Object[]> filas = votoRepository.sumarTendenciaConsolidada(Instant.ofEpochMilli(inicio * MS_HORA),
+                Instant.ofEpochMilli(corte * MS_HORA), Instant.ofEpochMilli(enMemoria * MS_HORA));
+        for (Object[] fila : filas) {
+            if (tipo != null && !tipo.name().equals(fila[1].toString())) {
+                continue;
+            }
+            long[] suma = votos.computeIfAbsent(((Number) fila[0]).longValue(), id -> new long[2]);
+            suma[0] += ((Number) fila[2]).longValue();
+            suma[1] += ((Number) fila[3]).longValue();
+        }
+    }
+
+    private List<TendenciaVotosDTO.FallaTendencia> ordenar(Map<Long, long[]> votos, int limite) {
+        FallaCatalogoService.Snapshot catalogo = fallaCatalogoService.obtener();
+        List<TendenciaVotosDTO.FallaTendencia> fallas = new ArrayList<>();
+        votos.forEach((idFalla, suma) -> {
+            if (suma[1] <= 0) {
+                return;
+            }
+            FallaDTO falla = catalogo.buscarPorId(idFalla).orElse(null);
+            fallas.add(TendenciaVotosDTO.FallaTendencia.builder()
+                    .idFalla(idFalla)
+                    .nombre(falla != null ? falla.getNombre() : null)
+                    .seccion(falla != null ? falla.getSeccion() : null)
+                    .votos(suma[1])
+                    .votosAnteriores(suma[0])
+                    .incremento(suma[1] - suma[0])
+                    .crecimiento(suma[0] > 0 ? Math.round((suma[1] - suma[0]) * 1000.0 / suma[0]) / 10.0 : null)
+                    .build());
+        });
+        fallas.sort(ORDEN_TENDENCIA);
+        return fallas.size() > limite ? new ArrayList<>(fallas.subList(0, limite)) : fallas;
+    }
+
+    private static long sumaTipos(long[] porTipo) {
+        long total = 0;
+        for (long votos : porTipo) {
+            total += votos;
+        }
+        return total;
+    }
+
+    /**
+     * Votos de un minuto u hora (clave epoch)
+     */
+    private record Cubeta(long clave, ContadoresVotos contadores) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.TeselaDTO;
+import com.fallapp.model.Falla;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Teselas del mapa de fallas (clusters por tesela slippy map)
+ *
+ * Cada tesela z/x/y se divide en CELDAS_POR_LADO x CELDAS_POR_LADO celdas
+ * (64 px a 256 px por tesela) y las fallas de cada celda se agregan en un
+ * cluster: número de fallas, centroide y categoría dominante. A partir de
+ * ZOOM_DETALLE se devuelven los marcadores individuales.
+ *
+ * Las coordenadas Web Mercator normalizadas ([0,1)) se precalculan una vez
+ * en double[]; cada tesela pedida se calcula una sola vez y se cachea.
+ * Se construye como derivado de un snapshot del catálogo, de modo que un
+ * crear/actualizar/eliminar de FallaService descarta todas las teselas.
+ *
+ * @see FallaCatalogoService.Snapshot#derivado
+ */
+public final class TeselasFallas {
+
+    public static final int ZOOM_MAXIMO = 22;
+    public static final int ZOOM_DETALLE = 16;
+    static final int CELDAS_POR_LADO = 4;
+    /** Límite de teselas cacheadas por snapshot (las vacías también cuentan) */
+    static final int MAX_TESELAS_CACHEADAS = 20_000;
+
+    private static final String[] NOMBRES_CATEGORIA = Arrays.stream(Falla.CategoriaFalla.values())
+            .map(Enum::name)
+            .toArray(String[]::new);
+
+    private final long version;
+    private final FallaDTO[] fallas;
+    private final double[] mercatorX;
+    private final double[] mercatorY;
+    private final Map<Long, TeselaDTO> cache = new ConcurrentHashMap<>();
+
+    public TeselasFallas(FallaCatalogoService.Snapshot snapshot) {
+        this.version = snapshot.version();
+        List<FallaDTO> conUbicacion = snapshot.todas().stream()
+                .filter(f -> f.getLatitud() != null && f.getLongitud() != null)
+                .toList();
+        int n = conUbicacion.size();
+        this.fallas = conUbicacion.toArray(new FallaDTO[0]);
+        this.mercatorX = new double[n];
+        this.mercatorY = new double[n];
+        for (int i = 0; i < n; i++) {
+            mercatorX[i] = mercatorX(fallas[i].getLongitud());
+            mercatorY[i] = mercatorY(fallas[i].getLatitud());
+        }
+    }
+
+    /**
+     * Obtener la tesela z/x/y (calculándola la primera vez)
+     */
+    public TeselaDTO obtener(int z, int x, int y) {
+        long clave = ((long) z << 58) | ((long) x << 29) | y;
+        TeselaDTO tesela = cache.get(clave);
+        if (tesela != null) {
+            return tesela;
+        }
+        tesela = calcular(z, x, y);
+        if (cache.size() < MAX_TESELAS_CACHEADAS) {
+            TeselaDTO previa = cache.putIfAbsent(clave, tesela);
+            return previa != null ? previa : tesela;
+        }
+        return tesela;
+    }
+
+    /**
+     * Número de teselas cacheadas (para tests/diagnóstico)
+     */
+    public int teselasCacheadas() {
+        return cache.size();
+    }
+
+    private TeselaDTO calcular(int z, int x, int y) {
+        double escala = 1L << z;
+        double xDesde = x / escala, xHasta = (x + 1) / escala;
+        double yDesde = y / escala, yHasta = (y + 1) / escala;
+
+        boolean detalle = z >= ZOOM_DETALLE;
+        List<TeselaDTO.Marcador> marcadores = detalle ? new ArrayList<>() : null;
+        int celdas = CELDAS_POR_LADO * CELDAS_POR_LADO;
+        int[] total = detalle ? null : new int[celdas];
+        double[] sumaLat = detalle ? null : new double[celdas];
+        double[] sumaLon = detalle ? null : new double[celdas];
+        int[] ultima = detalle ? null : new int[celdas];
+        int[][] porCategoria = detalle ? null : new int[celdas][];
+        int totalFallas = 0;
+
+        for (int i = 0; i < fallas.length; i++) {
+            double mx = mercatorX[i], my = mercatorY[i];
+            if (mx < xDesde || mx >= xHasta || my < yDesde || my >= yHasta) {
+                continue;
+            }
+            totalFallas++;
+            FallaDTO falla = fallas[i];
+            if (detalle) {
+                marcadores.add(TeselaDTO.Marcador.builder()
+                        .idFalla(falla.getIdFalla())
+                        .nombre(falla.getNombre())
+                        .categoria(falla.getCategoria())
+                        .latitud(falla.getLatitud())
+                        .longitud(falla.getLongitud())
+                        .build());
+                continue;
+            }
+            int columna = Math.min(CELDAS_POR_LADO - 1, (int) ((mx - xDesde) * escala * CELDAS_POR_LADO));
+            int fila = Math.min(CELDAS_POR_LADO - 1, (int) ((my - yDesde) * escala * CELDAS_POR_LADO));
+            int celda = fila * CELDAS_POR_LADO + columna;
+            total[celda]++;
+            sumaLat[celda] += falla.getLatitud();
+            sumaLon[celda] += falla.getLongitud();
+            ultima[celda] = i;
+            int categoria = ordinalCategoria(falla.getCategoria());
+            if (categoria >= 0) {
+                if (porCategoria[celda] == null) {
+                    porCategoria[celda] = new int[NOMBRES_CATEGORIA.length];
+                }
+                porCategoria[celda][categoria]++;
+            }
+        }
+
+        TeselaDTO.TeselaDTOBuilder tesela = TeselaDTO.builder()
+                .z(z).x(x).y(y)
+                .version(version)
+                .totalFallas(totalFallas);
+        if (detalle) {
+            return tesela.fallas(marcadores).build();
+        }
+
+        List<TeselaDTO.Cluster> clusters = new ArrayList<>();
+        for (int celda = 0; celda < celdas; celda++) {
+            if (total[celda] == 0) {
+                continue;
+            }
+            clusters.add(TeselaDTO.Cluster.builder()
+                    .total(total[celda])
+                    .latitud(sumaLat[celda] / total[celda])
+                    .longitud(sumaLon[celda] / total[celda])
+                    .categoriaDominante(dominante(porCategoria[celda]))
+                    .idFalla(total[celda] == 1 ? fallas[ultima[celda]].getIdFalla() : null)
+                    .build());
+        }
+        return tesela.clusters(clusters).build();
+    }
+
+    private static int ordinalCategoria(String categoria) {
+        if (categoria == null) {
+            return -1;
+        }
+        for (int i = 0; i < NOMBRES_CATEGORIA.length; i++) {
+            if (NOMBRES_CATEGORIA[i].equals(categoria)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String dominante(int[] conteos) {
+        if (conteos == null) {
+            return null;
+        }
+        int mejor = 0;
+        for (int i = 1; i < conteos.length; i++) {
+            if (conteos[i] > conteos[mejor]) {
+                mejor = i;
+            }
+        }
+        return NOMBRES_CATEGORIA[mejor];
+    }
+
+    static double mercatorX(double longitud) {
+        return (longitud + 180.0) / 360.0;
+    }
+
+    static double mercatorY(double latitud) {
+        double lat = Math.max(-85.05112878, Math.min(85.05112878, latitud));
+        double rad = Math.toRadians(lat);
+        return (1.0 - Math.log(Math.tan(rad) + 1.0 / Math.cos(rad)) / Math.PI) / 2.0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fallapp.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades de transacción compartidas por los servicios
+ *
+ * Las estructuras en memoria (ranking, catálogo, estado de votos, outbox...)
+ * solo deben enterarse de un cambio cuando ya está confirmado en BD: así
+ * nunca reflejan datos que acabaron en rollback.
+ */
+public final class TransaccionUtils {
+
+    private TransaccionUtils() {
+    }
+
+    /**
+     * Ejecutar una acción DESPUÉS del commit de la transacción actual
+     * (o inmediatamente si no hay transacción activa).
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -19,6 +19,11 @@ import java.util.stream.Collectors;
 
 /**
  * Servicio para gestión de usuarios
+ *
+ * Un usuario registrado con falla cambia el total de miembros de esa falla:
+ * se avisa al catálogo en memoria tras el commit.
+ *
+ * @see FallaCatalogoService#actualizarContadores
  */
 @Service
 @RequiredArgsConstructor
@@ -29,6 +34,7 @@ public class UsuarioService {
     private final FallaRepository fallaRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileUploadService fileUploadService;
+    private final FallaCatalogoService fallaCatalogoService;
 
     /**
      * Registrar un nuevo usuario
@@ -94,6 +100,10 @@ public class UsuarioService {
         usuario.setTokenVerificacionExpira(null);
 
         Usuario guardado = usuarioRepository.save(usuario);
+        if (guardado.getFalla() != null) {
+            Long idFalla = guardado.getFalla().getIdFalla();
+            TransaccionUtils.despuesDelCommit(() -> fallaCatalogoService.actualizarContadores(List.of(idFalla)));
+        }
         return convertirADTO(guardado);
     }
 
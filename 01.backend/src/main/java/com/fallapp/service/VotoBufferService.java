@@ -0,0 +1,422 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.CrearVotoRequest;
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.VotoDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.exception.ResourceNotFoundException;
+import com.fallapp.exception.ServicioNoDisponibleException;
+import com.fallapp.model.Voto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffer de escritura diferida para votos (noche de la plantà)
+ *
+ * Desactivado por defecto (`app.votos.buffer.enabled`). Activo, POST /api/votos
+ * ya no ocupa una conexión de Hikari por voto:
+ *
+ * 1. Validación en memoria: tipo, falla en el catálogo y voto repetido contra
+ *    el bitmap del usuario de EstadoVotosService
+ * 2. Reserva de hueco en una cola acotada sin locks (CAS sobre el contador);
+ *    si está llena → 503 con Retry-After (back-pressure)
+ * 3. Anotación en el registro local con fsync (RegistroVotosPendientes):
+ *    al volver, el voto sobrevive a un reinicio y se responde 202 al cliente
+ * 4. Un hilo "votos-buffer" vacía la cola en lotes JDBC de `app.votos.buffer.lote`
+ *    cada `app.votos.buffer.flush-ms`, con INSERT ... ON CONFLICT DO NOTHING
+ *
+ * Tras cada lote confirmado se actualiza el ranking en memoria y se confirman
+ * los votos en el registro (los segmentos completos se borran). Si la BD no
+ * responde el lote se reintenta; si un voto viola una FK (falla o usuario
+ * borrados entretanto) se descarta solo ese voto.
+ *
+ * @see VotoService#votar Camino síncrono (buffer desactivado)
+ */
+@Service
+@Slf4j
+public class VotoBufferService {
+
+    private static final String INSERT_VOTO =
+            "INSERT INTO votos (id_usuario, id_falla, tipo_voto, valor, fecha_voto) VALUES (?, ?, ?, 1, ?) " +
+            "ON CONFLICT (id_usuario, id_falla, tipo_voto) DO NOTHING";
+    private static final long ESPERA_REINTENTO_MS = 1000;
+    private static final long TAMANO_SEGMENTO = 4L * 1024 * 1024;
+
+    private final EstadoVotosService estadoVotosService;
+    private final FallaCatalogoService fallaCatalogoService;
+    private final RankingVotosService rankingVotosService;
+    private final TendenciaVotosService tendenciaVotosService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean activo;
+    private final int capacidad;
+    private final int tamanoLote;
+    private final long intervaloFlushMillis;
+    private final Path directorio;
+
+    private final Queue<VotoPendiente> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final Counter rechazados;
+    private final Counter escritos;
+
+    private volatile RegistroVotosPendientes registro;
+    private volatile Thread flusher;
+    private volatile boolean parando;
+
+    public VotoBufferService(
+            EstadoVotosService estadoVotosService,
+            FallaCatalogoService fallaCatalogoService,
+            RankingVotosService rankingVotosService,
+            TendenciaVotosService tendenciaVotosService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.votos.buffer.enabled:false}") boolean activo,
+            @Value("${app.votos.buffer.capacidad:50000}") int capacidad,
+            @Value("${app.votos.buffer.lote:500}") int tamanoLote,
+            @Value("${app.votos.buffer.flush-ms:5}") long intervaloFlushMillis,
+            @Value("${app.votos.buffer.directorio:data/votos-buffer}") String directorio) {
+        this.estadoVotosService = estadoVotosService;
+        this.fallaCatalogoService = fallaCatalogoService;
+        this.rankingVotosService = rankingVotosService;
+        this.tendenciaVotosService = tendenciaVotosService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.activo = activo;
+        this.capacidad = capacidad;
+        this.tamanoLote = tamanoLote;
+        this.intervaloFlushMillis = intervaloFlushMillis;
+        this.directorio = Path.of(directorio);
+
+        meterRegistry.gauge("fallapp.votos.buffer.pendientes", pendientes);
+        this.rechazados = meterRegistry.counter("fallapp.votos.buffer.rechazados");
+        this.escritos = meterRegistry.counter("fallapp.votos.buffer.escritos");
+    }
+
+    /**
+     * Si POST /api/votos debe pasar por el buffer
+     */
+    public boolean activo() {
+        return activo;
+    }
+
+    /**
+     * Arrancar el buffer: reencolar lo que quedó en el registro y lanzar el flusher
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() throws IOException {
+        if (!activo || registro != null) {
+            return;
+        }
+        abrirRegistro();
+
+        flusher = new Thread(this::bucleFlush, "votos-buffer");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Buffer de votos activo: capacidad {}, lotes de {} cada {} ms", capacidad, tamanoLote, intervaloFlushMillis);
+    }
+
+    /**
+     * Abrir el registro local y reencolar los votos de la ejecución anterior
+     */
+    void abrirRegistro() throws IOException {
+        registro = new RegistroVotosPendientes(directorio, TAMANO_SEGMENTO);
+        List<RegistroVotosPendientes.VotoRecuperado> recuperados = registro.recuperar();
+        for (RegistroVotosPendientes.VotoRecuperado voto : recuperados) {
+            pendientes.incrementAndGet();
+            cola.offer(new VotoPendiente(voto.idUsuario(), voto.idFalla(), voto.tipo(), voto.fecha(), voto.segmento()));
+        }
+        if (!recuperados.isEmpty()) {
+            log.info("Buffer de votos: {} votos recuperados del registro local", recuperados.size());
+        }
+    }
+
+    /**
+     * Aceptar un voto en el buffer
+     *
+     * Al volver el voto está en el registro local (fsync) y en la cola;
+     * se escribirá en BD en el siguiente lote.
+     *
+     * @return DTO del voto aceptado (sin idVoto: aún no está en BD)
+     * @throws BadRequestException Voto repetido
+     * @throws ResourceNotFoundException Falla inexistente
+     * @throws ServicioNoDisponibleException Cola llena o registro no disponible
+     */
+    public VotoDTO encolar(Long idUsuario, String nombreUsuario, CrearVotoRequest request) {
+        Voto.TipoVoto tipo = Voto.TipoVoto.valueOf(request.getTipoVoto());
+        FallaDTO falla = fallaCatalogoService.obtener().buscarPorId(request.getIdFalla())
+                .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", request.getIdFalla()));
+        if (registro == null) {
+            throw new ServicioNoDisponibleException("El buffer de votos no está disponible", 1);
+        }
+
+        if (!reservarHueco()) {
+            rechazados.increment();
+            throw new ServicioNoDisponibleException("Demasiados votos en cola, inténtalo en unos segundos", 1);
+        }
+        if (!estadoVotosService.marcar(idUsuario, falla.getIdFalla(), tipo)) {
+            pendientes.decrementAndGet();
+            throw new BadRequestException("Ya has votado esta falla con el tipo: " + request.getTipoVoto());
+        }
+
+        LocalDateTime fecha = LocalDateTime.now();
+        RegistroVotosPendientes.Segmento segmento;
+        try {
+            segmento = registro.anotar(idUsuario, falla.getIdFalla(), tipo, fecha);
+        } catch (IOException e) {
+            pendientes.decrementAndGet();
+            estadoVotosService.registrarEliminacion(idUsuario, falla.getIdFalla(), tipo);
+            log.error("No se pudo anotar el voto en el registro local: {}", e.getMessage());
+            throw new ServicioNoDisponibleException("No se pudo registrar el voto, inténtalo de nuevo", 1);
+        }
+        cola.offer(new VotoPendiente(idUsuario, falla.getIdFalla(), tipo, fecha, segmento));
+
+        return VotoDTO.builder()
+                .idUsuario(idUsuario)
+                .nombreUsuario(nombreUsuario)
+                .idFalla(falla.getIdFalla())
+                .nombreFalla(falla.getNombre())
+                .tipoVoto(tipo.name())
+                .fechaCreacion(fecha)
+                .build();
+    }
+
+    /**
+     * Votos aceptados pendientes de escribir en BD
+     */
+    public int pendientes() {
+        return pendientes.get();
+    }
+
+    /**
+     * Escribir en BD un lote de la cola
+     *
+     * @return Votos sacados de la cola (0 si estaba vacía)
+     */
+    int vaciarLote() {
+        List<VotoPendiente> lote = new ArrayList<>(Math.min(tamanoLote, pendientes.get() + 1));
+        VotoPendiente voto;
+        while (lote.size() < tamanoLote && (voto = cola.poll()) != null) {
+            lote.add(voto);
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        int[] filas = null;
+        try {
+            filas = escribirConReintentos(lote);
+            FallaCatalogoService.Snapshot catalogo = fallaCatalogoService.obtener();
+            for (int i = 0; i < lote.size(); i++) {
+                VotoPendiente pendiente = lote.get(i);
+                if (filas[i] > 0) {
+                    FallaDTO falla = catalogo.buscarPorId(pendiente.idFalla()).orElse(null);
+                    rankingVotosService.registrarVoto(pendiente.idFalla(),
+                            falla != null ? falla.getNombre() : null,
+                            falla != null ? falla.getSeccion() : null,
+                            pendiente.tipo());
+                    tendenciaVotosService.registrarVoto(pendiente.idFalla(), pendiente.tipo());
+                }
+            }
+            escritos.increment(lote.size());
+        } finally {
+            // Pase lo que pase el lote sale de la cola: si no se libera su hueco,
+            // cada fallo encoge la capacidad hasta rechazar todos los votos.
+            // Solo se confirma en el registro si llegó a BD; si no, se reenvía al arrancar
+            if (filas != null) {
+                for (VotoPendiente pendiente : lote) {
+                    pendiente.segmento().confirmar();
+                }
+            } else {
+                log.error("Lote de {} votos sin escribir en BD; se reenviará desde el registro local al arrancar",
+                        lote.size());
+            }
+            pendientes.addAndGet(-lote.size());
+        }
+        return lote.size();
+    }
+
+    @PreDestroy
+    void detener() {
+        parando = true;
+        Thread hilo = flusher;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+            try {
+                hilo.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        RegistroVotosPendientes actual = registro;
+        if (actual != null) {
+            try {
+                actual.close();
+            } catch (IOException e) {
+                log.warn("No se pudo cerrar el registro de votos: {}", e.getMessage());
+            }
+        }
+        if (pendientes.get() > 0) {
+            log.warn("Buffer de votos detenido con {} votos pendientes; se reenviarán al arrancar", pendientes.get());
+        }
+    }
+
+    private void bucleFlush() {
+        while (!parando || !cola.isEmpty()) {
+            try {
+                int escritosLote = vaciarLote();
+                if (escritosLote < tamanoLote) {
+                    if (escritosLote > 0 && cola.isEmpty()) {
+                        registro.compactar();
+                    }
+                    if (parando) {
+                        break;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(intervaloFlushMillis));
+                }
+            } catch (Exception e) {
+                log.error("Error inesperado vaciando el buffer de votos", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ESPERA_REINTENTO_MS));
+            }
+        }
+    }
+
+    /**
+     * Escribir el lote en una transacción; si la BD no está disponible se
+     * reintenta (la cola se va llenando y aplica back-pressure), y si falla
+     * por integridad se pasa a escribir voto a voto
+     *
+     * @return Filas insertadas por voto (0 = ya existía o descartado)
+     */
+    private int[] escribirConReintentos(List<VotoPendiente> lote) {
+        while (true) {
+            try {
+                int[] filas = escribirLote(lote);
+                if (filas == null) {
+                    log.debug("El driver no informó de las filas del lote, se escribe voto a voto");
+                    return escribirUnoAUno(lote);
+                }
+                return filas;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Lote de {} votos con errores de integridad, se escribe voto a voto", lote.size());
+                return escribirUnoAUno(lote);
+            } catch (DataAccessException e) {
+                if (parando) {
+                    throw e;
+                }
+                log.warn("No se pudo escribir el lote de votos ({}), reintentando", e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ESPERA_REINTENTO_MS));
+            }
+        }
+    }
+
+    /**
+     * Insertar el lote en una transacción
+     *
+     * @return Filas insertadas por voto, o null si el driver respondió
+     *         SUCCESS_NO_INFO: sin saber qué votos eran nuevos no se puede
+     *         cuadrar el contador, así que se deshace y se va voto a voto
+     */
+    private int[] escribirLote(List<VotoPendiente> lote) {
+        return transactionTemplate.execute(estado -> {
+            int[][] resultado = jdbcTemplate.batchUpdate(INSERT_VOTO, lote, lote.size(),
+                    VotoBufferService::asignarParametros);
+            int[] filas = new int[lote.size()];
+            int i = 0;
+            for (int[] bloque : resultado) {
+                for (int fila : bloque) {
+                    if (fila == PreparedStatement.SUCCESS_NO_INFO) {
+                        estado.setRollbackOnly();
+                        return null;
+                    }
+                    filas[i++] = fila;
+                }
+            }
+            return filas;
+        });
+    }
+
+    /**
+     * Insertar voto a voto: los que fallan por integridad se descartan y los
+     * errores de BD se reintentan igual que el lote
+     */
+    private int[] escribirUnoAUno(List<VotoPendiente> lote) {
+        int[] filas = new int[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            VotoPendiente voto = lote.get(i);
+            while (true) {
+                try {
+                    filas[i] = jdbcTemplate.update(INSERT_VOTO, ps -> asignarParametros(ps, voto));
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    log.warn("Voto descartado (usuario {}, falla {}, {}): {}", voto.idUsuario(), voto.idFalla(),
+                            voto.tipo(), e.getMostSpecificCause().getMessage());
+                    estadoVotosService.registrarEliminacion(voto.idUsuario(), voto.idFalla(), voto.tipo());
+                    break;
+                } catch (DataAccessException e) {
+                    if (parando) {
+                        throw e;
+                    }
+                    log.warn("No se pudo escribir el voto ({}), reintentando", e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ESPERA_REINTENTO_MS));
+                }
+            }
+        }
+        return filas;
+    }
+
+    private static void asignarParametros(PreparedStatement ps, VotoPendiente voto) throws SQLException {
+        ps.setLong(1, voto.idUsuario());
+        ps.setLong(2, voto.idFalla());
+        ps.setString(3, voto.tipo().name());
+        ps.setTimestamp(4, Timestamp.valueOf(voto.fecha()));
+    }
+
+    /**
+     * Reservar un hueco en la cola sin bloquear (CAS sobre el contador)
+     */
+    private boolean reservarHueco() {
+        while (true) {
+            int actual = pendientes.get();
+            if (actual >= capacidad) {
+                return false;
+            }
+            if (pendientes.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Voto aceptado a la espera de su lote
+     */
+    private record VotoPendiente(Long idUsuario, Long idFalla, Voto.TipoVoto tipo, LocalDateTime fecha,
+                                 RegistroVotosPendientes.Segmento segmento) {
+    }
+}
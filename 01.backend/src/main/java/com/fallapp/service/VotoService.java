@@ -1,7 +1,9 @@
 package com.fallapp.service;
 
+import com.fallapp.dto.FallaDTO;
 import com.fallapp.dto.VotoDTO;
 import com.fallapp.dto.CrearVotoRequest;
+import com.fallapp.dto.VotoLoteDTO;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
@@ -12,10 +14,16 @@ import com.fallapp.repository.UsuarioRepository;
 import com.fallapp.repository.VotoRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,34 +37,146 @@ public class VotoService {
         private final VotoRepository votoRepository;
         private final UsuarioRepository usuarioRepository;
         private final com.fallapp.repository.FallaRepository fallaRepository;
+        private final RankingVotosService rankingVotosService;
+        private final FallaCatalogoService fallaCatalogoService;
+        private final EstadoVotosService estadoVotosService;
+        private final TendenciaVotosService tendenciaVotosService;
+        private final JdbcTemplate jdbcTemplate;
 
     /**
      * Crear un nuevo voto
+     *
+     * Camino rápido: un único INSERT ... ON CONFLICT DO NOTHING.
+     * - La falla se valida contra el catálogo en memoria (sin SELECT)
+     * - El usuario ya viene resuelto por el controlador (sesión JWT)
+     * - La restricción única de `votos` detecta el voto repetido
+     * - El DTO se construye con los datos de la petición y los nombres ya
+     *   conocidos, sin recargar las asociaciones del voto
+     *
+     * @param idUsuario Usuario autenticado
+     * @param nombreUsuario Nombre del usuario autenticado (para el DTO)
      */
-    public VotoDTO votar(Long idUsuario, CrearVotoRequest request) {
-        // Verificar que el usuario existe
-        Usuario usuario = usuarioRepository.findById(idUsuario)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario", "id", idUsuario));
-
-        // Verificar que la falla existe y obtenerla
+    public VotoDTO votar(Long idUsuario, String nombreUsuario, CrearVotoRequest request) {
         Voto.TipoVoto tipo = Voto.TipoVoto.valueOf(request.getTipoVoto());
-        Falla falla = fallaRepository.findById(request.getIdFalla())
+        FallaDTO falla = fallaCatalogoService.obtener().buscarPorId(request.getIdFalla())
                 .orElseThrow(() -> new ResourceNotFoundException("Falla", "id", request.getIdFalla()));
-        
-        if (votoRepository.existsByUsuarioAndFallaAndTipoVoto(usuario, falla, tipo)) {
+
+        LocalDateTime fecha = LocalDateTime.now();
+        List<Number> insertado = votoRepository.insertarSiNoExiste(idUsuario, falla.getIdFalla(), tipo.name(), fecha);
+        if (insertado.isEmpty()) {
             throw new BadRequestException("Ya has votado esta falla con el tipo: " + request.getTipoVoto());
         }
 
-        // Crear el voto
-        Voto voto = new Voto();
-        voto.setUsuario(usuario);
-        voto.setFalla(falla);
-        voto.setTipoVoto(tipo);
-        // Normalizar valor a 1 para indicar presencia de voto
-        voto.setValor(1);
+        // Actualizar el ranking en memoria solo cuando el voto esté confirmado en BD
+        TransaccionUtils.despuesDelCommit(() -> {
+            rankingVotosService.registrarVoto(falla.getIdFalla(), falla.getNombre(), falla.getSeccion(), tipo);
+            estadoVotosService.registrarVoto(idUsuario, falla.getIdFalla(), tipo);
+            tendenciaVotosService.registrarVoto(falla.getIdFalla(), tipo);
+        });
+
+        return VotoDTO.builder()
+                .idVoto(insertado.get(0).longValue())
+                .idUsuario(idUsuario)
+                .nombreUsuario(nombreUsuario)
+                .idFalla(falla.getIdFalla())
+                .nombreFalla(falla.getNombre())
+                .tipoVoto(tipo.name())
+                .fechaCreacion(fecha)
+                .build();
+    }
+
+    /**
+     * Crear varios votos en una sola transacción
+     *
+     * Los votos válidos se insertan con UN solo INSERT multi-fila
+     * (VALUES (...), (...) ON CONFLICT DO NOTHING RETURNING ...): las filas
+     * devueltas son los votos creados y el resto ya existían.
+     * - Falla inexistente → FALLA_INEXISTENTE (sin llegar a la BD)
+     * - Mismo (falla, tipo) repetido en el lote → DUPLICADO desde la 2ª vez
+     *
+     * @return Resultado de cada voto en el orden de la petición
+     */
+    public VotoLoteDTO votarLote(Long idUsuario, List<CrearVotoRequest> votos) {
+        FallaCatalogoService.Snapshot catalogo = fallaCatalogoService.obtener();
+        List<VotoLoteDTO.Resultado> resultados = new ArrayList<>(votos.size());
+        Map<String, VotoLoteDTO.Resultado> aInsertar = new HashMap<>();
+        List<FallaDTO> fallas = new ArrayList<>();
+        List<Voto.TipoVoto> tipos = new ArrayList<>();
+
+        for (int i = 0; i < votos.size(); i++) {
+            CrearVotoRequest request = votos.get(i);
+            Voto.TipoVoto tipo = Voto.TipoVoto.valueOf(request.getTipoVoto());
+            VotoLoteDTO.Resultado resultado = VotoLoteDTO.Resultado.builder()
+                    .indice(i)
+                    .idFalla(request.getIdFalla())
+                    .tipoVoto(tipo.name())
+                    .estado(VotoLoteDTO.EstadoVoto.DUPLICADO)
+                    .build();
+            resultados.add(resultado);
+
+            FallaDTO falla = catalogo.buscarPorId(request.getIdFalla()).orElse(null);
+            if (falla == null) {
+                resultado.setEstado(VotoLoteDTO.EstadoVoto.FALLA_INEXISTENTE);
+            } else if (aInsertar.putIfAbsent(clave(falla.getIdFalla(), tipo.name()), resultado) == null) {
+                fallas.add(falla);
+                tipos.add(tipo);
+            }
+        }
+
+        if (!fallas.isEmpty()) {
+            LocalDateTime fecha = LocalDateTime.now();
+            StringBuilder sql = new StringBuilder("INSERT INTO votos (id_usuario, id_falla, tipo_voto, valor, fecha_voto) VALUES ");
+            for (int i = 0; i < fallas.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, 1, ?)" : ", (?, ?, ?, 1, ?)");
+            }
+            sql.append(" ON CONFLICT (id_usuario, id_falla, tipo_voto) DO NOTHING RETURNING id_voto, id_falla, tipo_voto");
+
+            jdbcTemplate.query(sql.toString(), ps -> {
+                Timestamp timestamp = Timestamp.valueOf(fecha);
+                for (int i = 0, p = 1; i < fallas.size(); i++) {
+                    ps.setLong(p++, idUsuario);
+                    ps.setLong(p++, fallas.get(i).getIdFalla());
+                    ps.setString(p++, tipos.get(i).name());
+                    ps.setTimestamp(p++, timestamp);
+                }
+            }, rs -> {
+                VotoLoteDTO.Resultado resultado = aInsertar.get(clave(rs.getLong(2), rs.getString(3)));
+                resultado.setEstado(VotoLoteDTO.EstadoVoto.CREADO);
+                resultado.setIdVoto(rs.getLong(1));
+            });
+
+            for (int i = 0; i < fallas.size(); i++) {
+                FallaDTO falla = fallas.get(i);
+                Voto.TipoVoto tipo = tipos.get(i);
+                if (aInsertar.get(clave(falla.getIdFalla(), tipo.name())).getEstado() == VotoLoteDTO.EstadoVoto.CREADO) {
+                    TransaccionUtils.despuesDelCommit(() -> {
+                        rankingVotosService.registrarVoto(falla.getIdFalla(), falla.getNombre(), falla.getSeccion(), tipo);
+                        estadoVotosService.registrarVoto(idUsuario, falla.getIdFalla(), tipo);
+                        tendenciaVotosService.registrarVoto(falla.getIdFalla(), tipo);
+                    });
+                }
+            }
+        }
+
+        int creados = 0;
+        int invalidos = 0;
+        for (VotoLoteDTO.Resultado resultado : resultados) {
+            if (resultado.getEstado() == VotoLoteDTO.EstadoVoto.CREADO) {
+                creados++;
+            } else if (resultado.getEstado() == VotoLoteDTO.EstadoVoto.FALLA_INEXISTENTE) {
+                invalidos++;
+            }
+        }
+        return VotoLoteDTO.builder()
+                .creados(creados)
+                .duplicados(resultados.size() - creados - invalidos)
+                .invalidos(invalidos)
+                .resultados(resultados)
+                .build();
+    }
 
-        Voto guardado = votoRepository.save(voto);
-        return convertirADTO(guardado);
+    private static String clave(long idFalla, String tipo) {
+        return idFalla + ":" + tipo;
     }
 
     /**
@@ -99,7 +219,15 @@ public class VotoService {
             throw new BadRequestException("No puedes eliminar un voto que no es tuyo");
         }
 
+        Long idFalla = voto.getFalla().getIdFalla();
+        Voto.TipoVoto tipo = voto.getTipoVoto();
+        LocalDateTime fechaVoto = voto.getCreadoEn();
         votoRepository.delete(voto);
+        TransaccionUtils.despuesDelCommit(() -> {
+            rankingVotosService.registrarEliminacion(idFalla, tipo);
+            estadoVotosService.registrarEliminacion(idUsuario, idFalla, tipo);
+            tendenciaVotosService.registrarEliminacion(idFalla, tipo, fechaVoto);
+        });
     }
 
     /**
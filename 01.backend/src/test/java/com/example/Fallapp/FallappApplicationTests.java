@@ -8,7 +8,7 @@ import org.springframework.boot.test.context.SpringBootTest;
  * 
  * @version 0.5.0
  */
-@SpringBootTest
+@SpringBootTest(properties = "app.sentimiento.outbox.intervalo-ms=0")
 class FallappApplicationTests {
 
 	@Test
@@ -0,0 +1,85 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.service.BuscadorFallas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de búsqueda de fallas por texto
+ *
+ * Compara el índice invertido con un recorrido completo normalizando y
+ * comparando por subcadena cada campo (lo que haría un filtro ingenuo).
+ * El objetivo es quedar muy por debajo del milisegundo por consulta.
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.BusquedaBenchmark
+ * o desde el IDE con el main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusquedaBenchmark {
+
+    @Param({"pla", "falla del", "valencia"})
+    public String consulta;
+
+    private List<FallaDTO> fallas;
+    private BuscadorFallas buscador;
+
+    @Setup
+    public void preparar() {
+        fallas = DatosBenchmark.cargarFallas();
+        buscador = new BuscadorFallas(fallas);
+    }
+
+    @Benchmark
+    public List<BuscadorFallas.Resultado> indiceInvertido() {
+        return buscador.buscar(consulta, 20);
+    }
+
+    @Benchmark
+    public List<FallaDTO> recorridoCompleto() {
+        List<String> tokens = BuscadorFallas.tokenizar(consulta);
+        List<FallaDTO> resultado = new ArrayList<>();
+        for (FallaDTO falla : fallas) {
+            String texto = BuscadorFallas.normalizar(falla.getNombre() + " " + falla.getSeccion() + " "
+                    + falla.getArtista() + " " + falla.getLema());
+            if (tokens.stream().allMatch(texto::contains)) {
+                resultado.add(falla);
+            }
+        }
+        return resultado;
+    }
+
+    @Benchmark
+    public BuscadorFallas construirIndice() {
+        return new BuscadorFallas(fallas);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BusquedaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.service.ClasificadorLexicoSentimiento;
+import com.fallapp.service.SentimentClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark del clasificador de sentimiento local (léxico)
+ *
+ * Mide comentarios/segundo clasificando los textos de la muestra etiquetada,
+ * de uno en uno y en lotes de 32 (el tamaño de lote del pipeline). Como
+ * referencia, una llamada al modelo de Hugging Face tarda cientos de ms y
+ * varios segundos si el modelo arranca en frío.
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.ClasificadorSentimientoBenchmark
+ * o desde el IDE con el main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ClasificadorSentimientoBenchmark {
+
+    private static final int TAMANO_LOTE = 32;
+
+    private ClasificadorLexicoSentimiento clasificador;
+    private String[] textos;
+    private List<List<String>> lotes;
+
+    @Setup
+    public void preparar() {
+        clasificador = EvaluacionSentimiento.clasificadorLexico();
+        textos = EvaluacionSentimiento.cargarMuestra().stream()
+                .map(EvaluacionSentimiento.Ejemplo::texto)
+                .toArray(String[]::new);
+        List<String> todos = List.of(textos);
+        lotes = new ArrayList<>();
+        for (int i = 0; i + TAMANO_LOTE <= todos.size(); i += TAMANO_LOTE) {
+            lotes.add(todos.subList(i, i + TAMANO_LOTE));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente;
+    }
+
+    @Benchmark
+    public String clasificarComentario(Cursor cursor) {
+        return clasificador.clasificar(textos[cursor.siguiente++ % textos.length]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAMANO_LOTE)
+    public List<SentimentClassifier.Clasificacion> clasificarLote(Cursor cursor) {
+        return clasificador.clasificar(lotes.get(cursor.siguiente++ % lotes.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ClasificadorSentimientoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.model.Voto;
+import com.fallapp.service.ContadoresVotos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Microbenchmark de contadores de votos bajo contención
+ *
+ * Los votos se reparten con una distribución Zipf (s = 1.1) sobre 350 fallas:
+ * las primeras (categoría especial) se llevan la mayoría, como en la noche
+ * de la plantà. Compara:
+ * - ContadoresVotos (LongAdder por falla y tipo, sin locks)
+ * - un AtomicLong por falla y tipo (todas las CAS sobre la misma línea de caché)
+ * - un array protegido por un lock de escritura (el ranking anterior)
+ *
+ * Se ejecuta con 1, 2, 4 y 8 hilos: el LongAdder debe escalar con los núcleos
+ * mientras los otros dos se estancan o empeoran.
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.ContadoresVotosBenchmark
+ * o desde el IDE con el main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContadoresVotosBenchmark {
+
+    private static final int NUM_FALLAS = 350;
+    private static final double EXPONENTE_ZIPF = 1.1;
+    private static final Voto.TipoVoto[] TIPOS = Voto.TipoVoto.values();
+
+    private double[] acumulada;
+    private ContadoresVotos contadores;
+    private AtomicLongArray atomicos;
+    private long[] conLock;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Setup
+    public void preparar() {
+        acumulada = new double[NUM_FALLAS];
+        double suma = 0;
+        for (int i = 0; i < NUM_FALLAS; i++) {
+            suma += 1.0 / Math.pow(i + 1, EXPONENTE_ZIPF);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < NUM_FALLAS; i++) {
+            acumulada[i] /= suma;
+        }
+        contadores = new ContadoresVotos();
+        atomicos = new AtomicLongArray(NUM_FALLAS * TIPOS.length);
+        conLock = new long[NUM_FALLAS * TIPOS.length];
+    }
+
+    /**
+     * Generador por hilo (cada hilo de JMH tiene el suyo)
+     */
+    @State(Scope.Thread)
+    public static class Generador {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int falla(double[] acumulada) {
+            int pos = Arrays.binarySearch(acumulada, random.nextDouble());
+            return Math.min(pos >= 0 ? pos : -pos - 1, acumulada.length - 1);
+        }
+
+        int tipo() {
+            return random.nextInt(TIPOS.length);
+        }
+    }
+
+    @Benchmark
+    public void longAdder(Generador generador) {
+        contadores.sumar(generador.falla(acumulada) + 1L, TIPOS[generador.tipo()], 1);
+    }
+
+    @Benchmark
+    public long atomicLong(Generador generador) {
+        return atomicos.incrementAndGet(generador.falla(acumulada) * TIPOS.length + generador.tipo());
+    }
+
+    @Benchmark
+    public long lockEscritura(Generador generador) {
+        int indice = generador.falla(acumulada) * TIPOS.length + generador.tipo();
+        lock.writeLock().lock();
+        try {
+            return ++conLock[indice];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int hilos : new int[]{1, 2, 4, 8}) {
+            new Runner(new OptionsBuilder()
+                    .include(ContadoresVotosBenchmark.class.getSimpleName())
+                    .threads(hilos)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.dto.FallaDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datos compartidos por los microbenchmarks
+ *
+ * Carga el catálogo real de `07.datos/raw/falles-fallas.jsonl` (ejecutando
+ * desde 01.backend o desde la raíz del repo). Si no se encuentra, genera
+ * 351 fallas sintéticas repartidas por València con semilla fija.
+ */
+public final class DatosBenchmark {
+
+    private static final String[] RUTAS = {
+            "../07.datos/raw/falles-fallas.jsonl",
+            "07.datos/raw/falles-fallas.jsonl"
+    };
+
+    private DatosBenchmark() {
+    }
+
+    public static List<FallaDTO> cargarFallas() {
+        for (String ruta : RUTAS) {
+            Path path = Path.of(ruta);
+            if (Files.isReadable(path)) {
+                try {
+                    return leerJsonl(path);
+                } catch (IOException e) {
+                    throw new IllegalStateException("No se pudo leer " + path, e);
+                }
+            }
+        }
+        return generarFallas(351, 42L);
+    }
+
+    public static List<FallaDTO> generarFallas(int total, long semilla) {
+        Random random = new Random(semilla);
+        List<FallaDTO> fallas = new ArrayList<>(total);
+        for (long id = 1; id <= total; id++) {
+            fallas.add(FallaDTO.builder()
+                    .idFalla(id)
+                    .nombre("Falla " + id)
+                    .seccion(String.valueOf(1 + random.nextInt(8)) + (char) ('A' + random.nextInt(3)))
+                    .categoria("primera")
+                    .latitud(39.42 + random.nextDouble() * 0.10)
+                    .longitud(-0.42 + random.nextDouble() * 0.10)
+                    .build());
+        }
+        return fallas;
+    }
+
+    private static List<FallaDTO> leerJsonl(Path path) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<FallaDTO> fallas = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                JsonNode nodo = mapper.readTree(linea);
+                JsonNode punto = nodo.path("geo_point_2d");
+                fallas.add(FallaDTO.builder()
+                        .idFalla(nodo.path("id_falla").asLong())
+                        .nombre(nodo.path("nombre").asText(null))
+                        .seccion(nodo.path("seccion").asText(null))
+                        .artista(nodo.path("artista").asText(null))
+                        .lema(nodo.path("lema").asText(null))
+                        .categoria("primera")
+                        .latitud(punto.has("lat") ? punto.path("lat").asDouble() : null)
+                        .longitud(punto.has("lon") ? punto.path("lon").asDouble() : null)
+                        .build());
+            }
+        }
+        return fallas;
+    }
+}
@@ -0,0 +1,159 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.service.ClasificadorLexicoSentimiento;
+import com.fallapp.service.SentimentAnalysisService;
+import com.fallapp.service.SentimentClassifier;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparación de precisión de los clasificadores de sentimiento
+ *
+ * Clasifica la muestra etiquetada a mano de
+ * `src/test/resources/sentimiento/muestra-etiquetada.tsv` con el léxico
+ * local y, si hay HUGGINGFACE_API_TOKEN, con el modelo de Hugging Face.
+ * Imprime la exactitud, el F1 de cada etiqueta, la matriz de confusión y
+ * en cuántos comentarios coinciden ambos clasificadores.
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.EvaluacionSentimiento
+ * o desde el IDE con el main().
+ */
+public final class EvaluacionSentimiento {
+
+    public static final List<String> ETIQUETAS = List.of("positive", "neutral", "negative");
+    private static final int TAMANO_LOTE = 32;
+
+    private EvaluacionSentimiento() {
+    }
+
+    /**
+     * Comentario etiquetado a mano
+     */
+    public record Ejemplo(String etiqueta, String texto) {
+    }
+
+    /**
+     * Resultado de clasificar la muestra
+     *
+     * @param confusion [etiqueta real][etiqueta predicha], en el orden de ETIQUETAS
+     */
+    public record Resultado(List<String> predicciones, int[][] confusion, int aciertos, int total) {
+
+        public double exactitud() {
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+
+        public double f1(String etiqueta) {
+            int k = ETIQUETAS.indexOf(etiqueta);
+            int verdaderos = confusion[k][k];
+            int predichos = 0;
+            int reales = 0;
+            for (int i = 0; i < ETIQUETAS.size(); i++) {
+                predichos += confusion[i][k];
+                reales += confusion[k][i];
+            }
+            return predichos + reales == 0 ? 0 : 2.0 * verdaderos / (predichos + reales);
+        }
+    }
+
+    public static List<Ejemplo> cargarMuestra() {
+        List<Ejemplo> muestra = new ArrayList<>();
+        ClassPathResource recurso = new ClassPathResource("sentimiento/muestra-etiquetada.tsv");
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(recurso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                int tab = linea.indexOf('\t');
+                if (linea.startsWith("#") || tab < 0) {
+                    continue;
+                }
+                muestra.add(new Ejemplo(linea.substring(0, tab), linea.substring(tab + 1)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return muestra;
+    }
+
+    public static ClasificadorLexicoSentimiento clasificadorLexico() {
+        return new ClasificadorLexicoSentimiento(new ClassPathResource("sentimiento/lexico-es-va.txt"));
+    }
+
+    public static Resultado evaluar(SentimentClassifier clasificador, List<Ejemplo> muestra) {
+        List<String> predicciones = new ArrayList<>(muestra.size());
+        for (int i = 0; i < muestra.size(); i += TAMANO_LOTE) {
+            List<String> textos = muestra.subList(i, Math.min(muestra.size(), i + TAMANO_LOTE)).stream()
+                    .map(Ejemplo::texto)
+                    .toList();
+            predicciones.addAll(clasificador.etiquetar(textos));
+        }
+
+        int[][] confusion = new int[ETIQUETAS.size()][ETIQUETAS.size()];
+        int aciertos = 0;
+        for (int i = 0; i < muestra.size(); i++) {
+            int real = ETIQUETAS.indexOf(muestra.get(i).etiqueta());
+            int predicha = ETIQUETAS.indexOf(predicciones.get(i));
+            if (predicha >= 0) {
+                confusion[real][predicha]++;
+            }
+            if (real == predicha) {
+                aciertos++;
+            }
+        }
+        return new Resultado(predicciones, confusion, aciertos, muestra.size());
+    }
+
+    private static void imprimir(String nombre, Resultado resultado, long nanos) {
+        System.out.printf("%n== %s ==%n", nombre);
+        System.out.printf("Exactitud: %.1f%% (%d/%d) en %.1f ms%n",
+                resultado.exactitud() * 100, resultado.aciertos(), resultado.total(), nanos / 1e6);
+        for (String etiqueta : ETIQUETAS) {
+            System.out.printf("F1 %-8s %.2f%n", etiqueta, resultado.f1(etiqueta));
+        }
+        System.out.printf("%-10s %8s %8s %8s%n", "real\\pred", "pos", "neu", "neg");
+        for (int i = 0; i < ETIQUETAS.size(); i++) {
+            int[] fila = resultado.confusion()[i];
+            System.out.printf("%-10s %8d %8d %8d%n", ETIQUETAS.get(i), fila[0], fila[1], fila[2]);
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Ejemplo> muestra = cargarMuestra();
+        Map<String, String> entorno = System.getenv();
+
+        long inicio = System.nanoTime();
+        Resultado lexico = evaluar(clasificadorLexico(), muestra);
+        imprimir("léxico", lexico, System.nanoTime() - inicio);
+
+        String token = entorno.getOrDefault("HUGGINGFACE_API_TOKEN", "");
+        if (token.isBlank()) {
+            System.out.println("\nSin HUGGINGFACE_API_TOKEN: se omite el modelo de Hugging Face");
+            return;
+        }
+        SentimentAnalysisService huggingFace = new SentimentAnalysisService(token,
+                entorno.getOrDefault("HUGGINGFACE_API_MODEL", "lxyuan/distilbert-base-multilingual-cased-sentiments-student"),
+                entorno.getOrDefault("HUGGINGFACE_API_BASE_URL", "https://router.huggingface.co/hf-inference/models"),
+                60_000);
+        inicio = System.nanoTime();
+        Resultado modelo = evaluar(huggingFace, muestra);
+        imprimir("huggingface", modelo, System.nanoTime() - inicio);
+
+        int coinciden = 0;
+        for (int i = 0; i < muestra.size(); i++) {
+            if (lexico.predicciones().get(i).equals(modelo.predicciones().get(i))) {
+                coinciden++;
+            }
+        }
+        System.out.printf("%nLéxico y modelo coinciden en %d de %d comentarios%n", coinciden, muestra.size());
+    }
+}
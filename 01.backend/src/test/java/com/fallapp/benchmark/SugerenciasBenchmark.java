@@ -0,0 +1,105 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.service.BuscadorFallas;
+import com.fallapp.service.SugerenciasFallas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark del autocompletado (/api/fallas/sugerencias)
+ *
+ * Mide el rendimiento en consultas/segundo con 4 hilos sobre prefijos de 1 a 6
+ * letras sacados de los propios nombres, como al teclear en el buscador.
+ * El objetivo es sostener con holgura 10.000 consultas/s; como referencia
+ * se incluye el BuscadorFallas completo para las mismas consultas.
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.SugerenciasBenchmark
+ * o desde el IDE con el main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SugerenciasBenchmark {
+
+    private static final int NUM_CONSULTAS = 1024;
+
+    private List<FallaDTO> fallas;
+    private Map<Long, Long> votos;
+    private SugerenciasFallas trie;
+    private BuscadorFallas buscador;
+    private String[] consultas;
+
+    @Setup
+    public void preparar() {
+        fallas = DatosBenchmark.cargarFallas();
+        Random random = new Random(42);
+        votos = new HashMap<>();
+        for (FallaDTO falla : fallas) {
+            votos.put(falla.getIdFalla(), (long) random.nextInt(500));
+        }
+        trie = new SugerenciasFallas(fallas, votos);
+        buscador = new BuscadorFallas(fallas);
+
+        List<String> nombres = fallas.stream().map(FallaDTO::getNombre).filter(n -> n != null && !n.isBlank()).toList();
+        consultas = new String[NUM_CONSULTAS];
+        for (int i = 0; i < NUM_CONSULTAS; i++) {
+            String nombre = nombres.get(random.nextInt(nombres.size()));
+            consultas[i] = nombre.substring(0, Math.min(nombre.length(), 1 + random.nextInt(6)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int siguiente;
+    }
+
+    @Benchmark
+    public List<SugerenciaDTO> sugerirConTrie(Cursor cursor) {
+        return trie.sugerir(consultas[cursor.siguiente++ & (NUM_CONSULTAS - 1)], SugerenciasFallas.MAX_SUGERENCIAS);
+    }
+
+    @Benchmark
+    public List<BuscadorFallas.Resultado> buscarCompleto(Cursor cursor) {
+        return buscador.buscar(consultas[cursor.siguiente++ & (NUM_CONSULTAS - 1)], SugerenciasFallas.MAX_SUGERENCIAS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SugerenciasFallas construirTrie() {
+        return new SugerenciasFallas(fallas, votos);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SugerenciasBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
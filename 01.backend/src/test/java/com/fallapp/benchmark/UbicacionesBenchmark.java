@@ -0,0 +1,99 @@
+package com.fallapp.benchmark;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.service.IndiceEspacialFallas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de búsqueda de fallas cercanas
+ *
+ * Contrapartida JMH de 06.tests/performance/test_ubicaciones_performance.sh:
+ * compara el índice espacial en rejilla con el recorrido completo con
+ * haversine por fila (equivalente en memoria de la antigua query nativa).
+ *
+ * Ejecutar desde 01.backend:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.fallapp.benchmark.UbicacionesBenchmark
+ * o desde el IDE con el main().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UbicacionesBenchmark {
+
+    /** Centro de València (Plaça de l'Ajuntament) */
+    private static final double LAT = 39.4699;
+    private static final double LON = -0.3763;
+
+    @Param({"0.5", "2.0", "5.0"})
+    public double radioKm;
+
+    private List<FallaDTO> fallas;
+    private double[] latitudes;
+    private double[] longitudes;
+    private IndiceEspacialFallas indice;
+
+    @Setup
+    public void preparar() {
+        fallas = DatosBenchmark.cargarFallas().stream()
+                .filter(f -> f.getLatitud() != null && f.getLongitud() != null)
+                .toList();
+        latitudes = fallas.stream().mapToDouble(FallaDTO::getLatitud).toArray();
+        longitudes = fallas.stream().mapToDouble(FallaDTO::getLongitud).toArray();
+        indice = new IndiceEspacialFallas(fallas);
+    }
+
+    @Benchmark
+    public List<IndiceEspacialFallas.Resultado> radioConRejilla() {
+        return indice.buscarEnRadio(LAT, LON, radioKm);
+    }
+
+    @Benchmark
+    public List<IndiceEspacialFallas.Resultado> radioRecorridoCompleto() {
+        List<IndiceEspacialFallas.Resultado> resultado = new ArrayList<>();
+        for (int i = 0; i < latitudes.length; i++) {
+            double distancia = IndiceEspacialFallas.distanciaKm(LAT, LON, latitudes[i], longitudes[i]);
+            if (distancia <= radioKm) {
+                resultado.add(new IndiceEspacialFallas.Resultado(fallas.get(i), distancia));
+            }
+        }
+        resultado.sort(null);
+        return resultado;
+    }
+
+    @Benchmark
+    public List<IndiceEspacialFallas.Resultado> diezMasCercanas() {
+        return indice.buscarKMasCercanas(LAT, LON, 10);
+    }
+
+    @Benchmark
+    public IndiceEspacialFallas construirIndice() {
+        return new IndiceEspacialFallas(fallas);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UbicacionesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
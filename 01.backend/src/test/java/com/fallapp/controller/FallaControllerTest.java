@@ -3,10 +3,13 @@ package com.fallapp.controller;
 import com.fallapp.dto.ApiResponse;
 import com.fallapp.dto.FallaDTO;
 import com.fallapp.dto.PaginatedResponse;
+import com.fallapp.dto.RutaDTO;
+import com.fallapp.dto.SugerenciaDTO;
 import com.fallapp.dto.UbicacionDTO;
 import com.fallapp.exception.GlobalExceptionHandler;
 import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.service.FallaService;
+import com.fallapp.service.SugerenciasService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -41,6 +44,9 @@ class FallaControllerTest {
     @Mock
     private FallaService fallaService;
 
+    @Mock
+    private SugerenciasService sugerenciasService;
+
     @InjectMocks
     private FallaController fallaController;
 
@@ -210,7 +216,7 @@ class FallaControllerTest {
                     .nombre("Na Jordana")
                     .build();
 
-            when(fallaService.buscar("Jordana")).thenReturn(List.of(falla));
+            when(fallaService.buscar("Jordana", 20)).thenReturn(List.of(falla));
 
             // When & Then
             mockMvc.perform(get("/api/fallas/buscar")
@@ -220,6 +226,38 @@ class FallaControllerTest {
         }
     }
 
+    // ==========================================
+    // GET /api/fallas/sugerencias
+    // ==========================================
+
+    @Nested
+    @DisplayName("GET /api/fallas/sugerencias")
+    class SugerenciasTests {
+
+        @Test
+        @DisplayName("Sugerencias con límite por defecto")
+        void sugerir_retornaSugerencias() throws Exception {
+            // Given
+            SugerenciaDTO sugerencia = SugerenciaDTO.builder()
+                    .texto("Na Jordana")
+                    .tipo(SugerenciaDTO.TipoSugerencia.FALLA)
+                    .idFalla(1L)
+                    .totalFallas(1)
+                    .votos(42L)
+                    .build();
+
+            when(sugerenciasService.sugerir("jor", 10)).thenReturn(List.of(sugerencia));
+
+            // When & Then
+            mockMvc.perform(get("/api/fallas/sugerencias")
+                            .param("q", "jor"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.datos[0].texto").value("Na Jordana"))
+                    .andExpect(jsonPath("$.datos[0].tipo").value("FALLA"))
+                    .andExpect(jsonPath("$.datos[0].votos").value(42));
+        }
+    }
+
     // ==========================================
     // GET /api/fallas/cercanas
     // ==========================================
@@ -252,6 +290,55 @@ class FallaControllerTest {
         }
     }
 
+    // ==========================================
+    // GET /api/fallas/cercanas/k y /ruta
+    // ==========================================
+
+    @Nested
+    @DisplayName("GET /api/fallas/cercanas/k")
+    class KMasCercanasTests {
+
+        @Test
+        @DisplayName("k vecinos retorna fallas con distancia")
+        void kMasCercanas_retornaFallasConDistancia() throws Exception {
+            // Given
+            FallaDTO falla = FallaDTO.builder()
+                    .idFalla(1L)
+                    .nombre("Na Jordana")
+                    .distanciaKm(0.42)
+                    .build();
+
+            when(fallaService.buscarKMasCercanas(39.47, -0.37, 3)).thenReturn(List.of(falla));
+
+            // When & Then
+            mockMvc.perform(get("/api/fallas/cercanas/k")
+                            .param("latitud", "39.47")
+                            .param("longitud", "-0.37")
+                            .param("k", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.datos[0].distanciaKm").value(0.42));
+        }
+
+        @Test
+        @DisplayName("Ruta retorna paradas ordenadas")
+        void ruta_retornaParadas() throws Exception {
+            // Given
+            RutaDTO ruta = RutaDTO.builder()
+                    .paradas(List.of(FallaDTO.builder().idFalla(2L).nombre("Convento").build()))
+                    .distanciaTotalKm(0.5)
+                    .sinUbicacion(List.of())
+                    .build();
+
+            when(fallaService.calcularRuta(List.of(2L, 3L), null, null)).thenReturn(ruta);
+
+            // When & Then
+            mockMvc.perform(get("/api/fallas/ruta").param("ids", "2,3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.datos.paradas[0].idFalla").value(2))
+                    .andExpect(jsonPath("$.datos.distanciaTotalKm").value(0.5));
+        }
+    }
+
     // ==========================================
     // POST /api/fallas
     // ==========================================
@@ -0,0 +1,111 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para BuscadorFallas
+ *
+ * Cobertura: normalización (acentos, punt volat), prefijos, AND entre términos,
+ *            ranking por campo, resaltado y límite
+ *
+ * @version 1.0.0
+ */
+@DisplayName("BuscadorFallas Tests")
+class BuscadorFallasTest {
+
+    private BuscadorFallas buscador;
+
+    @BeforeEach
+    void setUp() {
+        buscador = new BuscadorFallas(List.of(
+                falla(1L, "Plaça del Pilar", "1A", "Pere Baenas", "La ciutat i la mar"),
+                falla(2L, "Convent Jerusalem", "E", "Vicente Martínez", "Un pilar de València"),
+                falla(3L, "Na Jordana", "E", "Pere Baenas", "Col·lecció de somnis"),
+                falla(4L, "Almirall Cadarso", "2B", "Manuel Algarra", "Festa major")));
+    }
+
+    private static FallaDTO falla(Long id, String nombre, String seccion, String artista, String lema) {
+        return FallaDTO.builder()
+                .idFalla(id)
+                .nombre(nombre)
+                .seccion(seccion)
+                .artista(artista)
+                .lema(lema)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Normaliza acentos, mayúsculas y punt volat")
+    void normalizar_quitaAcentosYPuntVolat() {
+        assertEquals("placa", BuscadorFallas.normalizar("Plaça"));
+        assertEquals("valencia", BuscadorFallas.normalizar("VALÈNCIA"));
+        assertEquals(List.of("colleccio", "de", "somnis"), BuscadorFallas.tokenizar("Col·lecció de somnis"));
+    }
+
+    @Test
+    @DisplayName("Encuentra sin acentos y con el último término como prefijo")
+    void buscar_sinAcentosYPorPrefijo() {
+        List<BuscadorFallas.Resultado> resultado = buscador.buscar("placa pil", 10);
+
+        assertEquals(1, resultado.size());
+        assertEquals(1L, resultado.get(0).falla().getIdFalla());
+        assertEquals("<mark>Plaça</mark> del <mark>Pilar</mark>", resultado.get(0).resaltado().get("nombre"));
+    }
+
+    @Test
+    @DisplayName("Todos los términos deben aparecer")
+    void buscar_exigeTodosLosTerminos() {
+        assertEquals(2, buscador.buscar("baenas", 10).size());
+        assertEquals(1, buscador.buscar("baenas jordana", 10).size());
+        assertTrue(buscador.buscar("baenas inexistente", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Una coincidencia en el nombre pesa más que en el lema")
+    void buscar_nombrePesaMasQueLema() {
+        List<BuscadorFallas.Resultado> resultado = buscador.buscar("pilar", 10);
+
+        assertEquals(2, resultado.size());
+        assertEquals(1L, resultado.get(0).falla().getIdFalla());
+        assertEquals(2L, resultado.get(1).falla().getIdFalla());
+        assertTrue(resultado.get(0).puntuacion() > resultado.get(1).puntuacion());
+        assertEquals("Un <mark>pilar</mark> de València", resultado.get(1).resaltado().get("lema"));
+    }
+
+    @Test
+    @DisplayName("Encuentra palabras con punt volat escritas sin él")
+    void buscar_puntVolat() {
+        List<BuscadorFallas.Resultado> resultado = buscador.buscar("colleccio", 10);
+
+        assertEquals(1, resultado.size());
+        assertEquals("<mark>Col·lecció</mark> de somnis", resultado.get(0).resaltado().get("lema"));
+    }
+
+    @Test
+    @DisplayName("El resaltado escapa el HTML del texto de la falla")
+    void buscar_resaltadoEscapaHtml() {
+        BuscadorFallas conMarcado = new BuscadorFallas(List.of(
+                falla(9L, "<img src=x onerror=alert(1)> Russafa", "1A", "A & B", "\"Russafa\" <b>viva</b>")));
+
+        List<BuscadorFallas.Resultado> resultado = conMarcado.buscar("russafa", 10);
+
+        assertEquals(1, resultado.size());
+        assertEquals("&lt;img src=x onerror=alert(1)&gt; <mark>Russafa</mark>", resultado.get(0).resaltado().get("nombre"));
+        assertEquals("&quot;<mark>Russafa</mark>&quot; &lt;b&gt;viva&lt;/b&gt;", resultado.get(0).resaltado().get("lema"));
+    }
+
+    @Test
+    @DisplayName("Respeta el límite y devuelve vacío con consulta vacía")
+    void buscar_limiteYConsultaVacia() {
+        assertEquals(1, buscador.buscar("e", 1).size());
+        assertTrue(buscador.buscar("  ¿? ", 10).isEmpty());
+        assertTrue(buscador.buscar(null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,134 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para CacheSentimientoService
+ *
+ * Cobertura: normalización de la clave, nivel en memoria y en BD,
+ *            desalojo LRU, fallos de BD y métricas
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheSentimientoService Tests")
+class CacheSentimientoServiceTest {
+
+    private static final SentimentClassifier.Clasificacion POSITIVO = new SentimentClassifier.Clasificacion("positive", 0.9);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheSentimientoService cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CacheSentimientoService(jdbcTemplate, meterRegistry, 2);
+    }
+
+    private double contador(String resultado, String nivel) {
+        return meterRegistry.counter("fallapp.sentimiento.cache", "resultado", resultado, "nivel", nivel).count();
+    }
+
+    @Test
+    @DisplayName("Textos iguales salvo mayúsculas, acentos, espacios y signos repetidos comparten clave")
+    void clave_normalizada() {
+        String clave = CacheSentimientoService.clave("lexico", "Molt bonica!");
+        assertEquals(clave, CacheSentimientoService.clave("lexico", "  MOLT   bònica!!! "));
+        assertEquals(64, clave.length());
+        assertNotEquals(clave, CacheSentimientoService.clave("huggingface:modelo", "Molt bonica!"));
+        assertNotEquals(clave, CacheSentimientoService.clave("lexico", "Molt bonica?"));
+        assertEquals(CacheSentimientoService.clave("lexico", "😍"), CacheSentimientoService.clave("lexico", "😍😍😍"));
+    }
+
+    @Test
+    @DisplayName("Lo guardado se sirve desde memoria sin ir a BD")
+    void buscar_memoria() {
+        cache.guardar("lexico", Map.of("a", POSITIVO));
+
+        assertEquals(Map.of("a", POSITIVO), cache.buscar(List.of("a")));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        assertEquals(1.0, contador("acierto", "memoria"));
+    }
+
+    @Test
+    @DisplayName("Las claves que faltan en memoria se buscan en BD en una sola consulta")
+    void buscar_bd() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("clave")).thenReturn("b");
+        when(rs.getString("etiqueta")).thenReturn("negative");
+        when(rs.getDouble("confianza")).thenReturn(0.8);
+        doAnswer(inv -> {
+            inv.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        Map<String, SentimentClassifier.Clasificacion> encontrados = cache.buscar(List.of("b", "c", "c"));
+
+        assertEquals(Map.of("b", new SentimentClassifier.Clasificacion("negative", 0.8)), encontrados);
+        verify(jdbcTemplate).query(contains("IN (?,?)"), any(RowCallbackHandler.class), any(Object[].class));
+        assertEquals(1.0, contador("acierto", "bd"));
+        assertEquals(1.0, contador("fallo", "ninguno"));
+        assertEquals(0.5, cache.tasaAciertos());
+        assertEquals(1, cache.entradasEnMemoria());
+    }
+
+    @Test
+    @DisplayName("La memoria desaloja la entrada menos usada recientemente")
+    void guardar_lru() {
+        cache.guardar("lexico", Map.of("a", POSITIVO));
+        cache.guardar("lexico", Map.of("b", POSITIVO));
+        cache.buscar(List.of("a"));
+        cache.guardar("lexico", Map.of("c", POSITIVO));
+
+        assertEquals(2, cache.entradasEnMemoria());
+        assertTrue(cache.buscar(List.of("a")).containsKey("a"));
+        assertFalse(cache.buscar(List.of("b")).containsKey("b"));
+    }
+
+    @Test
+    @DisplayName("Un fallo de BD se trata como fallo de cache")
+    void buscar_bdCaida() {
+        doThrow(new DataAccessResourceFailureException("caída"))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        doThrow(new DataAccessResourceFailureException("caída")).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        assertTrue(cache.buscar(List.of("x")).isEmpty());
+        assertDoesNotThrow(() -> cache.guardar("lexico", Map.of("x", POSITIVO)));
+        assertEquals(Map.of("x", POSITIVO), cache.buscar(List.of("x")));
+    }
+
+    @Test
+    @DisplayName("La latencia ahorrada usa la media de latencia del modelo por texto")
+    void buscar_latenciaAhorrada() {
+        cache.registrarLatenciaModelo(400_000_000L, 4);
+        cache.guardar("lexico", Map.of("a", POSITIVO));
+
+        cache.buscar(List.of("a", "a"));
+
+        assertEquals(0.1, meterRegistry.counter("fallapp.sentimiento.cache.latencia-ahorrada").count(), 1e-9);
+    }
+}
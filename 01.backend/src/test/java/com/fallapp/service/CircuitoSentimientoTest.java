@@ -0,0 +1,147 @@
+package com.fallapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para CircuitoSentimiento y LimiteConcurrenciaAdaptativo
+ *
+ * Cobertura: apertura tras fallos seguidos, prueba única en semiabierto,
+ *            reapertura, aumento aditivo y reducción multiplicativa del límite
+ *
+ * @version 1.0.0
+ */
+@DisplayName("CircuitoSentimiento y LimiteConcurrenciaAdaptativo Tests")
+class CircuitoSentimientoTest {
+
+    private long ahora;
+    private CircuitoSentimiento circuito;
+
+    @BeforeEach
+    void setUp() {
+        ahora = 0;
+        Clock reloj = new Clock() {
+            @Override
+            public long millis() {
+                return ahora;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(ahora);
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+        };
+        circuito = new CircuitoSentimiento(3, 1000, reloj);
+    }
+
+    @Test
+    @DisplayName("Se abre tras N fallos seguidos; un éxito reinicia la cuenta")
+    void circuito_abre() {
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        circuito.registrarExito();
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        assertTrue(circuito.permitir());
+
+        circuito.registrarFallo();
+        assertEquals(CircuitoSentimiento.Estado.ABIERTO, circuito.estado());
+        assertFalse(circuito.permitir());
+    }
+
+    @Test
+    @DisplayName("Pasada la espera deja pasar una sola prueba que decide el estado")
+    void circuito_semiabierto() {
+        for (int i = 0; i < 3; i++) {
+            circuito.registrarFallo();
+        }
+        ahora = 1000;
+        assertEquals(CircuitoSentimiento.Estado.SEMIABIERTO, circuito.estado(), "Vencida la espera sin consumir la prueba");
+
+        assertTrue(circuito.permitir());
+        assertEquals(CircuitoSentimiento.Estado.SEMIABIERTO, circuito.estado());
+        assertFalse(circuito.permitir(), "Solo una llamada de prueba");
+
+        circuito.registrarFallo();
+        assertEquals(CircuitoSentimiento.Estado.ABIERTO, circuito.estado());
+        ahora = 1999;
+        assertFalse(circuito.permitir());
+
+        ahora = 2000;
+        assertTrue(circuito.permitir());
+        circuito.registrarExito();
+        assertEquals(CircuitoSentimiento.Estado.CERRADO, circuito.estado());
+        assertTrue(circuito.permitir());
+        assertTrue(circuito.permitir());
+    }
+
+    @Test
+    @DisplayName("El límite crece con respuestas rápidas y baja con lentas o sobrecarga")
+    void limite_aimd() throws InterruptedException {
+        LimiteConcurrenciaAdaptativo limite = new LimiteConcurrenciaAdaptativo(1, 2, 6, 2.0);
+
+        for (int i = 0; i < 20; i++) {
+            limite.adquirir();
+            limite.registrarExito(100);
+        }
+        assertEquals(6, limite.limite(), "Aumento aditivo hasta el máximo");
+
+        limite.adquirir();
+        limite.registrarExito(1000);
+        assertEquals(4, limite.limite(), "Respuesta lenta: ×0.75");
+
+        limite.adquirir();
+        limite.registrarSobrecarga();
+        assertEquals(4, limite.limite(), "Como mucho una reducción por ronda");
+
+        for (int i = 0; i < 4; i++) {
+            limite.adquirir();
+            limite.registrarFallo();
+        }
+        limite.adquirir();
+        limite.registrarSobrecarga();
+        assertEquals(3, limite.limite());
+        assertEquals(0, limite.enVuelo());
+    }
+
+    @Test
+    @DisplayName("adquirir espera mientras el límite está ocupado")
+    void limite_bloquea() throws Exception {
+        LimiteConcurrenciaAdaptativo limite = new LimiteConcurrenciaAdaptativo(1, 1, 1, 2.0);
+        limite.adquirir();
+
+        Thread esperando = new Thread(() -> {
+            try {
+                limite.adquirir();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        esperando.start();
+        esperando.join(200);
+        assertTrue(esperando.isAlive());
+
+        limite.registrarExito(100);
+        esperando.join(2000);
+        assertFalse(esperando.isAlive());
+        assertEquals(1, limite.enVuelo());
+    }
+}
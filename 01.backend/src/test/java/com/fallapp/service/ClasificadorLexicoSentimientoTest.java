@@ -0,0 +1,95 @@
+package com.fallapp.service;
+
+import com.fallapp.benchmark.EvaluacionSentimiento;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ClasificadorLexicoSentimiento
+ *
+ * Cobertura: castellano y valenciano, expresiones de varias palabras,
+ *            negación, intensificadores, plurales, formato del léxico
+ *            y exactitud mínima sobre la muestra etiquetada
+ *
+ * @version 1.0.0
+ */
+@DisplayName("ClasificadorLexicoSentimiento Tests")
+class ClasificadorLexicoSentimientoTest {
+
+    private static ClasificadorLexicoSentimiento clasificador;
+
+    @BeforeAll
+    static void setUp() {
+        clasificador = EvaluacionSentimiento.clasificadorLexico();
+    }
+
+    private static ClasificadorLexicoSentimiento lexico(String contenido) {
+        return new ClasificadorLexicoSentimiento(new ByteArrayResource(contenido.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Clasifica un lote en el mismo orden")
+    void clasificar_lote() {
+        assertEquals(List.of("positive", "negative", "neutral"), clasificador.etiquetar(List.of(
+                "Preciosa, enhorabuena", "Qué falla més lletja", "¿A qué hora es la cremà?")));
+    }
+
+    @Test
+    @DisplayName("La negación invierte y atenúa la polaridad")
+    void puntuar_negacion() {
+        assertEquals("negative", clasificador.clasificar("No es bonita"));
+        assertEquals("positive", clasificador.clasificar("No está mal"));
+        assertTrue(clasificador.puntuar("No está mal") < clasificador.puntuar("Está mal") * -1);
+        assertEquals("positive", clasificador.clasificar("Sin duda la mejor"), "\"sin duda\" no niega");
+    }
+
+    @Test
+    @DisplayName("Gana la expresión más larga del léxico")
+    void puntuar_ngramas() {
+        assertEquals("negative", clasificador.clasificar("No me gusta"));
+        assertEquals("positive", clasificador.clasificar("Vale la pena"));
+        assertEquals("negative", clasificador.clasificar("No m'agrada"));
+    }
+
+    @Test
+    @DisplayName("Intensificadores, acentos y plurales")
+    void puntuar_intensidadYFormas() {
+        assertEquals(clasificador.puntuar("bonita") * 1.5, clasificador.puntuar("muy bonita"), 1e-9);
+        assertEquals(clasificador.puntuar("fantastica"), clasificador.puntuar("FANTÀSTICA"), 1e-9);
+        assertEquals(clasificador.puntuar("horrible"), clasificador.puntuar("horribles"), 1e-9);
+        assertEquals(clasificador.puntuar("bonita") * 0.5, clasificador.puntuar("un poco bonita"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Léxico mínimo cargado desde cualquier recurso")
+    void lexico_formato() {
+        ClasificadorLexicoSentimiento minimo = lexico("""
+                # comentario
+                guay 2
+                nope NEG
+                super x2
+                """);
+        assertEquals(1, minimo.tamanoLexico());
+        assertEquals(4.0, minimo.puntuar("super guay"), 1e-9);
+        assertEquals("negative", minimo.clasificar("nope guay"));
+        assertThrows(IllegalArgumentException.class, () -> lexico("guay"));
+        assertThrows(IllegalArgumentException.class, () -> lexico("guay mucho"));
+    }
+
+    @Test
+    @DisplayName("Exactitud mínima sobre la muestra etiquetada")
+    void evaluar_muestra() {
+        EvaluacionSentimiento.Resultado resultado = EvaluacionSentimiento.evaluar(
+                clasificador, EvaluacionSentimiento.cargarMuestra());
+
+        assertTrue(resultado.total() >= 50);
+        assertTrue(resultado.exactitud() >= 0.85, "Exactitud " + resultado.exactitud());
+    }
+}
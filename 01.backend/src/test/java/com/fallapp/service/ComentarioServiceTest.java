@@ -1,6 +1,9 @@
 package com.fallapp.service;
 
 import com.fallapp.dto.ComentarioDTO;
+import com.fallapp.dto.PaginaComentariosDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Comentario;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
@@ -14,14 +17,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -30,8 +36,7 @@ import static org.mockito.Mockito.*;
  * Cobertura:
  * - Crear comentario con validación de idFalla
  * - Crear comentario con validación de idNinot
- * - Obtener comentarios por falla
- * - Obtener comentarios por ninot
+ * - Listar comentarios por falla y globales (paginación por cursor)
  * - Actualizar comentario existente
  * - Eliminar comentario
  * - Manejo de excepciones (entidades no encontradas)
@@ -51,6 +56,8 @@ class ComentarioServiceTest {
     @Mock
     private FallaRepository fallaRepository;
 
+    @Mock
+    private OutboxComentariosService outboxComentarios;
 
     @InjectMocks
     private ComentarioService comentarioService;
@@ -105,6 +112,8 @@ class ComentarioServiceTest {
         assertEquals(1L, resultado.getIdComentario());
         assertEquals("Este es un comentario de prueba", resultado.getContenido());
         verify(comentarioRepository, times(1)).save(any(Comentario.class));
+        verify(outboxComentarios).registrar(1L);
+        verify(outboxComentarios).despertar();
     }
 
     @Test
@@ -169,40 +178,68 @@ class ComentarioServiceTest {
         verify(comentarioRepository, never()).save(any(Comentario.class));
     }
 
+    private static ComentarioDTO dto(long id, LocalDateTime fecha) {
+        return ComentarioDTO.builder()
+                .idComentario(id)
+                .idUsuario(1L)
+                .nombreUsuario("Test User")
+                .idFalla(1L)
+                .nombreFalla("Falla Plaza del Ayuntamiento")
+                .contenido("Comentario " + id)
+                .fechaCreacion(fecha)
+                .build();
+    }
+
     @Test
-    void testObtenerPorFalla_Success() {
-        // Arrange
-        List<Comentario> comentarios = Arrays.asList(comentarioMock);
-        when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
-        when(comentarioRepository.findByFallaOrderByCreadoEnDesc(fallaMock)).thenReturn(comentarios);
+    void testListarPorFalla_PrimeraPaginaConCursor() {
+        // Arrange: se piden 2, el repositorio devuelve 3 → hay página siguiente
+        LocalDateTime fecha = LocalDateTime.of(2026, 3, 15, 12, 0);
+        when(fallaRepository.existsById(1L)).thenReturn(true);
+        when(comentarioRepository.findPaginaPorFalla(eq(1L), any(Pageable.class))).thenReturn(List.of(
+                dto(30L, fecha), dto(29L, fecha), dto(28L, fecha.minusMinutes(1))));
 
         // Act
-        List<ComentarioDTO> resultado = comentarioService.obtenerPorFalla(1L);
+        PaginaComentariosDTO pagina = comentarioService.listar(1L, 2, null);
 
         // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        assertEquals("Este es un comentario de prueba", resultado.get(0).getContenido());
-        verify(comentarioRepository, times(1)).findByFallaOrderByCreadoEnDesc(fallaMock);
+        assertEquals(2, pagina.getComentarios().size());
+        assertEquals(2, pagina.getLimite());
+        assertNotNull(pagina.getSiguienteCursor());
+        verify(comentarioRepository).findPaginaPorFalla(1L, PageRequest.of(0, 3));
     }
 
     @Test
-    void testObtenerPorFalla_AsNinotScenario_Success() {
+    void testListarPorFalla_PaginaSiguienteDesdeCursor() {
         // Arrange
-        comentarioMock.setFalla(fallaMock);
-        // Ninot ya no tiene relación con comentarios
-        List<Comentario> comentarios = Arrays.asList(comentarioMock);
-        
-        when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
-        when(comentarioRepository.findByFallaOrderByCreadoEnDesc(fallaMock)).thenReturn(comentarios);
+        LocalDateTime fecha = LocalDateTime.of(2026, 3, 15, 12, 0, 5, 123_000_000);
+        when(fallaRepository.existsById(1L)).thenReturn(true);
+        when(comentarioRepository.findPaginaPorFalla(eq(1L), any(Pageable.class))).thenReturn(List.of(
+                dto(30L, fecha), dto(29L, fecha)));
+        String cursor = comentarioService.listar(1L, 1, null).getSiguienteCursor();
+        when(comentarioRepository.findPaginaPorFallaAnteriorA(eq(1L), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(dto(29L, fecha)));
 
         // Act
-        List<ComentarioDTO> resultado = comentarioService.obtenerPorFalla(1L);
+        PaginaComentariosDTO pagina = comentarioService.listar(1L, 1, cursor);
 
-        // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        verify(comentarioRepository, times(1)).findByFallaOrderByCreadoEnDesc(fallaMock);
+        // Assert: el cursor lleva la fecha y el id exactos del último comentario
+        verify(comentarioRepository).findPaginaPorFallaAnteriorA(1L, fecha, 30L, PageRequest.of(0, 2));
+        assertEquals(29L, pagina.getComentarios().get(0).getIdComentario());
+        assertNull(pagina.getSiguienteCursor(), "Última página sin cursor");
+    }
+
+    @Test
+    void testListarPorFalla_FallaNoEncontrada() {
+        when(fallaRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> comentarioService.listar(99L, null, null));
+        verifyNoInteractions(comentarioRepository);
+    }
+
+    @Test
+    void testListar_CursorNoValido() {
+        assertThrows(BadRequestException.class, () -> comentarioService.listar(null, null, "no-es-un-cursor"));
+        verifyNoInteractions(comentarioRepository);
     }
 
     @Test
@@ -252,17 +289,33 @@ class ComentarioServiceTest {
     }
 
     @Test
-    void testObtenerTodos_Success() {
+    void testListarTodos_LimitePorDefectoYMaximo() {
         // Arrange
-        List<Comentario> comentarios = Arrays.asList(comentarioMock);
-        when(comentarioRepository.findAll()).thenReturn(comentarios);
+        when(comentarioRepository.findPagina(any(Pageable.class))).thenReturn(List.of(dto(1L, LocalDateTime.now())));
 
         // Act
-        List<ComentarioDTO> resultado = comentarioService.obtenerTodos();
+        PaginaComentariosDTO pagina = comentarioService.listar(null, null, null);
+        comentarioService.listar(null, 5000, null);
 
         // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        verify(comentarioRepository, times(1)).findAll();
+        assertEquals(1, pagina.getComentarios().size());
+        assertEquals(20, pagina.getLimite());
+        assertNull(pagina.getSiguienteCursor());
+        verify(comentarioRepository).findPagina(PageRequest.of(0, 21));
+        verify(comentarioRepository).findPagina(PageRequest.of(0, 101));
+    }
+
+    @Test
+    void testReanalizarSentimiento_AnadePendientesAlOutbox() {
+        // Arrange
+        when(outboxComentarios.registrarPendientes(anyInt())).thenReturn(7);
+
+        // Act
+        int anadidos = comentarioService.reanalizarSentimientoPendientes();
+
+        // Assert
+        assertEquals(7, anadidos);
+        verify(comentarioRepository).sincronizarContenidoDesdeTextoComentario();
+        verify(outboxComentarios).despertar();
     }
 }
@@ -0,0 +1,88 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para ContadoresVotos
+ *
+ * Cobertura: sumas por falla/tipo, totales, copia y sumas concurrentes
+ *
+ * @version 1.0.0
+ */
+@DisplayName("ContadoresVotos Tests")
+class ContadoresVotosTest {
+
+    @Test
+    @DisplayName("Suma por falla y tipo y mantiene los totales")
+    void sumar_porFallaYTipo() {
+        ContadoresVotos contadores = new ContadoresVotos();
+
+        contadores.sumar(1L, Voto.TipoVoto.MONUMENTO, 3);
+        contadores.sumar(1L, Voto.TipoVoto.EXPERIMENTAL, 2);
+        contadores.sumar(2L, Voto.TipoVoto.MONUMENTO, 1);
+        contadores.sumar(1L, Voto.TipoVoto.MONUMENTO, -1);
+
+        assertEquals(2L, contadores.votos(1L, Voto.TipoVoto.MONUMENTO));
+        assertEquals(4L, contadores.votos(1L, null));
+        assertEquals(0L, contadores.votos(99L, null));
+        assertEquals(3L, contadores.total(Voto.TipoVoto.MONUMENTO));
+        assertEquals(5L, contadores.total(null));
+        assertEquals(4L, contadores.cambios());
+    }
+
+    @Test
+    @DisplayName("La copia es independiente de los contadores")
+    void copia_independiente() {
+        ContadoresVotos contadores = new ContadoresVotos();
+        contadores.sumar(1L, Voto.TipoVoto.MONUMENTO, 3);
+
+        Map<Long, long[]> copia = contadores.copia();
+        contadores.sumar(1L, Voto.TipoVoto.MONUMENTO, 1);
+
+        assertEquals(3L, copia.get(1L)[Voto.TipoVoto.MONUMENTO.ordinal()]);
+        assertEquals(4L, contadores.votos(1L, Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Las sumas concurrentes a la misma falla no se pierden")
+    void sumar_concurrente() throws InterruptedException {
+        ContadoresVotos contadores = new ContadoresVotos();
+        int hilos = 4;
+        int votosPorHilo = 10_000;
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> trabajadores = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < votosPorHilo; i++) {
+                    contadores.sumar(1L + (i & 1), Voto.TipoVoto.MONUMENTO, 1);
+                }
+            });
+            hilo.start();
+            trabajadores.add(hilo);
+        }
+
+        salida.countDown();
+        for (Thread hilo : trabajadores) {
+            hilo.join();
+        }
+
+        assertEquals((long) hilos * votosPorHilo, contadores.total(null));
+        assertEquals((long) hilos * votosPorHilo / 2, contadores.votos(1L, Voto.TipoVoto.MONUMENTO));
+        assertEquals((long) hilos * votosPorHilo, contadores.cambios());
+    }
+}
@@ -0,0 +1,149 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para EjecutorAcotado
+ *
+ * Cobertura: métricas de cola, hilos activos y latencia, desbordamiento de
+ *            TareaDiferida a tareas_pendientes, rechazo del resto y
+ *            hilos virtuales en una JVM sin soporte
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EjecutorAcotado Tests")
+class EjecutorAcotadoTest {
+
+    @Mock
+    private TareasPendientesService tareasPendientes;
+
+    private SimpleMeterRegistry registry;
+    private EjecutorAcotado ejecutor;
+    /** Retiene el único hilo del ejecutor hasta que el test lo suelte */
+    private CountDownLatch bloqueo;
+    private CountDownLatch ocupado;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        ejecutor = new EjecutorAcotado("prueba", 1, 1, false, registry, tareasPendientes);
+        bloqueo = new CountDownLatch(1);
+        ocupado = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        bloqueo.countDown();
+        ejecutor.destroy();
+    }
+
+    /** Ocupar el hilo y llenar la cola */
+    private void saturar() throws InterruptedException {
+        ejecutor.execute(() -> {
+            ocupado.countDown();
+            try {
+                bloqueo.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(ocupado.await(2, TimeUnit.SECONDS));
+        ejecutor.execute(() -> { });
+    }
+
+    private double gauge(String nombre) {
+        return registry.get(nombre).tag("ejecutor", "prueba").gauge().value();
+    }
+
+    @Test
+    @DisplayName("Publica profundidad de cola, hilos activos y latencia por ejecutor")
+    void metricas() throws InterruptedException {
+        saturar();
+
+        assertEquals(1.0, gauge("fallapp.ejecutor.cola"));
+        assertEquals(1.0, gauge("fallapp.ejecutor.activos"));
+        assertEquals(1, ejecutor.tareasEnCola());
+
+        bloqueo.countDown();
+        ejecutor.destroy();
+        assertEquals(2, registry.get("fallapp.ejecutor.duracion").tag("ejecutor", "prueba").timer().count());
+        assertEquals(2, registry.get("fallapp.ejecutor.espera").tag("ejecutor", "prueba").timer().count());
+        assertEquals(0.0, gauge("fallapp.ejecutor.cola"));
+    }
+
+    @Test
+    @DisplayName("Con la cola llena una TareaDiferida se guarda para reintentar")
+    void desbordar_tareaDiferida() throws InterruptedException {
+        saturar();
+        when(tareasPendientes.guardar("prueba", "email.bienvenida", "a@b.es\nAna")).thenReturn(true);
+
+        assertDoesNotThrow(() -> ejecutor.execute(new TareaDiferida("email.bienvenida", "a@b.es\nAna", () -> { })));
+
+        verify(tareasPendientes).guardar("prueba", "email.bienvenida", "a@b.es\nAna");
+        assertEquals(1.0, registry.get("fallapp.ejecutor.rechazos").tags("ejecutor", "prueba", "destino", "tabla").counter().count());
+    }
+
+    @Test
+    @DisplayName("Con la cola llena una tarea normal se rechaza")
+    void desbordar_tareaNormal() throws InterruptedException {
+        saturar();
+
+        assertThrows(TaskRejectedException.class, () -> ejecutor.execute(() -> { }));
+
+        verifyNoInteractions(tareasPendientes);
+        assertEquals(1.0, registry.get("fallapp.ejecutor.rechazos").tags("ejecutor", "prueba", "destino", "error").counter().count());
+    }
+
+    @Test
+    @DisplayName("Si no se puede guardar la TareaDiferida también se rechaza")
+    void desbordar_sinBd() throws InterruptedException {
+        saturar();
+        when(tareasPendientes.guardar(anyString(), anyString(), anyString())).thenReturn(false);
+
+        assertThrows(TaskRejectedException.class,
+                () -> ejecutor.execute(new TareaDiferida("email.bienvenida", "x", () -> { })));
+    }
+
+    @Test
+    @DisplayName("Un error en una tarea no mata el hilo del ejecutor")
+    void execute_errorEnTarea() throws InterruptedException {
+        CountDownLatch hecha = new CountDownLatch(1);
+        ejecutor.execute(() -> {
+            throw new IllegalStateException("fallo");
+        });
+        ejecutor.execute(hecha::countDown);
+
+        assertTrue(hecha.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Los hilos virtuales se usan solo si la JVM los soporta")
+    void hilosVirtuales() throws InterruptedException {
+        EjecutorAcotado virtual = new EjecutorAcotado("virtual", 1, 1, true, registry, null);
+        try {
+            assertEquals(Runtime.version().feature() >= 21, virtual.usaHilosVirtuales());
+            CountDownLatch hecha = new CountDownLatch(1);
+            virtual.execute(hecha::countDown);
+            assertTrue(hecha.await(2, TimeUnit.SECONDS));
+        } finally {
+            virtual.destroy();
+        }
+        assertFalse(ejecutor.usaHilosVirtuales());
+    }
+}
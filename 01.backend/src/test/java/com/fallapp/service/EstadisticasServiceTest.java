@@ -1,5 +1,9 @@
 package com.fallapp.service;
 
+import com.fallapp.dto.SentimientoFallasDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.model.Voto;
+import com.fallapp.util.TestDataFactory;
 import com.fallapp.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,10 +11,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -23,6 +34,7 @@ import static org.mockito.Mockito.*;
  * - Estadísticas de usuarios por rol
  * - Actividad reciente del sistema
  * - Estadísticas de eventos por tipo
+ * - Sentimiento por falla y ranking desde el agregado sentimiento_fallas
  * 
  * @version 0.4.0
  * @since 2026-02-01
@@ -47,6 +59,15 @@ class EstadisticasServiceTest {
     @Mock
     private ComentarioRepository comentarioRepository;
 
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    @Mock
+    private EstadisticasSnapshotService estadisticasSnapshotService;
+
+    @Mock
+    private EstadisticasRepository estadisticasRepository;
+
     @InjectMocks
     private EstadisticasService estadisticasService;
 
@@ -55,16 +76,20 @@ class EstadisticasServiceTest {
         // Configuración inicial de mocks si es necesaria
     }
 
+    private EstadisticasSnapshotService.Snapshot snapshot(long fallas, long eventos, long usuarios,
+                                                          long votos, long comentarios, long activos) {
+        return new EstadisticasSnapshotService.Snapshot(
+                fallas, eventos, 3L, usuarios, activos, votos, comentarios,
+                Map.of("especial", 15L, "primera", 42L),
+                Map.of("admin", 2L, "casal", 5L, "usuario", usuarios - 7L),
+                Map.of("planta", 10L, "crema", 8L),
+                LocalDateTime.now(), System.currentTimeMillis());
+    }
+
     @Test
     void testObtenerResumenGeneral_Success() {
         // Arrange
-        when(fallaRepository.count()).thenReturn(347L);
-        when(eventoRepository.count()).thenReturn(128L);
-        // ninots removed
-        when(usuarioRepository.count()).thenReturn(89L);
-        when(votoRepository.count()).thenReturn(1024L);
-        when(comentarioRepository.count()).thenReturn(156L);
-        when(usuarioRepository.findByActivoTrue()).thenReturn(java.util.Collections.emptyList());
+        when(estadisticasSnapshotService.obtener()).thenReturn(snapshot(347L, 128L, 89L, 1024L, 156L, 67L));
 
         // Act
         Map<String, Object> resultado = estadisticasService.obtenerResumenGeneral();
@@ -77,28 +102,20 @@ class EstadisticasServiceTest {
         assertEquals(89L, resultado.get("totalUsuarios"));
         assertEquals(1024L, resultado.get("totalVotos"));
         assertEquals(156L, resultado.get("totalComentarios"));
+        assertEquals(67L, resultado.get("usuariosActivos"));
         // NOTA v0.5.0: ninotsPremiados eliminado (campo premiado no existe en ninots simplificados)
         assertNotNull(resultado.get("fechaGeneracion"));
 
-        // Verificar que se llamaron todos los métodos
-        verify(fallaRepository, times(1)).count();
-        verify(eventoRepository, times(1)).count();
-        // ninotRepository verification removed
-        verify(usuarioRepository, times(1)).count();
-        verify(votoRepository, times(1)).count();
-        verify(comentarioRepository, times(1)).count();
+        // El resumen se sirve desde el snapshot: ningún COUNT individual por petición
+        verify(estadisticasSnapshotService, times(1)).obtener();
+        verifyNoInteractions(fallaRepository, eventoRepository, usuarioRepository,
+                votoRepository, comentarioRepository);
     }
 
     @Test
     void testObtenerResumenGeneral_ConCeroElementos() {
         // Arrange - Sistema vacío
-        when(fallaRepository.count()).thenReturn(0L);
-        when(eventoRepository.count()).thenReturn(0L);
-        // ninots removed
-        when(usuarioRepository.count()).thenReturn(0L);
-        when(votoRepository.count()).thenReturn(0L);
-        when(comentarioRepository.count()).thenReturn(0L);
-        when(usuarioRepository.findByActivoTrue()).thenReturn(java.util.Collections.emptyList());
+        when(estadisticasSnapshotService.obtener()).thenReturn(snapshot(0L, 0L, 7L, 0L, 0L, 0L));
 
         // Act
         Map<String, Object> resultado = estadisticasService.obtenerResumenGeneral();
@@ -108,21 +125,15 @@ class EstadisticasServiceTest {
         assertEquals(0L, resultado.get("totalFallas"));
         assertEquals(0L, resultado.get("totalEventos"));
         // totalNinots removed
-        // usuariosActivos devuelve Integer (size()), no Long
-        assertEquals(0, resultado.get("usuariosActivos"));
+        // usuariosActivos se calcula con COUNT en BD (Long), ya no con size()
+        assertEquals(0L, resultado.get("usuariosActivos"));
         // NOTA v0.5.0: ninotsPremiados eliminado (ya no existe campo premiado)
     }
 
     @Test
     void testResumenGeneral_VerificarEstructuraCompleta() {
         // Arrange
-        when(fallaRepository.count()).thenReturn(100L);
-        when(eventoRepository.count()).thenReturn(50L);
-        // ninots removed
-        when(usuarioRepository.count()).thenReturn(30L);
-        when(votoRepository.count()).thenReturn(200L);
-        when(comentarioRepository.count()).thenReturn(80L);
-        when(usuarioRepository.findByActivoTrue()).thenReturn(java.util.Collections.emptyList());
+        when(estadisticasSnapshotService.obtener()).thenReturn(snapshot(100L, 50L, 30L, 200L, 80L, 20L));
 
         // Act
         Map<String, Object> resultado = estadisticasService.obtenerResumenGeneral();
@@ -145,6 +156,194 @@ class EstadisticasServiceTest {
         assertTrue(resultado.get("totalEventos") instanceof Long);
     }
 
+    @Test
+    void testEstadisticasFallasUsuariosEventos_DesdeSnapshot() {
+        // Arrange
+        when(estadisticasSnapshotService.obtener()).thenReturn(snapshot(100L, 50L, 30L, 200L, 80L, 20L));
+
+        // Act
+        Map<String, Object> fallas = estadisticasService.obtenerEstadisticasFallas();
+        Map<String, Object> usuarios = estadisticasService.obtenerEstadisticasUsuarios();
+        Map<String, Object> eventos = estadisticasService.obtenerEstadisticasEventos();
+
+        // Assert
+        assertEquals(100L, fallas.get("totalFallas"));
+        assertEquals(Map.of("especial", 15L, "primera", 42L), fallas.get("porCategoria"));
+        assertEquals(20L, usuarios.get("usuariosActivos"));
+        assertEquals(23L, ((Map<?, ?>) usuarios.get("porRol")).get("usuario"));
+        assertEquals(3L, eventos.get("eventosFuturos"));
+        assertEquals(10L, ((Map<?, ?>) eventos.get("porTipo")).get("planta"));
+        verifyNoInteractions(fallaRepository, eventoRepository, usuarioRepository);
+    }
+
+    @Test
+    void testObtenerEstadisticasVotos_UsaRankingEnMemoria() {
+        // Arrange
+        when(rankingVotosService.obtenerTotalVotos(null)).thenReturn(42L);
+        when(rankingVotosService.obtenerTop(Voto.TipoVoto.MONUMENTO, 3)).thenReturn(List.of(
+                new RankingVotosService.PosicionRanking(7L, "Falla Convento Jerusalén", "E", 20L),
+                new RankingVotosService.PosicionRanking(3L, "Falla Na Jordana", "E", 12L)));
+
+        // Act
+        Map<String, Object> resultado = estadisticasService.obtenerEstadisticasVotos(3, "MONUMENTO");
+
+        // Assert
+        assertEquals(42L, resultado.get("totalVotos"));
+        assertEquals("MONUMENTO", resultado.get("filtroTipoVoto"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> top = (List<Map<String, Object>>) resultado.get("topFallas");
+        assertEquals(2, top.size());
+        assertEquals(7L, top.get(0).get("idFalla"));
+        assertEquals(20L, top.get(0).get("votos"));
+
+        // Sin consultas por falla
+        verifyNoInteractions(fallaRepository, votoRepository);
+    }
+
+    @Test
+    void testObtenerActividadReciente_PrimeraPaginaMezclaPorFecha() {
+        // Arrange
+        LocalDateTime ahora = LocalDateTime.of(2026, 3, 15, 12, 0);
+        when(comentarioRepository.findActividadReciente(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[]{11L, "Ana", 1L, "Falla Na Jordana", "x".repeat(120), ahora.minusMinutes(1)},
+                new Object[]{10L, "Luis", 2L, "Falla Convento Jerusalén", "Preciosa", ahora.minusMinutes(5)}));
+        when(votoRepository.findActividadReciente(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[]{31L, "Marta", 1L, "Falla Na Jordana", Voto.TipoVoto.MONUMENTO, ahora},
+                new Object[]{30L, "Pepe", 3L, "Falla Sueca-Literato Azorín", Voto.TipoVoto.EXPERIMENTAL, ahora.minusMinutes(3)}));
+
+        // Act
+        Map<String, Object> resultado = estadisticasService.obtenerActividadReciente(2, null, null, null);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> actividad = (List<Map<String, Object>>) resultado.get("actividad");
+        assertEquals(2, actividad.size());
+        assertEquals("VOTO", actividad.get(0).get("tipo"));
+        assertEquals("COMENTARIO", actividad.get(1).get("tipo"));
+        assertEquals(103, ((String) actividad.get(1).get("contenido")).length());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> cursor = (Map<String, Object>) resultado.get("siguienteCursor");
+        assertEquals(ahora.minusMinutes(1), cursor.get("antesDe"));
+        assertEquals("COMENTARIO", cursor.get("antesDeTipo"));
+        assertEquals(11L, cursor.get("antesDeId"));
+
+        // LIMIT en BD, sin findAll
+        verify(comentarioRepository).findActividadReciente(PageRequest.of(0, 2));
+        verify(votoRepository).findActividadReciente(PageRequest.of(0, 2));
+        verify(comentarioRepository, never()).findAll();
+        verify(votoRepository, never()).findAll();
+    }
+
+    @Test
+    void testObtenerActividadReciente_ConCursorUsaKeyset() {
+        // Arrange
+        LocalDateTime cursor = LocalDateTime.of(2026, 3, 15, 12, 0);
+        when(comentarioRepository.findActividadAnteriorA(eq(cursor), eq(11L), any(Pageable.class))).thenReturn(List.of());
+        when(votoRepository.findActividadAnteriorA(eq(cursor), eq(11L), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        Map<String, Object> resultado = estadisticasService.obtenerActividadReciente(500, cursor, null, 11L);
+
+        // Assert
+        assertTrue(((List<?>) resultado.get("actividad")).isEmpty());
+        assertNull(resultado.get("siguienteCursor"));
+        verify(comentarioRepository).findActividadAnteriorA(cursor, 11L, PageRequest.of(0, 50));
+        verify(comentarioRepository, never()).findActividadReciente(any());
+    }
+
+    @Test
+    void testObtenerActividadReciente_CursorConTipoNoMezclaIdsDeTablas() {
+        // Arrange: comentario 5 y voto 5 con la misma fecha
+        LocalDateTime fecha = LocalDateTime.of(2026, 3, 15, 12, 0);
+        when(comentarioRepository.findActividadReciente(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[]{5L, "Ana", 1L, "Falla Na Jordana", "Preciosa", fecha}));
+        when(votoRepository.findActividadReciente(any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[]{5L, "Marta", 1L, "Falla Na Jordana", Voto.TipoVoto.MONUMENTO, fecha}));
+
+        // Act
+        Map<String, Object> primera = estadisticasService.obtenerActividadReciente(1, null, null, null);
+
+        // Assert: a igual fecha, primero el comentario; el voto 5 queda para la página siguiente
+        @SuppressWarnings("unchecked")
+        Map<String, Object> cursor = (Map<String, Object>) primera.get("siguienteCursor");
+        assertEquals("COMENTARIO", cursor.get("antesDeTipo"));
+        estadisticasService.obtenerActividadReciente(1, fecha, "COMENTARIO", 5L);
+        verify(comentarioRepository).findActividadAnteriorA(fecha, 5L, PageRequest.of(0, 1));
+        verify(votoRepository).findActividadAnteriorA(fecha, Long.MAX_VALUE, PageRequest.of(0, 1));
+
+        // Con cursor en un voto, los comentarios de esa fecha ya se sirvieron
+        estadisticasService.obtenerActividadReciente(1, fecha, "VOTO", 5L);
+        verify(comentarioRepository).findActividadAnteriorA(fecha, 0L, PageRequest.of(0, 1));
+        verify(votoRepository).findActividadAnteriorA(fecha, 5L, PageRequest.of(0, 1));
+
+        assertThrows(BadRequestException.class,
+                () -> estadisticasService.obtenerActividadReciente(1, fecha, "NINOT", 5L));
+    }
+
+    @Test
+    void testObtenerSentimientoPorFalla_LeeDelAgregado() {
+        // Arrange
+        when(fallaRepository.findById(23L))
+                .thenReturn(Optional.of(TestDataFactory.crearFalla(23L, "Falla Convento Jerusalén", "E")));
+        when(estadisticasRepository.obtenerSentimientoFalla(23L))
+                .thenReturn(List.<Object[]>of(new Object[]{25, 5, 3, 2}));
+
+        // Act
+        Map<String, Object> resultado = estadisticasService.obtenerSentimientoPorFalla(23L);
+
+        // Assert
+        assertEquals(33L, resultado.get("totalComentarios"));
+        assertEquals(35L, resultado.get("totalComentariosFalla"));
+        assertEquals(2L, resultado.get("totalPendientes"));
+        assertEquals(Map.of("positive", 25L, "neutral", 5L, "negative", 3L), resultado.get("sentimientos"));
+        verify(comentarioRepository, never()).countByFalla(any());
+    }
+
+    @Test
+    void testObtenerSentimientoPorFalla_SinComentarios() {
+        // Arrange
+        when(fallaRepository.findById(7L)).thenReturn(Optional.of(TestDataFactory.crearFalla(7L, "Falla Sin Comentarios", "1A")));
+        when(estadisticasRepository.obtenerSentimientoFalla(7L)).thenReturn(List.of());
+
+        // Act
+        Map<String, Object> resultado = estadisticasService.obtenerSentimientoPorFalla(7L);
+
+        // Assert
+        assertEquals(0L, resultado.get("totalComentariosFalla"));
+        assertEquals(Map.of("positive", 0L, "neutral", 0L, "negative", 0L), resultado.get("sentimientos"));
+    }
+
+    @Test
+    void testObtenerRankingSentimiento_OrdenaPorProporcion() {
+        // Arrange: [id, nombre, seccion, positivos, neutrales, negativos, pendientes]
+        when(estadisticasRepository.obtenerSentimientoFallas(5)).thenReturn(List.of(
+                new Object[]{1, "Falla A", "E", 8, 1, 1, 0},
+                new Object[]{2, "Falla B", "1A", 2, 0, 8, 3},
+                new Object[]{3, "Falla C", "2B", 16, 2, 2, 0},
+                new Object[]{4, "Falla D", "3C", 9, 0, 1, 0}));
+
+        // Act
+        SentimientoFallasDTO queridas = estadisticasService.obtenerRankingSentimiento("queridas", 3, 5);
+        SentimientoFallasDTO criticadas = estadisticasService.obtenerRankingSentimiento("CRITICADAS", 1, 5);
+
+        // Assert: a igual % de positivos (A y C) va antes la de más comentarios
+        assertEquals(List.of(4L, 3L, 1L), queridas.getFallas().stream().map(SentimientoFallasDTO.FallaSentimiento::getIdFalla).toList());
+        assertEquals(90.0, queridas.getFallas().get(0).getPorcentajePositivos());
+        assertEquals(1, criticadas.getFallas().size());
+        assertEquals(2L, criticadas.getFallas().get(0).getIdFalla());
+        assertEquals(80.0, criticadas.getFallas().get(0).getPorcentajeNegativos());
+        assertEquals(3L, criticadas.getFallas().get(0).getPendientes());
+        assertEquals("criticadas", criticadas.getOrden());
+    }
+
+    @Test
+    void testObtenerRankingSentimiento_OrdenNoValido() {
+        assertThrows(BadRequestException.class, () -> estadisticasService.obtenerRankingSentimiento("mejores", 10, 5));
+
+        verifyNoInteractions(estadisticasRepository);
+    }
+
     /**
      * Nota: Los tests de los demás métodos (obtenerEstadisticasFallas, obtenerEstadisticasVotos, etc.)
      * requieren mocks más complejos con datos reales para validar agregaciones.
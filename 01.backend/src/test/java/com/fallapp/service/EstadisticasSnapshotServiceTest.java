@@ -0,0 +1,123 @@
+package com.fallapp.service;
+
+import com.fallapp.repository.EstadisticasRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para EstadisticasSnapshotService
+ *
+ * Cobertura: mapeo de las 2 queries agregadas, reutilización del snapshot dentro del TTL
+ *            recálculo en segundo plano al caducar e invalidación durante un recálculo
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EstadisticasSnapshotService Tests")
+class EstadisticasSnapshotServiceTest {
+
+    @Mock
+    private EstadisticasRepository estadisticasRepository;
+
+    private EstadisticasSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new EstadisticasSnapshotService(estadisticasRepository, 60_000L, Runnable::run);
+        when(estadisticasRepository.obtenerContadoresGlobales()).thenReturn(List.<Object[]>of(
+                new Object[]{351L, 40L, 12L, 89L, 67L, 1024L, 156L}));
+        when(estadisticasRepository.obtenerDistribuciones()).thenReturn(List.of(
+                new Object[]{"categoria", "especial", 15L},
+                new Object[]{"categoria", "primera", 42L},
+                new Object[]{"rol", "admin", 2L},
+                new Object[]{"tipo_evento", "planta", 30L}));
+    }
+
+    @Test
+    @DisplayName("El snapshot mapea contadores y distribuciones")
+    void obtener_mapeaContadoresYDistribuciones() {
+        EstadisticasSnapshotService.Snapshot snapshot = snapshotService.obtener();
+
+        assertEquals(351L, snapshot.totalFallas());
+        assertEquals(12L, snapshot.eventosFuturos());
+        assertEquals(67L, snapshot.usuariosActivos());
+        assertEquals(156L, snapshot.totalComentarios());
+        assertEquals(15L, snapshot.porCategoria().get("especial"));
+        assertEquals(0L, snapshot.porCategoria().get("quinta"), "Las categorías sin fallas valen 0");
+        assertEquals(2L, snapshot.porRol().get("admin"));
+        assertEquals(30L, snapshot.porTipoEvento().get("planta"));
+    }
+
+    @Test
+    @DisplayName("Dentro del TTL no se vuelve a consultar la BD")
+    void obtener_reutilizaSnapshotDentroDelTtl() {
+        EstadisticasSnapshotService.Snapshot primero = snapshotService.obtener();
+        EstadisticasSnapshotService.Snapshot segundo = snapshotService.obtener();
+
+        assertSame(primero, segundo);
+        verify(estadisticasRepository, times(1)).obtenerContadoresGlobales();
+        verify(estadisticasRepository, times(1)).obtenerDistribuciones();
+    }
+
+    @Test
+    @DisplayName("invalidar() obliga a recalcular en el siguiente acceso")
+    void invalidar_recalcula() {
+        snapshotService.obtener();
+        snapshotService.invalidar();
+        snapshotService.obtener();
+
+        verify(estadisticasRepository, times(2)).obtenerContadoresGlobales();
+    }
+
+    @Test
+    @DisplayName("Caducado: devuelve el actual y recalcula en el ejecutor")
+    void obtener_caducadoRecalculaEnSegundoPlano() {
+        snapshotService = new EstadisticasSnapshotService(estadisticasRepository, -1L, Runnable::run);
+        EstadisticasSnapshotService.Snapshot primero = snapshotService.obtener();
+
+        assertSame(primero, snapshotService.obtener());
+        assertNotSame(primero, snapshotService.obtener());
+        verify(estadisticasRepository, times(3)).obtenerContadoresGlobales();
+    }
+
+    @Test
+    @DisplayName("Un recálculo que empezó antes de invalidar() no publica su resultado")
+    void invalidar_descartaRecalculoEnCurso() {
+        List<Runnable> tareas = new ArrayList<>();
+        snapshotService = new EstadisticasSnapshotService(estadisticasRepository, -1L, tareas::add);
+        EstadisticasSnapshotService.Snapshot primero = snapshotService.obtener();
+        assertSame(primero, snapshotService.obtener());
+        assertEquals(1, tareas.size());
+
+        snapshotService.invalidar();
+        tareas.get(0).run();
+
+        // El resultado del recálculo se descarta: el siguiente acceso calcula de nuevo
+        snapshotService.obtener();
+        verify(estadisticasRepository, times(3)).obtenerContadoresGlobales();
+    }
+
+    @Test
+    @DisplayName("Con el ejecutor saturado se sigue sirviendo el snapshot caducado")
+    void obtener_ejecutorSaturado() {
+        snapshotService = new EstadisticasSnapshotService(estadisticasRepository, -1L, tarea -> {
+            throw new TaskRejectedException("saturado");
+        });
+        EstadisticasSnapshotService.Snapshot primero = snapshotService.obtener();
+
+        assertSame(primero, snapshotService.obtener());
+        assertSame(primero, snapshotService.obtener());
+        verify(estadisticasRepository, times(1)).obtenerContadoresGlobales();
+    }
+}
@@ -0,0 +1,114 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.EstadoVotosDTO;
+import com.fallapp.model.Voto;
+import com.fallapp.repository.VotoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para EstadoVotosService
+ *
+ * Cobertura: carga perezosa, formato empaquetado, notificaciones de
+ *            voto/eliminación, marcar atómico y expulsión LRU
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EstadoVotosService Tests")
+class EstadoVotosServiceTest {
+
+    @Mock
+    private VotoRepository votoRepository;
+
+    private EstadoVotosService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EstadoVotosService(votoRepository, new SimpleMeterRegistry(), 2);
+        lenient().when(votoRepository.findFallaYTipoPorUsuario(anyLong())).thenReturn(List.of());
+        lenient().when(votoRepository.findFallaYTipoPorUsuario(1L)).thenReturn(List.<Object[]>of(
+                new Object[]{15L, Voto.TipoVoto.MONUMENTO},
+                new Object[]{2L, Voto.TipoVoto.EXPERIMENTAL}));
+    }
+
+    @Test
+    @DisplayName("Empaqueta los votos en un bitmap idFalla × tipo")
+    void obtenerEstado_bitmap() {
+        EstadoVotosDTO estado = service.obtenerEstado(1L);
+
+        BitSet bits = BitSet.valueOf(Base64.getDecoder().decode(estado.getBits()));
+        assertEquals(List.of("EXPERIMENTAL", "INGENIO_Y_GRACIA", "MONUMENTO"), estado.getTipos());
+        assertEquals(2, estado.getTotalVotos());
+        assertTrue(bits.get(15 * 3 + 2));
+        assertTrue(bits.get(2 * 3));
+        assertFalse(bits.get(15 * 3));
+    }
+
+    @Test
+    @DisplayName("Carga de BD una sola vez por usuario")
+    void obtenerEstado_cargaUnaVez() {
+        service.obtenerEstado(1L);
+        service.haVotado(1L, 15L, Voto.TipoVoto.MONUMENTO);
+
+        verify(votoRepository, times(1)).findFallaYTipoPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Refleja votos y eliminaciones de usuarios en caché")
+    void registrar_actualizaEstado() {
+        assertFalse(service.haVotado(1L, 15L, Voto.TipoVoto.EXPERIMENTAL));
+
+        service.registrarVoto(1L, 15L, Voto.TipoVoto.EXPERIMENTAL);
+        service.registrarEliminacion(1L, 15L, Voto.TipoVoto.MONUMENTO);
+
+        assertTrue(service.haVotado(1L, 15L, Voto.TipoVoto.EXPERIMENTAL));
+        assertFalse(service.haVotado(1L, 15L, Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Las notificaciones de usuarios fuera de caché no cargan nada")
+    void registrar_usuarioFueraDeCache() {
+        service.registrarVoto(5L, 15L, Voto.TipoVoto.EXPERIMENTAL);
+
+        verifyNoInteractions(votoRepository);
+        assertEquals(0, service.usuariosEnCache());
+    }
+
+    @Test
+    @DisplayName("marcar() solo tiene éxito la primera vez")
+    void marcar_comprobarYMarcar() {
+        assertTrue(service.marcar(3L, 15L, Voto.TipoVoto.EXPERIMENTAL));
+        assertFalse(service.marcar(3L, 15L, Voto.TipoVoto.EXPERIMENTAL));
+        assertFalse(service.marcar(1L, 15L, Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Expulsa al usuario menos usado al superar el máximo")
+    void cache_expulsaLru() {
+        service.obtenerEstado(1L);
+        service.obtenerEstado(2L);
+        service.obtenerEstado(1L);
+        service.obtenerEstado(3L);
+
+        assertEquals(2, service.usuariosEnCache());
+        service.obtenerEstado(1L);
+        service.obtenerEstado(2L);
+
+        verify(votoRepository, times(1)).findFallaYTipoPorUsuario(1L);
+        verify(votoRepository, times(2)).findFallaYTipoPorUsuario(2L);
+    }
+}
@@ -45,6 +45,9 @@ class EventoServiceTest {
     @Mock
     private FallaRepository fallaRepository;
 
+    @Mock
+    private FallaCatalogoService fallaCatalogoService;
+
     @InjectMocks
     private EventoService eventoService;
 
@@ -255,6 +258,7 @@ class EventoServiceTest {
             assertEquals("Cremà 2026", resultado.getNombre());
             assertEquals("crema", resultado.getTipo());
             verify(eventoRepository).save(any(Evento.class));
+            verify(fallaCatalogoService).actualizarContadores(List.of(1L));
         }
 
         @Test
@@ -387,6 +391,7 @@ class EventoServiceTest {
 
             // Then
             verify(eventoRepository).delete(eventoMock);
+            verify(fallaCatalogoService).actualizarContadores(List.of(1L));
         }
 
         @Test
@@ -0,0 +1,179 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.model.Falla;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para FallaCatalogoService
+ *
+ * Cobertura: carga perezosa (3 queries), contadores agrupados, índices por id/sección/categoría,
+ *            copy-on-write tras cambios y eliminaciones, recuento de eventos/miembros,
+ *            métricas de versión
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FallaCatalogoService Tests")
+class FallaCatalogoServiceTest {
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FallaCatalogoService catalogo;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogo = new FallaCatalogoService(fallaRepository, eventoRepository, usuarioRepository, meterRegistry);
+        lenient().when(fallaRepository.findAll()).thenReturn(List.of(
+                falla(3L, "Falla Sueca-Literato Azorín", "1A", Falla.CategoriaFalla.primera),
+                falla(1L, "Falla Na Jordana", "E", Falla.CategoriaFalla.especial),
+                falla(2L, "Falla Convento Jerusalén", "E", Falla.CategoriaFalla.especial)));
+    }
+
+    private static Falla falla(Long id, String nombre, String seccion, Falla.CategoriaFalla categoria) {
+        Falla falla = new Falla();
+        falla.setIdFalla(id);
+        falla.setNombre(nombre);
+        falla.setSeccion(seccion);
+        falla.setCategoria(categoria);
+        return falla;
+    }
+
+    @Test
+    @DisplayName("La primera lectura carga el catálogo con una sola query")
+    void obtener_cargaPerezosaUnaVez() {
+        FallaCatalogoService.Snapshot snapshot = catalogo.obtener();
+        catalogo.obtener();
+
+        assertEquals(3, snapshot.total());
+        assertEquals(List.of(2L, 1L, 3L),
+                snapshot.todas().stream().map(FallaDTO::getIdFalla).toList(), "Ordenadas por nombre");
+        verify(fallaRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Los índices por id, sección y categoría resuelven sin BD")
+    void indices_resuelvenPorIdSeccionYCategoria() {
+        FallaCatalogoService.Snapshot snapshot = catalogo.obtener();
+
+        assertEquals("Falla Na Jordana", snapshot.buscarPorId(1L).orElseThrow().getNombre());
+        assertTrue(snapshot.buscarPorId(99L).isEmpty());
+        assertEquals(2, snapshot.porSeccion("E").size());
+        assertTrue(snapshot.porSeccion("ZZ").isEmpty());
+        assertEquals(1, snapshot.porCategoria(Falla.CategoriaFalla.primera).size());
+        assertTrue(snapshot.porCategoria(Falla.CategoriaFalla.quinta).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Cambios y eliminaciones publican un snapshot nuevo sin tocar el anterior")
+    void registrarCambio_copyOnWrite() {
+        FallaCatalogoService.Snapshot anterior = catalogo.obtener();
+
+        catalogo.registrarCambio(FallaDTO.builder()
+                .idFalla(1L).nombre("Falla Na Jordana (renombrada)").seccion("E").categoria("especial").build());
+        catalogo.registrarCambio(FallaDTO.builder()
+                .idFalla(4L).nombre("Falla Nueva").seccion("3B").categoria("quinta").build());
+        catalogo.registrarEliminacion(3L);
+
+        FallaCatalogoService.Snapshot actual = catalogo.obtener();
+        assertEquals(anterior.version() + 3, actual.version());
+        assertEquals(3, actual.total());
+        assertEquals("Falla Na Jordana (renombrada)", actual.buscarPorId(1L).orElseThrow().getNombre());
+        assertTrue(actual.buscarPorId(3L).isEmpty());
+        assertEquals(1, actual.porCategoria(Falla.CategoriaFalla.quinta).size());
+
+        assertEquals("Falla Na Jordana", anterior.buscarPorId(1L).orElseThrow().getNombre());
+        assertEquals(3, anterior.total());
+        verify(fallaRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Los contadores de eventos y miembros salen de queries agrupadas, sin colecciones lazy")
+    void recargar_contadoresAgrupados() {
+        when(eventoRepository.contarPorFalla()).thenReturn(List.<Object[]>of(new Object[]{1L, 4L}, new Object[]{3L, 1L}));
+        when(usuarioRepository.contarMiembrosPorFalla()).thenReturn(List.<Object[]>of(new Object[]{1L, 12L}));
+
+        FallaCatalogoService.Snapshot snapshot = catalogo.obtener();
+
+        FallaDTO jordana = snapshot.buscarPorId(1L).orElseThrow();
+        assertEquals(4, jordana.getTotalEventos());
+        assertEquals(12, jordana.getTotalMiembros());
+        assertEquals(0, snapshot.buscarPorId(2L).orElseThrow().getTotalEventos());
+        verify(eventoRepository, times(1)).contarPorFalla();
+        verify(usuarioRepository, times(1)).contarMiembrosPorFalla();
+    }
+
+    @Test
+    @DisplayName("convertirADTOs usa dos queries con IN sea cual sea el número de fallas")
+    void convertirADTOs_conteoEnBloque() {
+        List<Falla> fallas = List.of(
+                falla(10L, "Falla A", "1A", Falla.CategoriaFalla.primera),
+                falla(11L, "Falla B", "1A", Falla.CategoriaFalla.primera),
+                falla(12L, "Falla C", "2B", Falla.CategoriaFalla.segunda));
+        when(eventoRepository.contarPorFallas(List.of(10L, 11L, 12L)))
+                .thenReturn(List.<Object[]>of(new Object[]{11L, 2L}));
+        when(usuarioRepository.contarMiembrosPorFallas(List.of(10L, 11L, 12L)))
+                .thenReturn(List.<Object[]>of(new Object[]{12L, 5L}));
+
+        List<FallaDTO> dtos = catalogo.convertirADTOs(fallas);
+
+        assertEquals(List.of(0, 2, 0), dtos.stream().map(FallaDTO::getTotalEventos).toList());
+        assertEquals(List.of(0, 0, 5), dtos.stream().map(FallaDTO::getTotalMiembros).toList());
+        verify(eventoRepository, times(1)).contarPorFallas(anyCollection());
+        verify(usuarioRepository, times(1)).contarMiembrosPorFallas(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Las métricas exponen la versión y el tamaño del snapshot")
+    void metricas_exponenVersion() {
+        assertEquals(0.0, meterRegistry.get("fallapp.catalogo.fallas.version").gauge().value());
+
+        catalogo.obtener();
+
+        assertEquals(1.0, meterRegistry.get("fallapp.catalogo.fallas.version").gauge().value());
+        assertEquals(3.0, meterRegistry.get("fallapp.catalogo.fallas.total").gauge().value());
+        assertTrue(meterRegistry.get("fallapp.catalogo.fallas.construido.epoch").gauge().value() > 0);
+    }
+
+    @Test
+    @DisplayName("Recontar eventos y miembros solo toca las fallas indicadas")
+    void actualizarContadores_recuentaFallasIndicadas() {
+        catalogo.obtener();
+        when(eventoRepository.contarPorFallas(List.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 4L}));
+        when(usuarioRepository.contarMiembrosPorFallas(List.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        long version = catalogo.obtener().version();
+
+        catalogo.actualizarContadores(List.of(1L, 99L));
+
+        FallaCatalogoService.Snapshot snapshot = catalogo.obtener();
+        assertTrue(snapshot.version() > version);
+        assertEquals(4, snapshot.buscarPorId(1L).orElseThrow().getTotalEventos());
+        assertEquals(2, snapshot.buscarPorId(1L).orElseThrow().getTotalMiembros());
+        assertEquals(0, snapshot.buscarPorId(2L).orElseThrow().getTotalEventos());
+        verify(fallaRepository, times(1)).findAll();
+    }
+}
@@ -2,21 +2,22 @@ package com.fallapp.service;
 
 import com.fallapp.dto.FallaDTO;
 import com.fallapp.dto.PaginatedResponse;
+import com.fallapp.dto.RutaDTO;
 import com.fallapp.dto.UbicacionDTO;
+import com.fallapp.exception.BadRequestException;
 import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Falla;
+import com.fallapp.repository.EventoRepository;
 import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -45,13 +46,27 @@ class FallaServiceTest {
     @Mock
     private FallaRepository fallaRepository;
 
-    @InjectMocks
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    private FallaCatalogoService fallaCatalogoService;
+
     private FallaService fallaService;
 
     private Falla fallaMock;
 
     @BeforeEach
     void setUp() {
+        // Catálogo real sobre el repositorio mock: las lecturas pasan por el snapshot en memoria
+        fallaCatalogoService = new FallaCatalogoService(fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        fallaService = new FallaService(fallaRepository, fallaCatalogoService, rankingVotosService);
+
         fallaMock = new Falla();
         fallaMock.setIdFalla(1L);
         fallaMock.setNombre("Falla Na Jordana");
@@ -83,7 +98,7 @@ class FallaServiceTest {
         @DisplayName("Obtener falla por ID existente retorna DTO")
         void obtenerPorId_conIdExistente_retornaDTO() {
             // Given
-            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             FallaDTO resultado = fallaService.obtenerPorId(1L);
@@ -101,7 +116,7 @@ class FallaServiceTest {
         @DisplayName("Obtener falla por ID incluye coordenadas GPS")
         void obtenerPorId_incluyeCoordenadasGPS() {
             // Given
-            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             FallaDTO resultado = fallaService.obtenerPorId(1L);
@@ -117,7 +132,7 @@ class FallaServiceTest {
         @DisplayName("Obtener falla por ID inexistente lanza excepción")
         void obtenerPorId_conIdInexistente_lanzaExcepcion() {
             // Given
-            when(fallaRepository.findById(999L)).thenReturn(Optional.empty());
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When & Then
             assertThrows(ResourceNotFoundException.class, () -> {
@@ -131,7 +146,7 @@ class FallaServiceTest {
             // Given
             fallaMock.setUbicacionLat(null);
             fallaMock.setUbicacionLon(null);
-            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             FallaDTO resultado = fallaService.obtenerPorId(1L);
@@ -154,8 +169,7 @@ class FallaServiceTest {
         @DisplayName("Listar fallas paginadas retorna respuesta correcta")
         void listar_retornaRespuestaPaginada() {
             // Given
-            Page<Falla> page = new PageImpl<>(List.of(fallaMock));
-            when(fallaRepository.findAll(any(Pageable.class))).thenReturn(page);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             PaginatedResponse<FallaDTO> resultado = fallaService.listar(0, 20);
@@ -172,8 +186,7 @@ class FallaServiceTest {
         @DisplayName("Listar sin fallas retorna lista vacía")
         void listar_sinFallas_retornaListaVacia() {
             // Given
-            Page<Falla> emptyPage = new PageImpl<>(List.of());
-            when(fallaRepository.findAll(any(Pageable.class))).thenReturn(emptyPage);
+            when(fallaRepository.findAll()).thenReturn(List.of());
 
             // When
             PaginatedResponse<FallaDTO> resultado = fallaService.listar(0, 20);
@@ -193,32 +206,55 @@ class FallaServiceTest {
     class BuscarTests {
 
         @Test
-        @DisplayName("Buscar por texto encuentra fallas")
+        @DisplayName("Buscar por texto encuentra fallas sin consultar la BD")
         void buscar_conTextoExistente_retornaFallas() {
             // Given
-            when(fallaRepository.buscarPorTexto("Jordana")).thenReturn(List.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
-            List<FallaDTO> resultado = fallaService.buscar("Jordana");
+            List<FallaDTO> resultado = fallaService.buscar("Jordana", 20);
 
             // Then
-            assertNotNull(resultado);
             assertEquals(1, resultado.size());
             assertEquals("Falla Na Jordana", resultado.get(0).getNombre());
+            assertNotNull(resultado.get(0).getPuntuacion());
+            assertEquals("Falla Na <mark>Jordana</mark>", resultado.get(0).getResaltado().get("nombre"));
+            verify(fallaRepository, times(1)).findAll();
+        }
+
+        @Test
+        @DisplayName("Buscar sin acentos y por prefijo encuentra el lema")
+        void buscar_sinAcentosYPrefijo_encuentraLema() {
+            // Given
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+
+            // When
+            List<FallaDTO> resultado = fallaService.buscar("valencia fes", 20);
+
+            // Then
+            assertEquals(1, resultado.size());
+            assertEquals("<mark>València</mark> en <mark>festes</mark>", resultado.get(0).getResaltado().get("lema"));
         }
 
         @Test
         @DisplayName("Buscar por texto sin resultados retorna lista vacía")
         void buscar_sinResultados_retornaListaVacia() {
             // Given
-            when(fallaRepository.buscarPorTexto("inexistente")).thenReturn(List.of());
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
-            List<FallaDTO> resultado = fallaService.buscar("inexistente");
+            List<FallaDTO> resultado = fallaService.buscar("inexistente", 20);
 
             // Then
             assertTrue(resultado.isEmpty());
         }
+
+        @Test
+        @DisplayName("Buscar con límite fuera de rango lanza BadRequestException")
+        void buscar_limiteInvalido_lanzaExcepcion() {
+            assertThrows(BadRequestException.class, () -> fallaService.buscar("Jordana", 0));
+            assertThrows(BadRequestException.class, () -> fallaService.buscar("Jordana", 101));
+        }
     }
 
     // ==========================================
@@ -233,9 +269,7 @@ class FallaServiceTest {
         @DisplayName("Buscar fallas cercanas con radio 5km retorna resultados")
         void buscarCercanas_conRadio5km_retornaResultados() {
             // Given
-            when(fallaRepository.buscarFallasCercanas(
-                    any(BigDecimal.class), any(BigDecimal.class), any(BigDecimal.class)))
-                    .thenReturn(List.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             List<FallaDTO> resultado = fallaService.buscarCercanas(39.47, -0.37, 5.0);
@@ -243,15 +277,15 @@ class FallaServiceTest {
             // Then
             assertNotNull(resultado);
             assertEquals(1, resultado.size());
+            assertEquals(0.621, resultado.get(0).getDistanciaKm(), 0.001);
+            assertNull(fallaService.obtenerPorId(1L).getDistanciaKm(), "El DTO del catálogo no se modifica");
         }
 
         @Test
         @DisplayName("Buscar cercanas sin fallas en radio retorna vacío")
         void buscarCercanas_sinFallasEnRadio_retornaVacio() {
             // Given
-            when(fallaRepository.buscarFallasCercanas(
-                    any(BigDecimal.class), any(BigDecimal.class), any(BigDecimal.class)))
-                    .thenReturn(List.of());
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             List<FallaDTO> resultado = fallaService.buscarCercanas(40.0, -3.0, 1.0);
@@ -261,6 +295,87 @@ class FallaServiceTest {
         }
     }
 
+    // ==========================================
+    // K VECINOS Y RUTA
+    // ==========================================
+
+    @Nested
+    @DisplayName("buscarKMasCercanas() / calcularRuta()")
+    class VecinosYRutaTests {
+
+        private Falla falla(Long id, double lat, double lon) {
+            Falla falla = new Falla();
+            falla.setIdFalla(id);
+            falla.setNombre("Falla " + id);
+            falla.setCategoria(Falla.CategoriaFalla.primera);
+            falla.setUbicacionLat(BigDecimal.valueOf(lat));
+            falla.setUbicacionLon(BigDecimal.valueOf(lon));
+            return falla;
+        }
+
+        @BeforeEach
+        void setUpCatalogo() {
+            Falla sinGps = new Falla();
+            sinGps.setIdFalla(9L);
+            sinGps.setNombre("Falla sin GPS");
+            lenient().when(fallaRepository.findAll()).thenReturn(List.of(
+                    falla(2L, 39.4700, -0.3760),
+                    falla(3L, 39.4800, -0.3760),
+                    falla(4L, 39.4750, -0.3760),
+                    sinGps));
+        }
+
+        @Test
+        @DisplayName("k vecinos devuelve las k más cercanas ordenadas con distancia")
+        void buscarKMasCercanas_ordenadasPorDistancia() {
+            List<FallaDTO> resultado = fallaService.buscarKMasCercanas(39.4700, -0.3760, 2);
+
+            assertEquals(List.of(2L, 4L), resultado.stream().map(FallaDTO::getIdFalla).toList());
+            assertEquals(0.0, resultado.get(0).getDistanciaKm(), 0.001);
+            assertEquals(0.556, resultado.get(1).getDistanciaKm(), 0.001);
+        }
+
+        @Test
+        @DisplayName("k fuera de rango lanza BadRequestException")
+        void buscarKMasCercanas_kFueraDeRango() {
+            assertThrows(BadRequestException.class, () -> fallaService.buscarKMasCercanas(39.47, -0.37, 0));
+            assertThrows(BadRequestException.class, () -> fallaService.buscarKMasCercanas(39.47, -0.37, 51));
+        }
+
+        @Test
+        @DisplayName("Coordenadas fuera de rango lanzan BadRequestException")
+        void coordenadasFueraDeRango() {
+            assertThrows(BadRequestException.class, () -> fallaService.buscarKMasCercanas(1e10, -0.37, 5));
+            assertThrows(BadRequestException.class, () -> fallaService.buscarKMasCercanas(39.47, Double.NaN, 5));
+            assertThrows(BadRequestException.class, () -> fallaService.buscarCercanas(39.47, 181.0, 5.0));
+            assertThrows(BadRequestException.class, () -> fallaService.calcularRuta(List.of(2L), -91.0, -0.37));
+        }
+
+        @Test
+        @DisplayName("La ruta visita siempre la falla pendiente más cercana")
+        void calcularRuta_vecinoMasCercano() {
+            RutaDTO ruta = fallaService.calcularRuta(List.of(3L, 2L, 4L, 9L, 2L), 39.4690, -0.3760);
+
+            assertEquals(List.of(2L, 4L, 3L), ruta.getParadas().stream().map(FallaDTO::getIdFalla).toList());
+            assertEquals(List.of(9L), ruta.getSinUbicacion());
+            assertEquals(1.223, ruta.getDistanciaTotalKm(), 0.001);
+        }
+
+        @Test
+        @DisplayName("Tesela con zoom o coordenadas fuera de rango lanza BadRequestException")
+        void obtenerTesela_fueraDeRango() {
+            assertThrows(BadRequestException.class, () -> fallaService.obtenerTesela(23, 0, 0));
+            assertThrows(BadRequestException.class, () -> fallaService.obtenerTesela(2, 4, 0));
+            assertThrows(BadRequestException.class, () -> fallaService.obtenerTesela(2, 0, -1));
+        }
+
+        @Test
+        @DisplayName("Ruta con id inexistente lanza excepción")
+        void calcularRuta_idInexistente() {
+            assertThrows(ResourceNotFoundException.class, () -> fallaService.calcularRuta(List.of(2L, 999L), null, null));
+        }
+    }
+
     // ==========================================
     // OBTENER POR SECCION
     // ==========================================
@@ -273,8 +388,7 @@ class FallaServiceTest {
         @DisplayName("Obtener por sección existente retorna fallas")
         void obtenerPorSeccion_conSeccionExistente_retornaFallas() {
             // Given
-            Page<Falla> page = new PageImpl<>(List.of(fallaMock));
-            when(fallaRepository.findBySeccion(eq("E"), any(Pageable.class))).thenReturn(page);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             List<FallaDTO> resultado = fallaService.obtenerPorSeccion("E");
@@ -298,7 +412,7 @@ class FallaServiceTest {
         @DisplayName("Obtener ubicación de falla con GPS retorna tieneUbicacion=true")
         void obtenerUbicacion_conGPS_retornaTieneUbicacionTrue() {
             // Given
-            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             UbicacionDTO resultado = fallaService.obtenerUbicacion(1L);
@@ -317,7 +431,7 @@ class FallaServiceTest {
             // Given
             fallaMock.setUbicacionLat(null);
             fallaMock.setUbicacionLon(null);
-            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When
             UbicacionDTO resultado = fallaService.obtenerUbicacion(1L);
@@ -332,7 +446,7 @@ class FallaServiceTest {
         @DisplayName("Obtener ubicación de falla inexistente lanza excepción")
         void obtenerUbicacion_conFallaInexistente_lanzaExcepcion() {
             // Given
-            when(fallaRepository.findById(999L)).thenReturn(Optional.empty());
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When & Then
             assertThrows(ResourceNotFoundException.class, () -> {
@@ -464,6 +578,33 @@ class FallaServiceTest {
             verify(fallaRepository).save(any(Falla.class));
         }
 
+        @Test
+        @DisplayName("Actualizar falla refresca el catálogo en memoria")
+        void actualizar_refrescaCatalogo() {
+            // Given
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            long versionInicial = fallaCatalogoService.obtener().version();
+
+            FallaDTO dto = FallaDTO.builder()
+                    .nombre("Falla Na Jordana Actualizada")
+                    .seccion("E")
+                    .presidente("Nuevo Presidente")
+                    .anyoFundacion(1942)
+                    .build();
+            when(fallaRepository.findById(1L)).thenReturn(Optional.of(fallaMock));
+            when(fallaRepository.existsByNombre("Falla Na Jordana Actualizada")).thenReturn(false);
+            when(fallaRepository.save(any(Falla.class))).thenReturn(fallaMock);
+
+            // When
+            fallaService.actualizar(1L, dto);
+
+            // Then
+            assertEquals("Falla Na Jordana Actualizada", fallaService.obtenerPorId(1L).getNombre());
+            assertTrue(fallaCatalogoService.obtener().version() > versionInicial);
+            verify(fallaRepository, times(1)).findAll();
+            verify(rankingVotosService).actualizarFalla(1L, "Falla Na Jordana Actualizada", "E");
+        }
+
         @Test
         @DisplayName("Actualizar con mismo nombre no valida duplicado")
         void actualizar_conMismoNombre_noValidaDuplicado() {
@@ -540,6 +681,7 @@ class FallaServiceTest {
 
             // Then
             verify(fallaRepository).delete(fallaMock);
+            verify(rankingVotosService).eliminarFalla(1L);
         }
 
         @Test
@@ -0,0 +1,101 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para IndiceEspacialFallas
+ *
+ * Cobertura: búsqueda por radio y k vecinos comparadas contra un
+ *            recorrido completo (fuerza bruta), orden por distancia,
+ *            fallas sin coordenadas, puntos fuera de la rejilla
+ *
+ * @version 1.0.0
+ */
+@DisplayName("IndiceEspacialFallas Tests")
+class IndiceEspacialFallasTest {
+
+    private List<FallaDTO> fallas;
+    private IndiceEspacialFallas indice;
+
+    @BeforeEach
+    void setUp() {
+        // ~350 fallas repartidas por València (bbox aproximado de la ciudad)
+        Random random = new Random(42);
+        fallas = new ArrayList<>();
+        for (long id = 1; id <= 350; id++) {
+            fallas.add(FallaDTO.builder()
+                    .idFalla(id)
+                    .nombre("Falla " + id)
+                    .latitud(39.42 + random.nextDouble() * 0.10)
+                    .longitud(-0.42 + random.nextDouble() * 0.10)
+                    .build());
+        }
+        fallas.add(FallaDTO.builder().idFalla(999L).nombre("Sin ubicación").build());
+        indice = new IndiceEspacialFallas(fallas);
+    }
+
+    private List<Long> fuerzaBruta(double lat, double lon, Double radioKm, Integer k) {
+        List<FallaDTO> candidatas = fallas.stream()
+                .filter(f -> f.getLatitud() != null)
+                .sorted(Comparator.comparingDouble((FallaDTO f) ->
+                                IndiceEspacialFallas.distanciaKm(lat, lon, f.getLatitud(), f.getLongitud()))
+                        .thenComparing(FallaDTO::getIdFalla))
+                .filter(f -> radioKm == null
+                        || IndiceEspacialFallas.distanciaKm(lat, lon, f.getLatitud(), f.getLongitud()) <= radioKm)
+                .toList();
+        return candidatas.stream().limit(k != null ? k : Long.MAX_VALUE).map(FallaDTO::getIdFalla).toList();
+    }
+
+    private static List<Long> ids(List<IndiceEspacialFallas.Resultado> resultados) {
+        return resultados.stream().map(r -> r.falla().getIdFalla()).toList();
+    }
+
+    @Test
+    @DisplayName("Búsqueda por radio coincide con la fuerza bruta y viene ordenada")
+    void buscarEnRadio_coincideConFuerzaBruta() {
+        List<IndiceEspacialFallas.Resultado> resultado = indice.buscarEnRadio(39.4699, -0.3763, 1.5);
+
+        assertEquals(fuerzaBruta(39.4699, -0.3763, 1.5, null), ids(resultado));
+        assertFalse(resultado.isEmpty());
+        for (int i = 1; i < resultado.size(); i++) {
+            assertTrue(resultado.get(i - 1).distanciaKm() <= resultado.get(i).distanciaKm());
+        }
+        assertEquals(350, indice.total(), "Las fallas sin coordenadas no se indexan");
+    }
+
+    @Test
+    @DisplayName("k vecinos coincide con la fuerza bruta dentro y fuera de la rejilla")
+    void buscarKMasCercanas_coincideConFuerzaBruta() {
+        assertEquals(fuerzaBruta(39.4699, -0.3763, null, 10), ids(indice.buscarKMasCercanas(39.4699, -0.3763, 10)));
+        assertEquals(fuerzaBruta(39.60, -0.20, null, 5), ids(indice.buscarKMasCercanas(39.60, -0.20, 5)));
+        assertEquals(350, indice.buscarKMasCercanas(39.47, -0.37, 1000).size());
+    }
+
+    @Test
+    @Timeout(5)
+    @DisplayName("k vecinos desde las antípodas recorre solo los anillos que tocan la rejilla")
+    void buscarKMasCercanas_puntoLejano() {
+        assertEquals(fuerzaBruta(-39.47, 179.63, null, 3), ids(indice.buscarKMasCercanas(-39.47, 179.63, 3)));
+        assertEquals(fuerzaBruta(89.9, -179.9, null, 3), ids(indice.buscarKMasCercanas(89.9, -179.9, 3)));
+    }
+
+    @Test
+    @DisplayName("Radio sin fallas y catálogo vacío devuelven listas vacías")
+    void sinResultados() {
+        assertTrue(indice.buscarEnRadio(40.4168, -3.7038, 5.0).isEmpty());
+        IndiceEspacialFallas vacio = new IndiceEspacialFallas(List.of());
+        assertTrue(vacio.buscarEnRadio(39.47, -0.37, 5.0).isEmpty());
+        assertTrue(vacio.buscarKMasCercanas(39.47, -0.37, 3).isEmpty());
+    }
+}
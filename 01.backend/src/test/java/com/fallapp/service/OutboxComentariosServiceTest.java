@@ -0,0 +1,160 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para OutboxComentariosService
+ *
+ * Cobertura: registro en el outbox, reserva por bloques limitada al hueco
+ *            de la cola, pausa con el circuito abierto y alta de pendientes
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxComentariosService Tests")
+class OutboxComentariosServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SentimientoPipelineService pipeline;
+
+    private CircuitoSentimiento circuito;
+    private OutboxComentariosService service;
+
+    @BeforeEach
+    void setUp() {
+        circuito = new CircuitoSentimiento(1, 60_000, Clock.systemUTC());
+        lenient().when(pipeline.circuito()).thenReturn(circuito);
+        service = new OutboxComentariosService(jdbcTemplate, pipeline, new SimpleMeterRegistry(), 0, 3, 300_000, 0);
+    }
+
+    @Test
+    @DisplayName("Registrar inserta la fila sin duplicarla")
+    void registrar_inserta() {
+        service.registrar(5L);
+
+        verify(jdbcTemplate).update(contains("ON CONFLICT (id_comentario) DO NOTHING"), eq(5L));
+    }
+
+    @Test
+    @DisplayName("Reserva bloques con SKIP LOCKED mientras llenan la cola y los encola")
+    void despachar_reservaPorBloques() {
+        when(pipeline.huecoCola()).thenReturn(100, 97, 94);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyLong(), anyInt()))
+                .thenReturn(List.of(1L, 2L, 3L))
+                .thenReturn(List.of(4L, 5L, 6L))
+                .thenReturn(List.of(7L));
+        when(pipeline.encolar(anyList())).thenAnswer(i -> ((List<?>) i.getArgument(0)).size());
+
+        assertEquals(7, service.despachar());
+
+        verify(jdbcTemplate, times(3)).queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(Long.class), eq(300_000L), eq(3));
+        verify(pipeline).encolar(List.of(1L, 2L, 3L));
+        verify(pipeline).encolar(List.of(7L));
+    }
+
+    @Test
+    @DisplayName("No reserva más filas de las que caben en la cola")
+    void despachar_limitadoPorCola() {
+        when(pipeline.huecoCola()).thenReturn(2, 0);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyLong(), anyInt())).thenReturn(List.of(8L, 9L));
+        when(pipeline.encolar(anyList())).thenReturn(2);
+
+        assertEquals(2, service.despachar());
+
+        verify(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq(300_000L), eq(2));
+    }
+
+    @Test
+    @DisplayName("Con el circuito abierto las filas esperan sin reservarse")
+    void despachar_circuitoAbierto() {
+        circuito.registrarFallo();
+
+        assertEquals(0, service.despachar());
+
+        verifyNoInteractions(jdbcTemplate);
+        verify(pipeline, never()).encolar(anyList());
+    }
+
+    @Test
+    @DisplayName("Vencida la espera del circuito abierto vuelve a reservar filas para la prueba")
+    void despachar_circuitoVuelveASemiabierto() {
+        long[] ahora = {0};
+        Clock reloj = new Clock() {
+            @Override
+            public long millis() {
+                return ahora[0];
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(ahora[0]);
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+        };
+        CircuitoSentimiento conReloj = new CircuitoSentimiento(1, 1000, reloj);
+        when(pipeline.circuito()).thenReturn(conReloj);
+        conReloj.registrarFallo();
+        assertEquals(0, service.despachar());
+        verifyNoInteractions(jdbcTemplate);
+
+        ahora[0] = 1000;
+        when(pipeline.huecoCola()).thenReturn(100);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyLong(), anyInt())).thenReturn(List.of(4L));
+        when(pipeline.encolar(anyList())).thenReturn(1);
+
+        assertEquals(1, service.despachar());
+        verify(pipeline).encolar(List.of(4L));
+    }
+
+    @Test
+    @DisplayName("Los pendientes que faltan se añaden al outbox")
+    void registrarPendientes() {
+        when(jdbcTemplate.update(anyString(), eq(500))).thenReturn(12);
+
+        assertEquals(12, service.registrarPendientes(500));
+
+        verify(jdbcTemplate).update(contains("NOT EXISTS"), eq(500));
+    }
+
+    @Test
+    @DisplayName("Sin iniciar, despertar no hace nada")
+    void despertar_sinIniciar() {
+        service.despertar();
+
+        verifyNoInteractions(jdbcTemplate, pipeline);
+    }
+}
@@ -0,0 +1,251 @@
+package com.fallapp.service;
+
+import com.fallapp.exception.ServicioNoDisponibleException;
+import com.fallapp.model.Voto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para RankingStreamService
+ *
+ * Cobertura: snapshot inicial, deltas solo con lo que cambió, agrupación
+ *            de versiones sin cambios visibles, límite de conexiones,
+ *            desconexión de clientes lentos sin frenar al resto y arranque
+ *            con conexiones simultáneas
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RankingStreamService Tests")
+class RankingStreamServiceTest {
+
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    private RankingStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = crearServicio(5_000, 10);
+        lenient().when(rankingVotosService.obtenerTop(any(), anyInt())).thenReturn(List.of());
+        lenient().when(rankingVotosService.obtenerTotalVotos(any())).thenReturn(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.detener();
+    }
+
+    private RankingStreamService crearServicio(long lentoMillis, int maxConexiones) {
+        return crearServicio(lentoMillis, maxConexiones, 2);
+    }
+
+    private RankingStreamService crearServicio(long lentoMillis, int maxConexiones, int escritores) {
+        // Intervalo muy largo: los ciclos se lanzan a mano desde el test
+        return new RankingStreamService(rankingVotosService, new SimpleMeterRegistry(),
+                10, 3_600_000, 60_000, lentoMillis, maxConexiones, escritores, 4);
+    }
+
+    private static RankingVotosService.PosicionRanking posicion(long idFalla, long votos) {
+        return new RankingVotosService.PosicionRanking(idFalla, "Falla " + idFalla, "1A", votos);
+    }
+
+    private static String texto(SseEmitter.SseEventBuilder evento) {
+        return evento.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+    }
+
+    private static long envios(SseEmitter emitter) {
+        return mockingDetails(emitter).getInvocations().stream()
+                .filter(invocacion -> invocacion.getMethod().getName().equals("send"))
+                .count();
+    }
+
+    @Test
+    @DisplayName("La primera publicación es un snapshot; sin cambios de versión se reutiliza")
+    void publicar_snapshotYReutilizacion() {
+        when(rankingVotosService.version()).thenReturn(1L);
+        when(rankingVotosService.obtenerTop(null, 10)).thenReturn(List.of(posicion(1, 5), posicion(2, 3)));
+
+        RankingStreamService.Publicacion primera = service.publicar();
+
+        assertEquals(1, primera.secuencia());
+        assertNull(primera.deltaJson());
+        assertTrue(primera.snapshotJson().contains("\"GLOBAL\":[{\"idFalla\":1"));
+        assertSame(primera, service.publicar());
+    }
+
+    @Test
+    @DisplayName("El delta contiene solo las posiciones y totales que cambiaron")
+    void publicar_deltaConCambios() {
+        when(rankingVotosService.version()).thenReturn(1L, 2L);
+        when(rankingVotosService.obtenerTop(null, 10))
+                .thenReturn(List.of(posicion(1, 5), posicion(2, 3)))
+                .thenReturn(List.of(posicion(1, 5), posicion(3, 4), posicion(2, 3)));
+        when(rankingVotosService.obtenerTotalVotos(null)).thenReturn(8L, 12L);
+
+        service.publicar();
+        RankingStreamService.Publicacion segunda = service.publicar();
+
+        assertEquals(2, segunda.secuencia());
+        Map<String, Object> delta = RankingStreamService.delta(
+                new RankingStreamService.Publicacion(1, 1, Map.of(RankingStreamService.RANKING_GLOBAL,
+                        List.of(posicion(1, 5), posicion(2, 3))), Map.of("GLOBAL", 8L), "", null),
+                Map.of(RankingStreamService.RANKING_GLOBAL, List.of(posicion(1, 5), posicion(3, 4), posicion(2, 3))),
+                Map.of("GLOBAL", 12L));
+        assertEquals(Map.of("GLOBAL", 3), delta.get("longitudes"));
+        assertEquals(Map.of("GLOBAL", 12L), delta.get("totalVotos"));
+        List<?> cambios = (List<?>) ((Map<?, ?>) delta.get("cambios")).get("GLOBAL");
+        assertEquals(2, cambios.size());
+        assertTrue(segunda.deltaJson().contains("\"posicion\":1,\"idFalla\":3"));
+        assertFalse(segunda.deltaJson().contains("\"idFalla\":1,"));
+    }
+
+    @Test
+    @DisplayName("Una versión nueva sin cambios visibles no genera publicación")
+    void publicar_sinCambiosVisibles() {
+        when(rankingVotosService.version()).thenReturn(1L, 2L);
+
+        RankingStreamService.Publicacion primera = service.publicar();
+        RankingStreamService.Publicacion segunda = service.publicar();
+
+        assertEquals(primera.secuencia(), segunda.secuencia());
+        assertEquals(2L, segunda.versionRanking());
+    }
+
+    @Test
+    @DisplayName("Al conectar se envía un snapshot y después deltas")
+    void suscribir_snapshotYDelta() throws Exception {
+        when(rankingVotosService.version()).thenReturn(1L, 2L);
+        when(rankingVotosService.obtenerTotalVotos(null)).thenReturn(8L, 9L);
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        service.suscribir(emitter);
+        verify(emitter, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        // Mientras el snapshot sigue "enviándose" el ciclo no encola nada: se reintenta
+        for (int i = 0; i < 100 && envios(emitter) < 2; i++) {
+            service.ciclo();
+            Thread.sleep(10);
+        }
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> eventos = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, timeout(1000).times(2)).send(eventos.capture());
+        assertTrue(texto(eventos.getAllValues().get(0)).contains("event:snapshot"));
+        assertTrue(texto(eventos.getAllValues().get(1)).contains("event:delta"));
+        assertEquals(1, service.conexiones());
+    }
+
+    @Test
+    @DisplayName("Con el límite de conexiones alcanzado responde 503")
+    void suscribir_limiteConexiones() {
+        RankingStreamService lleno = crearServicio(5_000, 0);
+        try {
+            assertThrows(ServicioNoDisponibleException.class, lleno::suscribir);
+        } finally {
+            lleno.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Un cliente que no termina de leer se desconecta sin acumular envíos")
+    void ciclo_desconectaClienteLento() throws Exception {
+        RankingStreamService conLento = crearServicio(50, 10);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        SseEmitter emitter = mock(SseEmitter.class);
+        doAnswer(invocation -> bloqueo.await(5, TimeUnit.SECONDS)).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        when(rankingVotosService.version()).thenReturn(1L, 1L, 2L);
+        when(rankingVotosService.obtenerTotalVotos(Voto.TipoVoto.MONUMENTO)).thenReturn(0L, 1L);
+
+        try {
+            conLento.suscribir(emitter);
+            Thread.sleep(100);
+            conLento.ciclo();
+
+            verify(emitter).completeWithError(any(IOException.class));
+            verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+            assertEquals(0, conLento.conexiones());
+        } finally {
+            bloqueo.countDown();
+            conLento.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Un cliente atascado no deja sin escritor a los demás")
+    void ciclo_clienteAtascadoNoBloqueaAlResto() throws Exception {
+        // Un único escritor: sin devolverlo al pool, el segundo cliente no recibiría nada
+        RankingStreamService unEscritor = crearServicio(50, 10, 1);
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        SseEmitter atascado = mock(SseEmitter.class);
+        doAnswer(invocation -> bloqueo.await(5, TimeUnit.SECONDS)).when(atascado).send(any(SseEmitter.SseEventBuilder.class));
+        SseEmitter normal = mock(SseEmitter.class);
+        when(rankingVotosService.version()).thenReturn(1L);
+
+        try {
+            unEscritor.suscribir(atascado);
+            verify(atascado, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+            Thread.sleep(100);
+            unEscritor.ciclo();
+            unEscritor.suscribir(normal);
+
+            verify(atascado).completeWithError(any(IOException.class));
+            verify(normal, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        } finally {
+            bloqueo.countDown();
+            unEscritor.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Varias conexiones a la vez durante el arranque reciben su snapshot")
+    void suscribir_concurrenteEnElArranque() throws Exception {
+        when(rankingVotosService.version()).thenReturn(1L);
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<SseEmitter> emitters = new ArrayList<>();
+        List<Future<?>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                SseEmitter emitter = mock(SseEmitter.class);
+                emitters.add(emitter);
+                resultados.add(clientes.submit(() -> {
+                    salida.await();
+                    return service.suscribir(emitter);
+                }));
+            }
+            salida.countDown();
+            for (Future<?> resultado : resultados) {
+                assertDoesNotThrow(() -> resultado.get(2, TimeUnit.SECONDS));
+            }
+            for (SseEmitter emitter : emitters) {
+                verify(emitter, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+            }
+            assertEquals(8, service.conexiones());
+        } finally {
+            clientes.shutdownNow();
+        }
+    }
+}
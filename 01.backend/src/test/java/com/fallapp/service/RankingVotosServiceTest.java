@@ -0,0 +1,218 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.VotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para RankingVotosService
+ *
+ * Cobertura: carga inicial (contadores repartidos), top-N por tipo y global,
+ *            actualización incremental tras votar/eliminar, votos durante
+ *            la carga, fallas renombradas/eliminadas, versión
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RankingVotosService Tests")
+class RankingVotosServiceTest {
+
+    @Mock
+    private VotoRepository votoRepository;
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @InjectMocks
+    private RankingVotosService rankingVotosService;
+
+    @BeforeEach
+    void setUp() {
+        when(fallaRepository.findResumenesParaRanking()).thenReturn(List.of(
+                new Object[]{1L, "Falla Na Jordana", "E"},
+                new Object[]{2L, "Falla Convento Jerusalén", "E"},
+                new Object[]{3L, "Falla Sueca-Literato Azorín", "1A"}));
+        when(votoRepository.sumarContadoresPorFallaYTipo()).thenReturn(List.of(
+                new Object[]{1, "MONUMENTO", 5L},
+                new Object[]{2, "MONUMENTO", 8L},
+                new Object[]{1, "EXPERIMENTAL", 4L}));
+    }
+
+    @Test
+    @DisplayName("La carga inicial usa una sola query de contadores y ordena por votos")
+    void obtenerTop_cargaInicialOrdenaPorVotos() {
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(null, 10);
+
+        assertEquals(3, top.size());
+        assertEquals(1L, top.get(0).idFalla());
+        assertEquals(9L, top.get(0).votos());
+        assertEquals(2L, top.get(1).idFalla());
+        assertEquals(0L, top.get(2).votos(), "Las fallas sin votos también aparecen");
+        assertEquals(17L, rankingVotosService.obtenerTotalVotos(null));
+
+        // Consultas posteriores no vuelven a la BD
+        rankingVotosService.obtenerTop(Voto.TipoVoto.MONUMENTO, 2);
+        verify(votoRepository, times(1)).sumarContadoresPorFallaYTipo();
+    }
+
+    @Test
+    @DisplayName("El ranking por tipo filtra los votos de ese tipo")
+    void obtenerTop_porTipo() {
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(Voto.TipoVoto.MONUMENTO, 1);
+
+        assertEquals(1, top.size());
+        assertEquals(2L, top.get(0).idFalla());
+        assertEquals(8L, top.get(0).votos());
+        assertEquals(13L, rankingVotosService.obtenerTotalVotos(Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Registrar votos y eliminaciones reordena el ranking")
+    void registrarVoto_reordenaRanking() {
+        rankingVotosService.obtenerTop(null, 1);
+
+        for (int i = 0; i < 4; i++) {
+            rankingVotosService.registrarVoto(3L, "Falla Sueca-Literato Azorín", "1A", Voto.TipoVoto.MONUMENTO);
+        }
+        rankingVotosService.registrarEliminacion(2L, Voto.TipoVoto.MONUMENTO);
+
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(Voto.TipoVoto.MONUMENTO, 3);
+        assertEquals(2L, top.get(0).idFalla());
+        assertEquals(7L, top.get(0).votos());
+        assertEquals(1L, top.get(1).idFalla());
+        assertEquals(3L, top.get(2).idFalla());
+        assertEquals(4L, top.get(2).votos());
+        assertEquals(16L, rankingVotosService.obtenerTotalVotos(Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Un voto a una falla nueva la añade al ranking")
+    void registrarVoto_fallaNueva() {
+        rankingVotosService.obtenerTop(null, 1);
+
+        rankingVotosService.registrarVoto(99L, "Falla Nueva", "3B", Voto.TipoVoto.EXPERIMENTAL);
+
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(Voto.TipoVoto.EXPERIMENTAL, 2);
+        assertEquals(1L, top.get(0).idFalla());
+        assertEquals(99L, top.get(1).idFalla());
+        assertEquals("Falla Nueva", top.get(1).nombre());
+    }
+
+    @Test
+    @DisplayName("Votos por falla suma todos los tipos y omite las fallas sin votos")
+    void obtenerVotosPorFalla_sumaTipos() {
+        Map<Long, Long> votos = rankingVotosService.obtenerVotosPorFalla();
+
+        assertEquals(Map.of(1L, 9L, 2L, 8L), votos);
+    }
+
+    @Test
+    @DisplayName("Los votos notificados antes de la carga inicial se ignoran")
+    void registrarVoto_antesDeCargar() {
+        rankingVotosService.registrarVoto(1L, "Falla Na Jordana", "E", Voto.TipoVoto.MONUMENTO);
+
+        assertEquals(0L, rankingVotosService.version());
+        assertEquals(17L, rankingVotosService.obtenerTotalVotos(null));
+    }
+
+    @Test
+    @DisplayName("Eliminar sin votos no deja contadores negativos")
+    void registrarEliminacion_sinVotos() {
+        rankingVotosService.obtenerTop(null, 1);
+        long version = rankingVotosService.version();
+
+        rankingVotosService.registrarEliminacion(3L, Voto.TipoVoto.MONUMENTO);
+
+        assertEquals(version, rankingVotosService.version());
+        assertEquals(0L, rankingVotosService.obtenerTop(null, 3).get(2).votos());
+    }
+
+    @Test
+    @DisplayName("La versión crece con cada cambio y también tras recargar")
+    void version_monotona() {
+        rankingVotosService.obtenerTop(null, 1);
+        long inicial = rankingVotosService.version();
+
+        rankingVotosService.registrarVoto(3L, "Falla Sueca-Literato Azorín", "1A", Voto.TipoVoto.MONUMENTO);
+        long trasVoto = rankingVotosService.version();
+        rankingVotosService.recargar();
+
+        assertTrue(trasVoto > inicial);
+        assertTrue(rankingVotosService.version() > trasVoto);
+        assertEquals(17L, rankingVotosService.obtenerTotalVotos(null), "La recarga vuelve a los valores de BD");
+    }
+
+    @Test
+    @DisplayName("Un voto notificado durante la carga no se pierde")
+    void registrarVoto_duranteLaCarga() {
+        // El voto llega cuando la query de contadores ya leyó la tabla
+        when(votoRepository.sumarContadoresPorFallaYTipo()).thenAnswer(i -> {
+            rankingVotosService.registrarVoto(3L, "Falla Sueca-Literato Azorín", "1A", Voto.TipoVoto.MONUMENTO);
+            rankingVotosService.registrarEliminacion(2L, Voto.TipoVoto.MONUMENTO);
+            return List.of(
+                    new Object[]{1, "MONUMENTO", 5L},
+                    new Object[]{2, "MONUMENTO", 8L},
+                    new Object[]{1, "EXPERIMENTAL", 4L});
+        });
+
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(Voto.TipoVoto.MONUMENTO, 3);
+
+        assertEquals(7L, top.get(0).votos());
+        assertEquals(3L, top.get(2).idFalla());
+        assertEquals(1L, top.get(2).votos());
+        assertEquals(17L, rankingVotosService.obtenerTotalVotos(null));
+    }
+
+    @Test
+    @DisplayName("Un voto notificado mientras se leen las fallas no se cuenta dos veces")
+    void registrarVoto_antesDeLaSuma() {
+        // Confirmado antes de la SUM: ya viene en los contadores de la BD
+        when(fallaRepository.findResumenesParaRanking()).thenAnswer(i -> {
+            rankingVotosService.registrarVoto(1L, "Falla Na Jordana", "E", Voto.TipoVoto.MONUMENTO);
+            return List.of(
+                    new Object[]{1L, "Falla Na Jordana", "E"},
+                    new Object[]{2L, "Falla Convento Jerusalén", "E"});
+        });
+        when(votoRepository.sumarContadoresPorFallaYTipo()).thenReturn(List.<Object[]>of(
+                new Object[]{1, "MONUMENTO", 5L}));
+
+        assertEquals(5L, rankingVotosService.obtenerTotalVotos(Voto.TipoVoto.MONUMENTO));
+    }
+
+    @Test
+    @DisplayName("Una falla renombrada cambia de nombre en el ranking")
+    void actualizarFalla_renombra() {
+        rankingVotosService.obtenerTop(null, 1);
+
+        rankingVotosService.actualizarFalla(1L, "Falla Na Jordana 2026", "E");
+
+        assertEquals("Falla Na Jordana 2026", rankingVotosService.obtenerTop(null, 1).get(0).nombre());
+    }
+
+    @Test
+    @DisplayName("Una falla eliminada sale del ranking con sus votos")
+    void eliminarFalla_saleDelRanking() {
+        rankingVotosService.obtenerTop(null, 1);
+
+        rankingVotosService.eliminarFalla(1L);
+
+        List<RankingVotosService.PosicionRanking> top = rankingVotosService.obtenerTop(null, 10);
+        assertEquals(2, top.size());
+        assertEquals(2L, top.get(0).idFalla());
+        assertEquals(8L, rankingVotosService.obtenerTotalVotos(null));
+        assertFalse(rankingVotosService.obtenerVotosPorFalla().containsKey(1L));
+    }
+}
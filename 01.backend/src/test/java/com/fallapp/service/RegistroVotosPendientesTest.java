@@ -0,0 +1,128 @@
+package com.fallapp.service;
+
+import com.fallapp.model.Voto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para RegistroVotosPendientes
+ *
+ * Cobertura: recuperación tras reinicio, líneas corruptas, borrado de
+ *            segmentos confirmados y rotación
+ *
+ * @version 1.0.0
+ */
+@DisplayName("RegistroVotosPendientes Tests")
+class RegistroVotosPendientesTest {
+
+    @TempDir
+    Path directorio;
+
+    private static final LocalDateTime FECHA = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private long segmentos() throws IOException {
+        try (Stream<Path> listado = Files.list(directorio)) {
+            return listado.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Los votos no confirmados se recuperan al reabrir el registro")
+    void recuperar_votosNoConfirmados() throws IOException {
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            registro.anotar(1L, 10L, Voto.TipoVoto.MONUMENTO, FECHA);
+            registro.anotar(2L, 11L, Voto.TipoVoto.EXPERIMENTAL, FECHA);
+        }
+
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            List<RegistroVotosPendientes.VotoRecuperado> recuperados = registro.recuperar();
+
+            assertEquals(2, recuperados.size());
+            assertEquals(1L, recuperados.get(0).idUsuario());
+            assertEquals(10L, recuperados.get(0).idFalla());
+            assertEquals(Voto.TipoVoto.MONUMENTO, recuperados.get(0).tipo());
+            assertEquals(FECHA, recuperados.get(0).fecha());
+
+            recuperados.forEach(voto -> voto.segmento().confirmar());
+        }
+        assertEquals(0, segmentos());
+    }
+
+    @Test
+    @DisplayName("Las líneas incompletas se descartan")
+    void recuperar_descartaLineasIncompletas() throws IOException {
+        Files.writeString(directorio.resolve("votos-0000000000001-000001.log"),
+                "1;10;MONUMENTO;1700000000000\n2;11;MONUM", StandardOpenOption.CREATE_NEW);
+
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            assertEquals(1, registro.recuperar().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Una línea entera sin salto de línea final también se descarta")
+    void recuperar_descartaUltimaLineaSinTerminar() throws IOException {
+        Files.writeString(directorio.resolve("votos-0000000000001-000001.log"),
+                "1;10;MONUMENTO;1700000000000\n2;11;MONUMENTO;1700000000000", StandardOpenOption.CREATE_NEW);
+
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            List<RegistroVotosPendientes.VotoRecuperado> votos = registro.recuperar();
+            assertEquals(1, votos.size());
+            assertEquals(1L, votos.get(0).idUsuario());
+        }
+    }
+
+    @Test
+    @DisplayName("Las líneas anuladas tras un fsync fallido no se recuperan")
+    void recuperar_ignoraLineasAnuladas() throws IOException {
+        Files.writeString(directorio.resolve("votos-0000000000001-000001.log"),
+                "1;10;MONUMENTO;1700000000000\n2;11;MONUMENTO;1700000000000\nA;29\n", StandardOpenOption.CREATE_NEW);
+
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            List<RegistroVotosPendientes.VotoRecuperado> votos = registro.recuperar();
+            assertEquals(1, votos.size());
+            assertEquals(1L, votos.get(0).idUsuario());
+        }
+    }
+
+    @Test
+    @DisplayName("Compactar borra el segmento actual cuando todo está confirmado")
+    void compactar_borraSegmentoConfirmado() throws IOException {
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 1024 * 1024)) {
+            RegistroVotosPendientes.Segmento segmento = registro.anotar(1L, 10L, Voto.TipoVoto.MONUMENTO, FECHA);
+            registro.compactar();
+            assertEquals(1, segmentos());
+
+            segmento.confirmar();
+            registro.compactar();
+            assertEquals(0, segmentos());
+        }
+    }
+
+    @Test
+    @DisplayName("Rota a un segmento nuevo al superar el tamaño máximo")
+    void anotar_rotaSegmentos() throws IOException {
+        try (RegistroVotosPendientes registro = new RegistroVotosPendientes(directorio, 10)) {
+            RegistroVotosPendientes.Segmento primero = registro.anotar(1L, 10L, Voto.TipoVoto.MONUMENTO, FECHA);
+            RegistroVotosPendientes.Segmento segundo = registro.anotar(1L, 11L, Voto.TipoVoto.MONUMENTO, FECHA);
+
+            assertNotSame(primero, segundo);
+            assertEquals(2, segmentos());
+
+            primero.confirmar();
+            assertEquals(1, segmentos());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.fallapp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de SentimentAnalysisService contra un servidor de modelo local
+ *
+ * El servidor (HttpServer del JDK en un puerto libre) imita la Inference API
+ * de Hugging Face: así se prueba el formato real de petición y respuesta sin
+ * salir a la red.
+ *
+ * @version 1.0.0
+ */
+@DisplayName("SentimentAnalysisService Tests")
+class SentimentAnalysisServiceTest {
+
+    private static final String MODELO = "modelo-prueba";
+
+    private HttpServer servidor;
+    private volatile int estado;
+    private volatile String respuesta;
+    private volatile String peticion;
+    private volatile String autorizacion;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/models/" + MODELO, intercambio -> {
+            peticion = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            autorizacion = intercambio.getRequestHeaders().getFirst("Authorization");
+            byte[] cuerpo = respuesta.getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(estado, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    private SentimentAnalysisService cliente(String token) {
+        String baseUrl = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/models";
+        return new SentimentAnalysisService(token, MODELO, baseUrl, 2000);
+    }
+
+    private void responder(int estado, String respuesta) {
+        this.estado = estado;
+        this.respuesta = respuesta;
+    }
+
+    @Test
+    @DisplayName("Envía el lote en un único array inputs y devuelve una etiqueta por texto")
+    void clasificar_lote() {
+        responder(200, """
+                [[{"label":"positive","score":0.9},{"label":"negative","score":0.1}],
+                 [{"label":"negative","score":0.7},{"label":"neutral","score":0.3}]]""");
+
+        List<SentimentClassifier.Clasificacion> resultado = cliente("token").clasificar(List.of("Preciosa", "Horrible"));
+
+        assertEquals(List.of(
+                new SentimentClassifier.Clasificacion("positive", 0.9),
+                new SentimentClassifier.Clasificacion("negative", 0.7)), resultado);
+        assertTrue(peticion.contains("\"inputs\":[\"Preciosa\",\"Horrible\"]"), peticion);
+        assertEquals("Bearer token", autorizacion);
+    }
+
+    @Test
+    @DisplayName("Con un solo texto admite la lista de scores sin anidar")
+    void clasificar_unTexto() {
+        responder(200, "[{\"label\":\"neutral\",\"score\":0.6},{\"label\":\"positive\",\"score\":0.4}]");
+
+        assertEquals(List.of("neutral"), cliente("token").etiquetar(List.of("Normal")));
+    }
+
+    @Test
+    @DisplayName("503 (modelo cargando) es un error reintentable")
+    void clasificar_modeloCargando() {
+        responder(503, "{\"error\":\"Model is currently loading\"}");
+
+        SentimentClassifier.ErrorModelo error = assertThrows(SentimentClassifier.ErrorModelo.class,
+                () -> cliente("token").clasificar(List.of("Hola")));
+        assertTrue(error.isReintentable());
+    }
+
+    @Test
+    @DisplayName("Un número de resultados distinto al de textos no es reintentable")
+    void clasificar_respuestaIncompleta() {
+        responder(200, "[[{\"label\":\"positive\",\"score\":0.9}]]");
+
+        SentimentClassifier.ErrorModelo error = assertThrows(SentimentClassifier.ErrorModelo.class,
+                () -> cliente("token").clasificar(List.of("Uno", "Dos")));
+        assertFalse(error.isReintentable());
+    }
+
+    @Test
+    @DisplayName("Sin token no llama al modelo")
+    void clasificar_sinToken() {
+        responder(200, "[]");
+
+        SentimentClassifier.ErrorModelo error = assertThrows(SentimentClassifier.ErrorModelo.class,
+                () -> cliente("").clasificar(List.of("Hola")));
+        assertFalse(error.isReintentable());
+        assertNull(peticion);
+    }
+}
@@ -0,0 +1,276 @@
+package com.fallapp.service;
+
+import com.fallapp.repository.ComentarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para SentimientoPipelineService
+ *
+ * Cobertura: lote con una llamada al modelo y un UPDATE por lotes,
+ *            reintentos de errores transitorios, errores definitivos,
+ *            cortocircuito, limpieza del outbox, cola llena, despacho
+ *            en segundo plano y lotes rechazados por el ejecutor
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SentimientoPipelineService Tests")
+class SentimientoPipelineServiceTest {
+
+    @Mock
+    private SentimentClassifier modelo;
+
+    @Mock
+    private CacheSentimientoService cache;
+
+    @Mock
+    private ComentarioRepository comentarioRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> actualizaciones;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> borrados;
+
+    private SentimientoPipelineService service;
+    private EjecutorAcotado trabajadores;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(modelo.nombre()).thenReturn("prueba");
+        service = pipeline(100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.detener();
+        trabajadores.destroy();
+    }
+
+    private SentimientoPipelineService pipeline(int capacidad) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        trabajadores = new EjecutorAcotado("sentimiento", 2, 2, false, registry, null);
+        return pipeline(capacidad, trabajadores, registry);
+    }
+
+    private SentimientoPipelineService pipeline(int capacidad, Executor ejecutor, SimpleMeterRegistry registry) {
+        return new SentimientoPipelineService(modelo, cache, comentarioRepository, jdbcTemplate,
+                registry, ejecutor, capacidad, 8, 10, 2, 3, 1, 4, 60_000, 2.0);
+    }
+
+    private static SentimentClassifier.Clasificacion clasificacion(String etiqueta) {
+        return new SentimentClassifier.Clasificacion(etiqueta, 0.9);
+    }
+
+    private List<Object[]> actualizacionesGuardadas() {
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE comentarios SET sentimiento = ? WHERE id_comentario = ?"),
+                actualizaciones.capture());
+        return actualizaciones.getValue();
+    }
+
+    private List<Long> outboxCompletado() {
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM comentarios_outbox WHERE id_comentario = ?"), borrados.capture());
+        return borrados.getValue().stream().map(fila -> (Long) fila[0]).toList();
+    }
+
+    @Test
+    @DisplayName("Un lote hace una llamada al modelo y un único UPDATE por lotes")
+    void procesarLote_unaLlamada() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of(
+                new Object[]{1L, "Preciosa"},
+                new Object[]{2L, "  "},
+                new Object[]{3L, "Horrible"}));
+        when(modelo.clasificar(List.of("Preciosa", "Horrible"))).thenReturn(List.of(
+                clasificacion("positive"), clasificacion("negative")));
+
+        assertEquals(2, service.procesarLote(List.of(1L, 2L, 3L, 1L)));
+
+        verify(comentarioRepository).findTextosPendientes(Set.of(1L, 2L, 3L));
+        verify(modelo, times(1)).clasificar(anyList());
+        List<Object[]> filas = actualizacionesGuardadas();
+        assertEquals(2, filas.size());
+        assertArrayEquals(new Object[]{"positive", 1L}, filas.get(0));
+        assertArrayEquals(new Object[]{"negative", 3L}, filas.get(1));
+        assertEquals(List.of(1L, 2L, 3L), outboxCompletado(), "El comentario sin texto también sale del outbox");
+    }
+
+    @Test
+    @DisplayName("Los comentarios sin etiqueta se quedan en el outbox")
+    void procesarLote_sinEtiquetaSigueEnOutbox() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of(
+                new Object[]{1L, "Preciosa"},
+                new Object[]{2L, "???"}));
+        when(modelo.clasificar(anyList())).thenReturn(Arrays.asList(clasificacion("positive"), null));
+
+        assertEquals(1, service.procesarLote(List.of(1L, 2L)));
+
+        assertEquals(List.of(1L), outboxCompletado());
+    }
+
+    @Test
+    @DisplayName("Una etiqueta desconocida no se cachea ni se guarda: el comentario queda sin clasificar")
+    void procesarLote_etiquetaDesconocida() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of(
+                new Object[]{1L, "Preciosa"},
+                new Object[]{2L, "Meh"}));
+        when(modelo.clasificar(anyList())).thenReturn(List.of(clasificacion("positive"), clasificacion("label_7")));
+
+        assertEquals(1, service.procesarLote(List.of(1L, 2L)));
+
+        verify(cache).guardar("prueba", Map.of(CacheSentimientoService.clave("prueba", "Preciosa"), clasificacion("positive")));
+        List<Object[]> filas = actualizacionesGuardadas();
+        assertEquals(1, filas.size());
+        assertArrayEquals(new Object[]{"positive", 1L}, filas.get(0));
+        assertEquals(List.of(1L), outboxCompletado());
+    }
+
+    @Test
+    @DisplayName("Los textos en cache no van al modelo y los repetidos se clasifican una vez")
+    void procesarLote_cache() {
+        String enCache = CacheSentimientoService.clave("prueba", "Molt bonica");
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of(
+                new Object[]{1L, "Molt bonica"},
+                new Object[]{2L, "Preciosa!"},
+                new Object[]{3L, "preciosa!!!"},
+                new Object[]{4L, "MOLT BONICA"}));
+        when(cache.buscar(any())).thenReturn(Map.of(enCache, clasificacion("positive")));
+        when(modelo.clasificar(List.of("Preciosa!"))).thenReturn(List.of(clasificacion("positive")));
+
+        assertEquals(4, service.procesarLote(List.of(1L, 2L, 3L, 4L)));
+
+        verify(modelo, times(1)).clasificar(anyList());
+        verify(cache).guardar("prueba", Map.of(CacheSentimientoService.clave("prueba", "Preciosa!"), clasificacion("positive")));
+        assertEquals(4, actualizacionesGuardadas().size());
+    }
+
+    @Test
+    @DisplayName("Los errores reintentables se reintentan hasta tener respuesta")
+    void procesarLote_reintenta() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.<Object[]>of(new Object[]{5L, "Bonita"}));
+        when(modelo.clasificar(anyList()))
+                .thenThrow(new SentimentClassifier.ErrorModelo("503", true))
+                .thenReturn(List.of(clasificacion("positive")));
+
+        assertEquals(1, service.procesarLote(List.of(5L)));
+
+        verify(modelo, times(2)).clasificar(anyList());
+        assertArrayEquals(new Object[]{"positive", 5L}, actualizacionesGuardadas().get(0));
+    }
+
+    @Test
+    @DisplayName("Un error no reintentable o agotar los reintentos deja los comentarios pendientes")
+    void procesarLote_fallo() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.<Object[]>of(new Object[]{5L, "Bonita"}));
+        when(modelo.clasificar(anyList())).thenThrow(new SentimentClassifier.ErrorModelo("sin token", false));
+
+        assertEquals(0, service.procesarLote(List.of(5L)));
+        verify(modelo, times(1)).clasificar(anyList());
+
+        reset(modelo);
+        when(modelo.nombre()).thenReturn("prueba");
+        when(modelo.clasificar(anyList())).thenThrow(new SentimentClassifier.ErrorModelo("503", true));
+        assertEquals(0, service.procesarLote(List.of(5L)));
+        verify(modelo, times(3)).clasificar(anyList());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Con el circuito abierto no se llama al modelo y los comentarios quedan pendientes")
+    void procesarLote_circuitoAbierto() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.<Object[]>of(new Object[]{5L, "Bonita"}));
+        when(modelo.clasificar(anyList())).thenThrow(new SentimentClassifier.ErrorModelo("503", true));
+
+        assertEquals(0, service.procesarLote(List.of(5L)));
+        assertEquals(0, service.procesarLote(List.of(5L)));
+        assertEquals(CircuitoSentimiento.Estado.ABIERTO, service.circuito().estado());
+        verify(modelo, times(4)).clasificar(anyList());
+
+        assertEquals(0, service.procesarLote(List.of(5L)));
+        verify(modelo, times(4)).clasificar(anyList());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Sin textos pendientes no llama al modelo")
+    void procesarLote_yaAnalizados() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of());
+
+        assertEquals(0, service.procesarLote(List.of(7L)));
+        verify(modelo, never()).clasificar(anyList());
+        verifyNoInteractions(cache);
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM comentarios_outbox WHERE id_comentario = ?"), anyList());
+    }
+
+    @Test
+    @DisplayName("Los ids encolados se agrupan y se analizan en segundo plano")
+    void encolar_despacha() {
+        when(comentarioRepository.findTextosPendientes(any())).thenReturn(List.of(
+                new Object[]{1L, "Uno"}, new Object[]{2L, "Dos"}));
+        when(modelo.clasificar(anyList())).thenReturn(List.of(clasificacion("positive"), clasificacion("neutral")));
+
+        assertEquals(2, service.encolar(List.of(1L, 2L)));
+
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(eq("UPDATE comentarios SET sentimiento = ? WHERE id_comentario = ?"), anyList());
+    }
+
+    @Test
+    @DisplayName("Con la cola llena se rechaza el comentario")
+    void encolar_colaLlena() {
+        service.detener();
+        service = pipeline(1);
+        service.detener();
+
+        assertTrue(service.encolar(1L));
+        assertFalse(service.encolar(2L));
+    }
+
+    @Test
+    @DisplayName("Un lote rechazado por el ejecutor libera sus ids para volver a encolarlos")
+    void encolar_loteRechazado() throws InterruptedException {
+        service.detener();
+        CountDownLatch rechazos = new CountDownLatch(2);
+        service = pipeline(100, tarea -> {
+            rechazos.countDown();
+            throw new TaskRejectedException("saturado");
+        }, new SimpleMeterRegistry());
+
+        service.encolar(1L);
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!rechazos.await(10, TimeUnit.MILLISECONDS) && System.nanoTime() < limite) {
+            service.encolar(1L);
+        }
+
+        assertEquals(0, rechazos.getCount());
+        verifyNoInteractions(comentarioRepository, jdbcTemplate);
+    }
+}
@@ -0,0 +1,117 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.dto.SugerenciaDTO.TipoSugerencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SugerenciasFallas
+ *
+ * Cobertura: prefijo por palabra, orden por votos, agrupación de artistas,
+ *            palabra completa con espacio final, top-10 y consultas largas
+ *
+ * @version 1.0.0
+ */
+@DisplayName("SugerenciasFallas Tests")
+class SugerenciasFallasTest {
+
+    private SugerenciasFallas sugerencias;
+
+    @BeforeEach
+    void setUp() {
+        sugerencias = new SugerenciasFallas(List.of(
+                        falla(1L, "Plaça del Pilar", "Pere Baenas", "La ciutat i la mar"),
+                        falla(2L, "Na Jordana", "Pere Baenas", "Col·lecció de somnis"),
+                        falla(3L, "Plaza de la Merced", "Vicente Martínez", null),
+                        falla(4L, "Nave", null, null)),
+                Map.of(1L, 5L, 2L, 30L, 3L, 12L));
+    }
+
+    private static FallaDTO falla(Long id, String nombre, String artista, String lema) {
+        return FallaDTO.builder()
+                .idFalla(id)
+                .nombre(nombre)
+                .artista(artista)
+                .lema(lema)
+                .build();
+    }
+
+    private static List<String> textos(List<SugerenciaDTO> lista) {
+        return lista.stream().map(SugerenciaDTO::getTexto).toList();
+    }
+
+    @Test
+    @DisplayName("Sugiere por prefijo sin acentos, ordenado por votos")
+    void sugerir_prefijoOrdenadoPorVotos() {
+        assertEquals(List.of("Plaza de la Merced", "Plaça del Pilar"), textos(sugerencias.sugerir("pla", 10)));
+    }
+
+    @Test
+    @DisplayName("Sugiere desde cualquier palabra del texto")
+    void sugerir_desdeCualquierPalabra() {
+        List<SugerenciaDTO> resultado = sugerencias.sugerir("JOR", 10);
+
+        assertEquals(1, resultado.size());
+        assertEquals(TipoSugerencia.FALLA, resultado.get(0).getTipo());
+        assertEquals(2L, resultado.get(0).getIdFalla());
+        assertEquals(30L, resultado.get(0).getVotos());
+    }
+
+    @Test
+    @DisplayName("Agrupa el artista de varias fallas sumando sus votos")
+    void sugerir_agrupaArtista() {
+        List<SugerenciaDTO> resultado = sugerencias.sugerir("baen", 10);
+
+        assertEquals(1, resultado.size());
+        assertEquals(TipoSugerencia.ARTISTA, resultado.get(0).getTipo());
+        assertNull(resultado.get(0).getIdFalla());
+        assertEquals(2, resultado.get(0).getTotalFallas());
+        assertEquals(35L, resultado.get(0).getVotos());
+    }
+
+    @Test
+    @DisplayName("Un espacio final restringe a palabras completas")
+    void sugerir_espacioFinal() {
+        assertEquals(List.of("Na Jordana", "Nave"), textos(sugerencias.sugerir("na", 10)));
+        assertEquals(List.of("Na Jordana"), textos(sugerencias.sugerir("na ", 10)));
+    }
+
+    @Test
+    @DisplayName("Devuelve como mucho el límite pedido y nunca más de 10")
+    void sugerir_limite() {
+        List<FallaDTO> muchas = new ArrayList<>();
+        for (long i = 1; i <= 30; i++) {
+            muchas.add(falla(i, "Falla número " + i, null, null));
+        }
+        SugerenciasFallas grande = new SugerenciasFallas(muchas, Map.of(17L, 100L));
+
+        List<SugerenciaDTO> resultado = grande.sugerir("falla", 10);
+        assertEquals(10, resultado.size());
+        assertEquals(17L, resultado.get(0).getIdFalla());
+        assertEquals(3, grande.sugerir("falla", 3).size());
+    }
+
+    @Test
+    @DisplayName("Consultas más largas que la profundidad del trie se verifican")
+    void sugerir_consultaLarga() {
+        assertEquals(List.of("Plaza de la Merced"), textos(sugerencias.sugerir("plaza de la merced", 10)));
+        assertTrue(sugerencias.sugerir("plaza de la merced y algo mas", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Sin coincidencias o consulta vacía devuelve lista vacía")
+    void sugerir_sinCoincidencias() {
+        assertTrue(sugerencias.sugerir("xyz", 10).isEmpty());
+        assertTrue(sugerencias.sugerir("  ", 10).isEmpty());
+        assertTrue(sugerencias.sugerir(null, 10).isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.SugerenciaDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.model.Falla;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para SugerenciasService
+ *
+ * Cobertura: validación del límite, reutilización del trie, reconstrucción
+ *            al cambiar el catálogo y al caducar los pesos
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SugerenciasService Tests")
+class SugerenciasServiceTest {
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    private FallaCatalogoService fallaCatalogoService;
+
+    @BeforeEach
+    void setUp() {
+        fallaCatalogoService = new FallaCatalogoService(fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        lenient().when(fallaRepository.findAll()).thenReturn(List.of(falla(1L, "Na Jordana"), falla(2L, "Nave")));
+        lenient().when(rankingVotosService.obtenerVotosPorFalla()).thenReturn(Map.of(2L, 10L));
+    }
+
+    private static Falla falla(Long id, String nombre) {
+        Falla falla = new Falla();
+        falla.setIdFalla(id);
+        falla.setNombre(nombre);
+        falla.setCategoria(Falla.CategoriaFalla.primera);
+        falla.setEventos(new ArrayList<>());
+        falla.setUsuarios(new ArrayList<>());
+        falla.setComentarios(new ArrayList<>());
+        return falla;
+    }
+
+    @Test
+    @DisplayName("Sugiere ordenando por votos y reutiliza el trie entre consultas")
+    void sugerir_reutilizaTrie() {
+        SugerenciasService service = new SugerenciasService(fallaCatalogoService, rankingVotosService, 60_000);
+
+        List<SugerenciaDTO> primera = service.sugerir("na", 10);
+        service.sugerir("jor", 10);
+
+        assertEquals(List.of("Nave", "Na Jordana"), primera.stream().map(SugerenciaDTO::getTexto).toList());
+        verify(rankingVotosService, times(1)).obtenerVotosPorFalla();
+    }
+
+    @Test
+    @DisplayName("Reconstruye el trie cuando cambia el catálogo")
+    void sugerir_reconstruyeAlCambiarCatalogo() {
+        SugerenciasService service = new SugerenciasService(fallaCatalogoService, rankingVotosService, 60_000);
+        assertTrue(service.sugerir("ruz", 10).isEmpty());
+
+        fallaCatalogoService.registrarCambio(FallaDTO.builder().idFalla(3L).nombre("Ruzafa").build());
+
+        assertEquals("Ruzafa", service.sugerir("ruz", 10).get(0).getTexto());
+        verify(rankingVotosService, times(2)).obtenerVotosPorFalla();
+    }
+
+    @Test
+    @DisplayName("Refresca los pesos cuando caducan")
+    void sugerir_refrescaPesosCaducados() {
+        SugerenciasService service = new SugerenciasService(fallaCatalogoService, rankingVotosService, -1);
+
+        service.sugerir("na", 10);
+        service.sugerir("na", 10);
+
+        verify(rankingVotosService, times(2)).obtenerVotosPorFalla();
+    }
+
+    @Test
+    @DisplayName("Consulta vacía no construye el trie")
+    void sugerir_consultaVacia() {
+        SugerenciasService service = new SugerenciasService(fallaCatalogoService, rankingVotosService, 60_000);
+
+        assertTrue(service.sugerir(" ", 10).isEmpty());
+        verifyNoInteractions(rankingVotosService);
+    }
+
+    @Test
+    @DisplayName("Límite fuera de rango lanza BadRequestException")
+    void sugerir_limiteInvalido() {
+        SugerenciasService service = new SugerenciasService(fallaCatalogoService, rankingVotosService, 60_000);
+
+        assertThrows(BadRequestException.class, () -> service.sugerir("na", 0));
+        assertThrows(BadRequestException.class, () -> service.sugerir("na", 11));
+    }
+}
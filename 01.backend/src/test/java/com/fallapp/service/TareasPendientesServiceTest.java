@@ -0,0 +1,127 @@
+package com.fallapp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para TareasPendientesService
+ *
+ * Cobertura: guardado de tareas desbordadas, reintento con su manejador,
+ *            fallos con backoff, descarte tras el máximo de intentos y
+ *            tipos desconocidos
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TareasPendientesService Tests")
+class TareasPendientesServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<ManejadorTareaDiferida> manejadoresDisponibles;
+
+    @Mock
+    private ManejadorTareaDiferida manejador;
+
+    private TareasPendientesService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(manejador.tipoTarea()).thenReturn("email.bienvenida");
+        lenient().when(manejadoresDisponibles.iterator()).thenAnswer(i -> List.of(manejador).iterator());
+        service = new TareasPendientesService(jdbcTemplate, manejadoresDisponibles, new SimpleMeterRegistry(), 1000, 3);
+    }
+
+    private static Map<String, Object> fila(long id, String tipo, String datos, int intentos) {
+        return Map.of("id", id, "ejecutor", "email", "tipo", tipo, "datos", datos, "intentos", intentos);
+    }
+
+    @SafeVarargs
+    private final void reclamar(Map<String, Object>... filas) {
+        when(jdbcTemplate.queryForList(anyString(), eq(1000L), eq(100))).thenReturn(new ArrayList<>(List.of(filas)));
+    }
+
+    @Test
+    @DisplayName("Guarda la tarea con su ejecutor, tipo y datos")
+    void guardar_inserta() {
+        assertTrue(service.guardar("email", "email.bienvenida", "a@b.es\nAna"));
+
+        verify(jdbcTemplate).update(anyString(), eq("email"), eq("email.bienvenida"), eq("a@b.es\nAna"));
+    }
+
+    @Test
+    @DisplayName("Sin BD no se puede guardar y lo indica")
+    void guardar_sinBd() {
+        when(jdbcTemplate.update(anyString(), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("caída"));
+
+        assertFalse(service.guardar("email", "email.bienvenida", "x"));
+    }
+
+    @Test
+    @DisplayName("Repite las tareas reclamadas y borra las que terminan bien")
+    void procesar_ejecutaYBorra() {
+        reclamar(fila(1L, "email.bienvenida", "a@b.es\nAna", 1), fila(2L, "email.bienvenida", "c@d.es\nBea", 1));
+
+        assertEquals(2, service.procesar());
+
+        verify(manejador).ejecutarTarea("a@b.es\nAna");
+        verify(manejador).ejecutarTarea("c@d.es\nBea");
+        verify(jdbcTemplate).update("DELETE FROM tareas_pendientes WHERE id = ?", 1L);
+        verify(jdbcTemplate).update("DELETE FROM tareas_pendientes WHERE id = ?", 2L);
+    }
+
+    @Test
+    @DisplayName("Una tarea que falla se queda para el siguiente intento")
+    void procesar_falloSeReintenta() {
+        reclamar(fila(1L, "email.bienvenida", "a@b.es\nAna", 2));
+        doThrow(new IllegalStateException("SMTP caído")).when(manejador).ejecutarTarea(anyString());
+
+        assertEquals(0, service.procesar());
+
+        verify(jdbcTemplate, never()).update(eq("DELETE FROM tareas_pendientes WHERE id = ?"), anyLong());
+    }
+
+    @Test
+    @DisplayName("Tras el máximo de intentos la tarea se descarta")
+    void procesar_maxIntentos() {
+        reclamar(fila(1L, "email.bienvenida", "a@b.es\nAna", 3));
+        doThrow(new IllegalStateException("SMTP caído")).when(manejador).ejecutarTarea(anyString());
+
+        assertEquals(0, service.procesar());
+
+        verify(jdbcTemplate).update("DELETE FROM tareas_pendientes WHERE id = ?", 1L);
+    }
+
+    @Test
+    @DisplayName("Las tareas de un tipo sin manejador se descartan")
+    void procesar_tipoDesconocido() {
+        reclamar(fila(9L, "otro.tipo", "x", 1));
+
+        assertEquals(0, service.procesar());
+
+        verify(manejador, never()).ejecutarTarea(anyString());
+        verify(jdbcTemplate).update("DELETE FROM tareas_pendientes WHERE id = ?", 9L);
+    }
+}
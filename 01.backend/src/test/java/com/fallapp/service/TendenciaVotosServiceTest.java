@@ -0,0 +1,265 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.TendenciaVotosDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.model.Falla;
+import com.fallapp.model.Voto;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import com.fallapp.repository.VotoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para TendenciaVotosService
+ *
+ * Cobertura: ventanas en minutos/horas desde memoria, rotación de cubetas,
+ *            ventanas en días con la tabla consolidada, siembra y consolidación
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TendenciaVotosService Tests")
+class TendenciaVotosServiceTest {
+
+    private static final long MS_MINUTO = 60_000L;
+    private static final long MS_HORA = 3_600_000L;
+    /** 2026-03-15 12:30 UTC */
+    private static final long INICIO = Instant.parse("2026-03-15T12:30:00Z").toEpochMilli();
+
+    @Mock
+    private VotoRepository votoRepository;
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private RelojManual reloj;
+    private TendenciaVotosService service;
+
+    @BeforeEach
+    void setUp() {
+        FallaCatalogoService fallaCatalogoService = new FallaCatalogoService(
+                fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        lenient().when(fallaRepository.findAll()).thenReturn(List.of(falla(1L, "Na Jordana"), falla(2L, "Convento Jerusalén")));
+        reloj = new RelojManual(INICIO);
+        service = new TendenciaVotosService(votoRepository, fallaCatalogoService, 0, reloj);
+    }
+
+    private static Falla falla(Long id, String nombre) {
+        Falla falla = new Falla();
+        falla.setIdFalla(id);
+        falla.setNombre(nombre);
+        falla.setSeccion("E");
+        falla.setCategoria(Falla.CategoriaFalla.especial);
+        falla.setEventos(new ArrayList<>());
+        falla.setUsuarios(new ArrayList<>());
+        falla.setComentarios(new ArrayList<>());
+        return falla;
+    }
+
+    private void votar(long idFalla, int veces) {
+        for (int i = 0; i < veces; i++) {
+            service.registrarVoto(idFalla, Voto.TipoVoto.MONUMENTO);
+        }
+    }
+
+    @Test
+    @DisplayName("Ordena por incremento frente a la ventana anterior")
+    void obtenerTendencia_minutos() {
+        votar(1L, 10);
+        votar(2L, 2);
+        reloj.avanzar(5 * MS_MINUTO);
+        votar(1L, 3);
+        votar(2L, 6);
+
+        TendenciaVotosDTO tendencia = service.obtenerTendencia("5m", null, 10);
+
+        assertEquals("5m", tendencia.getVentana());
+        assertEquals(2, tendencia.getFallas().size());
+        TendenciaVotosDTO.FallaTendencia primera = tendencia.getFallas().get(0);
+        assertEquals(2L, primera.getIdFalla());
+        assertEquals("Convento Jerusalén", primera.getNombre());
+        assertEquals(6L, primera.getVotos());
+        assertEquals(2L, primera.getVotosAnteriores());
+        assertEquals(4L, primera.getIncremento());
+        assertEquals(200.0, primera.getCrecimiento());
+        assertEquals(-7L, tendencia.getFallas().get(1).getIncremento());
+        verifyNoInteractions(votoRepository);
+    }
+
+    @Test
+    @DisplayName("Filtra por tipo y omite fallas sin votos en la ventana actual")
+    void obtenerTendencia_filtroTipo() {
+        votar(1L, 4);
+        service.registrarVoto(2L, Voto.TipoVoto.EXPERIMENTAL);
+        reloj.avanzar(MS_HORA);
+        service.registrarVoto(2L, Voto.TipoVoto.EXPERIMENTAL);
+
+        TendenciaVotosDTO tendencia = service.obtenerTendencia("1h", Voto.TipoVoto.EXPERIMENTAL, 10);
+
+        assertEquals("EXPERIMENTAL", tendencia.getFiltroTipoVoto());
+        assertEquals(1, tendencia.getFallas().size());
+        assertEquals(2L, tendencia.getFallas().get(0).getIdFalla());
+        assertEquals(0L, tendencia.getFallas().get(0).getIncremento());
+    }
+
+    @Test
+    @DisplayName("Las cubetas que salen del anillo dejan de contar")
+    void registrarVoto_rotacion() {
+        votar(1L, 5);
+        reloj.avanzar(TendenciaVotosService.MINUTOS * MS_MINUTO);
+        votar(1L, 1);
+
+        TendenciaVotosDTO.FallaTendencia falla = service.obtenerTendencia("60m", null, 10).getFallas().get(0);
+        assertEquals(1L, falla.getVotos());
+        assertEquals(0L, falla.getVotosAnteriores());
+        assertNull(falla.getCrecimiento());
+    }
+
+    @Test
+    @DisplayName("Las ventanas en días suman la tabla consolidada fuera de memoria")
+    void obtenerTendencia_dias() {
+        votar(1L, 2);
+        when(votoRepository.sumarTendenciaConsolidada(any(), any(), any())).thenReturn(List.of(
+                new Object[]{1, "MONUMENTO", 40L, 8L},
+                new Object[]{2, "EXPERIMENTAL", 0L, 30L}));
+
+        TendenciaVotosDTO tendencia = service.obtenerTendencia("7d", null, 1);
+
+        assertEquals(1, tendencia.getFallas().size());
+        assertEquals(2L, tendencia.getFallas().get(0).getIdFalla());
+        long hora = INICIO / MS_HORA;
+        verify(votoRepository).sumarTendenciaConsolidada(
+                Instant.ofEpochMilli((hora - 14 * 24 + 1) * MS_HORA),
+                Instant.ofEpochMilli((hora - 7 * 24 + 1) * MS_HORA),
+                Instant.ofEpochMilli((hora - TendenciaVotosService.HORAS + 1) * MS_HORA));
+    }
+
+    @Test
+    @DisplayName("Ventana no válida lanza BadRequestException")
+    void obtenerTendencia_ventanaNoValida() {
+        assertThrows(BadRequestException.class, () -> service.obtenerTendencia("90m", null, 10));
+        assertThrows(BadRequestException.class, () -> service.obtenerTendencia("25h", null, 10));
+        assertThrows(BadRequestException.class, () -> service.obtenerTendencia("1w", null, 10));
+        assertThrows(BadRequestException.class, () -> service.obtenerTendencia("0d", null, 10));
+    }
+
+    @Test
+    @DisplayName("La siembra carga minutos de votos y horas cerradas de la tabla consolidada")
+    void sembrar_cargaAnillos() {
+        long minuto = INICIO / MS_MINUTO;
+        long hora = INICIO / MS_HORA;
+        when(votoRepository.contarVotosPorMinutoDesde(any())).thenReturn(List.<Object[]>of(
+                new Object[]{1, "MONUMENTO", minuto - 2, 3L},
+                new Object[]{1, "MONUMENTO", minuto - 50, 9L}));
+        when(votoRepository.votosConsolidadosPorHora(any(), any())).thenReturn(List.<Object[]>of(
+                new Object[]{1, "MONUMENTO", hora - 1, 20L}));
+
+        service.sembrar();
+
+        TendenciaVotosDTO.FallaTendencia minutos = service.obtenerTendencia("5m", null, 10).getFallas().get(0);
+        assertEquals(3L, minutos.getVotos());
+        TendenciaVotosDTO.FallaTendencia horas = service.obtenerTendencia("1h", null, 10).getFallas().get(0);
+        assertEquals(3L, horas.getVotos(), "La hora en curso solo tiene los minutos desde las 12:00");
+        assertEquals(20L, horas.getVotosAnteriores());
+    }
+
+    @Test
+    @DisplayName("La consolidación recuenta desde la última hora consolidada hasta la actual")
+    void consolidar_desdeUltimaHora() {
+        long hora = INICIO / MS_HORA;
+        when(votoRepository.ultimaHoraConsolidada()).thenReturn(hora - 3);
+        when(votoRepository.consolidarTendenciaHoras(any(), any())).thenReturn(12);
+
+        assertEquals(12, service.consolidar());
+        verify(votoRepository).consolidarTendenciaHoras(
+                Instant.ofEpochMilli((hora - 3) * MS_HORA), Instant.ofEpochMilli(hora * MS_HORA));
+    }
+
+    @Test
+    @DisplayName("Una eliminación resta en su cubeta y fuerza el recuento de su hora ya consolidada")
+    void registrarEliminacion_recuentaHora() {
+        long hora = INICIO / MS_HORA;
+        votar(1L, 2);
+        LocalDateTime fechaVoto = LocalDateTime.ofInstant(Instant.ofEpochMilli(INICIO), ZoneId.systemDefault());
+        LocalDateTime haceTresHoras = fechaVoto.minusHours(3);
+
+        service.registrarEliminacion(1L, Voto.TipoVoto.MONUMENTO, fechaVoto);
+        service.registrarEliminacion(1L, Voto.TipoVoto.MONUMENTO, haceTresHoras);
+        assertEquals(1L, service.obtenerTendencia("5m", null, 10).getFallas().get(0).getVotos());
+
+        reloj.avanzar(MS_HORA);
+        when(votoRepository.ultimaHoraConsolidada()).thenReturn(hora);
+        service.consolidar();
+
+        verify(votoRepository).consolidarTendenciaHoras(
+                Instant.ofEpochMilli((hora - 3) * MS_HORA), Instant.ofEpochMilli((hora - 2) * MS_HORA));
+        verify(votoRepository).consolidarTendenciaHoras(
+                Instant.ofEpochMilli(hora * MS_HORA), Instant.ofEpochMilli((hora + 1) * MS_HORA));
+
+        // Ya recontadas: la siguiente consolidación no las repite
+        clearInvocations(votoRepository);
+        service.consolidar();
+        verify(votoRepository, never()).consolidarTendenciaHoras(
+                Instant.ofEpochMilli((hora - 3) * MS_HORA), Instant.ofEpochMilli((hora - 2) * MS_HORA));
+    }
+
+    /**
+     * Reloj controlado por el test
+     */
+    private static final class RelojManual extends Clock {
+        private long millis;
+
+        RelojManual(long millis) {
+            this.millis = millis;
+        }
+
+        void avanzar(long ms) {
+            millis += ms;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.FallaDTO;
+import com.fallapp.dto.TeselaDTO;
+import com.fallapp.model.Falla;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para TeselasFallas
+ *
+ * Cobertura: clusters a zoom bajo (total, centroide, categoría dominante),
+ *            marcadores a zoom de detalle, caché por snapshot
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TeselasFallas Tests")
+class TeselasFallasTest {
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    private FallaCatalogoService catalogo;
+
+    @BeforeEach
+    void setUp() {
+        catalogo = new FallaCatalogoService(fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        when(fallaRepository.findAll()).thenReturn(List.of(
+                falla(1L, 39.4699, -0.3763, Falla.CategoriaFalla.especial),
+                falla(2L, 39.4702, -0.3760, Falla.CategoriaFalla.primera),
+                falla(3L, 39.4705, -0.3758, Falla.CategoriaFalla.primera),
+                falla(4L, 39.4080, -0.4000, Falla.CategoriaFalla.quinta)));
+    }
+
+    private static Falla falla(Long id, double lat, double lon, Falla.CategoriaFalla categoria) {
+        Falla falla = new Falla();
+        falla.setIdFalla(id);
+        falla.setNombre("Falla " + id);
+        falla.setCategoria(categoria);
+        falla.setUbicacionLat(BigDecimal.valueOf(lat));
+        falla.setUbicacionLon(BigDecimal.valueOf(lon));
+        return falla;
+    }
+
+    private static int teselaX(double lon, int z) {
+        return (int) (TeselasFallas.mercatorX(lon) * (1 << z));
+    }
+
+    private static int teselaY(double lat, int z) {
+        return (int) (TeselasFallas.mercatorY(lat) * (1 << z));
+    }
+
+    @Test
+    @DisplayName("A zoom de ciudad agrupa fallas cercanas en un cluster")
+    void zoomBajo_agrupaEnClusters() {
+        TeselasFallas teselas = catalogo.obtener().derivado(TeselasFallas.class, TeselasFallas::new);
+
+        TeselaDTO tesela = teselas.obtener(10, teselaX(-0.3763, 10), teselaY(39.4699, 10));
+
+        assertEquals(4, tesela.getTotalFallas());
+        assertNull(tesela.getFallas());
+        TeselaDTO.Cluster centro = tesela.getClusters().stream()
+                .filter(c -> c.getTotal() == 3).findFirst().orElseThrow();
+        assertEquals("primera", centro.getCategoriaDominante());
+        assertEquals(39.4702, centro.getLatitud(), 0.0001);
+        assertNull(centro.getIdFalla());
+        TeselaDTO.Cluster aislado = tesela.getClusters().stream()
+                .filter(c -> c.getTotal() == 1).findFirst().orElseThrow();
+        assertEquals(4L, aislado.getIdFalla());
+    }
+
+    @Test
+    @DisplayName("A zoom de detalle devuelve marcadores individuales")
+    void zoomDetalle_devuelveMarcadores() {
+        TeselasFallas teselas = catalogo.obtener().derivado(TeselasFallas.class, TeselasFallas::new);
+        int z = TeselasFallas.ZOOM_DETALLE;
+
+        TeselaDTO tesela = teselas.obtener(z, teselaX(-0.4000, z), teselaY(39.4080, z));
+
+        assertNull(tesela.getClusters());
+        assertEquals(1, tesela.getFallas().size());
+        assertEquals(4L, tesela.getFallas().get(0).getIdFalla());
+    }
+
+    @Test
+    @DisplayName("Las teselas se cachean y un cambio en el catálogo las descarta")
+    void cache_porSnapshot() {
+        TeselasFallas teselas = catalogo.obtener().derivado(TeselasFallas.class, TeselasFallas::new);
+        TeselaDTO primera = teselas.obtener(10, teselaX(-0.3763, 10), teselaY(39.4699, 10));
+
+        assertSame(primera, teselas.obtener(10, teselaX(-0.3763, 10), teselaY(39.4699, 10)));
+        assertSame(teselas, catalogo.obtener().derivado(TeselasFallas.class, TeselasFallas::new));
+
+        catalogo.registrarEliminacion(4L);
+
+        TeselasFallas nuevas = catalogo.obtener().derivado(TeselasFallas.class, TeselasFallas::new);
+        assertNotSame(teselas, nuevas);
+        assertEquals(3, nuevas.obtener(10, teselaX(-0.3763, 10), teselaY(39.4699, 10)).getTotalFallas());
+        assertTrue(nuevas.obtener(10, teselaX(-0.3763, 10), teselaY(39.4699, 10)).getVersion() > primera.getVersion());
+    }
+}
@@ -6,6 +6,7 @@ import com.fallapp.exception.BadRequestException;
 import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
+import com.fallapp.repository.FallaRepository;
 import com.fallapp.repository.UsuarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -45,6 +46,12 @@ class UsuarioServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private FallaCatalogoService fallaCatalogoService;
+
     @InjectMocks
     private UsuarioService usuarioService;
 
@@ -101,6 +108,29 @@ class UsuarioServiceTest {
             verify(usuarioRepository).save(any(Usuario.class));
         }
 
+        @Test
+        @DisplayName("Registrar usuario con falla recuenta sus miembros en el catálogo")
+        void registrar_conFalla_actualizaContadoresCatalogo() {
+            // Given
+            RegistroRequest request = new RegistroRequest();
+            request.setEmail("casal@example.com");
+            request.setContrasena("password123");
+            request.setNombreCompleto("Casal Na Jordana");
+            request.setIdFalla(5L);
+
+            Falla falla = new Falla();
+            falla.setIdFalla(5L);
+            when(usuarioRepository.existsByEmail("casal@example.com")).thenReturn(false);
+            when(fallaRepository.findById(5L)).thenReturn(Optional.of(falla));
+            when(usuarioRepository.save(any(Usuario.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // When
+            usuarioService.registrar(request);
+
+            // Then
+            verify(fallaCatalogoService).actualizarContadores(List.of(5L));
+        }
+
         @Test
         @DisplayName("Registrar con email duplicado lanza BadRequestException")
         void registrar_conEmailDuplicado_lanzaBadRequestException() {
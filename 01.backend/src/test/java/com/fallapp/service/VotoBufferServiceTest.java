@@ -0,0 +1,297 @@
+package com.fallapp.service;
+
+import com.fallapp.dto.CrearVotoRequest;
+import com.fallapp.dto.VotoDTO;
+import com.fallapp.exception.BadRequestException;
+import com.fallapp.exception.ResourceNotFoundException;
+import com.fallapp.exception.ServicioNoDisponibleException;
+import com.fallapp.model.Falla;
+import com.fallapp.model.Voto;
+import com.fallapp.repository.EventoRepository;
+import com.fallapp.repository.FallaRepository;
+import com.fallapp.repository.UsuarioRepository;
+import com.fallapp.repository.VotoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para VotoBufferService
+ *
+ * Cobertura: aceptación y duplicados en memoria, back-pressure, escritura
+ *            por lotes, recuperación tras reinicio y descartes
+ *
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VotoBufferService Tests")
+class VotoBufferServiceTest {
+
+    @Mock
+    private VotoRepository votoRepository;
+
+    @Mock
+    private FallaRepository fallaRepository;
+
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    @Mock
+    private TendenciaVotosService tendenciaVotosService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directorio;
+
+    private FallaCatalogoService fallaCatalogoService;
+    private VotoBufferService buffer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fallaCatalogoService = new FallaCatalogoService(fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        lenient().when(fallaRepository.findAll()).thenReturn(List.of(falla(15L, "Na Jordana")));
+        lenient().when(votoRepository.findFallaYTipoPorUsuario(anyLong())).thenReturn(List.of());
+        buffer = crearBuffer(2);
+        buffer.abrirRegistro();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.detener();
+    }
+
+    private VotoBufferService crearBuffer(int capacidad) {
+        EstadoVotosService estadoVotosService = new EstadoVotosService(votoRepository, new SimpleMeterRegistry(), 100);
+        return new VotoBufferService(estadoVotosService, fallaCatalogoService, rankingVotosService, tendenciaVotosService, jdbcTemplate,
+                transactionManager, new SimpleMeterRegistry(), true, capacidad, 500, 5, directorio.toString());
+    }
+
+    private static Falla falla(Long id, String nombre) {
+        Falla falla = new Falla();
+        falla.setIdFalla(id);
+        falla.setNombre(nombre);
+        falla.setSeccion("1A");
+        falla.setCategoria(Falla.CategoriaFalla.primera);
+        falla.setEventos(new ArrayList<>());
+        falla.setUsuarios(new ArrayList<>());
+        falla.setComentarios(new ArrayList<>());
+        return falla;
+    }
+
+    private static CrearVotoRequest request(Long idFalla, String tipo) {
+        CrearVotoRequest request = new CrearVotoRequest();
+        request.setIdFalla(idFalla);
+        request.setTipoVoto(tipo);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void batchDevuelve(int... filas) {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{filas});
+    }
+
+    private long segmentos() throws IOException {
+        try (Stream<Path> listado = Files.list(directorio)) {
+            return listado.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Acepta el voto sin tocar la BD y lo escribe en el siguiente lote")
+    void encolar_yVaciarLote() throws IOException {
+        VotoDTO voto = buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+
+        assertNull(voto.getIdVoto());
+        assertEquals("Na Jordana", voto.getNombreFalla());
+        assertEquals(1, buffer.pendientes());
+        verifyNoInteractions(jdbcTemplate, rankingVotosService);
+
+        batchDevuelve(1);
+        assertEquals(1, buffer.vaciarLote());
+
+        assertEquals(0, buffer.pendientes());
+        verify(rankingVotosService).registrarVoto(15L, "Na Jordana", "1A", Voto.TipoVoto.MONUMENTO);
+        verify(tendenciaVotosService).registrarVoto(15L, Voto.TipoVoto.MONUMENTO);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Voto repetido se rechaza en memoria")
+    void encolar_duplicado() {
+        buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+
+        assertThrows(BadRequestException.class, () -> buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO")));
+        assertEquals(1, buffer.pendientes());
+        verify(votoRepository, times(1)).findFallaYTipoPorUsuario(1L);
+    }
+
+    @Test
+    @DisplayName("Los votos ya guardados en BD cuentan como repetidos")
+    void encolar_duplicadoEnBd() {
+        when(votoRepository.findFallaYTipoPorUsuario(7L))
+                .thenReturn(List.<Object[]>of(new Object[]{15L, Voto.TipoVoto.EXPERIMENTAL}));
+
+        assertThrows(BadRequestException.class, () -> buffer.encolar(7L, "Otro", request(15L, "EXPERIMENTAL")));
+        assertDoesNotThrow(() -> buffer.encolar(7L, "Otro", request(15L, "MONUMENTO")));
+    }
+
+    @Test
+    @DisplayName("Falla inexistente lanza ResourceNotFoundException")
+    void encolar_fallaInexistente() {
+        assertThrows(ResourceNotFoundException.class, () -> buffer.encolar(1L, "Usuario Test", request(999L, "MONUMENTO")));
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    @DisplayName("Con la cola llena responde 503 sin marcar el voto")
+    void encolar_colaLlena() {
+        buffer.encolar(1L, "A", request(15L, "MONUMENTO"));
+        buffer.encolar(2L, "B", request(15L, "MONUMENTO"));
+
+        ServicioNoDisponibleException ex = assertThrows(ServicioNoDisponibleException.class,
+                () -> buffer.encolar(3L, "C", request(15L, "MONUMENTO")));
+        assertEquals(1, ex.getReintentarEnSegundos());
+
+        batchDevuelve(1, 1);
+        buffer.vaciarLote();
+        assertDoesNotThrow(() -> buffer.encolar(3L, "C", request(15L, "MONUMENTO")));
+    }
+
+    @Test
+    @DisplayName("Un voto que ya estaba en BD no vuelve a sumar en el ranking")
+    void vaciarLote_conflictoNoSuma() {
+        buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+        batchDevuelve(0);
+
+        buffer.vaciarLote();
+
+        verifyNoInteractions(rankingVotosService);
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    @DisplayName("Los votos no escritos se reenvían tras un reinicio y el registro se vacía al confirmarlos")
+    void abrirRegistro_recuperaPendientes() throws IOException {
+        buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+        buffer.detener();
+
+        VotoBufferService reiniciado = crearBuffer(2);
+        reiniciado.abrirRegistro();
+        assertEquals(1, reiniciado.pendientes());
+
+        batchDevuelve(1);
+        reiniciado.vaciarLote();
+        reiniciado.detener();
+
+        assertEquals(0, segmentos());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un voto descartado por integridad se puede volver a emitir")
+    void vaciarLote_descartaVotoInvalido() {
+        buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("fk"));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("fk"));
+
+        buffer.vaciarLote();
+
+        verifyNoInteractions(rankingVotosService);
+        assertEquals(0, buffer.pendientes());
+        assertDoesNotThrow(() -> buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Si el driver no informa de las filas, se deshace el lote y se escribe voto a voto")
+    void vaciarLote_sinInformacionDeFilas() {
+        SimpleTransactionStatus transaccion = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaccion);
+        buffer.encolar(1L, "A", request(15L, "MONUMENTO"));
+        buffer.encolar(2L, "B", request(15L, "MONUMENTO"));
+        batchDevuelve(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO);
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(1).thenReturn(0);
+
+        buffer.vaciarLote();
+
+        assertTrue(transaccion.isRollbackOnly());
+        verify(rankingVotosService, times(1)).registrarVoto(15L, "Na Jordana", "1A", Voto.TipoVoto.MONUMENTO);
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un error de BD escribiendo voto a voto se reintenta en vez de perder el lote")
+    void vaciarLote_reintentaVotoAVoto() {
+        buffer.encolar(1L, "Usuario Test", request(15L, "MONUMENTO"));
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("fk"));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        assertEquals(1, buffer.vaciarLote());
+
+        verify(jdbcTemplate, times(2)).update(anyString(), any(PreparedStatementSetter.class));
+        verify(rankingVotosService).registrarVoto(15L, "Na Jordana", "1A", Voto.TipoVoto.MONUMENTO);
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un fallo inesperado libera el hueco en la cola y deja el voto en el registro")
+    void vaciarLote_falloInesperadoLiberaHueco() throws IOException {
+        buffer.encolar(1L, "A", request(15L, "MONUMENTO"));
+        buffer.encolar(2L, "B", request(15L, "MONUMENTO"));
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("driver"));
+
+        assertThrows(IllegalStateException.class, () -> buffer.vaciarLote());
+
+        assertEquals(0, buffer.pendientes());
+        assertEquals(1, segmentos(), "Sin confirmar: se reenvía al arrancar");
+        assertDoesNotThrow(() -> buffer.encolar(3L, "C", request(15L, "MONUMENTO")));
+        assertDoesNotThrow(() -> buffer.encolar(4L, "D", request(15L, "MONUMENTO")));
+        verifyNoInteractions(rankingVotosService);
+    }
+}
@@ -2,33 +2,43 @@ package com.fallapp.service;
 
 import com.fallapp.dto.CrearVotoRequest;
 import com.fallapp.dto.VotoDTO;
+import com.fallapp.dto.VotoLoteDTO;
 import com.fallapp.exception.BadRequestException;
 import com.fallapp.exception.ResourceNotFoundException;
 import com.fallapp.model.Falla;
 import com.fallapp.model.Usuario;
 import com.fallapp.model.Voto;
+import com.fallapp.repository.EventoRepository;
 import com.fallapp.repository.FallaRepository;
 import com.fallapp.repository.UsuarioRepository;
 import com.fallapp.repository.VotoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -53,7 +63,21 @@ class VotoServiceTest {
     @Mock
     private FallaRepository fallaRepository;
 
-    @InjectMocks
+    @Mock
+    private EventoRepository eventoRepository;
+
+    @Mock
+    private RankingVotosService rankingVotosService;
+
+    @Mock
+    private EstadoVotosService estadoVotosService;
+
+    @Mock
+    private TendenciaVotosService tendenciaVotosService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     private VotoService votoService;
 
     private Usuario usuarioMock;
@@ -62,6 +86,10 @@ class VotoServiceTest {
 
     @BeforeEach
     void setUp() {
+        FallaCatalogoService fallaCatalogoService = new FallaCatalogoService(
+                fallaRepository, eventoRepository, usuarioRepository, new SimpleMeterRegistry());
+        votoService = new VotoService(votoRepository, usuarioRepository, fallaRepository, rankingVotosService, fallaCatalogoService, estadoVotosService, tendenciaVotosService, jdbcTemplate);
+
         usuarioMock = new Usuario();
         usuarioMock.setIdUsuario(1L);
         usuarioMock.setNombreCompleto("Juan García");
@@ -71,6 +99,10 @@ class VotoServiceTest {
         fallaMock.setIdFalla(15L);
         fallaMock.setNombre("Falla Na Jordana");
         fallaMock.setSeccion("E");
+        fallaMock.setCategoria(Falla.CategoriaFalla.especial);
+        fallaMock.setEventos(new ArrayList<>());
+        fallaMock.setUsuarios(new ArrayList<>());
+        fallaMock.setComentarios(new ArrayList<>());
 
         votoMock = new Voto();
         votoMock.setIdVoto(100L);
@@ -89,22 +121,23 @@ class VotoServiceTest {
     @DisplayName("votar()")
     class VotarTests {
 
+        private CrearVotoRequest request(Long idFalla, String tipo) {
+            CrearVotoRequest request = new CrearVotoRequest();
+            request.setIdFalla(idFalla);
+            request.setTipoVoto(tipo);
+            return request;
+        }
+
         @Test
         @DisplayName("Votar con tipo EXPERIMENTAL debe crear voto exitosamente")
         void votar_conTipoExperimental_creaVotoExitosamente() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(
-                    eq(usuarioMock), eq(fallaMock), eq(Voto.TipoVoto.EXPERIMENTAL))).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenReturn(votoMock);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(eq(1L), eq(15L), eq("EXPERIMENTAL"), any(LocalDateTime.class)))
+                    .thenReturn(List.of(100));
 
             // When
-            VotoDTO resultado = votoService.votar(1L, request);
+            VotoDTO resultado = votoService.votar(1L, "Juan García", request(15L, "EXPERIMENTAL"));
 
             // Then
             assertNotNull(resultado, "El resultado no debe ser null");
@@ -112,36 +145,24 @@ class VotoServiceTest {
             assertEquals(1L, resultado.getIdUsuario());
             assertEquals(15L, resultado.getIdFalla());
             assertEquals("EXPERIMENTAL", resultado.getTipoVoto());
-            verify(votoRepository).save(any(Voto.class));
+            assertNotNull(resultado.getFechaCreacion());
+            verify(rankingVotosService).registrarVoto(15L, "Falla Na Jordana", "E", Voto.TipoVoto.EXPERIMENTAL);
+            verify(tendenciaVotosService).registrarVoto(15L, Voto.TipoVoto.EXPERIMENTAL);
         }
 
         @Test
         @DisplayName("Votar con tipo INGENIO_Y_GRACIA debe crear voto exitosamente")
         void votar_conTipoIngenioYGracia_creaVotoExitosamente() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("INGENIO_Y_GRACIA");
-
-            Voto votoIngenio = new Voto();
-            votoIngenio.setIdVoto(101L);
-            votoIngenio.setUsuario(usuarioMock);
-            votoIngenio.setFalla(fallaMock);
-            votoIngenio.setTipoVoto(Voto.TipoVoto.INGENIO_Y_GRACIA);
-            votoIngenio.setValor(1);
-            votoIngenio.setCreadoEn(LocalDateTime.now());
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(
-                    any(), any(), eq(Voto.TipoVoto.INGENIO_Y_GRACIA))).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenReturn(votoIngenio);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(eq(1L), eq(15L), eq("INGENIO_Y_GRACIA"), any()))
+                    .thenReturn(List.of(101));
 
             // When
-            VotoDTO resultado = votoService.votar(1L, request);
+            VotoDTO resultado = votoService.votar(1L, "Juan García", request(15L, "INGENIO_Y_GRACIA"));
 
             // Then
-            assertNotNull(resultado);
+            assertEquals(101L, resultado.getIdVoto());
             assertEquals("INGENIO_Y_GRACIA", resultado.getTipoVoto());
         }
 
@@ -149,180 +170,86 @@ class VotoServiceTest {
         @DisplayName("Votar con tipo MONUMENTO debe crear voto exitosamente")
         void votar_conTipoMonumento_creaVotoExitosamente() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("MONUMENTO");
-
-            Voto votoMonumento = new Voto();
-            votoMonumento.setIdVoto(102L);
-            votoMonumento.setUsuario(usuarioMock);
-            votoMonumento.setFalla(fallaMock);
-            votoMonumento.setTipoVoto(Voto.TipoVoto.MONUMENTO);
-            votoMonumento.setValor(1);
-            votoMonumento.setCreadoEn(LocalDateTime.now());
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(
-                    any(), any(), eq(Voto.TipoVoto.MONUMENTO))).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenReturn(votoMonumento);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(eq(1L), eq(15L), eq("MONUMENTO"), any()))
+                    .thenReturn(List.of(102));
 
             // When
-            VotoDTO resultado = votoService.votar(1L, request);
+            VotoDTO resultado = votoService.votar(1L, "Juan García", request(15L, "MONUMENTO"));
 
             // Then
-            assertNotNull(resultado);
             assertEquals("MONUMENTO", resultado.getTipoVoto());
         }
 
         @Test
-        @DisplayName("Votar debe setear valor a 1 siempre")
-        void votar_siempreSeteaValorA1() {
+        @DisplayName("Votar usa una única sentencia: ni SELECT previos ni save()")
+        void votar_unaSolaSentencia() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(any(), any(), any())).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenAnswer(invocation -> {
-                Voto voto = invocation.getArgument(0);
-                assertEquals(1, voto.getValor(), "El valor del voto debe ser siempre 1");
-                voto.setIdVoto(100L);
-                voto.setCreadoEn(LocalDateTime.now());
-                return voto;
-            });
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(any(), any(), any(), any())).thenReturn(List.of(100));
 
             // When
-            votoService.votar(1L, request);
+            votoService.votar(1L, "Juan García", request(15L, "EXPERIMENTAL"));
+            votoService.votar(1L, "Juan García", request(15L, "MONUMENTO"));
 
-            // Then
-            verify(votoRepository).save(any(Voto.class));
+            // Then - el catálogo se carga una vez; cada voto es solo el INSERT
+            verify(votoRepository, times(2)).insertarSiNoExiste(any(), any(), any(), any());
+            verify(votoRepository, never()).save(any(Voto.class));
+            verify(votoRepository, never()).existsByUsuarioAndFallaAndTipoVoto(any(), any(), any());
+            verify(fallaRepository, never()).findById(any());
+            verify(usuarioRepository, never()).findById(any());
         }
 
         @Test
         @DisplayName("Votar falla duplicada debe lanzar BadRequestException")
         void votar_conVotoDuplicado_lanzaBadRequestException() {
-            // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(
-                    eq(usuarioMock), eq(fallaMock), eq(Voto.TipoVoto.EXPERIMENTAL))).thenReturn(true);
+            // Given - ON CONFLICT DO NOTHING no devuelve filas
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(any(), any(), any(), any())).thenReturn(List.of());
 
             // When & Then
             BadRequestException exception = assertThrows(BadRequestException.class, () -> {
-                votoService.votar(1L, request);
+                votoService.votar(1L, "Juan García", request(15L, "EXPERIMENTAL"));
             });
 
             assertTrue(exception.getMessage().contains("Ya has votado"));
-            verify(votoRepository, never()).save(any(Voto.class));
-        }
-
-        @Test
-        @DisplayName("Votar con usuario diferente tipo permite voto")
-        void votar_mismaFallaDiferenteTipo_permiteVoto() {
-            // Given - usuario ya votó EXPERIMENTAL, ahora vota MONUMENTO
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("MONUMENTO");
-
-            Voto nuevoVoto = new Voto();
-            nuevoVoto.setIdVoto(103L);
-            nuevoVoto.setUsuario(usuarioMock);
-            nuevoVoto.setFalla(fallaMock);
-            nuevoVoto.setTipoVoto(Voto.TipoVoto.MONUMENTO);
-            nuevoVoto.setValor(1);
-            nuevoVoto.setCreadoEn(LocalDateTime.now());
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(
-                    any(), any(), eq(Voto.TipoVoto.MONUMENTO))).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenReturn(nuevoVoto);
-
-            // When
-            VotoDTO resultado = votoService.votar(1L, request);
-
-            // Then
-            assertNotNull(resultado);
-            assertEquals("MONUMENTO", resultado.getTipoVoto());
-        }
-
-        @Test
-        @DisplayName("Votar con usuario inexistente debe lanzar ResourceNotFoundException")
-        void votar_conUsuarioInexistente_lanzaResourceNotFoundException() {
-            // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(999L)).thenReturn(Optional.empty());
-
-            // When & Then
-            assertThrows(ResourceNotFoundException.class, () -> {
-                votoService.votar(999L, request);
-            });
-
-            verify(votoRepository, never()).save(any(Voto.class));
+            verifyNoInteractions(rankingVotosService);
         }
 
         @Test
         @DisplayName("Votar con falla inexistente debe lanzar ResourceNotFoundException")
         void votar_conFallaInexistente_lanzaResourceNotFoundException() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(999L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(999L)).thenReturn(Optional.empty());
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
 
             // When & Then
             assertThrows(ResourceNotFoundException.class, () -> {
-                votoService.votar(1L, request);
+                votoService.votar(1L, "Juan García", request(999L, "EXPERIMENTAL"));
             });
 
-            verify(votoRepository, never()).save(any(Voto.class));
+            verify(votoRepository, never()).insertarSiNoExiste(any(), any(), any(), any());
         }
 
         @Test
         @DisplayName("Votar con tipo inválido debe lanzar IllegalArgumentException")
         void votar_conTipoInvalido_lanzaIllegalArgumentException() {
-            // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("TIPO_INVALIDO");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-
             // When & Then
             assertThrows(IllegalArgumentException.class, () -> {
-                votoService.votar(1L, request);
+                votoService.votar(1L, "Juan García", request(15L, "TIPO_INVALIDO"));
             });
 
-            verify(votoRepository, never()).save(any(Voto.class));
+            verify(votoRepository, never()).insertarSiNoExiste(any(), any(), any(), any());
         }
 
         @Test
         @DisplayName("El DTO retornado contiene nombre del usuario y falla")
         void votar_retornaDTOConNombresCorrectos() {
             // Given
-            CrearVotoRequest request = new CrearVotoRequest();
-            request.setIdFalla(15L);
-            request.setTipoVoto("EXPERIMENTAL");
-
-            when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuarioMock));
-            when(fallaRepository.findById(15L)).thenReturn(Optional.of(fallaMock));
-            when(votoRepository.existsByUsuarioAndFallaAndTipoVoto(any(), any(), any())).thenReturn(false);
-            when(votoRepository.save(any(Voto.class))).thenReturn(votoMock);
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            when(votoRepository.insertarSiNoExiste(any(), any(), any(), any())).thenReturn(List.of(100L));
 
             // When
-            VotoDTO resultado = votoService.votar(1L, request);
+            VotoDTO resultado = votoService.votar(1L, "Juan García", request(15L, "EXPERIMENTAL"));
 
             // Then
             assertEquals("Juan García", resultado.getNombreUsuario());
@@ -330,6 +257,83 @@ class VotoServiceTest {
         }
     }
 
+    // ==========================================
+    // VOTAR LOTE
+    // ==========================================
+
+    @Nested
+    @DisplayName("votarLote()")
+    class VotarLoteTests {
+
+        private CrearVotoRequest request(Long idFalla, String tipo) {
+            return new CrearVotoRequest(idFalla, tipo);
+        }
+
+        /**
+         * Simula el INSERT multi-fila devolviendo (idVoto, idFalla, tipo) de los votos creados
+         */
+        private void insertDevuelve(Object[]... filas) throws SQLException {
+            doAnswer(invocation -> {
+                RowCallbackHandler handler = invocation.getArgument(2);
+                for (Object[] fila : filas) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong(1)).thenReturn((Long) fila[0]);
+                    when(rs.getLong(2)).thenReturn((Long) fila[1]);
+                    when(rs.getString(3)).thenReturn((String) fila[2]);
+                    handler.processRow(rs);
+                }
+                return null;
+            }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        }
+
+        @Test
+        @DisplayName("Clasifica cada voto: creado, duplicado e inexistente, con un solo INSERT")
+        void votarLote_resultadosPorVoto() throws SQLException {
+            // Given - EXPERIMENTAL ya existía en BD, MONUMENTO se crea
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+            insertDevuelve(new Object[]{200L, 15L, "MONUMENTO"});
+
+            // When
+            VotoLoteDTO resultado = votoService.votarLote(1L, List.of(
+                    request(15L, "EXPERIMENTAL"),
+                    request(15L, "MONUMENTO"),
+                    request(999L, "MONUMENTO"),
+                    request(15L, "MONUMENTO")));
+
+            // Then
+            assertEquals(1, resultado.getCreados());
+            assertEquals(2, resultado.getDuplicados());
+            assertEquals(1, resultado.getInvalidos());
+            assertEquals(List.of(VotoLoteDTO.EstadoVoto.DUPLICADO, VotoLoteDTO.EstadoVoto.CREADO,
+                            VotoLoteDTO.EstadoVoto.FALLA_INEXISTENTE, VotoLoteDTO.EstadoVoto.DUPLICADO),
+                    resultado.getResultados().stream().map(VotoLoteDTO.Resultado::getEstado).toList());
+            assertEquals(200L, resultado.getResultados().get(1).getIdVoto());
+            assertNull(resultado.getResultados().get(0).getIdVoto());
+
+            ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+            verify(jdbcTemplate, times(1)).query(sql.capture(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+            assertTrue(sql.getValue().contains("(?, ?, ?, 1, ?), (?, ?, ?, 1, ?) ON CONFLICT"));
+            verify(rankingVotosService).registrarVoto(15L, "Falla Na Jordana", "E", Voto.TipoVoto.MONUMENTO);
+            verify(estadoVotosService).registrarVoto(1L, 15L, Voto.TipoVoto.MONUMENTO);
+            verifyNoMoreInteractions(rankingVotosService);
+        }
+
+        @Test
+        @DisplayName("Un lote sin fallas válidas no llega a la BD")
+        void votarLote_sinVotosValidos() {
+            // Given
+            when(fallaRepository.findAll()).thenReturn(List.of(fallaMock));
+
+            // When
+            VotoLoteDTO resultado = votoService.votarLote(1L, List.of(request(999L, "MONUMENTO")));
+
+            // Then
+            assertEquals(0, resultado.getCreados());
+            assertEquals(1, resultado.getInvalidos());
+            verifyNoInteractions(jdbcTemplate, rankingVotosService);
+        }
+    }
+
     // ==========================================
     // OBTENER VOTOS USUARIO
     // ==========================================
@@ -480,6 +484,9 @@ class VotoServiceTest {
 
             // Then
             verify(votoRepository).delete(votoMock);
+            verify(rankingVotosService).registrarEliminacion(15L, Voto.TipoVoto.EXPERIMENTAL);
+            verify(estadoVotosService).registrarEliminacion(1L, 15L, Voto.TipoVoto.EXPERIMENTAL);
+            verify(tendenciaVotosService).registrarEliminacion(15L, Voto.TipoVoto.EXPERIMENTAL, votoMock.getCreadoEn());
         }
 
         @Test
@@ -223,22 +223,56 @@ function renderSentiment(data) {
   loadComentariosFalla(data.idFalla);
 }
 
-async function loadComentariosFalla(fallaId) {
-  const container = document.getElementById('sentiment-comments');
-  if (!container || !fallaId) return;
+const COMENTARIOS_POR_PAGINA = 20;
+
+function renderComentario(c) {
+  const sent = (c.sentimiento || '').toLowerCase();
+  const badge = sent === 'positive' ? '<span class="comment-badge positive">Positivo</span>' :
+                sent === 'negative' ? '<span class="comment-badge negative">Negativo</span>' :
+                sent === 'neutral' ? '<span class="comment-badge neutral">Neutro</span>' : '';
+  const autor = c.nombreUsuario || 'Usuario';
+  const fecha = c.fechaCreacion ? new Date(c.fechaCreacion).toLocaleDateString('es-ES', { day: 'numeric', month: 'short', year: 'numeric' }) : '';
+  const texto = String(c.contenido || '').replace(/</g, '&lt;');
+  return `
+    <div class="comment-item">
+      <div class="comment-meta">
+        <strong>${autor}</strong> ${badge}
+        ${fecha ? `<span class="comment-date">${fecha}</span>` : ''}
+      </div>
+      <p class="comment-text">${texto}</p>
+    </div>
+  `;
+}
 
-  const base = getApiBase();
+/**
+ * Pide una página de comentarios de la falla. La API pagina por cursor:
+ * `siguienteCursor` de una respuesta se envía como `cursor` en la siguiente.
+ */
+async function fetchPaginaComentarios(fallaId, cursor) {
   const token = localStorage.getItem('fallapp_token');
   const headers = { 'Accept': 'application/json' };
   if (token) headers['Authorization'] = `Bearer ${token}`;
 
+  let url = `${getApiBase()}/comentarios?idFalla=${fallaId}&limite=${COMENTARIOS_POR_PAGINA}`;
+  if (cursor) url += `&cursor=${encodeURIComponent(cursor)}`;
+  const res = await fetch(url, { headers });
+  if (!res.ok) throw new Error(`HTTP ${res.status}`);
+  const json = await res.json().catch(() => ({}));
+  const pagina = json.datos || {};
+  return {
+    comentarios: Array.isArray(pagina.comentarios) ? pagina.comentarios : [],
+    siguienteCursor: pagina.siguienteCursor || null
+  };
+}
+
+async function loadComentariosFalla(fallaId) {
+  const container = document.getElementById('sentiment-comments');
+  if (!container || !fallaId) return;
+
   try {
-    const res = await fetch(`${base}/comentarios?idFalla=${fallaId}`, { headers });
-    const json = await res.json().catch(() => ({}));
-    const lista = json.datos || json.content || json || [];
-    const comentarios = Array.isArray(lista) ? lista : [];
+    const pagina = await fetchPaginaComentarios(fallaId, null);
 
-    if (comentarios.length === 0) {
+    if (pagina.comentarios.length === 0) {
       container.innerHTML = `
         <div class="sentiment-comments-card">
           <h3>Comentarios de los usuarios</h3>
@@ -248,31 +282,31 @@ async function loadComentariosFalla(fallaId) {
       return;
     }
 
-    const items = comentarios.map(c => {
-      const sent = (c.sentimiento || '').toLowerCase();
-      const badge = sent === 'positive' ? '<span class="comment-badge positive">Positivo</span>' :
-                    sent === 'negative' ? '<span class="comment-badge negative">Negativo</span>' :
-                    sent === 'neutral' ? '<span class="comment-badge neutral">Neutro</span>' : '';
-      const autor = c.nombreUsuario || 'Usuario';
-      const fecha = c.fechaCreacion ? new Date(c.fechaCreacion).toLocaleDateString('es-ES', { day: 'numeric', month: 'short', year: 'numeric' }) : '';
-      const texto = String(c.contenido || '').replace(/</g, '&lt;');
-      return `
-        <div class="comment-item">
-          <div class="comment-meta">
-            <strong>${autor}</strong> ${badge}
-            ${fecha ? `<span class="comment-date">${fecha}</span>` : ''}
-          </div>
-          <p class="comment-text">${texto}</p>
-        </div>
-      `;
-    }).join('');
-
     container.innerHTML = `
       <div class="sentiment-comments-card">
         <h3>Comentarios de los usuarios</h3>
-        <div class="comment-list">${items}</div>
+        <div class="comment-list">${pagina.comentarios.map(renderComentario).join('')}</div>
+        <button type="button" id="btn-mas-comentarios" class="btn-reanalizar" hidden>Ver más comentarios</button>
       </div>
     `;
+
+    const lista = container.querySelector('.comment-list');
+    const btnMas = document.getElementById('btn-mas-comentarios');
+    let cursor = pagina.siguienteCursor;
+    btnMas.hidden = !cursor;
+    btnMas.onclick = async () => {
+      btnMas.disabled = true;
+      try {
+        const siguiente = await fetchPaginaComentarios(fallaId, cursor);
+        lista.insertAdjacentHTML('beforeend', siguiente.comentarios.map(renderComentario).join(''));
+        cursor = siguiente.siguienteCursor;
+        btnMas.hidden = !cursor;
+      } catch (err) {
+        showSentimentMessage('No se pudieron cargar más comentarios.', 'warning');
+      } finally {
+        btnMas.disabled = false;
+      }
+    };
   } catch (err) {
     container.innerHTML = `
       <div class="sentiment-comments-card">
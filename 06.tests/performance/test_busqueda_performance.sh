@@ -0,0 +1,66 @@
+#!/bin/bash
+
+# Mide /api/fallas/buscar (índice invertido en memoria) con consultas típicas
+# del buscador: palabras completas, prefijos (typeahead) y sin acentos.
+# Contrapartida JMH: 01.backend/src/test/java/com/fallapp/benchmark/BusquedaBenchmark.java
+set -e
+
+echo "========================================="
+echo "TEST PERFORMANCE: Búsqueda de fallas"
+echo "========================================="
+echo ""
+
+API_URL="http://localhost:8080"
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+CONSULTAS=("pla" "placa" "valencia" "convent jerusa" "regne" "falla del")
+
+echo "Test 1: Tiempo de respuesta por consulta"
+echo "--------------------------------------"
+# Primera petición para construir el catálogo y el índice
+curl -s -o /dev/null "$API_URL/api/fallas/buscar?texto=falla"
+for Q in "${CONSULTAS[@]}"; do
+    ENCODED=$(echo "$Q" | sed 's/ /%20/g')
+    read -r TIME <<< "$(curl -s -o /tmp/busqueda.json -w "%{time_total}" "$API_URL/api/fallas/buscar?texto=$ENCODED")"
+    TOTAL=$(grep -o '"idFalla"' /tmp/busqueda.json | wc -l)
+    echo "\"$Q\": ${TOTAL} resultados en ${TIME}s"
+
+    if (( $(echo "$TIME < 0.05" | bc -l) )); then
+        echo -e "${GREEN}PASS${NC} | Respuesta rápida (< 50ms)"
+    elif (( $(echo "$TIME < 0.2" | bc -l) )); then
+        echo -e "${YELLOW}WARN${NC} | Respuesta aceptable (< 200ms)"
+    else
+        echo -e "${RED}FAIL${NC} | Respuesta lenta (>= 200ms)"
+    fi
+done
+
+echo ""
+echo "Test 2: Búsqueda sin acentos"
+echo "--------------------------------------"
+CON=$(curl -s "$API_URL/api/fallas/buscar?texto=pla%C3%A7a&limite=100" | grep -o '"idFalla"' | wc -l)
+SIN=$(curl -s "$API_URL/api/fallas/buscar?texto=placa&limite=100" | grep -o '"idFalla"' | wc -l)
+echo "\"plaça\": $CON resultados, \"placa\": $SIN resultados"
+if [ "$CON" = "$SIN" ] && [ "$CON" -gt 0 ]; then
+    echo -e "${GREEN}PASS${NC} | Mismos resultados con y sin acento"
+else
+    echo -e "${RED}FAIL${NC} | Resultados distintos"
+fi
+
+echo ""
+echo "Test 3: Límite fuera de rango"
+echo "--------------------------------------"
+STATUS=$(curl -s -o /dev/null -w "%{http_code}" "$API_URL/api/fallas/buscar?texto=falla&limite=0")
+if [ "$STATUS" = "400" ]; then
+    echo -e "${GREEN}PASS${NC} | Devuelve 400"
+else
+    echo -e "${RED}FAIL${NC} | Devuelve $STATUS (esperado 400)"
+fi
+
+echo ""
+echo "========================================="
+echo "FIN TEST PERFORMANCE"
+echo "========================================="
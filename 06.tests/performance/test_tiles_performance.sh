@@ -0,0 +1,94 @@
+#!/bin/bash
+
+# Compara la carga del mapa con teselas agrupadas (/api/fallas/tiles/{z}/{x}/{y})
+# frente al enfoque actual de descargar el listado completo de fallas.
+set -e
+
+echo "========================================="
+echo "TEST PERFORMANCE: Teselas del mapa"
+echo "========================================="
+echo ""
+
+API_URL="http://localhost:8080"
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+# Teselas que cubren las 351 fallas de València (bbox de 07.datos/raw/falles-fallas.jsonl)
+# zoom: x_desde x_hasta y_desde y_hasta
+TESELAS_Z12="12 2043 2044 1557 1561"
+TESELAS_Z13="13 4086 4089 3114 3122"
+TESELAS_Z14="14 8172 8179 6229 6245"
+
+medir_teselas() {
+    read -r Z X0 X1 Y0 Y1 <<< "$1"
+    local bytes=0
+    local tiempo=0
+    local peticiones=0
+    for x in $(seq $X0 $X1); do
+        for y in $(seq $Y0 $Y1); do
+            read -r SIZE TIME <<< "$(curl -s -o /dev/null -w "%{size_download} %{time_total}" \
+                -H "Accept-Encoding: identity" $API_URL/api/fallas/tiles/$Z/$x/$y)"
+            bytes=$((bytes + SIZE))
+            tiempo=$(echo "$tiempo + $TIME" | bc -l)
+            peticiones=$((peticiones + 1))
+        done
+    done
+    echo "$bytes $tiempo $peticiones"
+}
+
+echo "Test 1: Listado completo (enfoque actual)"
+echo "--------------------------------------"
+read -r FULL_SIZE FULL_TIME <<< "$(curl -s -o /dev/null -w "%{size_download} %{time_total}" \
+    -H "Accept-Encoding: identity" "$API_URL/api/fallas?pagina=0&tamano=500")"
+echo "Tamaño: ${FULL_SIZE} bytes"
+echo "Tiempo: ${FULL_TIME}s"
+
+echo ""
+echo "Test 2: Teselas a zoom de ciudad"
+echo "--------------------------------------"
+for TESELAS in "$TESELAS_Z12" "$TESELAS_Z13" "$TESELAS_Z14"; do
+    read -r Z _ <<< "$TESELAS"
+    read -r BYTES TIEMPO PETICIONES <<< "$(medir_teselas "$TESELAS")"
+    MEDIA=$(echo "scale=4; $TIEMPO / $PETICIONES" | bc -l)
+    RATIO=$(echo "scale=1; $FULL_SIZE / ($BYTES + 1)" | bc -l)
+    echo "z=$Z: ${PETICIONES} teselas, ${BYTES} bytes en total (${RATIO}x menos), media ${MEDIA}s por tesela"
+
+    if [ $BYTES -lt $FULL_SIZE ]; then
+        echo -e "${GREEN}PASS${NC} | Carga más ligera que el listado completo"
+    else
+        echo -e "${RED}FAIL${NC} | Las teselas pesan más que el listado completo"
+    fi
+done
+
+echo ""
+echo "Test 3: Tesela cacheada (segunda petición)"
+echo "--------------------------------------"
+curl -s -o /dev/null $API_URL/api/fallas/tiles/13/4087/3117
+CACHED_TIME=$(curl -s -o /dev/null -w "%{time_total}" $API_URL/api/fallas/tiles/13/4087/3117)
+echo "Tiempo de respuesta: ${CACHED_TIME}s"
+
+if (( $(echo "$CACHED_TIME < 0.05" | bc -l) )); then
+    echo -e "${GREEN}PASS${NC} | Respuesta desde caché (< 50ms)"
+elif (( $(echo "$CACHED_TIME < 0.2" | bc -l) )); then
+    echo -e "${YELLOW}WARN${NC} | Respuesta aceptable (< 200ms)"
+else
+    echo -e "${RED}FAIL${NC} | Respuesta lenta (>= 200ms)"
+fi
+
+echo ""
+echo "Test 4: Tesela fuera de rango"
+echo "--------------------------------------"
+STATUS=$(curl -s -o /dev/null -w "%{http_code}" $API_URL/api/fallas/tiles/2/9/9)
+if [ "$STATUS" = "400" ]; then
+    echo -e "${GREEN}PASS${NC} | Devuelve 400"
+else
+    echo -e "${RED}FAIL${NC} | Devuelve $STATUS (esperado 400)"
+fi
+
+echo ""
+echo "========================================="
+echo "FIN TEST PERFORMANCE"
+echo "========================================="
@@ -1,5 +1,6 @@
 #!/bin/bash
 
+# Contrapartida JMH (sin red ni BD): 01.backend/src/test/java/com/fallapp/benchmark/UbicacionesBenchmark.java
 set -e
 
 echo "========================================="
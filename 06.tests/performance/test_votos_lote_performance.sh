@@ -0,0 +1,116 @@
+#!/bin/bash
+
+# Compara el coste por voto de POST /api/votos (una petición por voto) con
+# POST /api/votos/lote (todos los votos en una petición, un solo INSERT).
+# Cada modo usa un usuario recién registrado para que todos los votos sean nuevos.
+#
+# Uso: ./test_votos_lote_performance.sh [fallas]   (votos = fallas × 3 tipos)
+set -e
+
+echo "========================================="
+echo "TEST PERFORMANCE: Votos en lote"
+echo "========================================="
+echo ""
+
+API_URL="http://localhost:8080"
+FALLAS=${1:-50}
+TIPOS=("EXPERIMENTAL" "INGENIO_Y_GRACIA" "MONUMENTO")
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+registrar() {
+    curl -s -X POST "$API_URL/api/auth/registro" \
+        -H "Content-Type: application/json" \
+        -d '{"email":"perf_lote_'$1'_'$(date +%s%N)'@example.com","contrasena":"PerfLote123!","nombreCompleto":"Perf Lote '$1'","idFalla":95}' \
+        | jq -r '.datos.token // empty'
+}
+
+echo "Preparación: usuarios y fallas"
+echo "--------------------------------------"
+TOKEN_INDIVIDUAL=$(registrar individual)
+TOKEN_LOTE=$(registrar lote)
+if [ -z "$TOKEN_INDIVIDUAL" ] || [ -z "$TOKEN_LOTE" ]; then
+    echo -e "${RED}FAIL${NC} | No se pudieron registrar los usuarios de prueba"
+    exit 1
+fi
+IDS=$(curl -s "$API_URL/api/fallas?pagina=0&tamano=$FALLAS" | jq -r '.datos.contenido[].idFalla')
+TOTAL=$(( $(echo "$IDS" | grep -c .) * ${#TIPOS[@]} ))
+echo "Votos por modo: $TOTAL"
+
+echo ""
+echo "Test 1: $TOTAL votos, una petición por voto"
+echo "--------------------------------------"
+INICIO=$(date +%s.%N)
+CREADOS_INDIVIDUAL=0
+for ID in $IDS; do
+    for TIPO in "${TIPOS[@]}"; do
+        CODIGO=$(curl -s -o /dev/null -w "%{http_code}" -X POST "$API_URL/api/votos" \
+            -H "Authorization: Bearer $TOKEN_INDIVIDUAL" \
+            -H "Content-Type: application/json" \
+            -d '{"idFalla":'$ID',"tipoVoto":"'$TIPO'"}')
+        if [ "$CODIGO" = "201" ] || [ "$CODIGO" = "202" ]; then
+            CREADOS_INDIVIDUAL=$((CREADOS_INDIVIDUAL + 1))
+        fi
+    done
+done
+FIN=$(date +%s.%N)
+MS_INDIVIDUAL=$(echo "($FIN - $INICIO) * 1000 / $TOTAL" | bc -l)
+printf "Creados: %d/%d → %.2f ms/voto\n" "$CREADOS_INDIVIDUAL" "$TOTAL" "$MS_INDIVIDUAL"
+
+echo ""
+echo "Test 2: $TOTAL votos en una sola petición /api/votos/lote"
+echo "--------------------------------------"
+CUERPO=$(for ID in $IDS; do
+    for TIPO in "${TIPOS[@]}"; do
+        echo '{"idFalla":'$ID',"tipoVoto":"'$TIPO'"}'
+    done
+done | jq -s '{votos: .}')
+INICIO=$(date +%s.%N)
+RESPUESTA=$(curl -s -X POST "$API_URL/api/votos/lote" \
+    -H "Authorization: Bearer $TOKEN_LOTE" \
+    -H "Content-Type: application/json" \
+    -d "$CUERPO")
+FIN=$(date +%s.%N)
+CREADOS_LOTE=$(echo "$RESPUESTA" | jq -r '.datos.creados // 0')
+MS_LOTE=$(echo "($FIN - $INICIO) * 1000 / $TOTAL" | bc -l)
+printf "Creados: %d/%d → %.2f ms/voto\n" "$CREADOS_LOTE" "$TOTAL" "$MS_LOTE"
+
+if [ "$CREADOS_LOTE" -eq "$TOTAL" ]; then
+    echo -e "${GREEN}PASS${NC} | Todos los votos del lote registrados"
+else
+    echo -e "${RED}FAIL${NC} | $((TOTAL - CREADOS_LOTE)) votos del lote no registrados"
+fi
+
+echo ""
+echo "Test 3: El mismo lote repetido (todo DUPLICADO)"
+echo "--------------------------------------"
+DUPLICADOS=$(curl -s -X POST "$API_URL/api/votos/lote" \
+    -H "Authorization: Bearer $TOKEN_LOTE" \
+    -H "Content-Type: application/json" \
+    -d "$CUERPO" | jq -r '.datos.duplicados // 0')
+if [ "$DUPLICADOS" -eq "$TOTAL" ]; then
+    echo -e "${GREEN}PASS${NC} | $DUPLICADOS votos marcados como DUPLICADO"
+else
+    echo -e "${RED}FAIL${NC} | Duplicados: $DUPLICADOS/$TOTAL"
+fi
+
+echo ""
+echo "Comparativa"
+echo "--------------------------------------"
+MEJORA=$(echo "$MS_INDIVIDUAL / $MS_LOTE" | bc -l)
+printf "Individual: %.2f ms/voto | Lote: %.2f ms/voto | %.1fx\n" "$MS_INDIVIDUAL" "$MS_LOTE" "$MEJORA"
+if (( $(echo "$MEJORA >= 10" | bc -l) )); then
+    echo -e "${GREEN}PASS${NC} | El lote es al menos 10x más barato por voto"
+elif (( $(echo "$MEJORA >= 3" | bc -l) )); then
+    echo -e "${YELLOW}WARN${NC} | El lote es entre 3x y 10x más barato por voto"
+else
+    echo -e "${RED}FAIL${NC} | El lote no compensa (< 3x)"
+fi
+
+echo ""
+echo "========================================="
+echo "FIN TEST PERFORMANCE"
+echo "========================================="
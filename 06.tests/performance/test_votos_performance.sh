@@ -0,0 +1,109 @@
+#!/bin/bash
+
+# Mide votos/segundo sostenidos en POST /api/votos con varios usuarios a la vez.
+# Cada voto es un único INSERT ... ON CONFLICT DO NOTHING; los repetidos
+# deben rechazarse (400) igual de rápido, sin SELECT previos.
+#
+# Uso: ./test_votos_performance.sh [usuarios] [fallas_por_usuario]
+set -e
+
+echo "========================================="
+echo "TEST PERFORMANCE: Ingesta de votos"
+echo "========================================="
+echo ""
+
+API_URL="http://localhost:8080"
+USUARIOS=${1:-20}
+FALLAS_POR_USUARIO=${2:-25}
+TIPOS=("EXPERIMENTAL" "INGENIO_Y_GRACIA" "MONUMENTO")
+TMP_DIR=$(mktemp -d)
+trap 'rm -rf "$TMP_DIR"' EXIT
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+YELLOW='\033[1;33m'
+NC='\033[0m'
+
+echo "Preparación: registrando $USUARIOS usuarios de prueba"
+echo "--------------------------------------"
+TIMESTAMP=$(date +%s)
+for i in $(seq 1 $USUARIOS); do
+    curl -s -X POST "$API_URL/api/auth/registro" \
+        -H "Content-Type: application/json" \
+        -d '{"email":"perf_votos_'$TIMESTAMP'_'$i'@example.com","contrasena":"PerfVotos123!","nombreCompleto":"Perf Votos '$i'","idFalla":95}' \
+        | jq -r '.datos.token // empty' > "$TMP_DIR/token_$i" &
+done
+wait
+TOKENS=$(cat "$TMP_DIR"/token_* | grep -c . || true)
+echo "Tokens obtenidos: $TOKENS/$USUARIOS"
+if [ "$TOKENS" -lt "$USUARIOS" ]; then
+    echo -e "${RED}FAIL${NC} | No se pudieron registrar todos los usuarios"
+    exit 1
+fi
+
+# Una línea por voto: token idFalla tipo
+IDS=$(curl -s "$API_URL/api/fallas?pagina=0&tamano=$FALLAS_POR_USUARIO" | jq -r '.datos.contenido[].idFalla')
+for i in $(seq 1 $USUARIOS); do
+    TOKEN=$(cat "$TMP_DIR/token_$i")
+    for ID in $IDS; do
+        echo "$TOKEN $ID ${TIPOS[$((RANDOM % 3))]}"
+    done
+done > "$TMP_DIR/votos.txt"
+TOTAL=$(wc -l < "$TMP_DIR/votos.txt")
+
+votar() {
+    read -r TOKEN ID TIPO <<< "$1"
+    curl -s -o /dev/null -w "%{http_code}\n" -X POST "$API_URL/api/votos" \
+        -H "Authorization: Bearer $TOKEN" \
+        -H "Content-Type: application/json" \
+        -d '{"idFalla":'$ID',"tipoVoto":"'$TIPO'"}'
+}
+export -f votar
+export API_URL
+
+echo ""
+echo "Test 1: $TOTAL votos nuevos con $USUARIOS usuarios concurrentes"
+echo "--------------------------------------"
+INICIO=$(date +%s.%N)
+tr '\n' '\0' < "$TMP_DIR/votos.txt" | xargs -0 -P "$USUARIOS" -I{} bash -c 'votar "{}"' > "$TMP_DIR/codigos_1.txt"
+FIN=$(date +%s.%N)
+DURACION=$(echo "$FIN - $INICIO" | bc -l)
+# 202 = aceptado por el buffer de votos (app.votos.buffer.enabled=true)
+CREADOS=$(grep -cE "^20[12]$" "$TMP_DIR/codigos_1.txt" || true)
+RATIO=$(echo "scale=1; $CREADOS / $DURACION" | bc -l)
+echo "Creados: $CREADOS/$TOTAL en ${DURACION}s → ${RATIO} votos/s"
+
+if [ "$CREADOS" -eq "$TOTAL" ]; then
+    echo -e "${GREEN}PASS${NC} | Todos los votos registrados"
+else
+    echo -e "${RED}FAIL${NC} | $((TOTAL - CREADOS)) votos no registrados"
+fi
+if (( $(echo "$RATIO >= 200" | bc -l) )); then
+    echo -e "${GREEN}PASS${NC} | Rendimiento sostenido (>= 200 votos/s)"
+elif (( $(echo "$RATIO >= 50" | bc -l) )); then
+    echo -e "${YELLOW}WARN${NC} | Rendimiento aceptable (>= 50 votos/s)"
+else
+    echo -e "${RED}FAIL${NC} | Rendimiento bajo (< 50 votos/s)"
+fi
+
+echo ""
+echo "Test 2: Los mismos $TOTAL votos repetidos (deben rechazarse)"
+echo "--------------------------------------"
+INICIO=$(date +%s.%N)
+tr '\n' '\0' < "$TMP_DIR/votos.txt" | xargs -0 -P "$USUARIOS" -I{} bash -c 'votar "{}"' > "$TMP_DIR/codigos_2.txt"
+FIN=$(date +%s.%N)
+DURACION=$(echo "$FIN - $INICIO" | bc -l)
+RECHAZADOS=$(grep -c "^400$" "$TMP_DIR/codigos_2.txt" || true)
+RATIO=$(echo "scale=1; $RECHAZADOS / $DURACION" | bc -l)
+echo "Rechazados: $RECHAZADOS/$TOTAL en ${DURACION}s → ${RATIO} peticiones/s"
+
+if [ "$RECHAZADOS" -eq "$TOTAL" ]; then
+    echo -e "${GREEN}PASS${NC} | Todos los duplicados devuelven 400"
+else
+    echo -e "${RED}FAIL${NC} | $((TOTAL - RECHAZADOS)) duplicados no rechazados"
+fi
+
+echo ""
+echo "========================================="
+echo "FIN TEST PERFORMANCE"
+echo "========================================="
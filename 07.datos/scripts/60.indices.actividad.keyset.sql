@@ -0,0 +1,16 @@
+-- Índices compuestos para el feed de actividad (/api/estadisticas/actividad)
+-- Permiten ORDER BY fecha DESC, id DESC LIMIT n y la paginación keyset
+-- (fecha, id) < (:antesDe, :antesDeId) sin ordenar en memoria.
+
+
+CREATE INDEX IF NOT EXISTS idx_comentarios_actividad_keyset
+ON comentarios(fecha_creacion DESC, id_comentario DESC);
+
+
+CREATE INDEX IF NOT EXISTS idx_votos_actividad_keyset
+ON votos(fecha_voto DESC, id_voto DESC);
+
+
+SELECT indexname, tablename
+FROM pg_indexes
+WHERE indexname IN ('idx_comentarios_actividad_keyset', 'idx_votos_actividad_keyset');
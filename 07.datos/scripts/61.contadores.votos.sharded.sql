@@ -0,0 +1,93 @@
+-- Contadores de votos por (falla, tipo) repartidos en varias filas ("slots")
+--
+-- Un único contador por falla sería un punto de contención: todos los votos
+-- a una falla especial harían UPDATE sobre la misma fila y se serializarían
+-- en su bloqueo. Con 8 slots, cada voto suma en el slot id_usuario % 8 y
+-- hasta 8 transacciones pueden votar la misma falla a la vez.
+--
+-- Lectura: SUM(votos) agrupando por (id_falla, tipo_voto)
+-- Escritura: triggers sobre votos (cualquier camino de inserción/borrado)
+-- Compactación: compactar_contadores_votos() suma los slots en el slot 0
+--               (la lanza periódicamente el backend)
+
+
+CREATE TABLE IF NOT EXISTS contadores_votos (
+    id_falla INTEGER NOT NULL,
+    tipo_voto VARCHAR(30) NOT NULL,
+    slot SMALLINT NOT NULL,
+    votos BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (id_falla, tipo_voto, slot),
+
+    CONSTRAINT fk_contadores_votos_id_falla
+        FOREIGN KEY (id_falla) REFERENCES fallas(id_falla) ON DELETE CASCADE,
+
+    CONSTRAINT ck_contadores_votos_slot CHECK (slot BETWEEN 0 AND 7)
+);
+
+
+-- Sembrar con los votos existentes (todo en el slot 0)
+INSERT INTO contadores_votos (id_falla, tipo_voto, slot, votos)
+SELECT id_falla, tipo_voto::VARCHAR, 0, COUNT(*)
+FROM votos
+GROUP BY id_falla, tipo_voto
+ON CONFLICT (id_falla, tipo_voto, slot) DO NOTHING;
+
+
+CREATE OR REPLACE FUNCTION contadores_votos_sumar() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO contadores_votos (id_falla, tipo_voto, slot, votos)
+        VALUES (NEW.id_falla, NEW.tipo_voto::VARCHAR, NEW.id_usuario % 8, 1)
+        ON CONFLICT (id_falla, tipo_voto, slot)
+        DO UPDATE SET votos = contadores_votos.votos + 1;
+        RETURN NEW;
+    END IF;
+
+    -- DELETE: restar en el mismo slot que el INSERT o, si ya se compactó,
+    -- en el slot 0. Solo UPDATE: si la falla se está borrando (ON DELETE
+    -- CASCADE) sus contadores ya no existen y no hay nada que restar.
+    UPDATE contadores_votos SET votos = votos - 1
+    WHERE id_falla = OLD.id_falla AND tipo_voto = OLD.tipo_voto::VARCHAR AND slot = OLD.id_usuario % 8;
+    IF NOT FOUND THEN
+        UPDATE contadores_votos SET votos = votos - 1
+        WHERE id_falla = OLD.id_falla AND tipo_voto = OLD.tipo_voto::VARCHAR AND slot = 0;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+
+DROP TRIGGER IF EXISTS trg_votos_contadores ON votos;
+CREATE TRIGGER trg_votos_contadores
+AFTER INSERT OR DELETE ON votos
+FOR EACH ROW EXECUTE FUNCTION contadores_votos_sumar();
+
+
+-- Mover los slots 1..7 al slot 0 y borrar contadores a cero.
+-- Devuelve el número de contadores (falla, tipo) compactados.
+CREATE OR REPLACE FUNCTION compactar_contadores_votos() RETURNS INTEGER AS $$
+DECLARE
+    compactados INTEGER;
+BEGIN
+    WITH movidos AS (
+        DELETE FROM contadores_votos
+        WHERE slot <> 0
+        RETURNING id_falla, tipo_voto, votos
+    )
+    INSERT INTO contadores_votos (id_falla, tipo_voto, slot, votos)
+    SELECT id_falla, tipo_voto, 0, SUM(votos)
+    FROM movidos
+    GROUP BY id_falla, tipo_voto
+    ON CONFLICT (id_falla, tipo_voto, slot)
+    DO UPDATE SET votos = contadores_votos.votos + EXCLUDED.votos;
+    GET DIAGNOSTICS compactados = ROW_COUNT;
+
+    DELETE FROM contadores_votos WHERE slot = 0 AND votos = 0;
+    RETURN compactados;
+END;
+$$ LANGUAGE plpgsql;
+
+
+SELECT COUNT(*) AS contadores, COALESCE(SUM(votos), 0) AS votos
+FROM contadores_votos;
@@ -0,0 +1,34 @@
+-- Votos por falla, tipo y hora para las tendencias
+-- (/api/estadisticas/votos/tendencia)
+--
+-- El backend consolida cada hora ya cerrada recontándola sobre `votos`
+-- (solo esa hora, por idx_votos_fecha_voto). La consolidación es
+-- idempotente: volver a consolidar una hora la sobrescribe. Las ventanas
+-- largas (días) suman estas filas en lugar de recorrer `votos`; las de
+-- minutos y horas recientes se sirven desde memoria.
+
+
+CREATE TABLE IF NOT EXISTS votos_tendencia_hora (
+    hora TIMESTAMP WITH TIME ZONE NOT NULL,
+    id_falla INTEGER NOT NULL,
+    tipo_voto VARCHAR(30) NOT NULL,
+    votos BIGINT NOT NULL,
+
+    PRIMARY KEY (hora, id_falla, tipo_voto),
+
+    CONSTRAINT fk_votos_tendencia_hora_id_falla
+        FOREIGN KEY (id_falla) REFERENCES fallas(id_falla) ON DELETE CASCADE
+);
+
+
+-- Sembrar con el histórico existente
+INSERT INTO votos_tendencia_hora (hora, id_falla, tipo_voto, votos)
+SELECT date_trunc('hour', fecha_voto), id_falla, tipo_voto::VARCHAR, COUNT(*)
+FROM votos
+WHERE fecha_voto < date_trunc('hour', CURRENT_TIMESTAMP)
+GROUP BY 1, 2, 3
+ON CONFLICT (hora, id_falla, tipo_voto) DO NOTHING;
+
+
+SELECT COUNT(*) AS filas, COALESCE(SUM(votos), 0) AS votos, MAX(hora) AS ultima_hora
+FROM votos_tendencia_hora;
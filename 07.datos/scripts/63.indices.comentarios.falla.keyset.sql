@@ -0,0 +1,12 @@
+-- Índice para listar los comentarios de una falla (/api/comentarios?idFalla=)
+-- con paginación keyset (fecha, id) < (:fecha, :id) ORDER BY fecha DESC, id DESC.
+-- El listado global usa idx_comentarios_actividad_keyset (script 60).
+
+
+CREATE INDEX IF NOT EXISTS idx_comentarios_falla_keyset
+ON comentarios(id_falla, fecha_creacion DESC, id_comentario DESC);
+
+
+SELECT indexname, tablename
+FROM pg_indexes
+WHERE indexname = 'idx_comentarios_falla_keyset';
@@ -0,0 +1,30 @@
+-- Cache persistente de resultados de sentimiento por contenido
+--
+-- clave = SHA-256 (hex) de "<clasificador>\n<texto normalizado>", calculada
+-- en el backend (CacheSentimientoService): la normalización (minúsculas, sin
+-- acentos, espacios y signos repetidos colapsados) no se puede reproducir
+-- aquí, así que la tabla empieza vacía y se llena al analizar comentarios.
+--
+-- Una fila por texto distinto, no por comentario: "Preciosa!" escrito 500
+-- veces ocupa una fila. Se puede vaciar en cualquier momento (solo cuesta
+-- volver a llamar al modelo).
+
+
+CREATE TABLE IF NOT EXISTS sentimiento_cache (
+    clave CHAR(64) PRIMARY KEY,
+    etiqueta VARCHAR(20) NOT NULL,
+    confianza REAL NOT NULL,
+    clasificador VARCHAR(200) NOT NULL,
+    creado_en TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT ck_sentimiento_cache_etiqueta
+        CHECK (etiqueta IN ('positive', 'neutral', 'negative'))
+);
+
+
+-- Para purgar los resultados de un modelo que ya no se usa
+CREATE INDEX IF NOT EXISTS idx_sentimiento_cache_clasificador
+ON sentimiento_cache(clasificador);
+
+
+SELECT COUNT(*) AS entradas FROM sentimiento_cache;
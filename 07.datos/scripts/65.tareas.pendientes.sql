@@ -0,0 +1,34 @@
+-- Tareas en segundo plano que no cupieron en su ejecutor (o fallaron)
+--
+-- El backend ejecuta el trabajo asíncrono en ejecutores acotados por carga
+-- (EjecutoresConfig). Con la cola llena, las tareas que se pueden repetir
+-- (TareaDiferida: tipo + datos en texto) se guardan aquí en vez de perderse,
+-- y TareasPendientesService las reintenta cada app.async.reintentos-ms con
+-- backoff exponencial (proximo_intento) hasta app.async.max-intentos.
+--
+-- Tipos actuales:
+--   email.bienvenida   datos = "<email>\n<nombre>"
+--
+-- Vacía en condiciones normales: filas acumuladas indican un ejecutor
+-- infradimensionado o un servicio externo (SMTP) caído.
+
+
+CREATE TABLE IF NOT EXISTS tareas_pendientes (
+    id BIGSERIAL PRIMARY KEY,
+    ejecutor VARCHAR(50) NOT NULL,
+    tipo VARCHAR(100) NOT NULL,
+    datos TEXT NOT NULL,
+    intentos INTEGER NOT NULL DEFAULT 0,
+    creado_en TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    proximo_intento TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+
+-- El reintento reclama las filas vencidas por orden de llegada
+CREATE INDEX IF NOT EXISTS idx_tareas_pendientes_proximo
+ON tareas_pendientes(proximo_intento, id);
+
+
+SELECT tipo, COUNT(*) AS pendientes, MAX(intentos) AS max_intentos
+FROM tareas_pendientes
+GROUP BY tipo;
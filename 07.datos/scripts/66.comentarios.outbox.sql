@@ -0,0 +1,38 @@
+-- Outbox transaccional de comentarios pendientes de análisis de sentimiento
+--
+-- El backend (ComentarioService.crear) inserta aquí el comentario en la
+-- misma transacción que lo crea. OutboxComentariosService reserva filas por
+-- bloques con FOR UPDATE SKIP LOCKED (varias instancias no cogen la misma)
+-- adelantando disponible_en, y las encola en el pipeline de sentimiento.
+-- La fila se borra cuando el comentario tiene etiqueta; si no, vuelve a
+-- estar disponible al vencer la reserva.
+--
+-- Filas con muchos intentos: comentarios que el modelo no consigue etiquetar.
+
+
+CREATE TABLE IF NOT EXISTS comentarios_outbox (
+    id_comentario INTEGER PRIMARY KEY
+        REFERENCES comentarios(id_comentario) ON DELETE CASCADE,
+    creado_en TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    disponible_en TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    intentos INTEGER NOT NULL DEFAULT 0
+);
+
+
+-- La reserva busca las filas disponibles más antiguas
+CREATE INDEX IF NOT EXISTS idx_comentarios_outbox_disponible
+ON comentarios_outbox(disponible_en, id_comentario);
+
+
+-- Comentarios pendientes de antes del outbox
+INSERT INTO comentarios_outbox (id_comentario)
+SELECT id_comentario
+FROM comentarios
+WHERE (sentimiento IS NULL
+       OR BTRIM(sentimiento) = ''
+       OR LOWER(BTRIM(sentimiento)) NOT IN ('positive','neutral','negative'))
+  AND BTRIM(COALESCE(contenido, texto_comentario, '')) <> ''
+ON CONFLICT (id_comentario) DO NOTHING;
+
+
+SELECT COUNT(*) AS pendientes, MAX(intentos) AS max_intentos FROM comentarios_outbox;
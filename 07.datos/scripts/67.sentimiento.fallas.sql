@@ -0,0 +1,113 @@
+-- Agregado de sentimiento por falla mantenido por trigger
+--
+-- El panel de sentimiento y el ranking de fallas más queridas/criticadas
+-- leían con GROUP BY sobre comentarios en cada petición. Aquí se guarda
+-- una fila por falla con cuántos comentarios hay de cada etiqueta y cuántos
+-- están pendientes de analizar (sin etiqueta o con una etiqueta no válida).
+--
+-- Escritura: trigger sobre comentarios, así que cualquier camino cuenta
+-- (alta de comentario, etiqueta escrita por el pipeline de sentimiento,
+-- borrado, ON DELETE CASCADE de usuario o falla, SQL manual).
+-- Lectura: por PK (una falla) o recorriendo ~351 filas (ranking).
+--
+-- Los comentarios son pocos frente a los votos: una sola fila por falla
+-- basta (sin slots como en contadores_votos, script 61).
+
+
+CREATE TABLE IF NOT EXISTS sentimiento_fallas (
+    id_falla INTEGER PRIMARY KEY,
+    positivos INTEGER NOT NULL DEFAULT 0,
+    neutrales INTEGER NOT NULL DEFAULT 0,
+    negativos INTEGER NOT NULL DEFAULT 0,
+    pendientes INTEGER NOT NULL DEFAULT 0,
+    actualizado_en TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT fk_sentimiento_fallas_id_falla
+        FOREIGN KEY (id_falla) REFERENCES fallas(id_falla) ON DELETE CASCADE
+);
+
+
+-- Etiqueta de un comentario a efectos del agregado
+CREATE OR REPLACE FUNCTION sentimiento_categoria(valor VARCHAR) RETURNS VARCHAR AS $$
+    SELECT CASE
+        WHEN LOWER(BTRIM(valor)) IN ('positive', 'neutral', 'negative') THEN LOWER(BTRIM(valor))
+        ELSE 'pendiente'
+    END;
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- Sembrar con los comentarios existentes (rehace el agregado si ya existía)
+TRUNCATE sentimiento_fallas;
+INSERT INTO sentimiento_fallas (id_falla, positivos, neutrales, negativos, pendientes)
+SELECT id_falla,
+       COUNT(*) FILTER (WHERE sentimiento_categoria(sentimiento) = 'positive'),
+       COUNT(*) FILTER (WHERE sentimiento_categoria(sentimiento) = 'neutral'),
+       COUNT(*) FILTER (WHERE sentimiento_categoria(sentimiento) = 'negative'),
+       COUNT(*) FILTER (WHERE sentimiento_categoria(sentimiento) = 'pendiente')
+FROM comentarios
+WHERE id_falla IS NOT NULL
+GROUP BY id_falla;
+
+
+-- Sumar `delta` a la columna de `categoria` de una falla. Solo las sumas
+-- crean la fila: al restar por un ON DELETE CASCADE de la falla su fila
+-- ya no existe y no hay nada que restar.
+CREATE OR REPLACE FUNCTION sentimiento_fallas_sumar(p_falla INTEGER, p_categoria VARCHAR, p_delta INTEGER)
+RETURNS VOID AS $$
+BEGIN
+    IF p_delta > 0 THEN
+        INSERT INTO sentimiento_fallas (id_falla, positivos, neutrales, negativos, pendientes)
+        VALUES (p_falla,
+                CASE WHEN p_categoria = 'positive' THEN p_delta ELSE 0 END,
+                CASE WHEN p_categoria = 'neutral' THEN p_delta ELSE 0 END,
+                CASE WHEN p_categoria = 'negative' THEN p_delta ELSE 0 END,
+                CASE WHEN p_categoria = 'pendiente' THEN p_delta ELSE 0 END)
+        ON CONFLICT (id_falla) DO UPDATE
+        SET positivos = sentimiento_fallas.positivos + EXCLUDED.positivos,
+            neutrales = sentimiento_fallas.neutrales + EXCLUDED.neutrales,
+            negativos = sentimiento_fallas.negativos + EXCLUDED.negativos,
+            pendientes = sentimiento_fallas.pendientes + EXCLUDED.pendientes,
+            actualizado_en = NOW();
+    ELSE
+        UPDATE sentimiento_fallas
+        SET positivos = positivos + CASE WHEN p_categoria = 'positive' THEN p_delta ELSE 0 END,
+            neutrales = neutrales + CASE WHEN p_categoria = 'neutral' THEN p_delta ELSE 0 END,
+            negativos = negativos + CASE WHEN p_categoria = 'negative' THEN p_delta ELSE 0 END,
+            pendientes = pendientes + CASE WHEN p_categoria = 'pendiente' THEN p_delta ELSE 0 END,
+            actualizado_en = NOW()
+        WHERE id_falla = p_falla;
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+
+CREATE OR REPLACE FUNCTION sentimiento_fallas_actualizar() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND OLD.id_falla IS NOT DISTINCT FROM NEW.id_falla
+       AND sentimiento_categoria(OLD.sentimiento) = sentimiento_categoria(NEW.sentimiento) THEN
+        RETURN NEW;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.id_falla IS NOT NULL THEN
+        PERFORM sentimiento_fallas_sumar(OLD.id_falla, sentimiento_categoria(OLD.sentimiento), -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.id_falla IS NOT NULL THEN
+        PERFORM sentimiento_fallas_sumar(NEW.id_falla, sentimiento_categoria(NEW.sentimiento), 1);
+        RETURN NEW;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+
+DROP TRIGGER IF EXISTS trg_comentarios_sentimiento_fallas ON comentarios;
+CREATE TRIGGER trg_comentarios_sentimiento_fallas
+AFTER INSERT OR DELETE OR UPDATE OF sentimiento, id_falla ON comentarios
+FOR EACH ROW EXECUTE FUNCTION sentimiento_fallas_actualizar();
+
+
+SELECT COUNT(*) AS fallas,
+       SUM(positivos) AS positivos, SUM(neutrales) AS neutrales,
+       SUM(negativos) AS negativos, SUM(pendientes) AS pendientes
+FROM sentimiento_fallas;